@@ -0,0 +1,16 @@
+package com.wix.restaurants;
+
+import java.util.Map;
+
+/** Body of an order's accept request. */
+public class Acceptance {
+    /** Comment to the customer, or null for none. */
+    public final String comment;
+    /** The order's IDs in external systems (e.g. a point-of-sale's), by system, or null for none. */
+    public final Map<String, String> externalIds;
+
+    public Acceptance(String comment, Map<String, String> externalIds) {
+        this.comment = comment;
+        this.externalIds = externalIds;
+    }
+}
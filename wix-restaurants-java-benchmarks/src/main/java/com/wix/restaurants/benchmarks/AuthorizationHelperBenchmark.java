@@ -0,0 +1,72 @@
+package com.wix.restaurants.benchmarks;
+
+import com.openrest.v1_1.Chain;
+import com.openrest.v1_1.Distributor;
+import com.openrest.v1_1.Organization;
+import com.openrest.v1_1.Restaurant;
+import com.wix.restaurants.authorization.AuthorizationHelper;
+import com.wix.restaurants.authorization.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks every one of a user's roles against a restaurant, a chain and a distributor, as when filtering the
+ * organizations a user may manage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationHelperBenchmark {
+    @Param({"10", "1000"})
+    public int numRoles;
+
+    private Organization[] organizations;
+    private Role[] roles;
+
+    @Setup
+    public void setup() {
+        final List<Restaurant> restaurants = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) {
+            restaurants.add(Fixtures.restaurant("restaurant" + i));
+        }
+
+        final Chain chain = new Chain();
+        chain.id = restaurants.get(0).chainId;
+        chain.distributorId = restaurants.get(0).distributorId;
+        final Distributor distributor = new Distributor();
+        distributor.id = restaurants.get(0).distributorId;
+        organizations = new Organization[] {restaurants.get(0), chain, distributor};
+
+        final List<Role> roles = Fixtures.roles(restaurants, numRoles, 1L);
+        this.roles = roles.toArray(new Role[roles.size()]);
+    }
+
+    @Benchmark
+    public int hasManagerPermission() {
+        int permitted = 0;
+        for (Organization organization : organizations) {
+            for (Role role : roles) {
+                if (AuthorizationHelper.hasManagerPermission(organization, role)) {
+                    ++permitted;
+                }
+            }
+        }
+        return permitted;
+    }
+}
@@ -0,0 +1,57 @@
+package com.wix.restaurants.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH command line, but unless told otherwise also profiles GC
+ * allocation rates and writes the results as JSON to jmh-result.json, so runs of different releases can be compared.
+ *
+ * Fixture sizes are benchmark parameters, e.g. to price a single 50-item order:
+ * <pre>java -jar benchmarks.jar PriceCalculatorBenchmark -p numOrderItems=50</pre>
+ */
+public class Benchmarks {
+    public static final String defaultResultFile = "jmh-result.json";
+
+    private Benchmarks() {}
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        if (cmdOptions.shouldHelp()) {
+            cmdOptions.showHelp();
+            return;
+        }
+        if (cmdOptions.shouldListProfilers()) {
+            cmdOptions.listProfilers();
+            return;
+        }
+        if (cmdOptions.shouldListResultFormats()) {
+            cmdOptions.listResultFormats();
+            return;
+        }
+
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+        if (cmdOptions.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!cmdOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmdOptions.getResult().hasValue()) {
+            options.result(defaultResultFile);
+        }
+
+        final Runner runner = new Runner(options.build());
+        if (cmdOptions.shouldList()) {
+            runner.list();
+        } else if (cmdOptions.shouldListWithParams()) {
+            runner.listWithParams(cmdOptions);
+        } else {
+            runner.run();
+        }
+    }
+}
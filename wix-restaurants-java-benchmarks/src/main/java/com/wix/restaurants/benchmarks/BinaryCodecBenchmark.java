@@ -0,0 +1,173 @@
+package com.wix.restaurants.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openrest.v1_1.Menu;
+import com.openrest.v1_1.Order;
+import com.openrest.v1_1.RestaurantFullInfo;
+import com.wix.restaurants.codec.BinaryCodec;
+import com.wix.restaurants.json.Json;
+import com.wix.restaurants.reservations.Reservation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes an order, a reservation and a menu of numItems items with {@link BinaryCodec}, against
+ * serializing them with {@link Json} and parsing them with Jackson (configured like the client), as
+ * {@link JsonBenchmark} does.
+ *
+ * The encoded sizes, which JMH doesn't report, are printed by main, e.g.:
+ * <pre>java -cp benchmarks.jar com.wix.restaurants.benchmarks.BinaryCodecBenchmark --items=100,10000 --orderItems=10</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryCodecBenchmark {
+    @Param({"100", "10000"})
+    public int numItems;
+
+    @Param({"10"})
+    public int numOrderItems;
+
+    @Param({"2"})
+    public int numLocales;
+
+    private final BinaryCodec codec = new BinaryCodec();
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private Order order;
+    private Reservation reservation;
+    private Menu menu;
+    private String orderJson;
+    private String reservationJson;
+    private String menuJson;
+    private byte[] encodedOrder;
+    private byte[] encodedReservation;
+    private byte[] encodedMenu;
+
+    @Setup
+    public void setup() {
+        final RestaurantFullInfo full = Fixtures.restaurantFullInfo(numItems, numLocales, 1L);
+        order = Fixtures.order(full, numOrderItems, 2L);
+        reservation = Fixtures.reservation(full.restaurant, 3L);
+        menu = full.menu;
+        orderJson = Json.stringify(order);
+        reservationJson = Json.stringify(reservation);
+        menuJson = Json.stringify(menu);
+        encodedOrder = codec.encode(order);
+        encodedReservation = codec.encode(reservation);
+        encodedMenu = codec.encode(menu);
+    }
+
+    @Benchmark
+    public String stringifyOrder() {
+        return Json.stringify(order);
+    }
+
+    @Benchmark
+    public byte[] encodeOrder() {
+        return codec.encode(order);
+    }
+
+    @Benchmark
+    public Order parseOrder() throws IOException {
+        return mapper.readValue(orderJson, Order.class);
+    }
+
+    @Benchmark
+    public Order decodeOrder() {
+        return codec.decode(encodedOrder, Order.class);
+    }
+
+    @Benchmark
+    public String stringifyReservation() {
+        return Json.stringify(reservation);
+    }
+
+    @Benchmark
+    public byte[] encodeReservation() {
+        return codec.encode(reservation);
+    }
+
+    @Benchmark
+    public Reservation parseReservation() throws IOException {
+        return mapper.readValue(reservationJson, Reservation.class);
+    }
+
+    @Benchmark
+    public Reservation decodeReservation() {
+        return codec.decode(encodedReservation, Reservation.class);
+    }
+
+    @Benchmark
+    public String stringifyMenu() {
+        return Json.stringify(menu);
+    }
+
+    @Benchmark
+    public byte[] encodeMenu() {
+        return codec.encode(menu);
+    }
+
+    @Benchmark
+    public Menu parseMenu() throws IOException {
+        return mapper.readValue(menuJson, Menu.class);
+    }
+
+    @Benchmark
+    public Menu decodeMenu() {
+        return codec.decode(encodedMenu, Menu.class);
+    }
+
+    public static void main(String[] args) {
+        String[] numItemsValues = {"100", "10000"};
+        int numOrderItems = 10;
+        int numLocales = 2;
+        for (String arg : args) {
+            if (arg.startsWith("--items=")) {
+                numItemsValues = arg.substring("--items=".length()).split(",");
+            } else if (arg.startsWith("--orderItems=")) {
+                numOrderItems = Integer.parseInt(arg.substring("--orderItems=".length()));
+            } else if (arg.startsWith("--locales=")) {
+                numLocales = Integer.parseInt(arg.substring("--locales=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+
+        System.out.println(String.format("%-12s %8s %12s %12s %8s", "object", "items", "JSON bytes", "binary bytes", "ratio"));
+        for (String numItemsValue : numItemsValues) {
+            final BinaryCodecBenchmark benchmark = new BinaryCodecBenchmark();
+            benchmark.numItems = Integer.parseInt(numItemsValue);
+            benchmark.numOrderItems = numOrderItems;
+            benchmark.numLocales = numLocales;
+            benchmark.setup();
+            benchmark.printSize("Order", benchmark.orderJson, benchmark.encodedOrder);
+            benchmark.printSize("Reservation", benchmark.reservationJson, benchmark.encodedReservation);
+            benchmark.printSize("Menu", benchmark.menuJson, benchmark.encodedMenu);
+        }
+    }
+
+    private void printSize(String object, String json, byte[] encoded) {
+        final int jsonLength = json.getBytes(StandardCharsets.UTF_8).length;
+        System.out.println(String.format("%-12s %8d %12d %12d %8.2f", object, numItems, jsonLength, encoded.length,
+                (double) encoded.length / jsonLength));
+    }
+}
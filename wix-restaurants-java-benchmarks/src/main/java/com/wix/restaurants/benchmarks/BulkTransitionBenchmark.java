@@ -0,0 +1,136 @@
+package com.wix.restaurants.benchmarks;
+
+import com.openrest.v1_1.Order;
+import com.wix.restaurants.DefaultAsyncWixRestaurantsClient;
+import com.wix.restaurants.WixRestaurantsRuntime;
+import com.wix.restaurants.WixRestaurantsRuntimeSettings;
+import com.wix.restaurants.bulk.BulkResult;
+import com.wix.restaurants.paging.PagingSettings;
+import com.wix.restaurants.testkit.ApiSimulator;
+import com.wix.restaurants.testkit.SimulatorSettings;
+import scala.concurrent.duration.Duration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares accepting a backlog of orders one by one (a blocking loop over acceptOrder) with acceptOrders, at several
+ * parallelisms, against an embedded {@link ApiSimulator} with a fixed latency:
+ * <pre>java -cp benchmarks.jar com.wix.restaurants.benchmarks.BulkTransitionBenchmark --orders=300 --latencyMs=50 --parallelism=1,4,8,16</pre>
+ *
+ * Every mode accepts its own orders, so none of them is accepted twice. Requests beyond the runtime's maxConnections
+ * (also an option, as is maxOpenRequests) wait in its connection pool, so parallelism past it only pays off once it
+ * is raised as well. About a fifth of the simulated orders are canceled, and fail to be accepted.
+ */
+public class BulkTransitionBenchmark {
+    private static final int warmupOrders = 20;
+
+    private final Map<String, String> options;
+
+    public BulkTransitionBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public void run() throws Exception {
+        final int numOrders = intOption("orders", 300);
+        final int latencyMs = intOption("latencyMs", 50);
+        final List<Integer> parallelisms = new ArrayList<>();
+        for (String parallelism : options.getOrDefault("parallelism", "1,4,8,16").split(",")) {
+            parallelisms.add(Integer.parseInt(parallelism));
+        }
+
+        final SimulatorSettings simulatorSettings = SimulatorSettings.defaults()
+                .withData(1, 10, numOrders * (parallelisms.size() + 1) + warmupOrders, 0)
+                .withLatency(Duration.create(latencyMs, TimeUnit.MILLISECONDS), Duration.Zero());
+        final WixRestaurantsRuntimeSettings runtimeSettings = WixRestaurantsRuntimeSettings.defaults()
+                .withMaxConnections(intOption("maxConnections", WixRestaurantsRuntimeSettings.defaults().maxConnections()))
+                .withMaxOpenRequests(intOption("maxOpenRequests", WixRestaurantsRuntimeSettings.defaults().maxOpenRequests()));
+
+        try (ApiSimulator simulator = new ApiSimulator(simulatorSettings);
+             WixRestaurantsRuntime runtime = new WixRestaurantsRuntime(runtimeSettings)) {
+            final String restaurantId = simulator.getRestaurantIds().get(0);
+            final String accessToken = simulator.getAccessToken(restaurantId);
+            final List<String> orderIds = new ArrayList<>(simulator.getOrderIds(restaurantId));
+            Collections.shuffle(orderIds, new java.util.Random(0L));
+
+            final DefaultAsyncWixRestaurantsClient client = new DefaultAsyncWixRestaurantsClient(
+                    simulator.url(), runtime, null, PagingSettings.defaults(), null, false, null, null, null, null,
+                    null, null, null);
+
+            System.out.println("Accepting " + numOrders + " orders per mode, at " + latencyMs + "ms latency, with " +
+                    runtimeSettings.maxConnections() + " connections and " + runtimeSettings.maxOpenRequests() +
+                    " open requests");
+
+            // Warms up the connection pool and the JIT, on orders no mode uses
+            final List<String> warmup = orderIds.subList(orderIds.size() - warmupOrders, orderIds.size());
+            client.acceptOrders(accessToken, restaurantId, withoutExternalIds(warmup)).toCompletableFuture().get();
+
+            final Map<String, Long> millisByMode = new LinkedHashMap<>();
+            int offset = numOrders;
+            final List<String> sequentialIds = orderIds.subList(offset - numOrders, offset);
+            final long sequentialStartNanos = System.nanoTime();
+            int sequentialFailures = 0;
+            for (String orderId : sequentialIds) {
+                try {
+                    client.acceptOrder(accessToken, restaurantId, orderId, null).toCompletableFuture().get();
+                } catch (ExecutionException e) {
+                    sequentialFailures++;
+                }
+            }
+            millisByMode.put("sequential (" + sequentialFailures + " failed)", (System.nanoTime() - sequentialStartNanos) / 1000000);
+
+            for (int parallelism : parallelisms) {
+                offset += numOrders;
+                final List<String> ids = orderIds.subList(offset - numOrders, offset);
+                final long startNanos = System.nanoTime();
+                final Map<String, BulkResult<Order>> results =
+                        client.acceptOrders(accessToken, restaurantId, withoutExternalIds(ids), parallelism).toCompletableFuture().get();
+                final long millis = (System.nanoTime() - startNanos) / 1000000;
+                int failures = 0;
+                for (BulkResult<Order> result : results.values()) {
+                    if (!result.isSuccess()) {
+                        failures++;
+                    }
+                }
+                millisByMode.put("acceptOrders, parallelism " + parallelism + " (" + failures + " failed)", millis);
+            }
+            client.close();
+
+            System.out.println();
+            for (Map.Entry<String, Long> entry : millisByMode.entrySet()) {
+                System.out.println(String.format("%-45s %8d ms", entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    private static Map<String, Map<String, String>> withoutExternalIds(List<String> orderIds) {
+        final Map<String, Map<String, String>> externalIdsByOrderId = new LinkedHashMap<>();
+        for (String orderId : orderIds) {
+            externalIdsByOrderId.put(orderId, null);
+        }
+        return externalIdsByOrderId;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        final String value = options.get(name);
+        return (value != null) ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /** Options are given as --name=value, e.g. --orders=300. */
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new BulkTransitionBenchmark(options).run();
+    }
+}
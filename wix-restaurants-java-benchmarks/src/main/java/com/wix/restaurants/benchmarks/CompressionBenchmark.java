@@ -0,0 +1,226 @@
+package com.wix.restaurants.benchmarks;
+
+import com.openrest.v1_1.Menu;
+import com.wix.restaurants.DefaultAsyncWixRestaurantsClient;
+import com.wix.restaurants.WixRestaurantsRuntime;
+import com.wix.restaurants.compression.CompressionSettings;
+import com.wix.restaurants.json.Json;
+import com.wix.restaurants.paging.PagingSettings;
+import com.wix.restaurants.testkit.ApiSimulator;
+import com.wix.restaurants.testkit.SimulatorSettings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares uploading (setMenu) and downloading (getMenu) a large menu without compression and with the default
+ * {@link CompressionSettings}, against an embedded {@link ApiSimulator} behind a link throttled to a given bandwidth:
+ * <pre>java -cp benchmarks.jar com.wix.restaurants.benchmarks.CompressionBenchmark --menuItems=2000 --locales=3 --bandwidthMbps=10 --runs=5</pre>
+ *
+ * The link is a TCP proxy between the client and the simulator, which counts the bytes it forwards (HTTP headers
+ * included), and delays them to the bandwidth (0 for unthrottled). Times are medians of the runs, after a warmup; an
+ * upload's includes receiving the menu that setMenu returns.
+ */
+public class CompressionBenchmark {
+    private final Map<String, String> options;
+
+    public CompressionBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public void run() throws Exception {
+        final int menuItems = intOption("menuItems", 2000);
+        final int locales = intOption("locales", 3);
+        final int bandwidthMbps = intOption("bandwidthMbps", 10);
+        final int runs = intOption("runs", 5);
+
+        final Menu menu = Fixtures.menu(menuItems, locales, 0L);
+        System.out.println("Menu of " + menuItems + " items in " + locales + " locales: " +
+                Json.stringify(menu).getBytes(StandardCharsets.UTF_8).length / 1024 + "KB of JSON, over " +
+                ((bandwidthMbps > 0) ? bandwidthMbps + " Mbit/s" : "an unthrottled link"));
+        System.out.println();
+
+        try (WixRestaurantsRuntime runtime = new WixRestaurantsRuntime();
+             ApiSimulator simulator = new ApiSimulator(SimulatorSettings.defaults().withData(1, 10, 0, 0), runtime);
+             ThrottledLink link = new ThrottledLink(URI.create(simulator.url()).getPort(), bandwidthMbps)) {
+            final String restaurantId = simulator.getRestaurantIds().get(0);
+            final String accessToken = simulator.getAccessToken(restaurantId);
+            final String url = simulator.url().replace(":" + URI.create(simulator.url()).getPort() + "/", ":" + link.port() + "/");
+
+            System.out.println(String.format("%-14s %10s %10s %10s %10s", "Mode", "Sent", "Upload", "Received", "Download"));
+            for (String mode : new String[] {"uncompressed", "gzip"}) {
+                final CompressionSettings compressionSettings = mode.equals("gzip") ? CompressionSettings.defaults() : null;
+                final DefaultAsyncWixRestaurantsClient client = new DefaultAsyncWixRestaurantsClient(
+                        url, runtime, null, PagingSettings.defaults(), null, false, compressionSettings, null, null, null,
+                        null, null, null);
+
+                // Warms up the connection and the JIT
+                client.setMenu(accessToken, restaurantId, menu).toCompletableFuture().get();
+                client.getMenu(accessToken, restaurantId).toCompletableFuture().get();
+
+                final List<Long> uploadMillis = new ArrayList<>();
+                final List<Long> downloadMillis = new ArrayList<>();
+                long uploadBytes = 0L;
+                long downloadBytes = 0L;
+                for (int i = 0; i < runs; ++i) {
+                    link.reset();
+                    long startNanos = System.nanoTime();
+                    client.setMenu(accessToken, restaurantId, menu).toCompletableFuture().get();
+                    uploadMillis.add((System.nanoTime() - startNanos) / 1000000);
+                    uploadBytes = link.upstreamBytes();
+
+                    link.reset();
+                    startNanos = System.nanoTime();
+                    client.getMenu(accessToken, restaurantId).toCompletableFuture().get();
+                    downloadMillis.add((System.nanoTime() - startNanos) / 1000000);
+                    downloadBytes = link.downstreamBytes();
+                }
+                client.close();
+
+                System.out.println(String.format("%-14s %8dKB %8dms %8dKB %8dms", mode,
+                        uploadBytes / 1024, median(uploadMillis), downloadBytes / 1024, median(downloadMillis)));
+            }
+        }
+    }
+
+    private static long median(List<Long> values) {
+        final List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        final String value = options.get(name);
+        return (value != null) ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /**
+     * Forwards local connections to a port on the loopback interface, counting the bytes forwarded each way, and
+     * delaying them as a link of the given bandwidth (shared by all connections, separately in each direction) would.
+     */
+    private static class ThrottledLink implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final int targetPort;
+        private final double nanosPerByte;
+        private final AtomicLong upstreamBytes = new AtomicLong();
+        private final AtomicLong downstreamBytes = new AtomicLong();
+        private final Throttle upstream = new Throttle();
+        private final Throttle downstream = new Throttle();
+
+        ThrottledLink(int targetPort, int bandwidthMbps) throws IOException {
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            this.targetPort = targetPort;
+            this.nanosPerByte = (bandwidthMbps > 0) ? 8000.0 / bandwidthMbps : 0.0;
+            daemon("throttled-link-accept", this::accept).start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        long upstreamBytes() {
+            return upstreamBytes.get();
+        }
+
+        long downstreamBytes() {
+            return downstreamBytes.get();
+        }
+
+        void reset() {
+            upstreamBytes.set(0L);
+            downstreamBytes.set(0L);
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void accept() {
+            try {
+                while (true) {
+                    final Socket client = serverSocket.accept();
+                    final Socket server = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                    client.setTcpNoDelay(true);
+                    server.setTcpNoDelay(true);
+                    daemon("throttled-link-up", () -> pump(client, server, upstreamBytes, upstream)).start();
+                    daemon("throttled-link-down", () -> pump(server, client, downstreamBytes, downstream)).start();
+                }
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+
+        private void pump(Socket from, Socket to, AtomicLong counter, Throttle throttle) {
+            final byte[] buffer = new byte[8 * 1024];
+            try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    throttle.await(read);
+                    out.write(buffer, 0, read);
+                    counter.addAndGet(read);
+                }
+            } catch (IOException | InterruptedException e) {
+                // Either side closed
+            } finally {
+                closeQuietly(from);
+                closeQuietly(to);
+            }
+        }
+
+        /** Delays each chunk until the link would have carried it, after the chunks before it. */
+        private class Throttle {
+            private long freeAtNanos = System.nanoTime();
+
+            void await(int bytes) throws InterruptedException {
+                final long sendAtNanos;
+                synchronized (this) {
+                    freeAtNanos = Math.max(freeAtNanos, System.nanoTime()) + (long) (bytes * nanosPerByte);
+                    sendAtNanos = freeAtNanos;
+                }
+                final long delayNanos = sendAtNanos - System.nanoTime();
+                if (delayNanos > 0) {
+                    Thread.sleep(delayNanos / 1000000, (int) (delayNanos % 1000000));
+                }
+            }
+        }
+
+        private static Thread daemon(String name, Runnable runnable) {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        }
+
+        private static void closeQuietly(Socket socket) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /** Options are given as --name=value, e.g. --menuItems=2000. */
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new CompressionBenchmark(options).run();
+    }
+}
@@ -0,0 +1,248 @@
+package com.wix.restaurants.benchmarks;
+
+import com.openrest.v1_1.Chain;
+import com.openrest.v1_1.Distributor;
+import com.openrest.v1_1.Item;
+import com.openrest.v1_1.Menu;
+import com.openrest.v1_1.MenuSection;
+import com.openrest.v1_1.Order;
+import com.openrest.v1_1.OrderItem;
+import com.openrest.v1_1.Restaurant;
+import com.openrest.v1_1.RestaurantFullInfo;
+import com.openrest.v1_1.Variation;
+import com.wix.restaurants.authorization.Role;
+import com.wix.restaurants.authorization.Roles;
+import com.wix.restaurants.builders.ContactBuilder;
+import com.wix.restaurants.i18n.Locale;
+import com.wix.restaurants.i18n.LocalizedString;
+import com.wix.restaurants.orders.builders.OrderBuilder;
+import com.wix.restaurants.orders.builders.OrderItemBuilder;
+import com.wix.restaurants.reservations.Reservation;
+import com.wix.restaurants.reservations.Statuses;
+import com.wix.restaurants.reservations.builders.ReservationBuilder;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic, deterministic fixtures for the benchmarks.
+ *
+ * Lists are ArrayLists, like the ones Jackson produces when the same objects are retrieved from the API.
+ */
+public class Fixtures {
+    private static final int itemsPerSection = 25;
+    private static final int sectionsPerMenu = 10;
+    private static final int variationsPerItem = 2;
+    private static final int choicesPerVariation = 6;
+
+    /** Locales used in localized strings, the first being the restaurant's default. */
+    public static final Locale[] locales = {
+            locale("en", "US"), locale("he", "IL"), locale("fr", "FR"), locale("de", "DE"), locale("es", "ES"),
+            locale("it", "IT"), locale("ru", "RU"), locale("ja", "JP"), locale("zh", "CN"), locale("pt", "BR")
+    };
+
+    private Fixtures() {}
+
+    /**
+     * A menu with the given number of items, a fifth of which are choices ("extras") offered in the others'
+     * variations. Items are grouped into sections of 25, and sections into top-level menus of 10. Titles are
+     * localized to the given number of {@link #locales}.
+     */
+    public static Menu menu(int numItems, int numLocales, long seed) {
+        final Random random = new Random(seed);
+        final int numExtras = Math.max(choicesPerVariation, numItems / 5);
+
+        final Menu menu = new Menu();
+        menu.items = new ArrayList<>(numItems);
+        for (int i = 0; i < numExtras; ++i) {
+            menu.items.add(item("extra" + i, 50 * random.nextInt(10), numLocales));
+        }
+        for (int i = numExtras; i < numItems; ++i) {
+            final Item item = item("item" + i, 500 + 50 * random.nextInt(60), numLocales);
+            item.variations = new ArrayList<>(variationsPerItem);
+            for (int v = 0; v < variationsPerItem; ++v) {
+                final Variation variation = new Variation();
+                variation.title = localizedString("Variation " + v, numLocales);
+                variation.itemIds = new ArrayList<>(choicesPerVariation);
+                variation.minNumAllowed = 0;
+                variation.maxNumAllowed = choicesPerVariation;
+                for (int c = 0; c < choicesPerVariation; ++c) {
+                    final String choiceId = "extra" + random.nextInt(numExtras);
+                    variation.itemIds.add(choiceId);
+                    if (random.nextBoolean()) {
+                        variation.prices.put(choiceId, 50 * random.nextInt(10));
+                    }
+                }
+                item.variations.add(variation);
+            }
+            menu.items.add(item);
+        }
+
+        menu.sections = new ArrayList<>();
+        MenuSection topLevel = null;
+        MenuSection section = null;
+        for (int i = numExtras; i < numItems; ++i) {
+            if ((section == null) || (section.itemIds.size() == itemsPerSection)) {
+                if ((topLevel == null) || (topLevel.children.size() == sectionsPerMenu)) {
+                    topLevel = section("menu" + menu.sections.size(), numLocales);
+                    menu.sections.add(topLevel);
+                }
+                section = section(topLevel.id + "-section" + topLevel.children.size(), numLocales);
+                topLevel.children.add(section);
+            }
+            section.itemIds.add("item" + i);
+        }
+
+        return menu;
+    }
+
+    public static Menu menu(int numItems, long seed) {
+        return menu(numItems, 1, seed);
+    }
+
+    /**
+     * Order items picked at random from the menu's non-extra items, with one choice per variation, built (and priced)
+     * by {@link OrderItemBuilder}.
+     */
+    public static List<OrderItem> orderItems(Menu menu, int numOrderItems, long seed) {
+        final Random random = new Random(seed);
+        final Map<String, Item> itemsById = new HashMap<>(menu.items.size() * 2);
+        final List<Item> orderable = new ArrayList<>();
+        for (Item item : menu.items) {
+            itemsById.put(item.id, item);
+            if (!item.variations.isEmpty()) {
+                orderable.add(item);
+            }
+        }
+
+        final List<OrderItem> orderItems = new ArrayList<>(numOrderItems);
+        for (int i = 0; i < numOrderItems; ++i) {
+            final Item item = orderable.get(random.nextInt(orderable.size()));
+            final OrderItemBuilder builder = new OrderItemBuilder(item).setCount(1 + random.nextInt(3));
+            for (int v = 0; v < item.variations.size(); ++v) {
+                final Variation variation = item.variations.get(v);
+                final Item choice = itemsById.get(variation.itemIds.get(random.nextInt(variation.itemIds.size())));
+                builder.addChoice(v, new OrderItemBuilder(choice, variation).build());
+            }
+            orderItems.add(builder.build());
+        }
+        return orderItems;
+    }
+
+    /** An order for the given restaurant, of items picked from its menu. */
+    public static Order order(RestaurantFullInfo full, int numOrderItems, long seed) {
+        final OrderBuilder builder = new OrderBuilder()
+                .setDeveloper("benchmarks")
+                .setRestaurant(full.restaurant.id)
+                .setLocale(full.restaurant.locale)
+                .setCurrency(Currency.getInstance(full.restaurant.currency))
+                .setComment("Please ring the bell");
+        for (OrderItem orderItem : orderItems(full.menu, numOrderItems, seed)) {
+            builder.addItem(orderItem);
+        }
+        return builder.build();
+    }
+
+    /** A pending reservation at the given restaurant, with a contact and a comment. */
+    public static Reservation reservation(Restaurant restaurant, long seed) {
+        final Random random = new Random(seed);
+        final Reservation reservation = new ReservationBuilder()
+                .setDeveloper("benchmarks")
+                .setRestaurant(restaurant.id)
+                .setLocale(restaurant.locale)
+                .setContact(new ContactBuilder()
+                        .setFirstName("First" + seed)
+                        .setLastName("Last" + seed)
+                        .setEmail("customer" + seed + "@example.org")
+                        .setPhone("+1 555 01" + (seed % 100))
+                        .build())
+                .setPartySize(1 + random.nextInt(8))
+                .setTime(new Date(1500000000000L + random.nextInt(7 * 24) * 3600000L))
+                .setStatus(Statuses.pending)
+                .setComment("A table by the window, please")
+                .build();
+        reservation.id = "reservation" + seed;
+        reservation.created = new Date(1500000000000L);
+        reservation.modified = reservation.created;
+        return reservation;
+    }
+
+    public static Restaurant restaurant(String id) {
+        final Restaurant restaurant = new Restaurant();
+        restaurant.id = id;
+        restaurant.chainId = "chain-of-" + id;
+        restaurant.distributorId = "distributor-of-" + id;
+        restaurant.locale = locales[0];
+        restaurant.currency = "USD";
+        return restaurant;
+    }
+
+    public static RestaurantFullInfo restaurantFullInfo(int numItems, int numLocales, long seed) {
+        final RestaurantFullInfo full = new RestaurantFullInfo();
+        full.restaurant = restaurant("restaurant" + seed);
+        full.menu = menu(numItems, numLocales, seed);
+        return full;
+    }
+
+    /**
+     * Roles of users across the given restaurants' organizations: a mix of restaurant, chain and distributor roles
+     * (a quarter of which are employees rather than managers), of which about half belong to the given restaurants.
+     */
+    public static List<Role> roles(List<Restaurant> restaurants, int numRoles, long seed) {
+        final Random random = new Random(seed);
+        final List<Role> roles = new ArrayList<>(numRoles);
+        for (int i = 0; i < numRoles; ++i) {
+            final Restaurant restaurant = random.nextBoolean() ?
+                    restaurants.get(random.nextInt(restaurants.size())) : restaurant("other" + i);
+            final boolean employee = (random.nextInt(4) == 0);
+            switch (random.nextInt(3)) {
+                case 0:
+                    roles.add(new Role(restaurant.id, Restaurant.TYPE, employee ? Roles.employee : Roles.manager));
+                    break;
+                case 1:
+                    roles.add(new Role(restaurant.chainId, Chain.TYPE, employee ? Roles.employee : Roles.manager));
+                    break;
+                default:
+                    roles.add(new Role(restaurant.distributorId, Distributor.TYPE, employee ? Roles.employee : Roles.distributor));
+                    break;
+            }
+        }
+        return roles;
+    }
+
+    /** The given text, translated to the first numLocales {@link #locales}. */
+    public static LocalizedString localizedString(String text, int numLocales) {
+        final LocalizedString localizedString = new LocalizedString();
+        for (int i = 0; i < numLocales; ++i) {
+            localizedString.put(locales[i], text + " (" + locales[i] + ")");
+        }
+        return localizedString;
+    }
+
+    private static Locale locale(String language, String country) {
+        return Locale.fromJavaLocale(new java.util.Locale(language, country));
+    }
+
+    private static Item item(String id, int price, int numLocales) {
+        final Item item = new Item();
+        item.id = id;
+        item.title = localizedString("Item " + id, numLocales);
+        item.price = price;
+        item.variations = new ArrayList<>();
+        return item;
+    }
+
+    private static MenuSection section(String id, int numLocales) {
+        final MenuSection section = new MenuSection();
+        section.id = id;
+        section.title = localizedString("Section " + id, numLocales);
+        section.children = new ArrayList<>();
+        section.itemIds = new ArrayList<>();
+        return section;
+    }
+}
@@ -0,0 +1,91 @@
+package com.wix.restaurants.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openrest.v1_1.Menu;
+import com.openrest.v1_1.Order;
+import com.openrest.v1_1.RestaurantFullInfo;
+import com.wix.restaurants.json.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes (with {@link Json}) and parses (with Jackson, configured like the client) the largest payloads the
+ * client handles: an order, a menu and a restaurant's full info, whose menu has numItems items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"100", "10000"})
+    public int numItems;
+
+    @Param({"10"})
+    public int numOrderItems;
+
+    @Param({"2"})
+    public int numLocales;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private RestaurantFullInfo full;
+    private Order order;
+    private String fullJson;
+    private String menuJson;
+    private String orderJson;
+
+    @Setup
+    public void setup() {
+        full = Fixtures.restaurantFullInfo(numItems, numLocales, 1L);
+        order = Fixtures.order(full, numOrderItems, 2L);
+        fullJson = Json.stringify(full);
+        menuJson = Json.stringify(full.menu);
+        orderJson = Json.stringify(order);
+    }
+
+    @Benchmark
+    public String stringifyOrder() {
+        return Json.stringify(order);
+    }
+
+    @Benchmark
+    public Order parseOrder() throws IOException {
+        return mapper.readValue(orderJson, Order.class);
+    }
+
+    @Benchmark
+    public String stringifyMenu() {
+        return Json.stringify(full.menu);
+    }
+
+    @Benchmark
+    public Menu parseMenu() throws IOException {
+        return mapper.readValue(menuJson, Menu.class);
+    }
+
+    @Benchmark
+    public String stringifyRestaurantFullInfo() {
+        return Json.stringify(full);
+    }
+
+    @Benchmark
+    public RestaurantFullInfo parseRestaurantFullInfo() throws IOException {
+        return mapper.readValue(fullJson, RestaurantFullInfo.class);
+    }
+}
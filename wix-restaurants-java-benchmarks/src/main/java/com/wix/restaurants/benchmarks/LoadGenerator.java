@@ -0,0 +1,348 @@
+package com.wix.restaurants.benchmarks;
+
+import com.openrest.v1_1.Order;
+import com.wix.restaurants.DefaultAsyncWixRestaurantsClient;
+import com.wix.restaurants.WixRestaurantsRuntime;
+import com.wix.restaurants.WixRestaurantsRuntimeSettings;
+import com.wix.restaurants.metrics.EndpointStats;
+import com.wix.restaurants.metrics.LatencyHistogram;
+import com.wix.restaurants.metrics.RequestMetrics;
+import com.wix.restaurants.paging.PagingSettings;
+import com.wix.restaurants.resilience.ResilienceSettings;
+import com.wix.restaurants.testkit.ApiSimulator;
+import com.wix.restaurants.testkit.SimulatorSettings;
+import scala.concurrent.duration.Duration;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Drives a client at a fixed request rate, and reports throughput, latency percentiles, and thread and heap usage.
+ *
+ * Load is open-loop: calls are started on schedule whether or not earlier ones have completed (up to maxOutstanding,
+ * beyond which they are counted as dropped), so a slow client or API shows up as latency rather than as a lower
+ * request rate. Latency is measured per call, from start to completion, so it includes client-side queueing and
+ * retries. The per-endpoint table below it comes from the client's {@link RequestMetrics}, i.e. per HTTP attempt.
+ *
+ * Calls are a read-heavy mix, like a point-of-sale integration polling its restaurants: restaurant info, menus, new
+ * orders, unhandled reservations and single orders, for random restaurants.
+ *
+ * Runs against an embedded {@link ApiSimulator} unless given a url (along with restaurantIds and an accessToken):
+ * <pre>java -cp benchmarks.jar com.wix.restaurants.benchmarks.LoadGenerator --rate=500 --duration=60 --latencyMs=20</pre>
+ *
+ * Other options: warmup (seconds), maxOutstanding, retries (true to enable the default ResilienceSettings),
+ * maxConnections and maxOpenRequests (of the client's runtime), and the simulator's restaurants, menuItems, orders,
+ * reservations, jitterMs and errorRate.
+ */
+public class LoadGenerator {
+    private static final String[] operationNames = {
+            "retrieveRestaurantInfo", "getMenu", "retrieveNewOrders", "retrieveUnhandledReservations", "retrieveOrderAsRestaurant"
+    };
+    private static final int[] operationWeights = {20, 20, 30, 15, 15};
+
+    private final Map<String, String> options;
+    private final int rate;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int maxOutstanding;
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[operationNames.length];
+    private final LongAdder[] errors = new LongAdder[operationNames.length];
+    private final ConcurrentHashMap<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong peakHeapBytes = new AtomicLong();
+
+    public LoadGenerator(Map<String, String> options) {
+        this.options = options;
+        rate = intOption("rate", 200);
+        durationSeconds = intOption("duration", 30);
+        warmupSeconds = intOption("warmup", 10);
+        maxOutstanding = intOption("maxOutstanding", 1000);
+        reset();
+    }
+
+    public void run() throws Exception {
+        final ApiSimulator simulator;
+        final String apiUrl;
+        final String accessToken;
+        final List<String> restaurantIds;
+        if (options.containsKey("url")) {
+            simulator = null;
+            apiUrl = options.get("url");
+            accessToken = requiredOption("accessToken");
+            restaurantIds = Arrays.asList(requiredOption("restaurantIds").split(","));
+        } else {
+            final SimulatorSettings settings = SimulatorSettings.defaults()
+                    .withData(intOption("restaurants", 10), intOption("menuItems", 200), intOption("orders", 200), intOption("reservations", 50))
+                    .withLatency(Duration.create(intOption("latencyMs", 5), TimeUnit.MILLISECONDS),
+                            Duration.create(intOption("jitterMs", 5), TimeUnit.MILLISECONDS))
+                    .withErrors(Double.parseDouble(options.getOrDefault("errorRate", "0")), SimulatorSettings.defaults().errorType());
+            simulator = new ApiSimulator(settings);
+            apiUrl = simulator.url();
+            accessToken = simulator.getAdminAccessToken();
+            restaurantIds = simulator.getRestaurantIds();
+        }
+
+        final RequestMetrics metrics = new RequestMetrics();
+        final WixRestaurantsRuntimeSettings runtimeSettings = WixRestaurantsRuntimeSettings.defaults()
+                .withMaxConnections(intOption("maxConnections", WixRestaurantsRuntimeSettings.defaults().maxConnections()))
+                .withMaxOpenRequests(intOption("maxOpenRequests", WixRestaurantsRuntimeSettings.defaults().maxOpenRequests()));
+        try (WixRestaurantsRuntime runtime = new WixRestaurantsRuntime(runtimeSettings)) {
+            final DefaultAsyncWixRestaurantsClient client = new DefaultAsyncWixRestaurantsClient(
+                    apiUrl, runtime, null, PagingSettings.defaults(), null, false, null, null, metrics,
+                    Boolean.parseBoolean(options.getOrDefault("retries", "false")) ? ResilienceSettings.defaults() : null,
+                    null, null, null);
+
+            final Map<String, List<String>> orderIds = new HashMap<>();
+            for (String restaurantId : restaurantIds) {
+                final List<String> ids = new ArrayList<>();
+                for (Order order : client.retrieveOrdersAsRestaurant(accessToken, restaurantId, null, 100).toCompletableFuture().get()) {
+                    ids.add(order.id);
+                }
+                orderIds.put(restaurantId, ids);
+            }
+
+            final List<BiFunction<String, ThreadLocalRandom, CompletionStage<?>>> operations = Arrays.asList(
+                    (restaurantId, random) -> client.retrieveRestaurantInfo(restaurantId),
+                    (restaurantId, random) -> client.getMenu(accessToken, restaurantId),
+                    (restaurantId, random) -> client.retrieveNewOrders(accessToken, restaurantId),
+                    (restaurantId, random) -> client.retrieveUnhandledReservations(accessToken, restaurantId),
+                    (restaurantId, random) -> {
+                        final List<String> ids = orderIds.get(restaurantId);
+                        return client.retrieveOrderAsRestaurant(accessToken, restaurantId, ids.get(random.nextInt(ids.size())));
+                    });
+
+            System.out.println("Load: " + rate + " calls/s for " + durationSeconds + "s (after " + warmupSeconds +
+                    "s warmup) against " + ((simulator != null) ? describe(simulator.settings()) : apiUrl) + ", with " +
+                    runtimeSettings.maxConnections() + " connections and " + runtimeSettings.maxOpenRequests() + " open requests");
+
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            try {
+                // Warmup, then measure from scratch
+                generate(operations, restaurantIds, warmupSeconds);
+                reset();
+                metrics.reset();
+                threads.resetPeakThreadCount();
+                peakHeapBytes.set(0L);
+                final long gcCountBefore = gcCount();
+                final long gcMillisBefore = gcMillis();
+
+                generate(operations, restaurantIds, durationSeconds);
+
+                final long gcCount = gcCount() - gcCountBefore;
+                final long gcMillis = gcMillis() - gcMillisBefore;
+                report(metrics);
+                System.out.println("Threads: " + threads.getThreadCount() + " live, " + threads.getPeakThreadCount() + " peak");
+                System.out.println("Heap: " + megabytes(memory.getHeapMemoryUsage().getUsed()) + "MB used at end, " +
+                        megabytes(peakHeapBytes.get()) + "MB peak (sampled every 100ms), " + gcCount + " GCs taking " + gcMillis + "ms");
+            } finally {
+                client.close();
+            }
+        } finally {
+            if (simulator != null) {
+                simulator.close();
+            }
+        }
+    }
+
+    /** Starts calls at the target rate for the given duration, then waits for the outstanding ones to complete. */
+    private void generate(List<BiFunction<String, ThreadLocalRandom, CompletionStage<?>>> operations,
+                          List<String> restaurantIds, int seconds) throws InterruptedException {
+        final long startNanos = System.nanoTime();
+        final long endNanos = startNanos + TimeUnit.SECONDS.toNanos(seconds);
+        final long[] startedAndTicks = {0L, 0L};
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        // Ticks every millisecond, starting however many calls are due by now
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleAtFixedRate(() -> {
+            final long due = (Math.min(System.nanoTime(), endNanos) - startNanos) * rate / TimeUnit.SECONDS.toNanos(1);
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (startedAndTicks[0] < due) {
+                ++startedAndTicks[0];
+                start(operations, restaurantIds, random);
+            }
+            if (++startedAndTicks[1] % 100 == 0) {
+                peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            }
+        }, 0L, 1L, TimeUnit.MILLISECONDS);
+
+        TimeUnit.NANOSECONDS.sleep(endNanos - System.nanoTime());
+        scheduler.shutdown();
+        scheduler.awaitTermination(1L, TimeUnit.SECONDS);
+        final long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while ((outstanding.get() > 0) && (System.nanoTime() < drainDeadline)) {
+            TimeUnit.MILLISECONDS.sleep(10L);
+        }
+    }
+
+    private void start(List<BiFunction<String, ThreadLocalRandom, CompletionStage<?>>> operations,
+                       List<String> restaurantIds, ThreadLocalRandom random) {
+        issued.increment();
+        if (outstanding.incrementAndGet() > maxOutstanding) {
+            outstanding.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+
+        final int operation = pickOperation(random);
+        final String restaurantId = restaurantIds.get(random.nextInt(restaurantIds.size()));
+        final long startNanos = System.nanoTime();
+        CompletionStage<?> call;
+        try {
+            call = operations.get(operation).apply(restaurantId, random);
+        } catch (RuntimeException e) {
+            final CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            call = failed;
+        }
+        call.whenComplete((result, error) -> {
+            latencies[operation].record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+            if (error != null) {
+                errors[operation].increment();
+                errorsByType.computeIfAbsent(causeOf(error).getClass().getSimpleName(), k -> new LongAdder()).increment();
+            }
+            outstanding.decrementAndGet();
+        });
+    }
+
+    private static Throwable causeOf(Throwable error) {
+        Throwable cause = error;
+        while (((cause instanceof CompletionException) || (cause instanceof ExecutionException)) && (cause.getCause() != null)) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static int pickOperation(ThreadLocalRandom random) {
+        int r = random.nextInt(100);
+        for (int i = 0; i < operationWeights.length; ++i) {
+            r -= operationWeights[i];
+            if (r < 0) {
+                return i;
+            }
+        }
+        return operationWeights.length - 1;
+    }
+
+    private void reset() {
+        for (int i = 0; i < operationNames.length; ++i) {
+            latencies[i] = new LatencyHistogram();
+            errors[i] = new LongAdder();
+        }
+        errorsByType.clear();
+        issued.reset();
+        dropped.reset();
+    }
+
+    private void report(RequestMetrics metrics) {
+        long completed = 0L;
+        long failed = 0L;
+        for (int i = 0; i < operationNames.length; ++i) {
+            completed += latencies[i].count();
+            failed += errors[i].sum();
+        }
+        System.out.println("Started " + issued.sum() + ", completed " + completed + " (" + failed + " failed), dropped " +
+                dropped.sum() + " (over " + maxOutstanding + " outstanding)");
+        System.out.println(String.format("Throughput: %.1f calls/s", (double) completed / durationSeconds));
+        if (!errorsByType.isEmpty()) {
+            final Map<String, Long> counts = new TreeMap<>();
+            errorsByType.forEach((type, count) -> counts.put(type, count.sum()));
+            System.out.println("Errors: " + counts);
+        }
+        System.out.println();
+
+        System.out.println(String.format("%-32s %8s %8s %9s %9s %9s %9s %9s", "Call", "Count", "Errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"));
+        for (int i = 0; i < operationNames.length; ++i) {
+            final LatencyHistogram latency = latencies[i];
+            System.out.println(String.format("%-32s %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f", operationNames[i],
+                    latency.count(), errors[i].sum(), millis(latency.percentile(50)), millis(latency.percentile(90)),
+                    millis(latency.percentile(99)), millis(latency.percentile(99.9)), millis(latency.max())));
+        }
+        System.out.println();
+
+        System.out.println("Per endpoint (HTTP attempts):");
+        for (EndpointStats stats : metrics.getStats()) {
+            System.out.println("  " + stats);
+        }
+        System.out.println();
+    }
+
+    private static String describe(SimulatorSettings settings) {
+        return "an embedded simulator (" + settings.restaurants() + " restaurants, " + settings.latency().toMillis() +
+                "ms + up to " + settings.latencyJitter().toMillis() + "ms latency, " + (settings.errorRate() * 100) + "% errors)";
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static long megabytes(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+
+    private static long gcCount() {
+        long count = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0L, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0L;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0L, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        final String value = options.get(name);
+        return (value != null) ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private String requiredOption(String name) {
+        final String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing --" + name);
+        }
+        return value;
+    }
+
+    /** Options are given as --name=value, e.g. --rate=500. */
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadGenerator(options).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.wix.restaurants.benchmarks;
+
+import com.openrest.v1_1.Item;
+import com.openrest.v1_1.Menu;
+import com.openrest.v1_1.MenuSection;
+import com.openrest.v1_1.Variation;
+import com.wix.restaurants.examples.helpers.MenuHelper;
+import com.wix.restaurants.helpers.LocalizedMenuView;
+import com.wix.restaurants.helpers.Localizer;
+import com.wix.restaurants.helpers.MenuIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders every title of a menu (sections, items, variations and choices), as MenuExample does: with a
+ * {@link Localizer} on every render, or from a precomputed {@link LocalizedMenuView}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalizedMenuViewBenchmark {
+    @Param({"1000"})
+    public int numItems;
+
+    @Param({"6"})
+    public int numLocales;
+
+    private Menu menu;
+    private MenuHelper menuHelper;
+    private Localizer localizer;
+    private MenuIndex menuIndex;
+    private LocalizedMenuView view;
+
+    @Setup
+    public void setup() {
+        menu = Fixtures.menu(numItems, numLocales, 1L);
+        menuHelper = new MenuHelper(menu);
+        localizer = new Localizer(Fixtures.locales[0], Fixtures.locales[numLocales - 1]);
+        menuIndex = new MenuIndex(menu);
+        view = new LocalizedMenuView(menuIndex, Fixtures.locales[0], Fixtures.locales[numLocales - 1]);
+    }
+
+    @Benchmark
+    public LocalizedMenuView buildView() {
+        return new LocalizedMenuView(menuIndex, Fixtures.locales[0], Fixtures.locales[numLocales - 1]);
+    }
+
+    @Benchmark
+    public void renderWithLocalizer(Blackhole blackhole) {
+        for (MenuSection section : menu.sections) {
+            render(section, blackhole);
+        }
+    }
+
+    private void render(MenuSection section, Blackhole blackhole) {
+        blackhole.consume(localizer.localize(section.title));
+        for (String itemId : section.itemIds) {
+            final Item item = menuHelper.getItem(itemId);
+            blackhole.consume(localizer.localize(item.title));
+            for (Variation variation : item.variations) {
+                blackhole.consume(localizer.localize(variation.title));
+                for (String choiceId : variation.itemIds) {
+                    blackhole.consume(localizer.localize(menuHelper.getItem(choiceId).title));
+                }
+            }
+        }
+        for (MenuSection child : section.children) {
+            render(child, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void renderWithView(Blackhole blackhole) {
+        for (int i = 0; i < menuIndex.topLevelSectionCount(); ++i) {
+            render(menuIndex.topLevelSection(i), blackhole);
+        }
+    }
+
+    private void render(int section, Blackhole blackhole) {
+        blackhole.consume(view.sectionTitle(section));
+        for (int i = 0; i < menuIndex.sectionItemCount(section); ++i) {
+            final int item = menuIndex.sectionItem(section, i);
+            blackhole.consume(view.itemTitle(item));
+            for (int v = 0; v < menuIndex.variationCount(item); ++v) {
+                blackhole.consume(view.variationTitle(item, v));
+                for (int c = 0; c < menuIndex.choiceCount(item, v); ++c) {
+                    blackhole.consume(view.itemTitle(menuIndex.choiceItem(item, v, c)));
+                }
+            }
+        }
+        for (int i = 0; i < menuIndex.sectionChildCount(section); ++i) {
+            render(menuIndex.sectionChild(section, i), blackhole);
+        }
+    }
+}
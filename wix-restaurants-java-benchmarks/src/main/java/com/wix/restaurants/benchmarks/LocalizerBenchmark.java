@@ -0,0 +1,64 @@
+package com.wix.restaurants.benchmarks;
+
+import com.wix.restaurants.helpers.Localizer;
+import com.wix.restaurants.i18n.Locale;
+import com.wix.restaurants.i18n.LocalizedString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Localizes strings translated to numLocales locales: to a locale they're translated to, to one they fall back from
+ * (to the default locale), and to an empty string.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalizerBenchmark {
+    @Param({"1", "10"})
+    public int numLocales;
+
+    private final Locale defaultLocale = Fixtures.locales[0];
+    private final Locale missingLocale = Locale.fromJavaLocale(java.util.Locale.KOREA);
+
+    private LocalizedString localizedString;
+    private LocalizedString empty;
+    private Localizer translatedLocalizer;
+    private Localizer fallbackLocalizer;
+
+    @Setup
+    public void setup() {
+        localizedString = Fixtures.localizedString("Margherita", numLocales);
+        empty = new LocalizedString();
+        translatedLocalizer = new Localizer(defaultLocale, Fixtures.locales[numLocales - 1]);
+        fallbackLocalizer = new Localizer(defaultLocale, missingLocale);
+    }
+
+    @Benchmark
+    public String translated() {
+        return translatedLocalizer.localize(localizedString);
+    }
+
+    @Benchmark
+    public String fallback() {
+        return fallbackLocalizer.localize(localizedString);
+    }
+
+    @Benchmark
+    public String missing() {
+        return fallbackLocalizer.localize(empty);
+    }
+}
@@ -0,0 +1,183 @@
+package com.wix.restaurants.benchmarks;
+
+import com.openrest.v1_1.Item;
+import com.openrest.v1_1.Menu;
+import com.openrest.v1_1.MenuSection;
+import com.openrest.v1_1.OrderItem;
+import com.openrest.v1_1.Variation;
+import com.wix.restaurants.examples.helpers.MenuHelper;
+import com.wix.restaurants.helpers.MenuIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MenuIndex} with walking the menu through {@link MenuHelper}, for the lookups clients do most:
+ * rendering the whole menu (as in MenuExample), re-pricing submitted order items, and looking up items by id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuIndexBenchmark {
+    @Param({"10000"})
+    public int numItems;
+
+    @Param({"100"})
+    public int numOrderItems;
+
+    private Menu menu;
+    private List<OrderItem> orderItems;
+    private String[] itemIds;
+    private MenuHelper menuHelper;
+    private MenuIndex menuIndex;
+
+    @Setup
+    public void setup() {
+        menu = Fixtures.menu(numItems, 1L);
+        orderItems = Fixtures.orderItems(menu, numOrderItems, 2L);
+        itemIds = new String[numOrderItems];
+        for (int i = 0; i < numOrderItems; ++i) {
+            itemIds[i] = orderItems.get(i).itemId;
+        }
+        menuHelper = new MenuHelper(menu);
+        menuIndex = new MenuIndex(menu);
+    }
+
+    // Building
+
+    @Benchmark
+    public MenuHelper buildHelper() {
+        return new MenuHelper(menu);
+    }
+
+    @Benchmark
+    public MenuIndex buildIndex() {
+        return new MenuIndex(menu);
+    }
+
+    // Walking the whole menu: every section's items, and every variation's choices with their prices
+
+    @Benchmark
+    public long walkMenuHelper() {
+        long total = 0;
+        for (MenuSection section : menu.sections) {
+            total += walk(section);
+        }
+        return total;
+    }
+
+    private long walk(MenuSection section) {
+        long total = 0;
+        for (String itemId : section.itemIds) {
+            final Item item = menuHelper.getItem(itemId);
+            total += item.price;
+            for (Variation variation : item.variations) {
+                for (String choiceId : variation.itemIds) {
+                    final Item choice = menuHelper.getItem(choiceId);
+                    final Integer choicePrice = variation.prices.get(choiceId);
+                    total += choice.price + ((choicePrice != null) ? choicePrice : 0);
+                }
+            }
+        }
+        for (MenuSection child : section.children) {
+            total += walk(child);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long walkMenuIndex() {
+        long total = 0;
+        for (int i = 0; i < menuIndex.topLevelSectionCount(); ++i) {
+            total += walk(menuIndex.topLevelSection(i));
+        }
+        return total;
+    }
+
+    private long walk(int section) {
+        long total = 0;
+        for (int i = 0; i < menuIndex.sectionItemCount(section); ++i) {
+            final int item = menuIndex.sectionItem(section, i);
+            total += menuIndex.price(item);
+            for (int v = 0; v < menuIndex.variationCount(item); ++v) {
+                for (int c = 0; c < menuIndex.choiceCount(item, v); ++c) {
+                    total += menuIndex.price(menuIndex.choiceItem(item, v, c)) + menuIndex.choicePrice(item, v, c);
+                }
+            }
+        }
+        for (int i = 0; i < menuIndex.sectionChildCount(section); ++i) {
+            total += walk(menuIndex.sectionChild(section, i));
+        }
+        return total;
+    }
+
+    // Re-pricing order items from the menu, by id
+
+    @Benchmark
+    public long priceOrderItemsHelper() {
+        long total = 0;
+        for (OrderItem orderItem : orderItems) {
+            final Item item = menuHelper.getItem(orderItem.itemId);
+            long price = item.price;
+            for (int v = 0; v < orderItem.variationsChoices.size(); ++v) {
+                final Variation variation = item.variations.get(v);
+                for (OrderItem choice : orderItem.variationsChoices.get(v)) {
+                    final Integer choicePrice = variation.prices.get(choice.itemId);
+                    price += ((choicePrice != null) ? choicePrice : 0) * choice.count;
+                }
+            }
+            total += price * orderItem.count;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long priceOrderItemsIndex() {
+        long total = 0;
+        for (OrderItem orderItem : orderItems) {
+            final int item = menuIndex.ordinalOf(orderItem.itemId);
+            long price = menuIndex.price(item);
+            for (int v = 0; v < orderItem.variationsChoices.size(); ++v) {
+                for (OrderItem choice : orderItem.variationsChoices.get(v)) {
+                    price += menuIndex.choicePrice(item, v, choice.itemId) * choice.count;
+                }
+            }
+            total += price * orderItem.count;
+        }
+        return total;
+    }
+
+    // Plain lookups by id
+
+    @Benchmark
+    public long lookupHelper() {
+        long total = 0;
+        for (String itemId : itemIds) {
+            total += menuHelper.getItem(itemId).price;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long lookupIndex() {
+        long total = 0;
+        for (String itemId : itemIds) {
+            total += menuIndex.price(menuIndex.ordinalOf(itemId));
+        }
+        return total;
+    }
+}
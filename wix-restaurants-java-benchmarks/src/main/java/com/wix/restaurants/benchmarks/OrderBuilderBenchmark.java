@@ -0,0 +1,82 @@
+package com.wix.restaurants.benchmarks;
+
+import com.openrest.v1_1.Item;
+import com.openrest.v1_1.Menu;
+import com.openrest.v1_1.Order;
+import com.openrest.v1_1.Variation;
+import com.wix.restaurants.examples.helpers.MenuHelper;
+import com.wix.restaurants.i18n.Locale;
+import com.wix.restaurants.orders.builders.OrderBuilder;
+import com.wix.restaurants.orders.builders.OrderItemBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Currency;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds an order the way client code does: an {@link OrderItemBuilder} per item and per variation choice, added to
+ * an {@link OrderBuilder} that prices each item as it goes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBuilderBenchmark {
+    @Param({"10", "1000"})
+    public int numOrderItems;
+
+    private final Currency currency = Currency.getInstance("USD");
+    private final Locale locale = Fixtures.locales[0];
+
+    // The i-th order item is items[i], with choices[i][v] chosen in its v-th variation
+    private Item[] items;
+    private Item[][] choices;
+
+    @Setup
+    public void setup() {
+        final Menu menu = Fixtures.menu(1000, 1L);
+        final MenuHelper menuHelper = new MenuHelper(menu);
+        final Random random = new Random(2L);
+        final int numExtras = menu.items.size() / 5;
+
+        items = new Item[numOrderItems];
+        choices = new Item[numOrderItems][];
+        for (int i = 0; i < numOrderItems; ++i) {
+            items[i] = menu.items.get(numExtras + random.nextInt(menu.items.size() - numExtras));
+            choices[i] = new Item[items[i].variations.size()];
+            for (int v = 0; v < choices[i].length; ++v) {
+                final Variation variation = items[i].variations.get(v);
+                choices[i][v] = menuHelper.getItem(variation.itemIds.get(random.nextInt(variation.itemIds.size())));
+            }
+        }
+    }
+
+    @Benchmark
+    public Order buildOrder() {
+        final OrderBuilder builder = new OrderBuilder()
+                .setRestaurant("restaurant")
+                .setLocale(locale)
+                .setCurrency(currency);
+        for (int i = 0; i < items.length; ++i) {
+            final OrderItemBuilder itemBuilder = new OrderItemBuilder(items[i]).setCount(2);
+            for (int v = 0; v < choices[i].length; ++v) {
+                itemBuilder.addChoice(v, new OrderItemBuilder(choices[i][v], items[i].variations.get(v)).build());
+            }
+            builder.addItem(itemBuilder.build());
+        }
+        return builder.build();
+    }
+}
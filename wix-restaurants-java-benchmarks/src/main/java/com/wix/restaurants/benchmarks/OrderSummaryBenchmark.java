@@ -0,0 +1,171 @@
+package com.wix.restaurants.benchmarks;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openrest.v1_1.Contact;
+import com.openrest.v1_1.Order;
+import com.openrest.v1_1.RestaurantFullInfo;
+import com.wix.restaurants.orders.OrderSummary;
+import com.wix.restaurants.orders.Statuses;
+import com.wix.restaurants.orders.builders.PickupBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a list of orders response (as retrieveOrdersAsRestaurant does: element by element from the "results"
+ * array) into full orders, and into {@link OrderSummary}s.
+ *
+ * JMH measures parse time (and, with the default GC profiler, allocations). The retained heap of each list, which
+ * JMH can't measure, is printed by main, e.g.:
+ * <pre>java -cp benchmarks.jar com.wix.restaurants.benchmarks.OrderSummaryBenchmark --orders=1000 --orderItems=10</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderSummaryBenchmark {
+    @Param({"100", "1000"})
+    public int numOrders;
+
+    @Param({"10"})
+    public int numOrderItems;
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private byte[] ordersJson;
+
+    @Setup
+    public void setup() throws IOException {
+        ordersJson = ordersJson(numOrders, numOrderItems);
+    }
+
+    @Benchmark
+    public List<Order> parseOrders() throws IOException {
+        return readResults(ordersJson, Order.class);
+    }
+
+    @Benchmark
+    public List<OrderSummary> parseOrderSummaries() throws IOException {
+        return readResults(ordersJson, OrderSummary.class);
+    }
+
+    /** A response listing numOrders orders of a 100-item menu, each with a contact and a pickup. */
+    static byte[] ordersJson(int numOrders, int numOrderItems) throws IOException {
+        final RestaurantFullInfo full = Fixtures.restaurantFullInfo(100, 1, 1L);
+        final List<Order> orders = new ArrayList<>(numOrders);
+        for (int i = 0; i < numOrders; ++i) {
+            final Order order = Fixtures.order(full, numOrderItems, i);
+            order.id = "order" + i;
+            order.status = Statuses.new_;
+            order.created = new Date(1500000000000L + i * 60000L);
+            order.modified = order.created;
+            order.delivery = new PickupBuilder().forAsap().build();
+            order.contact = new Contact();
+            order.contact.firstName = "First" + i;
+            order.contact.lastName = "Last" + i;
+            order.contact.email = "customer" + i + "@example.org";
+            order.contact.phone = "+1 555 01" + (i % 100);
+            order.properties.put("com.example.kitchen", "{\"station\":" + (i % 4) + "}");
+            orders.add(order);
+        }
+
+        final Map<String, Object> response = new HashMap<>();
+        response.put("results", orders);
+        return mapper.writeValueAsBytes(response);
+    }
+
+    static <T> List<T> readResults(byte[] json, Class<T> clazz) throws IOException {
+        final List<T> results = new ArrayList<>();
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                if (field.equals("results")) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        results.add(mapper.readValue(parser, clazz));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return results;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int numOrders = 1000;
+        int numOrderItems = 10;
+        for (String arg : args) {
+            if (arg.startsWith("--orders=")) {
+                numOrders = Integer.parseInt(arg.substring("--orders=".length()));
+            } else if (arg.startsWith("--orderItems=")) {
+                numOrderItems = Integer.parseInt(arg.substring("--orderItems=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+
+        final byte[] json = ordersJson(numOrders, numOrderItems);
+        // Warms up, so that the measurements don't include classes and caches first used by either binding
+        readResults(json, Order.class);
+        readResults(json, OrderSummary.class);
+
+        final long ordersBytes = retainedBytes(json, Order.class);
+        final long summariesBytes = retainedBytes(json, OrderSummary.class);
+        System.out.println(String.format("%d orders of %d items, %d bytes of JSON", numOrders, numOrderItems, json.length));
+        System.out.println(String.format("%-15s %12s %15s", "binding", "retained KB", "bytes per order"));
+        System.out.println(String.format("%-15s %12d %15d", "Order", ordersBytes / 1024, ordersBytes / numOrders));
+        System.out.println(String.format("%-15s %12d %15d", "OrderSummary", summariesBytes / 1024, summariesBytes / numOrders));
+    }
+
+    /** @return the heap retained by the parsed list, as the difference in heap used (after full GCs). */
+    private static <T> long retainedBytes(byte[] json, Class<T> clazz) throws IOException {
+        final long before = heapUsedAfterGc();
+        final List<T> results = readResults(json, clazz);
+        final long after = heapUsedAfterGc();
+        if (results.isEmpty()) { // Keeps the list reachable until measured
+            throw new IllegalStateException("No results");
+        }
+        return after - before;
+    }
+
+    /** A single System.gc() may leave garbage behind (e.g. in other regions), so collects until usage settles. */
+    private static long heapUsedAfterGc() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; ++i) {
+            System.gc();
+            final long current = memory.getHeapMemoryUsage().getUsed();
+            if (current >= used) {
+                break;
+            }
+            used = current;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,48 @@
+package com.wix.restaurants.benchmarks;
+
+import com.openrest.v1_1.OrderItem;
+import com.wix.restaurants.helpers.PriceCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Prices a list of order items, each with a choice per variation. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceCalculatorBenchmark {
+    @Param({"10", "1000"})
+    public int numOrderItems;
+
+    private final PriceCalculator calculator = new PriceCalculator();
+    private List<OrderItem> orderItems;
+
+    @Setup
+    public void setup() {
+        orderItems = Fixtures.orderItems(Fixtures.menu(1000, 1L), numOrderItems, 2L);
+    }
+
+    @Benchmark
+    public double price() {
+        return calculator.price(orderItems);
+    }
+
+    @Benchmark
+    public long priceInCents() {
+        return calculator.priceInCents(orderItems);
+    }
+}
@@ -0,0 +1,39 @@
+package com.wix.restaurants.benchmarks;
+
+import com.wix.restaurants.examples.RuntimeFootprintExample;
+import com.wix.restaurants.testkit.ApiSimulator;
+import com.wix.restaurants.testkit.SimulatorSettings;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs RuntimeFootprintExample (N clients with private runtimes, then N clients sharing one) against an embedded
+ * {@link ApiSimulator}, so that it can be reproduced without network access. The example runs in a fresh JVM, so that
+ * the simulator's own threads and sockets aren't counted:
+ * <pre>java -cp benchmarks.jar com.wix.restaurants.benchmarks.RuntimeFootprintBenchmark [numClients] [JVM args...]</pre>
+ */
+public class RuntimeFootprintBenchmark {
+    private RuntimeFootprintBenchmark() {}
+
+    public static void main(String[] args) throws Exception {
+        final String numClients = (args.length > 0) ? args[0] : "10";
+
+        try (ApiSimulator simulator = new ApiSimulator(SimulatorSettings.defaults().withData(1, 100, 0, 0))) {
+            final List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            if (args.length > 1) {
+                command.addAll(Arrays.asList(args).subList(1, args.length));
+            }
+            command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                    RuntimeFootprintExample.class.getName(), numClients, simulator.url(), simulator.getRestaurantIds().get(0)));
+
+            final int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (exitCode != 0) {
+                throw new IllegalStateException("RuntimeFootprintExample failed with exit code " + exitCode);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.wix.restaurants.benchmarks;
+
+import com.wix.restaurants.DefaultAsyncWixRestaurantsClient;
+import com.wix.restaurants.WixRestaurantsRuntime;
+import com.wix.restaurants.paging.PagingSettings;
+import com.wix.restaurants.testkit.ApiSimulator;
+import com.wix.restaurants.testkit.SimulatorSettings;
+import com.wix.restaurants.transport.HttpTransport;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the cold start and footprint of clients over different transports.
+ *
+ * Every run starts a fresh JVM, which creates a runtime and a client, makes a first call, and then a number of warm
+ * calls, all against an embedded {@link ApiSimulator} (running in this JVM, so that it doesn't weigh on the results).
+ * The report has the median of every measurement over the runs:
+ * <ul>
+ *     <li>startup: from the JVM's start until the first call's result;</li>
+ *     <li>client: creating the runtime, transport and client;</li>
+ *     <li>first call: the first call alone, i.e. starting whatever the transport starts lazily;</li>
+ *     <li>warm call: the average of the warm calls;</li>
+ *     <li>classes loaded, live threads, and heap used (after a full GC) once the calls are done.</li>
+ * </ul>
+ *
+ * Transports are "akka" (the runtime's connection pool), "jdk" (JdkHttpTransport, from the
+ * wix-restaurants-java-jdk-transport module, which benchmarks.jar only includes when built on JDK 11+), or the class
+ * name of any HttpTransport with a public no-argument constructor:
+ * <pre>java -cp benchmarks.jar com.wix.restaurants.benchmarks.TransportStartupBenchmark --transports=akka,jdk --runs=10</pre>
+ *
+ * Other options: calls (warm calls per run), and jvmArgs (space separated, for the runs' JVMs, e.g. "-Xmx128m").
+ */
+public class TransportStartupBenchmark {
+    private static final String jdkTransport = "com.wix.restaurants.transport.jdk.JdkHttpTransport";
+    private static final String[] measurements = {
+            "startupMillis", "clientMillis", "firstCallMillis", "warmCallMicros", "classes", "threads", "heapKb"
+    };
+
+    private final Map<String, String> options;
+
+    public TransportStartupBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public void run() throws Exception {
+        final List<String> transports = Arrays.asList(options.getOrDefault("transports", "akka,jdk").split(","));
+        final int runs = intOption("runs", 5);
+
+        final Map<String, Map<String, Long>> medians = new LinkedHashMap<>();
+        try (ApiSimulator simulator = new ApiSimulator(SimulatorSettings.defaults().withData(1, 100, 0, 0))) {
+            for (String transport : transports) {
+                if (!isAvailable(transport)) {
+                    System.out.println(transport + ": " + transportClassOf(transport) + " is not on the classpath, skipped");
+                    continue;
+                }
+
+                final List<Map<String, Long>> results = new ArrayList<>();
+                for (int i = 0; i < runs; i++) {
+                    results.add(runChild(transport, simulator.url(), simulator.getRestaurantIds().get(0)));
+                }
+                medians.put(transport, mediansOf(results));
+            }
+        }
+
+        System.out.println();
+        System.out.println("Median of " + runs + " runs per transport:");
+        System.out.println(String.format("%-10s %11s %10s %15s %15s %9s %8s %8s",
+                "transport", "startup ms", "client ms", "first call ms", "warm call us", "classes", "threads", "heap MB"));
+        for (Map.Entry<String, Map<String, Long>> entry : medians.entrySet()) {
+            final Map<String, Long> median = entry.getValue();
+            System.out.println(String.format("%-10s %11d %10d %15d %15d %9d %8d %8.1f", entry.getKey(),
+                    median.get("startupMillis"), median.get("clientMillis"), median.get("firstCallMillis"),
+                    median.get("warmCallMicros"), median.get("classes"), median.get("threads"),
+                    median.get("heapKb") / 1024.0));
+        }
+    }
+
+    private Map<String, Long> runChild(String transport, String url, String restaurantId) throws Exception {
+        final List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (options.containsKey("jvmArgs")) {
+            command.addAll(Arrays.asList(options.get("jvmArgs").trim().split("\\s+")));
+        }
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), TransportStartupBenchmark.class.getName(),
+                "--child=true", "--transport=" + transport, "--url=" + url, "--restaurantId=" + restaurantId,
+                "--calls=" + intOption("calls", 100)));
+
+        final Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        Map<String, Long> result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("RESULT ")) {
+                    result = new HashMap<>();
+                    for (String field : line.substring("RESULT ".length()).split(" ")) {
+                        result.put(field.substring(0, field.indexOf('=')), Long.parseLong(field.substring(field.indexOf('=') + 1)));
+                    }
+                }
+            }
+        }
+        final int exitCode = process.waitFor();
+        if (exitCode != 0 || result == null) {
+            throw new IllegalStateException("Run over " + transport + " failed with exit code " + exitCode);
+        }
+        return result;
+    }
+
+    /** Runs in the forked JVM; prints a single line of results. */
+    private static void runChild(Map<String, String> options) throws Exception {
+        final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        final String restaurantId = options.get("restaurantId");
+        final int calls = Integer.parseInt(options.get("calls"));
+
+        final long clientStartNanos = System.nanoTime();
+        final WixRestaurantsRuntime runtime = new WixRestaurantsRuntime();
+        final HttpTransport transport = newTransport(options.get("transport"));
+        final DefaultAsyncWixRestaurantsClient client = new DefaultAsyncWixRestaurantsClient(
+                options.get("url"), runtime, null, PagingSettings.defaults(), null, false, null, null, null, null, null,
+                transport, null);
+        final long clientNanos = System.nanoTime() - clientStartNanos;
+
+        final long firstCallStartNanos = System.nanoTime();
+        client.retrieveRestaurantInfo(restaurantId).toCompletableFuture().get();
+        final long firstCallNanos = System.nanoTime() - firstCallStartNanos;
+        final long startupMillis = System.currentTimeMillis() - jvmStartMillis;
+
+        final long warmStartNanos = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            client.retrieveRestaurantInfo(restaurantId).toCompletableFuture().get();
+        }
+        final long warmCallNanos = (calls > 0) ? (System.nanoTime() - warmStartNanos) / calls : 0L;
+
+        final long classes = ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+        final long threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        System.gc();
+        final long heapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        System.out.println("RESULT startupMillis=" + startupMillis + " clientMillis=" + clientNanos / 1000000 +
+                " firstCallMillis=" + firstCallNanos / 1000000 + " warmCallMicros=" + warmCallNanos / 1000 +
+                " classes=" + classes + " threads=" + threads + " heapKb=" + heapBytes / 1024);
+
+        client.close();
+        if (transport != null) {
+            transport.close();
+        }
+        runtime.close();
+    }
+
+    /** @return the transport, or null for the runtime's default one. */
+    private static HttpTransport newTransport(String transport) throws Exception {
+        if (transport.equals("akka")) {
+            return null;
+        }
+        return (HttpTransport) Class.forName(transportClassOf(transport)).getConstructor().newInstance();
+    }
+
+    private static String transportClassOf(String transport) {
+        switch (transport) {
+            case "akka": return "(built in)";
+            case "jdk": return jdkTransport;
+            default: return transport;
+        }
+    }
+
+    private static boolean isAvailable(String transport) {
+        if (transport.equals("akka")) {
+            return true;
+        }
+        try {
+            Class.forName(transportClassOf(transport));
+            return true;
+        } catch (ClassNotFoundException | UnsupportedClassVersionError e) {
+            return false;
+        }
+    }
+
+    private static Map<String, Long> mediansOf(List<Map<String, Long>> results) {
+        final Map<String, Long> medians = new HashMap<>();
+        for (String measurement : measurements) {
+            final List<Long> values = new ArrayList<>();
+            for (Map<String, Long> result : results) {
+                values.add(result.get(measurement));
+            }
+            Collections.sort(values);
+            medians.put(measurement, values.get(values.size() / 2));
+        }
+        return medians;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        final String value = options.get(name);
+        return (value != null) ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /** Options are given as --name=value, e.g. --runs=10. */
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        if (Boolean.parseBoolean(options.get("child"))) {
+            runChild(options);
+        } else {
+            new TransportStartupBenchmark(options).run();
+        }
+    }
+}
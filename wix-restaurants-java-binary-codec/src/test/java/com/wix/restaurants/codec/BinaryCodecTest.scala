@@ -0,0 +1,157 @@
+package com.wix.restaurants.codec
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream}
+import java.nio.charset.StandardCharsets
+import java.util.Date
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.openrest.v1_1._
+import com.wix.restaurants.JsonCodec
+import com.wix.restaurants.i18n.{Locale, LocalizedString}
+import com.wix.restaurants.json.Json
+import com.wix.restaurants.reservations.Reservation
+import org.specs2.execute.{AsResult, Result}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.collection.JavaConverters._
+import scala.reflect.ClassTag
+
+class BinaryCodecTest extends SpecWithJUnit {
+  private val codec = new BinaryCodec
+
+  private val english = Locale.fromJavaLocale(java.util.Locale.US)
+  private val hebrew = Locale.fromJavaLocale(new java.util.Locale("he", "IL"))
+
+  private def aContact(): Contact = {
+    val contact = new Contact
+    contact.firstName = "Ayelet"
+    contact.lastName = "Ben-Ami אבג 🍕" // Non-ASCII, and outside the BMP
+    contact.email = "customer@example.org"
+    contact.phone = "+972 54 000 0000"
+    contact
+  }
+
+  private def anOrder(): Order = {
+    val order = new Order
+    order.id = "1234567890"
+    order.restaurantId = "123"
+    order.locale = english
+    order.status = "new"
+    order.created = new Date(1500000000123L)
+    order.modified = new Date(1500000060456L)
+    order.price = 12345
+    order.currency = "ILS"
+    order.comment = ""
+    order.contact = aContact()
+    order.orderItems = (1 to 3).map { i =>
+      val orderItem = new OrderItem
+      orderItem.itemId = s"item$i"
+      orderItem.count = i
+      orderItem.price = -i * 100 // e.g. a discount
+      orderItem
+    }.asJava
+    order.properties = Map("com.example.kitchen" -> """{"station":3}""").asJava
+    order
+  }
+
+  private def aReservation(): Reservation = {
+    val reservation = new Reservation
+    reservation.id = "987"
+    reservation.restaurantId = "123"
+    reservation.locale = hebrew
+    reservation.status = "pending"
+    reservation.partySize = 4
+    reservation.time = new Date(1500086400000L)
+    reservation.created = new Date(1500000000000L)
+    reservation.contact = aContact()
+    reservation
+  }
+
+  private def aMenu(): Menu = {
+    val menu = new Menu
+    menu.items = (1 to 20).map { i =>
+      val item = new Item
+      item.id = s"item$i"
+      item.price = i * 1000
+      item.title = new LocalizedString().put(english, s"Item $i").put(hebrew, s"מנה $i")
+      item
+    }.asJava
+    val section = new MenuSection
+    section.id = "section1"
+    section.title = new LocalizedString().put(english, "Mains")
+    section.itemIds = menu.items.asScala.map { _.id }.asJava
+    menu.sections = List(section).asJava
+    menu
+  }
+
+  /** The value's JSON as the SDK writes it, as a tree (so that formatting doesn't matter). */
+  private def jsonOf(value: Any): JsonNode = JsonCodec.mapper.readTree(Json.stringify(value))
+
+  private def treeOf(json: String): JsonNode = JsonCodec.mapper.readTree(json)
+
+  trait Ctx extends Scope {
+    val values: Seq[(AnyRef, Class[AnyRef])] = Seq(anOrder(), aReservation(), aMenu(), new Order).map { value =>
+      value -> value.getClass.asInstanceOf[Class[AnyRef]]
+    }
+
+    def forall[R: AsResult](values: Seq[(AnyRef, Class[AnyRef])])(check: ((AnyRef, Class[AnyRef])) => R): Result = {
+      Result.foreach(values)(check)
+    }
+  }
+
+  "encoding and decoding" should {
+    "round-trip orders, reservations and menus exactly with their JSON" in new Ctx {
+      forall(values) { case (value, clazz) =>
+        jsonOf(codec.decode(codec.encode(value), clazz)) must be_===(jsonOf(value))
+      }
+    }
+
+    "decode to the same value as the SDK parses from the JSON" in new Ctx {
+      forall(values) { case (value, clazz) =>
+        val json = Json.stringify(value)
+        jsonOf(codec.decode(codec.fromJson(json), clazz)) must
+          be_===(jsonOf(JsonCodec.parse(json.getBytes(StandardCharsets.UTF_8))(ClassTag(clazz))))
+      }
+    }
+
+    "encode to streams, and decode from them" in new Ctx {
+      forall(values) { case (value, clazz) =>
+        val out = new ByteArrayOutputStream
+        codec.encode(value, out)
+        out.toByteArray.toSeq must be_===(codec.encode(value).toSeq)
+        jsonOf(codec.decode(new ByteArrayInputStream(out.toByteArray), clazz)) must be_===(jsonOf(value))
+      }
+    }
+
+    "be smaller than the JSON" in new Ctx {
+      forall(values.take(3)) { case (value, _) =>
+        codec.encode(value).length must beLessThan(Json.stringify(value).getBytes(StandardCharsets.UTF_8).length)
+      }
+    }
+  }
+
+  "converting" should {
+    "convert encoded data to the value's JSON" in new Ctx {
+      forall(values) { case (value, _) =>
+        treeOf(codec.toJson(codec.encode(value))) must be_===(treeOf(Json.stringify(value)))
+      }
+    }
+
+    "convert JSON to the value's encoded data" in new Ctx {
+      forall(values) { case (value, _) =>
+        codec.fromJson(Json.stringify(value)).toSeq must be_===(codec.encode(value).toSeq)
+      }
+    }
+  }
+
+  "invalid data" should {
+    "be rejected" in {
+      codec.decode(Json.stringify(anOrder()).getBytes(StandardCharsets.UTF_8), classOf[Order]) must
+        throwA[IllegalArgumentException]
+      codec.decode(codec.encode(anOrder()).take(20), classOf[Order]) must throwA[IllegalArgumentException]
+      codec.toJson(Array.emptyByteArray) must throwA[IllegalArgumentException]
+      codec.fromJson("{\"id\":") must throwA[IllegalArgumentException]
+    }
+  }
+}
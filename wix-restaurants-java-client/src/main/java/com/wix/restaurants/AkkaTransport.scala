@@ -0,0 +1,62 @@
+package com.wix.restaurants
+
+import java.util.concurrent.CompletionStage
+import java.util.{HashMap => JHashMap}
+
+import akka.actor.ActorSystem
+import akka.http.scaladsl.Http
+import akka.http.scaladsl.model._
+import akka.http.scaladsl.model.headers.RawHeader
+import akka.stream.Materializer
+import akka.stream.scaladsl.StreamConverters
+import com.wix.restaurants.transport.{HttpTransport, TransportRequest, TransportResponse}
+
+import scala.collection.JavaConverters._
+import scala.compat.java8.FutureConverters.toJava
+import scala.concurrent.ExecutionContext
+import scala.concurrent.duration._
+
+/**
+ * The default transport: sends through the runtime's Akka HTTP connection pool, which the runtime owns (so closing
+ * this transport does nothing).
+ */
+private[restaurants] class AkkaTransport(implicit system: ActorSystem, materializer: Materializer,
+                                         executionContext: ExecutionContext) extends HttpTransport {
+  override def send(request: TransportRequest): CompletionStage[TransportResponse] = {
+    toJava(Http().singleRequest(AkkaTransport.httpRequestOf(request)).map { AkkaTransport.responseOf })
+  }
+
+  override def close(): Unit = {}
+}
+
+private[restaurants] object AkkaTransport {
+  /** How long a reader of the body waits for its next chunk. */
+  private val chunkTimeout = 30.seconds
+
+  /** Headers that Akka HTTP models as part of the entity, rather than as headers. */
+  private val entityHeaders = Set("content-type", "content-length")
+
+  def httpRequestOf(request: TransportRequest): HttpRequest = {
+    val headers = request.headers.asScala.collect {
+      case (name, value) if !entityHeaders.contains(name.toLowerCase) => RawHeader(name, value)
+    }.toList
+    val entity = Option(request.body) match {
+      case Some(body) =>
+        val contentType = Option(request.header("Content-Type")).flatMap { ContentType.parse(_).right.toOption }
+        HttpEntity(contentType.getOrElse(ContentTypes.`application/octet-stream`), body)
+      case None => HttpEntity.Empty
+    }
+    HttpRequest(HttpMethods.getForKey(request.method).getOrElse(HttpMethod.custom(request.method)),
+      Uri(request.uri), headers, entity)
+  }
+
+  def responseOf(response: HttpResponse)(implicit materializer: Materializer): TransportResponse = {
+    val headers = new JHashMap[String, String]()
+    response.headers.reverseIterator.foreach { header => headers.put(header.lowercaseName, header.value) }
+    if (response.entity.contentType != ContentTypes.NoContentType) {
+      headers.put("content-type", response.entity.contentType.value)
+    }
+    new TransportResponse(response.status.intValue, headers, response.entity.contentLengthOption.getOrElse(-1L),
+      response.entity.dataBytes.runWith(StreamConverters.asInputStream(chunkTimeout)))
+  }
+}
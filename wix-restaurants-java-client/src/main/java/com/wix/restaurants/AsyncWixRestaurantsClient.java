@@ -0,0 +1,216 @@
+package com.wix.restaurants;
+
+import com.openrest.v1_1.*;
+import com.wix.pay.smaug.client.model.CreditCardToken;
+import com.wix.restaurants.authorization.AuthorizationClient;
+import com.wix.restaurants.bulk.BulkResult;
+import com.wix.restaurants.feeds.CursorStore;
+import com.wix.restaurants.feeds.FeedCursor;
+import com.wix.restaurants.feeds.OrderFeed;
+import com.wix.restaurants.feeds.ReservationFeed;
+import com.wix.restaurants.i18n.Locale;
+import com.wix.restaurants.menus.MenuUpdate;
+import com.wix.restaurants.orders.OrderSummary;
+import com.wix.restaurants.reservations.Reservation;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Non-blocking counterpart of {@link WixRestaurantsClient}.
+ *
+ * Every call returns immediately; the returned stage completes with the response, or exceptionally with the
+ * same {@link com.wix.restaurants.exceptions.RestaurantsException} subclasses the blocking client throws.
+ * The stream* methods are lazy: pages are fetched in the background as the returned stream is consumed.
+ */
+public interface AsyncWixRestaurantsClient extends AutoCloseable {
+    AuthorizationClient getAuthorizationClient();
+
+    // Business info
+    CompletionStage<RestaurantFullInfo> retrieveRestaurantInfo(String restaurantId);
+    CompletionStage<Organization> retrieveOrganization(String organizationId);
+    CompletionStage<Organization> retrieveOrganizationAsAdmin(String accessToken, String organizationId);
+    CompletionStage<Organization> setOrganization(String accessToken, Organization organization);
+    CompletionStage<Organization> createOrganization(String accessToken, Organization organization);
+    CompletionStage<Organization> createOrganizationAsAdmin(String accessToken, Organization organization);
+    CompletionStage<Organization> setOrganizationAsAdmin(String accessToken, Organization organization);
+    CompletionStage<Void> changeOrganizationLocale(String accessToken, String organizationId, Locale locale);
+
+    // Premium plan
+    CompletionStage<Void> addOrganizationProduct(String accessToken, String organizationId, Product product);
+    CompletionStage<Void> removeOrganizationProduct(String accessToken, String organizationId, Product product);
+
+    // Organization properties
+    CompletionStage<Notifications> getNotifications(String accessToken, String organizationId);
+    CompletionStage<Notifications> setNotifications(String accessToken, String organizationId, Notifications notifications);
+    CompletionStage<Secrets> getSecrets(String accessToken, String organizationId);
+    CompletionStage<Secrets> setSecrets(String accessToken, String organizationId, Secrets secrets);
+
+    // Menus
+    CompletionStage<Menu> getMenu(String accessToken, String restaurantId);
+    CompletionStage<Menu> getMenuWithLocationId(String accessToken, String restaurantId, String locationId);
+    CompletionStage<Menu> getMenuWithLocationIdAsGzip(String accessToken, String restaurantId, String locationId);
+    CompletionStage<Menu> setMenu(String accessToken, String restaurantId, Menu menu);
+    CompletionStage<Menu> setMenuWithLocationId(String accessToken, String restaurantId, Menu menu, String locationId);
+
+    /** @see WixRestaurantsClient#updateMenu(String, String, String, Menu) */
+    CompletionStage<MenuUpdate> updateMenu(String accessToken, String restaurantId, String locationId, Menu menu);
+
+    CompletionStage<Menu> aMenuWithUpdatedLocale(String accessToken, Menu menu, String fromLocale, String toLocale);
+    CompletionStage<Menu> menuChangeLocale(String accessToken, Menu menu, String fromLocale, String toLocale);
+
+    // Orders
+    CompletionStage<Order> submitOrder(String accessToken, Order order);
+    CompletionStage<Order> retrieveOrderAsOwner(String accessToken, String restaurantId, String orderId);
+    CompletionStage<Order> retrieveOrderAsRestaurant(String accessToken, String restaurantId, String orderId);
+    CompletionStage<List<Order>> retrieveNewOrders(String accessToken, String restaurantId);
+
+    /** @see WixRestaurantsClient#retrieveNewOrders(String, String, Consumer) */
+    CompletionStage<Integer> retrieveNewOrders(String accessToken, String restaurantId, Consumer<Order> consumer);
+
+    /** @see WixRestaurantsClient#orderFeed(String, String, CursorStore) */
+    OrderFeed orderFeed(String accessToken, String restaurantId, CursorStore cursorStore);
+
+    /** @see WixRestaurantsClient#orderFeed(String, String, CursorStore, FeedCursor) */
+    OrderFeed orderFeed(String accessToken, String restaurantId, CursorStore cursorStore, FeedCursor start);
+
+    CompletionStage<List<Order>> retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, int limit);
+
+    /** @see WixRestaurantsClient#retrieveOrdersAsRestaurant(String, String, String, int, Consumer) */
+    CompletionStage<Integer> retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, int limit, Consumer<Order> consumer);
+
+    /** @see WixRestaurantsClient#retrieveNewOrderSummaries(String, String) */
+    CompletionStage<List<OrderSummary>> retrieveNewOrderSummaries(String accessToken, String restaurantId);
+
+    /** @see WixRestaurantsClient#retrieveOrderSummariesAsRestaurant(String, String, String, int) */
+    CompletionStage<List<OrderSummary>> retrieveOrderSummariesAsRestaurant(String accessToken, String restaurantId, String status, int limit);
+
+    /** @see WixRestaurantsClient#retrieveNewOrdersOfRestaurants(String, List, int) */
+    CompletionStage<Map<String, BulkResult<List<Order>>>> retrieveNewOrdersOfRestaurants(String accessToken, List<String> restaurantIds, int parallelism);
+    CompletionStage<Map<String, BulkResult<List<Order>>>> retrieveNewOrdersOfRestaurants(String accessToken, List<String> restaurantIds);
+
+    /** @see WixRestaurantsClient#retrieveNewOrdersOfRestaurants(String, List, int, BiConsumer) */
+    CompletionStage<Void> retrieveNewOrdersOfRestaurants(String accessToken, List<String> restaurantIds, int parallelism, BiConsumer<String, BulkResult<List<Order>>> consumer);
+
+    /** @see WixRestaurantsClient#retrieveOrdersOfRestaurants(String, List, String, int, int) */
+    CompletionStage<Map<String, BulkResult<List<Order>>>> retrieveOrdersOfRestaurants(String accessToken, List<String> restaurantIds, String status, int limit, int parallelism);
+    CompletionStage<Map<String, BulkResult<List<Order>>>> retrieveOrdersOfRestaurants(String accessToken, List<String> restaurantIds, String status, int limit);
+
+    /** @see WixRestaurantsClient#retrieveOrdersOfRestaurants(String, List, String, int, int, BiConsumer) */
+    CompletionStage<Void> retrieveOrdersOfRestaurants(String accessToken, List<String> restaurantIds, String status, int limit, int parallelism, BiConsumer<String, BulkResult<List<Order>>> consumer);
+
+    /** @see WixRestaurantsClient#retrieveOrdersByIdAsRestaurant(String, String, List, int) */
+    CompletionStage<Map<String, BulkResult<Order>>> retrieveOrdersByIdAsRestaurant(String accessToken, String restaurantId, List<String> orderIds, int parallelism);
+    CompletionStage<Map<String, BulkResult<Order>>> retrieveOrdersByIdAsRestaurant(String accessToken, String restaurantId, List<String> orderIds);
+
+    /** @see WixRestaurantsClient#retrieveOrdersByIdAsRestaurant(String, String, List, int, BiConsumer) */
+    CompletionStage<Void> retrieveOrdersByIdAsRestaurant(String accessToken, String restaurantId, List<String> orderIds, int parallelism, BiConsumer<String, BulkResult<Order>> consumer);
+
+    CompletionStage<List<Order>> retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, String delivered, String created, String order, int limit);
+    CompletionStage<List<Order>> retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, String delivered, String created, String order, int limit, String locationIds);
+    CompletionStage<List<Order>> retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, String deliveryTime, String delivered, String created, String order, int limit, String locationIds);
+    CompletionStage<List<Order>> retrieveOrdersByCreatedAsc(String accessToken, String restaurantId, String contactId, Date createdSince, Integer limit);
+    CompletionStage<List<Order>> retrieveOrdersByCreatedDesc(String accessToken, String restaurantId, String contactId, Date createdSince, Integer limit);
+
+    /** @see WixRestaurantsClient#streamOrdersByCreatedAsc(String, String, String, Date) */
+    Stream<Order> streamOrdersByCreatedAsc(String accessToken, String restaurantId, String contactId, Date createdSince);
+
+    /** @see WixRestaurantsClient#streamOrdersByCreatedDesc(String, String, String, Date) */
+    Stream<Order> streamOrdersByCreatedDesc(String accessToken, String restaurantId, String contactId, Date createdSince);
+
+    /** @see WixRestaurantsClient#retrieveOrdersByPhone(String, String, String, Date, Integer) */
+    CompletionStage<List<Order>> retrieveOrdersByPhone(String accessToken, String organizationId, String phone, Date modifiedSince, Integer limit);
+
+    /** @see WixRestaurantsClient#streamOrdersByPhone(String, String, String, Date) */
+    Stream<Order> streamOrdersByPhone(String accessToken, String organizationId, String phone, Date modifiedSince);
+
+    /** @see WixRestaurantsClient#retrieveOrdersByEmail(String, String, String, Date, Integer) */
+    CompletionStage<List<Order>> retrieveOrdersByEmail(String accessToken, String organizationId, String email, Date modifiedSince, Integer limit);
+
+    /** @see WixRestaurantsClient#streamOrdersByEmail(String, String, String, Date) */
+    Stream<Order> streamOrdersByEmail(String accessToken, String organizationId, String email, Date modifiedSince);
+
+    /** @see WixRestaurantsClient#acceptOrder(String, String, String, Map) */
+    CompletionStage<Order> acceptOrder(String accessToken, String restaurantId, String orderId, Map<String, String> externalIds);
+    CompletionStage<Order> acceptOrderWithComment(String accessToken, String restaurantId, String orderId, String comment);
+    CompletionStage<Order> acceptOrderWithCommentAndPickupTime(String accessToken, String restaurantId, String orderId, String comment, Date pickupTime);
+    CompletionStage<Order> acceptOrderWithCommentAndDropOffTime(String accessToken, String restaurantId, String orderId, String comment, Date dropOffTime);
+    CompletionStage<Order> rejectOrder(String accessToken, String restaurantId, String orderId, String comment);
+
+    /** @see WixRestaurantsClient#acceptOrders(String, String, Map, int) */
+    CompletionStage<Map<String, BulkResult<Order>>> acceptOrders(String accessToken, String restaurantId, Map<String, Map<String, String>> externalIdsByOrderId, int parallelism);
+    CompletionStage<Map<String, BulkResult<Order>>> acceptOrders(String accessToken, String restaurantId, Map<String, Map<String, String>> externalIdsByOrderId);
+
+    /** @see WixRestaurantsClient#rejectOrders(String, String, List, String, int) */
+    CompletionStage<Map<String, BulkResult<Order>>> rejectOrders(String accessToken, String restaurantId, List<String> orderIds, String comment, int parallelism);
+    CompletionStage<Map<String, BulkResult<Order>>> rejectOrders(String accessToken, String restaurantId, List<String> orderIds, String comment);
+
+    CompletionStage<Order> setOrderProperties(String accessToken, String restaurantId, String orderId, Map<String, String> properties);
+    CompletionStage<Order> setOrderContactId(String accessToken, String restaurantId, String orderId, String contactId);
+    CompletionStage<Order> confirmOrderCashier(String organizationId, String orderId);
+
+    // Reservations
+    CompletionStage<Reservation> submitReservation(String accessToken, Reservation reservation);
+    CompletionStage<Reservation> retrieveReservationAsOwner(String accessToken, String restaurantId, String reservationId);
+    CompletionStage<Reservation> retrieveReservationAsRestaurant(String accessToken, String restaurantId, String reservationId);
+    CompletionStage<List<Reservation>> retrieveUnhandledReservations(String accessToken, String restaurantId);
+
+    /** @see WixRestaurantsClient#retrieveReservationsByIdAsRestaurant(String, String, List, int) */
+    CompletionStage<Map<String, BulkResult<Reservation>>> retrieveReservationsByIdAsRestaurant(String accessToken, String restaurantId, List<String> reservationIds, int parallelism);
+    CompletionStage<Map<String, BulkResult<Reservation>>> retrieveReservationsByIdAsRestaurant(String accessToken, String restaurantId, List<String> reservationIds);
+
+    /** @see WixRestaurantsClient#retrieveReservationsByIdAsRestaurant(String, String, List, int, BiConsumer) */
+    CompletionStage<Void> retrieveReservationsByIdAsRestaurant(String accessToken, String restaurantId, List<String> reservationIds, int parallelism, BiConsumer<String, BulkResult<Reservation>> consumer);
+
+    /** @see WixRestaurantsClient#retrieveUnhandledReservations(String, String, Consumer) */
+    CompletionStage<Integer> retrieveUnhandledReservations(String accessToken, String restaurantId, Consumer<Reservation> consumer);
+
+    /** @see WixRestaurantsClient#reservationFeed(String, String, CursorStore) */
+    ReservationFeed reservationFeed(String accessToken, String restaurantId, CursorStore cursorStore);
+
+    /** @see WixRestaurantsClient#reservationFeed(String, String, CursorStore, FeedCursor) */
+    ReservationFeed reservationFeed(String accessToken, String restaurantId, CursorStore cursorStore, FeedCursor start);
+
+    CompletionStage<Reservation> setReservationStatusAsRestaurant(String accessToken, String restaurantId, String reservationId, String status, String comment);
+
+    /** @see WixRestaurantsClient#acceptReservations(String, String, List, String, int) */
+    CompletionStage<Map<String, BulkResult<Reservation>>> acceptReservations(String accessToken, String restaurantId, List<String> reservationIds, String comment, int parallelism);
+    CompletionStage<Map<String, BulkResult<Reservation>>> acceptReservations(String accessToken, String restaurantId, List<String> reservationIds, String comment);
+
+    /** @see WixRestaurantsClient#cancelReservations(String, String, List, String, int) */
+    CompletionStage<Map<String, BulkResult<Reservation>>> cancelReservations(String accessToken, String restaurantId, List<String> reservationIds, String comment, int parallelism);
+    CompletionStage<Map<String, BulkResult<Reservation>>> cancelReservations(String accessToken, String restaurantId, List<String> reservationIds, String comment);
+
+    CompletionStage<Reservation> setReservationStatusAsOwner(String ownerToken, String restaurantId, String reservationId, String status, String comment);
+
+    /** @see WixRestaurantsClient#retrieveReservationsByPhone(String, String, String, Date, Integer) */
+    CompletionStage<List<Reservation>> retrieveReservationsByPhone(String accessToken, String organizationId, String phone, Date modifiedSince, Integer limit);
+
+    /** @see WixRestaurantsClient#streamReservationsByPhone(String, String, String, Date) */
+    Stream<Reservation> streamReservationsByPhone(String accessToken, String organizationId, String phone, Date modifiedSince);
+
+    /** @see WixRestaurantsClient#retrieveReservationsByEmail(String, String, String, Date, Integer) */
+    CompletionStage<List<Reservation>> retrieveReservationsByEmail(String accessToken, String organizationId, String email, Date modifiedSince, Integer limit);
+
+    /** @see WixRestaurantsClient#streamReservationsByEmail(String, String, String, Date) */
+    Stream<Reservation> streamReservationsByEmail(String accessToken, String organizationId, String email, Date modifiedSince);
+
+    // GDPR
+    CompletionStage<Void> deleteOrganization(String accessToken, String organizationId);
+    CompletionStage<Void> deleteCustomerByPhone(String accessToken, String organizationId, String phone);
+    CompletionStage<Void> deleteCustomerByEmail(String accessToken, String organizationId, String email);
+
+    // User accounts (express checkout)
+    CompletionStage<ClientInfo> getMyAccount(String accessToken);
+    CompletionStage<ClientInfo> setMyAccount(String accessToken, ClientInfo account);
+    CompletionStage<ClientInfo> addMyAccountCards(String accessToken, List<CreditCardToken> cardTokens);
+
+    /** Releases connections and threads, unless they belong to a shared {@link WixRestaurantsRuntime}. */
+    @Override
+    void close();
+}
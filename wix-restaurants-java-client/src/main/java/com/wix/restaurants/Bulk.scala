@@ -0,0 +1,106 @@
+package com.wix.restaurants
+
+import java.util.concurrent.{CompletionException, CompletionStage, ConcurrentHashMap, Semaphore, TimeUnit, TimeoutException}
+import java.util.{LinkedHashMap => JLinkedHashMap, Map => JMap}
+
+import akka.NotUsed
+import akka.stream.Materializer
+import akka.stream.scaladsl.{Sink, Source}
+import com.wix.restaurants.bulk.BulkResult
+
+import scala.concurrent.duration._
+import scala.concurrent.{ExecutionContext, Future}
+import scala.util.{Failure, Success, Try}
+
+/** Runs one call per item, at most `parallelism` at a time, collecting every item's outcome. */
+private[restaurants] object Bulk {
+  def run[T](ids: Seq[String], parallelism: Int)(call: String => Future[T])
+            (implicit materializer: Materializer, executionContext: ExecutionContext): Future[JMap[String, BulkResult[T]]] = {
+    outcomes(ids, parallelism)(call)
+      .runWith(Sink.seq)
+      .map { outcomes =>
+        val byId = outcomes.toMap
+        val results = new JLinkedHashMap[String, BulkResult[T]]()
+        ids.foreach { id => results.put(id, byId(id)) }
+        results
+      }
+  }
+
+  /**
+   * Like [[run]], but hands each item's outcome to onResult as soon as it's known, in completion order. onResult is
+   * called sequentially; if it throws, no further calls are started and the returned future fails.
+   */
+  def stream[T](ids: Seq[String], parallelism: Int)(call: String => Future[T])(onResult: (String, BulkResult[T]) => Unit)
+               (implicit materializer: Materializer, executionContext: ExecutionContext): Future[Void] = {
+    outcomes(ids, parallelism)(call)
+      .runForeach { case (id, result) => onResult(id, result) }
+      .map { _ => null: Void }
+  }
+
+  /**
+   * Blocking counterpart of [[run]], for the blocking client: starts the calls from the calling thread, and waits up
+   * to timeout for the whole fan-out. Items without an outcome by then fail with a TimeoutException, while the others
+   * keep theirs. Items not started by then are never sent; those in flight may still complete on the server.
+   */
+  def await[T](ids: Seq[String], parallelism: Int, timeout: Duration)(call: String => CompletionStage[T]): JMap[String, BulkResult[T]] = {
+    require(parallelism > 0, s"parallelism must be positive, got $parallelism")
+
+    val deadline = if (timeout.isFinite) Some(Deadline.now + timeout.toNanos.nanos) else None
+    val slots = new Semaphore(parallelism)
+    def acquire(permits: Int): Boolean = deadline match {
+      case Some(theDeadline) => slots.tryAcquire(permits, theDeadline.timeLeft.toNanos.max(0L), TimeUnit.NANOSECONDS)
+      case None =>
+        slots.acquire(permits)
+        true
+    }
+
+    val outcomes = new ConcurrentHashMap[String, BulkResult[T]]()
+    def complete(id: String, result: BulkResult[T]): Unit = {
+      outcomes.put(id, result)
+      slots.release()
+    }
+
+    val distinctIds = ids.distinct
+    val allStarted = distinctIds.forall { id =>
+      acquire(1) && {
+        Try(call(id)) match {
+          case Success(stage) => stage.whenComplete { (value: T, e: Throwable) =>
+            complete(id, if (e == null) BulkResult.success(value) else BulkResult.failure[T](unwrap(e)))
+          }
+          case Failure(e) => complete(id, BulkResult.failure[T](e))
+        }
+        true
+      }
+    }
+    if (allStarted) {
+      acquire(parallelism) // i.e. every call has completed
+    }
+
+    val results = new JLinkedHashMap[String, BulkResult[T]]()
+    distinctIds.foreach { id =>
+      val outcome = outcomes.get(id)
+      results.put(id, if (outcome != null) outcome else BulkResult.failure[T](new TimeoutException(s"No result within $timeout")))
+    }
+    results
+  }
+
+  private def unwrap(e: Throwable): Throwable = e match {
+    case _: CompletionException if e.getCause != null => e.getCause
+    case _ => e
+  }
+
+  private def outcomes[T](ids: Seq[String], parallelism: Int)(call: String => Future[T])
+                         (implicit executionContext: ExecutionContext): Source[(String, BulkResult[T]), NotUsed] = {
+    require(parallelism > 0, s"parallelism must be positive, got $parallelism")
+
+    Source(ids.distinct.toList)
+      .mapAsyncUnordered(parallelism) { id =>
+        Try(call(id)).fold(Future.failed, identity).transform { result =>
+          Success(id -> (result match {
+            case Success(value) => BulkResult.success(value)
+            case Failure(e) => BulkResult.failure[T](e)
+          }))
+        }
+      }
+  }
+}
@@ -0,0 +1,118 @@
+package com.wix.restaurants
+
+import java.util.concurrent.ConcurrentHashMap
+import akka.http.scaladsl.model.headers.RawHeader
+import akka.http.scaladsl.model.{HttpRequest, StatusCodes}
+import com.wix.restaurants.cache.{CachedResponse, ResponseCacheSettings}
+import com.wix.restaurants.transport.HttpTransport
+
+import scala.concurrent.duration.FiniteDuration
+import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.reflect.ClassTag
+import scala.util.Success
+
+/**
+ * Read-through cache in front of idempotent GETs, with single-flight loading and conditional revalidation.
+ *
+ * Responses missing from the store may be restored from a snapshot (see
+ * [[com.wix.restaurants.cache.SnapshotSettings]]): those are served immediately, and revalidated in the background.
+ */
+private[restaurants] class CachedGets(val settings: ResponseCacheSettings, transport: HttpTransport,
+                                     pipeline: RequestPipeline = new RequestPipeline)
+                                     (implicit executionContext: ExecutionContext) {
+  private val store = settings.store
+  val snapshots: Option[Snapshots] = Option(settings.snapshot).map { new Snapshots(_) }
+  private case class Load(organizationId: String, future: Future[CachedResponse])
+
+  private val loading = new ConcurrentHashMap[String, Load]()
+  // Of each organization written through this client; a load is only stored if its organization's didn't change
+  private val generations = new ConcurrentHashMap[String, java.lang.Long]()
+
+  def get[T: ClassTag](request: HttpRequest, organizationId: String, ttl: FiniteDuration): Future[T] = {
+    val key = CachedGets.keyOf(request)
+    Option(store.get(key)) match {
+      case Some(cached) if System.currentTimeMillis - cached.fetchedAt < ttl.toMillis =>
+        Future.successful(cached.value.asInstanceOf[T])
+      case None if snapshots.isDefined =>
+        snapshots.flatMap { _.restore(key) } match {
+          case Some(restored) =>
+            // Served as fresh while it is revalidated; if that fails, it's retried once the TTL expires
+            store.put(key, restored.revalidatedAt(System.currentTimeMillis))
+            load[T](key, request, organizationId, Some(restored))
+            Future.successful(restored.value.asInstanceOf[T])
+          case None =>
+            load[T](key, request, organizationId, None).map { _.value.asInstanceOf[T] }
+        }
+      case cached =>
+        load[T](key, request, organizationId, cached).map { _.value.asInstanceOf[T] }
+    }
+  }
+
+  def invalidate(organizationId: String): Unit = {
+    // The organization's loads already in flight may predate the write: don't store them, and don't let new callers
+    // join them
+    generations.merge(organizationId, 1L, (a: java.lang.Long, b: java.lang.Long) => a + b)
+    loading.values.removeIf { _.organizationId == organizationId }
+    store.invalidate(organizationId)
+    snapshots.foreach { _.invalidate(organizationId) }
+  }
+
+  /** Writes the last changes to the snapshot, if any. */
+  def close(): Unit = snapshots.foreach { _.close() }
+
+  private def load[T: ClassTag](key: String, request: HttpRequest, organizationId: String, cached: Option[CachedResponse]): Future[CachedResponse] = {
+    val promise = Promise[CachedResponse]()
+    val load = Load(organizationId, promise.future)
+    Option(loading.putIfAbsent(key, load)) match {
+      case Some(inFlight) => inFlight.future
+      case None =>
+        val loadGeneration = generationOf(organizationId)
+        promise.completeWith(fetch[T](request, organizationId, cached).andThen { case result =>
+          // Runs before waiters are released, so a caller that sees this result can't join this load again
+          loading.remove(key, load)
+          result match {
+            case Success(response) if generationOf(organizationId) == loadGeneration =>
+              store.put(key, response)
+              snapshots.foreach { _.put(key, response) }
+            case _ =>
+          }
+        })
+        load.future
+    }
+  }
+
+  private def generationOf(organizationId: String): Long = generations.getOrDefault(organizationId, 0L)
+
+  private def fetch[T: ClassTag](request: HttpRequest, organizationId: String, cached: Option[CachedResponse]): Future[CachedResponse] = {
+    val validators = cached.toList.flatMap { response =>
+      Option(response.etag).map { RawHeader("If-None-Match", _) } ++
+        Option(response.lastModified).map { RawHeader("If-Modified-Since", _) }
+    }
+
+    pipeline(request, hedged = true) { exchange =>
+      Transports.send(transport, exchange.sent(request.withHeaders(request.headers ++ validators))).flatMap { response =>
+        (exchange.received(response).status, cached) match {
+          case (status, Some(notModified)) if status == StatusCodes.NotModified.intValue =>
+            HttpResponses.discard(response)
+            Future.successful(notModified.revalidatedAt(System.currentTimeMillis))
+
+          case _ =>
+            StreamingJson.read[T](response).map { decoded =>
+              exchange.read(decoded.bytes)
+              new CachedResponse(organizationId, decoded.value,
+                HttpResponses.header(response, "etag").orNull, HttpResponses.header(response, "last-modified").orNull,
+                decoded.bytes, System.currentTimeMillis)
+            }
+        }
+      }
+    }
+  }
+}
+
+private[restaurants] object CachedGets {
+  /** Responses are shared by requests for the same URI, with the same credentials. */
+  def keyOf(request: HttpRequest): String = {
+    val authorization = request.headers.find { _.is("authorization") }.map { _.value }
+    s"${request.uri}|${authorization.getOrElse("")}"
+  }
+}
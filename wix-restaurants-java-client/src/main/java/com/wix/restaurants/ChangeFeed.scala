@@ -0,0 +1,147 @@
+package com.wix.restaurants
+
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.{CopyOnWriteArrayList, Executors, ScheduledExecutorService, ThreadFactory, TimeUnit}
+import java.util.stream.{Stream => JStream}
+import java.util.{LinkedHashMap => JLinkedHashMap, Map => JMap}
+
+import com.wix.restaurants.feeds._
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+import scala.util.control.NonFatal
+
+/**
+ * Polls a query for items modified since the feed's cursor (in ascending modification order), and turns them into
+ * events. The last known status and modification time of recently seen items are kept, bounded by maxKnownItems, to
+ * classify status changes and drop duplicate deliveries of the same modification.
+ *
+ * @param start        Where to start if the cursor store has no cursor for the feed. It is saved right away (or once
+ *                     the backlog was delivered), so that a restart before the first poll still resumes from it.
+ * @param changesSince Lazily streams items modified at or after the given time, in ascending modification order.
+ * @param backlog      If the cursor store has no cursor for the feed, fetches the items to deliver as created before
+ *                     the changes from start on, whenever they were modified (e.g. the pending ones). Items in both are
+ *                     delivered once.
+ */
+private[restaurants] class ChangeFeed[T](feedId: String,
+                                         cursorStore: CursorStore,
+                                         start: FeedCursor,
+                                         changesSince: Long => JStream[T],
+                                         idOf: T => String,
+                                         createdOf: T => Long,
+                                         modifiedOf: T => Long,
+                                         statusOf: T => String,
+                                         maxKnownItems: Int = 10000,
+                                         backlog: Option[() => Seq[T]] = None) extends Feed[T] {
+  private case class Known(status: String, modified: Long)
+
+  private val listeners = new CopyOnWriteArrayList[FeedListener[T]]()
+  private val known = new JLinkedHashMap[String, Known](16, 0.75f, true) {
+    override def removeEldestEntry(eldest: JMap.Entry[String, Known]): Boolean = size > maxKnownItems
+  }
+  private val scheduler = new AtomicReference[Option[ScheduledExecutorService]](None)
+  @volatile private var cursor: FeedCursor = _
+  private var backlogPending = false
+  Option(cursorStore.load(feedId)) match {
+    case Some(saved) => cursor = saved
+    case None =>
+      cursor = start
+      backlogPending = backlog.isDefined
+      if (!backlogPending) {
+        cursorStore.save(feedId, start)
+      }
+  }
+
+  override def addListener(listener: FeedListener[T]): Unit = listeners.add(listener)
+
+  override def removeListener(listener: FeedListener[T]): Unit = listeners.remove(listener)
+
+  override def getCursor: FeedCursor = cursor
+
+  override def poll(): Int = synchronized {
+    var delivered = if (backlogPending) deliverBacklog() else 0
+    val startCursor = cursor
+    val changes = changesSince(startCursor.modifiedSince)
+    try {
+      changes.iterator.asScala.foreach { item =>
+        val id = idOf(item)
+        val modified = modifiedOf(item)
+        if (!cursor.hasSeen(modified, id)) {
+          eventFor(item, startCursor).foreach { event =>
+            listeners.asScala.foreach { _.onEvent(event) }
+            delivered += 1
+          }
+          known.put(id, Known(statusOf(item), modified))
+          cursor = cursor.advancedTo(modified, id)
+        }
+      }
+    } finally {
+      changes.close()
+      cursorStore.save(feedId, cursor)
+    }
+    delivered
+  }
+
+  /** Delivers the backlog, then saves the (unchanged) cursor: until then, a restart delivers the backlog again. */
+  private def deliverBacklog(): Int = {
+    var delivered = 0
+    backlog.get().foreach { item =>
+      val id = idOf(item)
+      if (!known.containsKey(id)) {
+        val event = new FeedEvent(FeedEvent.Type.CREATED, item, null)
+        listeners.asScala.foreach { _.onEvent(event) }
+        delivered += 1
+      }
+      known.put(id, Known(statusOf(item), modifiedOf(item)))
+    }
+    backlogPending = false
+    cursorStore.save(feedId, cursor)
+    delivered
+  }
+
+  override def start(delay: Long, unit: TimeUnit): Unit = {
+    val executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory {
+      override def newThread(runnable: Runnable): Thread = {
+        val thread = new Thread(runnable, s"wix-restaurants-feed-$feedId")
+        thread.setDaemon(true)
+        thread
+      }
+    })
+    if (!scheduler.compareAndSet(None, Some(executor))) {
+      executor.shutdown()
+      throw new IllegalStateException(s"Feed $feedId is already started")
+    }
+
+    executor.scheduleWithFixedDelay(new Runnable {
+      override def run(): Unit = {
+        try {
+          poll()
+        } catch {
+          case NonFatal(e) => listeners.asScala.foreach { _.onError(e) }
+        }
+      }
+    }, 0L, delay, unit)
+  }
+
+  override def close(): Unit = {
+    scheduler.getAndSet(None).foreach { _.shutdown() } // A poll in progress runs to completion
+  }
+
+  private def eventFor(item: T, startCursor: FeedCursor): Option[FeedEvent[T]] = {
+    Option(known.get(idOf(item))) match {
+      case Some(previous) if previous.modified >= modifiedOf(item) => None
+      case Some(previous) if previous.status != statusOf(item) => Some(new FeedEvent(FeedEvent.Type.STATUS_CHANGED, item, previous.status))
+      case Some(previous) => Some(new FeedEvent(FeedEvent.Type.MODIFIED, item, previous.status))
+      case None if createdOf(item) >= startCursor.modifiedSince => Some(new FeedEvent(FeedEvent.Type.CREATED, item, null))
+      case None => Some(new FeedEvent(FeedEvent.Type.MODIFIED, item, null))
+    }
+  }
+}
+
+private[restaurants] object ChangeFeed {
+  /** How far the clocks of the client and the server are allowed to drift apart, without a new feed missing changes. */
+  val clockSkewAllowance: FiniteDuration = 5.minutes
+
+  /** @return where a new feed starts, given this machine's time: early enough for a server clock behind it. */
+  def defaultStart(now: Long): FeedCursor = FeedCursor.startingAt(now - clockSkewAllowance.toMillis)
+}
@@ -0,0 +1,86 @@
+package com.wix.restaurants
+
+import com.wix.restaurants.exceptions.CircuitOpenException
+
+import scala.concurrent.duration.FiniteDuration
+import scala.concurrent.{ExecutionContext, Future}
+import scala.util.control.NonFatal
+import scala.util.{Failure, Success}
+
+/**
+ * Fails calls immediately after failureThreshold consecutive failures, until resetTimeout has passed. Then a single
+ * trial call is let through: its success closes the circuit, its failure opens it for another resetTimeout.
+ *
+ * Only the trial's result closes or reopens the circuit. Results of calls admitted before the circuit last opened
+ * (e.g. slow calls that complete while it is open) are ignored.
+ *
+ * @param isFailure Which errors count as failures; others (e.g. client errors) count as successes.
+ */
+private[restaurants] class CircuitBreaker(name: String, failureThreshold: Int, resetTimeout: FiniteDuration,
+                                          isFailure: Throwable => Boolean)
+                                         (implicit executionContext: ExecutionContext) {
+  /** What a call was admitted as: the circuit's generation at the time, and whether it is the trial. */
+  private case class Admission(generation: Long, trial: Boolean)
+
+  // Guarded by this
+  private var consecutiveFailures = 0
+  private var openedAt: Long = 0L // 0 while closed
+  private var generation = 0L // Incremented whenever the circuit opens
+  private var trialInFlight = false
+
+  def apply[T](call: => Future[T]): Future[T] = {
+    admit() match {
+      case None =>
+        Future.failed(new CircuitOpenException(s"Circuit to $name is open after $failureThreshold consecutive failures"))
+      case Some(admission) =>
+        val result = try { call } catch { case NonFatal(e) => Future.failed(e) }
+        result.andThen {
+          case Failure(e) if isFailure(e) => failed(admission)
+          case Success(_) | Failure(_) => succeeded(admission)
+        }
+    }
+  }
+
+  def isOpen: Boolean = synchronized { openedAt != 0L }
+
+  private def admit(): Option[Admission] = synchronized {
+    if (openedAt == 0L) {
+      Some(Admission(generation, trial = false))
+    } else if (trialInFlight || System.nanoTime - openedAt < resetTimeout.toNanos) {
+      None
+    } else {
+      trialInFlight = true
+      Some(Admission(generation, trial = true))
+    }
+  }
+
+  private def succeeded(admission: Admission): Unit = synchronized {
+    if (admission.generation == generation) {
+      if (admission.trial) {
+        openedAt = 0L
+        trialInFlight = false
+      }
+      consecutiveFailures = 0
+    }
+  }
+
+  private def failed(admission: Admission): Unit = synchronized {
+    if (admission.generation == generation) {
+      if (admission.trial) {
+        trialInFlight = false
+        open()
+      } else {
+        consecutiveFailures += 1
+        if (consecutiveFailures >= failureThreshold) {
+          open()
+        }
+      }
+    }
+  }
+
+  private def open(): Unit = {
+    openedAt = Math.max(System.nanoTime, 1L)
+    generation += 1
+    consecutiveFailures = 0
+  }
+}
@@ -0,0 +1,49 @@
+package com.wix.restaurants
+
+import akka.http.scaladsl.coding.{Deflate, Gzip}
+import akka.http.scaladsl.model.headers.{`Accept-Encoding`, `Content-Encoding`, HttpEncodingRange, HttpEncodings}
+import akka.http.scaladsl.model.{HttpEntity, HttpRequest, Uri}
+import com.wix.restaurants.compression.{CallClass, CompressionSettings}
+
+/** Applies [[CompressionSettings]] to outgoing requests. */
+private[restaurants] class Compression(settings: CompressionSettings) {
+  private val acceptEncoding = `Accept-Encoding`(HttpEncodingRange(HttpEncodings.gzip), HttpEncodingRange(HttpEncodings.deflate))
+  private val (encoder, encoding) = settings.requestCoding match {
+    case "deflate" => (Deflate, HttpEncodings.deflate)
+    case _ => (Gzip, HttpEncodings.gzip)
+  }
+
+  def encode(request: HttpRequest): HttpRequest = {
+    val callClass = Compression.callClassOf(request.uri)
+    val negotiated = if (settings.compressedResponses.contains(callClass) && request.header[`Accept-Encoding`].isEmpty) {
+      request.addHeader(acceptEncoding)
+    } else {
+      request
+    }
+
+    negotiated.entity match {
+      case HttpEntity.Strict(contentType, data) if settings.compressedRequests.contains(callClass) && data.length >= settings.minRequestBytes =>
+        // Encoded eagerly, so the body is still sent with a Content-Length rather than chunked
+        negotiated.withEntity(HttpEntity.Strict(contentType, encoder.encode(data))).addHeader(`Content-Encoding`(encoding))
+      case _ =>
+        negotiated
+    }
+  }
+}
+
+private[restaurants] object Compression {
+  def callClassOf(uri: Uri): CallClass = {
+    val segments = uri.path.toString.split('/').toSet
+    if (segments.exists { _.toLowerCase.contains("menu") }) {
+      CallClass.MENUS
+    } else if (segments.contains("orders")) {
+      CallClass.ORDERS
+    } else if (segments.contains("reservations")) {
+      CallClass.RESERVATIONS
+    } else if (segments.contains("organizations") || segments.contains("organization")) {
+      CallClass.ORGANIZATIONS
+    } else {
+      CallClass.OTHER
+    }
+  }
+}
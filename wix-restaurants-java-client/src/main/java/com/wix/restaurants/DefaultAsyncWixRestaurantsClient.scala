@@ -0,0 +1,895 @@
+package com.wix.restaurants
+
+import java.net.URLEncoder
+import java.util.concurrent.CompletionStage
+import java.util.stream.{StreamSupport, Stream => JStream}
+import java.util.function.{BiConsumer, Consumer}
+import java.util.{Date, Spliterator, Spliterators, UUID, ArrayList => JArrayList, List => JList, Map => JMap}
+import akka.actor.ActorSystem
+import akka.http.javadsl.model.headers.{AcceptEncoding, Authorization}
+import akka.http.scaladsl.client.RequestBuilding.{Delete, Get, Post, Put}
+import akka.http.scaladsl.model.HttpRequest
+import akka.http.scaladsl.model.headers.{HttpEncoding, RawHeader}
+import akka.stream.Materializer
+import com.openrest.v1_1._
+import com.wix.pay.smaug.client.model.CreditCardToken
+import com.wix.restaurants.authentication.model.{Namespaces, User => AuthenticationUser}
+import com.wix.restaurants.authorization.{AuthorizationCacheSettings, AuthorizationClient, DefaultAuthorizationClient}
+import com.wix.restaurants.bulk.BulkResult
+import com.wix.restaurants.feeds.{CursorStore, FeedCursor, InMemoryCursorStore, OrderFeed, ReservationFeed}
+import com.wix.restaurants.cache.{CoalescingStats, ResponseCacheSettings, SnapshotStats}
+import com.wix.restaurants.compression.CompressionSettings
+import com.wix.restaurants.i18n.Locale
+import com.wix.restaurants.limits.{LimitSettings, LimitStats}
+import com.wix.restaurants.json.Json
+import com.wix.restaurants.menus.{MenuUpdate, MenuUploadSettings}
+import com.wix.restaurants.metrics.RequestListener
+import com.wix.restaurants.orders.{OrderSummary, Statuses => OrderStatuses}
+import com.wix.restaurants.paging.PagingSettings
+import com.wix.restaurants.resilience.{ResilienceSettings, ResilienceStats}
+import com.wix.restaurants.reservations.{Reservation, Statuses => ReservationStatuses}
+import com.wix.restaurants.submissions.{SubmissionQueue, SubmissionQueueSettings}
+import com.wix.restaurants.transport.{HttpTransport, TransportResponse}
+
+import scala.collection.JavaConverters._
+import scala.compat.java8.FutureConverters.{toJava, toScala}
+import scala.concurrent.duration.FiniteDuration
+import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.reflect.ClassTag
+
+/**
+ * @param runtime        Runtime to share with other clients, or null to use a private one that is closed with this client.
+ * @param cacheSettings  Response caching for organization, menu and related lookups, or null to disable caching.
+ *                       Objects returned by cached calls are shared between callers (and with the cache), and must
+ *                       not be modified.
+ * @param pagingSettings Page sizing and timeout for the stream* history queries.
+ * @param authorizationCacheSettings Caching of the authorization client's roles and organization lookups, or null
+ *                                   to disable it.
+ * @param coalesceGets   Whether identical GETs that overlap in time share a single request. Lists and objects
+ *                       returned by coalesced calls may be shared between callers, and must not be modified.
+ * @param compressionSettings Compression of request bodies and responses, or null to send everything uncompressed
+ *                            (except for getMenuWithLocationIdAsGzip).
+ * @param menuUploadSettings Tracking of uploaded menus, so that setMenu and updateMenu skip uploads identical to
+ *                           the last one, or null to always upload.
+ * @param requestListener Notified of every request sent by this client and its authorization client (e.g. a
+ *                        [[com.wix.restaurants.metrics.RequestMetrics]]), or null to skip instrumentation.
+ * @param resilienceSettings Retries, circuit breaking and hedging for transient failures, or null to fail on the first
+ *                           error. Writes that may be retried are sent with an (advisory) Idempotency-Key.
+ * @param limitSettings  Concurrency and rate limits per organization and call class, or null for no client-side limits
+ *                       (other than the runtime's connection pool).
+ * @param transport      Transport to send this client's and its authorization client's requests through, or null to
+ *                       use the runtime's Akka HTTP connection pool. Not closed with this client.
+ * @param submissionQueueSettings A local journal for submitting orders and reservations in the background (see
+ *                                getSubmissionQueue), or null to disable it.
+ */
+class DefaultAsyncWixRestaurantsClient(apiUrl: String = "https://api.wixrestaurants.com/v2",
+                                       runtime: WixRestaurantsRuntime = null,
+                                       cacheSettings: ResponseCacheSettings = null,
+                                       pagingSettings: PagingSettings = PagingSettings(),
+                                       authorizationCacheSettings: AuthorizationCacheSettings = null,
+                                       coalesceGets: Boolean = false,
+                                       compressionSettings: CompressionSettings = null,
+                                       menuUploadSettings: MenuUploadSettings = null,
+                                       requestListener: RequestListener = null,
+                                       resilienceSettings: ResilienceSettings = null,
+                                       limitSettings: LimitSettings = null,
+                                       transport: HttpTransport = null,
+                                       submissionQueueSettings: SubmissionQueueSettings = null) extends AsyncWixRestaurantsClient {
+
+  private val ownedRuntime: Option[WixRestaurantsRuntime] = Option(runtime) match {
+    case Some(_) => None
+    case None => Some(new WixRestaurantsRuntime())
+  }
+  private val theRuntime: WixRestaurantsRuntime = ownedRuntime.getOrElse(runtime)
+  private val theTransport: HttpTransport = Option(transport).getOrElse(theRuntime.defaultTransport)
+
+  private val authorizationClient: DefaultAuthorizationClient = new DefaultAuthorizationClient(
+    apiUrl = apiUrl, runtime = theRuntime, cacheSettings = authorizationCacheSettings,
+    requestListener = requestListener, resilienceSettings = resilienceSettings, transport = theTransport)
+
+  private implicit lazy val system: ActorSystem = theRuntime.system
+  private implicit val executionContext: ExecutionContext = theRuntime.executionContext
+  private implicit lazy val materializer: Materializer = theRuntime.materializer
+  private val pipeline: RequestPipeline = new RequestPipeline(
+    instrumentation = Option(requestListener).map { new Instrumentation(_, apiUrl) },
+    resilience = Option(resilienceSettings).map { new Resilience(_) },
+    limiter = Option(limitSettings).map { new Limiter(_) })
+  private val cachedGets: Option[CachedGets] = Option(cacheSettings).map { new CachedGets(_, theTransport, pipeline) }
+  private val compression: Option[Compression] = Option(compressionSettings).map { new Compression(_) }
+  private val coalescer: Option[RequestCoalescer] = if (coalesceGets) Some(new RequestCoalescer) else None
+  private val menuUploads: Option[MenuUploads] = Option(menuUploadSettings).map { new MenuUploads(_) }
+  private[restaurants] val defaultParallelism: Int = theRuntime.settings.maxConnections
+  // Last, as it starts sending the submissions restored from its journal
+  private val submissionQueue: Option[DurableSubmissionQueue] = Option(submissionQueueSettings).map {
+    new DurableSubmissionQueue(_, sendSubmission)
+  }
+
+
+  override def getAuthorizationClient: AuthorizationClient = authorizationClient
+
+  /** @return request coalescing counters, or null if coalescing is disabled. */
+  def getCoalescingStats: CoalescingStats = coalescer.map { _.stats }.orNull
+
+  /** @return counters of the response cache's snapshot, or null if there is none. */
+  def getSnapshotStats: SnapshotStats = cachedGets.flatMap { _.snapshots }.map { _.stats }.orNull
+
+  /** @return retry, circuit breaking and hedging counters, or null if they are disabled. */
+  def getResilienceStats: ResilienceStats = pipeline.resilience.map { _.stats }.orNull
+
+  /** @return the counters of every (organization, call class) partition in use, or null if limits are disabled. */
+  def getLimitStats: JList[LimitStats] = pipeline.limiter.map { _.stats }.orNull
+
+  /** @return the queue for submitting orders and reservations in the background, or null if it is disabled. */
+  def getSubmissionQueue: SubmissionQueue = submissionQueue.orNull
+
+  /** Cached with cacheSettings, in which case the result is shared, and must not be modified. */
+  override def retrieveRestaurantInfo(restaurantId: String): CompletionStage[RestaurantFullInfo] = {
+    val request = Get(s"$apiUrl/organizations/$restaurantId/full")
+    toJava(cachedGet[RestaurantFullInfo](request, restaurantId) { _.restaurantInfoTtl })
+  }
+
+  /** Cached with cacheSettings, in which case the result is shared, and must not be modified. */
+  override def retrieveOrganization(organizationId: String): CompletionStage[Organization] = {
+    val request = Get(s"$apiUrl/organizations/$organizationId")
+    toJava(cachedGet[Organization](request, organizationId) { _.organizationTtl })
+  }
+
+  override def retrieveOrganizationAsAdmin(accessToken: String, organizationId: String): CompletionStage[Organization] = {
+    val request = Get(s"$apiUrl/admin/organizations/$organizationId")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Organization](request))
+  }
+
+  override def setOrganization(accessToken: String, organization: Organization): CompletionStage[Organization] = {
+    val request = Put(s"$apiUrl/organizations/${organization.id}", Json.stringify(organization))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(invalidating(organization.id) { execute[Organization](request, writeRetries = WriteRetries.Always) })
+  }
+
+  override def createOrganization(accessToken: String, organization: Organization): CompletionStage[Organization] = {
+    val anonymousRequest = Post(s"$apiUrl/organizations", Json.stringify(organization))
+    val request = Option(accessToken) match {
+      case Some(at) => anonymousRequest.addHeader(Authorization.oauth2(at))
+      case None => anonymousRequest
+    }
+    toJava(execute[Organization](request))
+  }
+
+  override def createOrganizationAsAdmin(accessToken: String, organization: Organization): CompletionStage[Organization] = {
+    val request = Post(s"$apiUrl/admin/organizations", Json.stringify(organization))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Organization](request))
+  }
+
+  override def setOrganizationAsAdmin(accessToken: String, organization: Organization): CompletionStage[Organization] = {
+    val request = Put(s"$apiUrl/admin/organizations/${organization.id}", Json.stringify(organization))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(invalidating(organization.id) { execute[Organization](request, writeRetries = WriteRetries.Always) })
+  }
+
+  override def changeOrganizationLocale(accessToken: String, organizationId: String, locale: Locale): CompletionStage[Void] = {
+    val request = Post(s"$apiUrl/organizations/$organizationId/change_locale?locale=$locale")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(invalidating(organizationId) { executeWithoutResult(request).map { _ => null: Void } })
+  }
+
+  override def addOrganizationProduct(accessToken: String, organizationId: String, product: Product): CompletionStage[Void] = {
+    val request = Post(s"$apiUrl/organizations/$organizationId/products/add", Json.stringify(product))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(invalidating(organizationId) { executeWithoutResult(request).map { _ => null: Void } })
+  }
+
+  override def removeOrganizationProduct(accessToken: String, organizationId: String, product: Product): CompletionStage[Void] = {
+    val request = Post(s"$apiUrl/organizations/$organizationId/products/remove", Json.stringify(product))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(invalidating(organizationId) { executeWithoutResult(request).map { _ => null: Void } })
+  }
+
+  /** Cached with cacheSettings, in which case the result is shared, and must not be modified. */
+  override def getNotifications(accessToken: String , organizationId: String): CompletionStage[Notifications] = {
+    val request = Get(s"$apiUrl/organizations/$organizationId/notifications")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(cachedGet[Notifications](request, organizationId) { _.notificationsTtl })
+  }
+
+  override def setNotifications(accessToken: String, organizationId: String, notifications: Notifications): CompletionStage[Notifications] = {
+    val request = Put(s"$apiUrl/organizations/$organizationId/notifications", Json.stringify(notifications))
+        .addHeader(Authorization.oauth2(accessToken))
+    toJava(invalidating(organizationId) { execute[Notifications](request, writeRetries = WriteRetries.Always) })
+  }
+
+  /** Cached with cacheSettings, in which case the result is shared, and must not be modified. */
+  override def getSecrets(accessToken: String , organizationId: String): CompletionStage[Secrets] = {
+    val request = Get(s"$apiUrl/organizations/$organizationId/secrets")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(cachedGet[Secrets](request, organizationId) { _.secretsTtl })
+  }
+
+  override def setSecrets(accessToken: String, organizationId: String, secrets: Secrets): CompletionStage[Secrets] = {
+    val request = Put(s"$apiUrl/organizations/$organizationId/secrets", Json.stringify(secrets))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(invalidating(organizationId) { execute[Secrets](request, writeRetries = WriteRetries.Always) })
+  }
+
+  /** Cached with cacheSettings, in which case the result is shared, and must not be modified. */
+  override def getMenu(accessToken: String , restaurantId: String): CompletionStage[Menu] = {
+    val request = Get(s"$apiUrl/organizations/$restaurantId/menu")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(cachedGet[Menu](request, restaurantId) { _.menuTtl })
+  }
+
+  /** Cached with cacheSettings, in which case the result is shared, and must not be modified. */
+  override def getMenuWithLocationId(accessToken: String , restaurantId: String, locationId: String): CompletionStage[Menu] = {
+    val queryLocationId = Option(locationId).map { theLocationId => s"?locationId=$theLocationId" }.getOrElse("")
+    val request = Get(s"$apiUrl/organizations/$restaurantId/menu${queryLocationId}")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(cachedGet[Menu](request, restaurantId) { _.menuTtl })
+  }
+
+  /** Cached with cacheSettings, in which case the result is shared, and must not be modified. */
+  override def getMenuWithLocationIdAsGzip(accessToken: String , restaurantId: String, locationId: String): CompletionStage[Menu] = {
+    val queryLocationId = Option(locationId).map { theLocationId => s"?locationId=$theLocationId" }.getOrElse("")
+    val request = Get(s"$apiUrl/organizations/$restaurantId/menu${queryLocationId}")
+      .addHeader(Authorization.oauth2(accessToken))
+      .addHeader(AcceptEncoding.create(HttpEncoding("gzip")))
+    toJava(cachedGet[Menu](request, restaurantId) { _.menuTtl })
+  }
+
+  override def setMenu(accessToken: String, restaurantId: String, menu: Menu): CompletionStage[Menu] = {
+    toJava(uploadMenu(accessToken, restaurantId, null, menu).map { _.menu })
+  }
+
+  override def setMenuWithLocationId(accessToken: String , restaurantId: String,  menu: Menu, locationId: String): CompletionStage[Menu] = {
+    toJava(uploadMenu(accessToken, restaurantId, locationId, menu).map { _.menu })
+  }
+
+  override def updateMenu(accessToken: String, restaurantId: String, locationId: String, menu: Menu): CompletionStage[MenuUpdate] = {
+    toJava(uploadMenu(accessToken, restaurantId, locationId, menu))
+  }
+
+  private def uploadMenu(accessToken: String, restaurantId: String, locationId: String, menu: Menu): Future[MenuUpdate] = {
+    val queryLocationId = Option(locationId).map { theLocationId => s"?locationId=$theLocationId" }.getOrElse("")
+    val body = Json.stringify(menu)
+    val request = Put(s"$apiUrl/organizations/$restaurantId/menu${queryLocationId}", body)
+      .addHeader(Authorization.oauth2(accessToken))
+    // Records the upload only after invalidating (which also forgets the restaurant's previous uploads)
+    def upload = invalidating(restaurantId) { execute[Menu](request, writeRetries = WriteRetries.Always) }
+
+    menuUploads match {
+      case Some(uploads) => uploads.update(restaurantId, locationId, body)(upload)
+      case None => upload.map { new MenuUpdate(_, null, true) }
+    }
+  }
+
+  override def aMenuWithUpdatedLocale(accessToken: String ,menu: Menu, fromLocale: String, toLocale: String): CompletionStage[Menu] = {
+    val request = Get(s"$apiUrl/admin/aMenuWithUpdatedLocale?fromLocale=$fromLocale&toLocale=$toLocale", Json.stringify(menu))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Menu](request))
+  }
+
+  override def menuChangeLocale(accessToken: String ,menu: Menu, fromLocale: String, toLocale: String): CompletionStage[Menu] = {
+    val request = Post(s"$apiUrl/admin/menu/changeLocale?fromLocale=$fromLocale&toLocale=$toLocale", Json.stringify(menu))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Menu](request))
+  }
+
+  override def submitOrder(accessToken: String, order: Order): CompletionStage[Order] = {
+    toJava(submit[Order](accessToken, order.restaurantId, "orders", Json.stringify(order)))
+  }
+
+  override def retrieveOrderAsRestaurant(accessToken: String, restaurantId: String, orderId: String): CompletionStage[Order] = {
+    val request = Get(s"$apiUrl/organizations/$restaurantId/orders/$orderId?viewMode=${Actors.restaurant}")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Order](request))
+  }
+
+  override def retrieveOrderAsOwner(accessToken: String, restaurantId: String, orderId: String): CompletionStage[Order] = {
+    val request = Get(s"$apiUrl/organizations/$restaurantId/orders/$orderId?viewMode=${Actors.customer}")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Order](request))
+  }
+
+  override def retrieveNewOrders(accessToken: String, restaurantId: String): CompletionStage[JList[Order]] = {
+    retrieveOrdersAsRestaurant(accessToken, restaurantId, OrderStatuses.new_, 10000)
+  }
+
+  override def retrieveNewOrders(accessToken: String, restaurantId: String, consumer: Consumer[Order]): CompletionStage[Integer] = {
+    retrieveOrdersAsRestaurant(accessToken, restaurantId, OrderStatuses.new_, 10000, consumer)
+  }
+
+  override def orderFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore): OrderFeed = {
+    orderFeed(accessToken, restaurantId, cursorStore, ChangeFeed.defaultStart(System.currentTimeMillis),
+      backlog = Some(() => awaitBacklog(retrieveNewOrders(accessToken, restaurantId))))
+  }
+
+  override def orderFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore, start: FeedCursor): OrderFeed =
+    orderFeed(accessToken, restaurantId, cursorStore, start, backlog = None)
+
+  /** Waits for a feed's backlog, like a stream does for a page. */
+  private def awaitBacklog[T](results: CompletionStage[JList[T]]): Seq[T] =
+    Await.result(toScala(results), pagingSettings.pageTimeout).asScala
+
+  private def orderFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore, start: FeedCursor,
+                        backlog: Option[() => Seq[Order]]): OrderFeed = {
+    new ChangeFeed[Order](s"orders/$restaurantId", Option(cursorStore).getOrElse(new InMemoryCursorStore), start,
+      changesSince = modifiedSince => stream[Order](from = modifiedSince, descending = false)(
+        request = (cursor, limit) => restaurantChangesRequest(accessToken, restaurantId, "orders", cursor, limit))(
+        timestampOf = _.modified.getTime, idOf = _.id),
+      idOf = _.id, createdOf = _.created.getTime, modifiedOf = _.modified.getTime, statusOf = _.status,
+      backlog = backlog) with OrderFeed
+  }
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, limit: Int): CompletionStage[JList[Order]] = {
+    val statusPart = Option(status).map { theStatus => s"&status=$theStatus" }.getOrElse("")
+    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart&limit=$limit")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(retrieveResults[Order](request))
+  }
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, limit: Int, consumer: Consumer[Order]): CompletionStage[Integer] = {
+    val statusPart = Option(status).map { theStatus => s"&status=$theStatus" }.getOrElse("")
+    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart&limit=$limit")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(streamResults[Order](request) { consumer.accept })
+  }
+
+  override def retrieveNewOrderSummaries(accessToken: String, restaurantId: String): CompletionStage[JList[OrderSummary]] = {
+    retrieveOrderSummariesAsRestaurant(accessToken, restaurantId, OrderStatuses.new_, 10000)
+  }
+
+  override def retrieveOrderSummariesAsRestaurant(accessToken: String, restaurantId: String, status: String, limit: Int): CompletionStage[JList[OrderSummary]] = {
+    val statusPart = Option(status).map { theStatus => s"&status=$theStatus" }.getOrElse("")
+    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart&limit=$limit")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(retrieveResults[OrderSummary](request))
+  }
+
+  override def retrieveNewOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], parallelism: Int): CompletionStage[JMap[String, BulkResult[JList[Order]]]] =
+    retrieveOrdersOfRestaurants(accessToken, restaurantIds, OrderStatuses.new_, 10000, parallelism)
+
+  override def retrieveNewOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String]): CompletionStage[JMap[String, BulkResult[JList[Order]]]] =
+    retrieveNewOrdersOfRestaurants(accessToken, restaurantIds, defaultParallelism)
+
+  override def retrieveNewOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], parallelism: Int, consumer: BiConsumer[String, BulkResult[JList[Order]]]): CompletionStage[Void] =
+    retrieveOrdersOfRestaurants(accessToken, restaurantIds, OrderStatuses.new_, 10000, parallelism, consumer)
+
+  override def retrieveOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], status: String, limit: Int, parallelism: Int): CompletionStage[JMap[String, BulkResult[JList[Order]]]] = {
+    toJava(Bulk.run(restaurantIds.asScala, parallelism) { restaurantId =>
+      toScala(retrieveOrdersAsRestaurant(accessToken, restaurantId, status, limit))
+    })
+  }
+
+  override def retrieveOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], status: String, limit: Int): CompletionStage[JMap[String, BulkResult[JList[Order]]]] =
+    retrieveOrdersOfRestaurants(accessToken, restaurantIds, status, limit, defaultParallelism)
+
+  override def retrieveOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], status: String, limit: Int, parallelism: Int, consumer: BiConsumer[String, BulkResult[JList[Order]]]): CompletionStage[Void] = {
+    toJava(Bulk.stream(restaurantIds.asScala, parallelism) { restaurantId =>
+      toScala(retrieveOrdersAsRestaurant(accessToken, restaurantId, status, limit))
+    } { consumer.accept })
+  }
+
+  override def retrieveOrdersByIdAsRestaurant(accessToken: String, restaurantId: String, orderIds: JList[String], parallelism: Int): CompletionStage[JMap[String, BulkResult[Order]]] = {
+    toJava(Bulk.run(orderIds.asScala, parallelism) { orderId =>
+      toScala(retrieveOrderAsRestaurant(accessToken, restaurantId, orderId))
+    })
+  }
+
+  override def retrieveOrdersByIdAsRestaurant(accessToken: String, restaurantId: String, orderIds: JList[String]): CompletionStage[JMap[String, BulkResult[Order]]] =
+    retrieveOrdersByIdAsRestaurant(accessToken, restaurantId, orderIds, defaultParallelism)
+
+  override def retrieveOrdersByIdAsRestaurant(accessToken: String, restaurantId: String, orderIds: JList[String], parallelism: Int, consumer: BiConsumer[String, BulkResult[Order]]): CompletionStage[Void] = {
+    toJava(Bulk.stream(orderIds.asScala, parallelism) { orderId =>
+      toScala(retrieveOrderAsRestaurant(accessToken, restaurantId, orderId))
+    } { consumer.accept })
+  }
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, delivered: String, created: String, order: String, limit: Int): CompletionStage[JList[Order]] = {
+    val statusPart = Option(status).map { value => s"&status=$value"}.getOrElse("")
+    val deliveredPart = Option(delivered).map { value => s"&delivered=$value" }.getOrElse("")
+    val createdPart = Option(created).map { value => s"&created=$value" }.getOrElse("")
+    val orderPart = Option(order).map { value => s"&order=$value" }.getOrElse("")
+    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart$deliveredPart$createdPart$orderPart&limit=$limit")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(retrieveResults[Order](request))
+  }
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, delivered: String, created: String, order: String, limit: Int, locationIds: String): CompletionStage[JList[Order]] = {
+    val statusPart = Option(status).map { value => s"&status=$value"}.getOrElse("")
+    val deliveredPart = Option(delivered).map { value => s"&delivered=$value" }.getOrElse("")
+    val createdPart = Option(created).map { value => s"&created=$value" }.getOrElse("")
+    val orderPart = Option(order).map { value => s"&order=$value" }.getOrElse("")
+    val locationIdsPart = Option(locationIds).map { value => s"&locationIds=$value" }.getOrElse("")
+    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart$deliveredPart$createdPart$orderPart$locationIdsPart&limit=$limit")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(retrieveResults[Order](request))
+  }
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, deliveryTime: String, delivered: String, created: String, order: String, limit: Int, locationIds: String): CompletionStage[JList[Order]] = {
+    val statusPart = Option(status).map { value => s"&status=$value"}.getOrElse("")
+    val deliveryTimePart = Option(deliveryTime).map { value => s"&deliveryTime=$value" }.getOrElse("")
+    val deliveredPart = Option(delivered).map { value => s"&delivered=$value" }.getOrElse("")
+    val createdPart = Option(created).map { value => s"&created=$value" }.getOrElse("")
+    val orderPart = Option(order).map { value => s"&order=$value" }.getOrElse("")
+    val locationIdsPart = Option(locationIds).map { value => s"&locationIds=$value" }.getOrElse("")
+    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart$deliveryTimePart$deliveredPart$createdPart$orderPart$locationIdsPart&limit=$limit")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(retrieveResults[Order](request))
+  }
+
+  override def retrieveOrdersByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date, limit: Integer): CompletionStage[JList[Order]] = {
+    retrieveUserOrders(accessToken, organizationId, new AuthenticationUser(Namespaces.phone, phone), modifiedSince, limit)
+  }
+
+  override def retrieveOrdersByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date, limit: Integer): CompletionStage[JList[Order]] = {
+    retrieveUserOrders(accessToken, organizationId, new AuthenticationUser(Namespaces.email, email), modifiedSince, limit)
+  }
+
+  private def retrieveUserOrders(accessToken: String, organizationId: String, user: AuthenticationUser, modifiedSince: Date, limit: Integer): CompletionStage[JList[Order]] = {
+    val modifiedSinceTimestamp = Option(modifiedSince).map { _.getTime }.getOrElse(0L)
+    val actualLimit = Option(limit).map { _.toInt }.getOrElse(1000000)
+    val request = userOrdersRequest(accessToken, organizationId, user, modifiedSinceTimestamp, actualLimit)
+    toJava(retrieveResults[Order](request))
+  }
+
+  override def streamOrdersByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date): JStream[Order] = {
+    streamUserOrders(accessToken, organizationId, new AuthenticationUser(Namespaces.phone, phone), modifiedSince)
+  }
+
+  override def streamOrdersByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date): JStream[Order] = {
+    streamUserOrders(accessToken, organizationId, new AuthenticationUser(Namespaces.email, email), modifiedSince)
+  }
+
+  private def streamUserOrders(accessToken: String, organizationId: String, user: AuthenticationUser, modifiedSince: Date): JStream[Order] = {
+    stream[Order](from = Option(modifiedSince).map { _.getTime }.getOrElse(0L), descending = false)(
+      request = (cursor, limit) => userOrdersRequest(accessToken, organizationId, user, cursor, limit))(
+      timestampOf = _.modified.getTime, idOf = _.id)
+  }
+
+  private def userOrdersRequest(accessToken: String, organizationId: String, user: AuthenticationUser, modifiedSince: Long, limit: Int): HttpRequest = {
+    Get(s"$apiUrl/organizations/$organizationId/orders?viewMode=${Actors.restaurant}&user=${user.ns}:${URLEncoder.encode(user.id, "UTF-8")}&modified=gte:$modifiedSince&limit=$limit")
+      .addHeader(Authorization.oauth2(accessToken))
+  }
+
+  override def acceptOrder(accessToken: String, restaurantId: String, orderId: String, externalIds: JMap[String, String]): CompletionStage[Order] = {
+    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/accept?as=${Actors.restaurant}", Json.stringify(new Acceptance(null, externalIds)))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Order](request, writeRetries = WriteRetries.IfUnapplied))
+  }
+
+  override def acceptOrderWithComment(accessToken: String, restaurantId: String, orderId: String, comment: String) : CompletionStage[Order] = {
+    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/accept?as=${Actors.restaurant}", Json.stringify(Comment(Option(comment))))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Order](request, writeRetries = WriteRetries.IfUnapplied))
+  }
+
+  override def acceptOrderWithCommentAndPickupTime(accessToken: String, restaurantId: String, orderId: String, comment: String, pickupTime: Date) : CompletionStage[Order] = {
+    val pickupTimeParam = Option(pickupTime).map(time => s"&pickupTime=${time.getTime.toString}").getOrElse("")
+    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/accept?as=${Actors.restaurant}$pickupTimeParam", Json.stringify(Comment(Option(comment))))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Order](request, writeRetries = WriteRetries.IfUnapplied))
+  }
+
+  override def acceptOrderWithCommentAndDropOffTime(accessToken: String, restaurantId: String, orderId: String, comment: String, dropOffTime: Date) : CompletionStage[Order] = {
+    val dropOffTimeParam = Option(dropOffTime).map(time => s"&dropoffTime=${time.getTime.toString}").getOrElse("")
+    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/accept?as=${Actors.restaurant}$dropOffTimeParam", Json.stringify(Comment(Option(comment))))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Order](request, writeRetries = WriteRetries.IfUnapplied))
+  }
+
+  override def rejectOrder(accessToken: String, restaurantId: String, orderId: String, comment: String): CompletionStage[Order] = {
+    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/cancel?as=${Actors.restaurant}", Json.stringify(Comment(Option(comment))))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Order](request, writeRetries = WriteRetries.IfUnapplied))
+  }
+
+  override def acceptOrders(accessToken: String, restaurantId: String, externalIdsByOrderId: JMap[String, JMap[String, String]], parallelism: Int): CompletionStage[JMap[String, BulkResult[Order]]] = {
+    toJava(Bulk.run(externalIdsByOrderId.keySet.asScala.toList, parallelism) { orderId =>
+      toScala(acceptOrder(accessToken, restaurantId, orderId, externalIdsByOrderId.get(orderId)))
+    })
+  }
+
+  override def acceptOrders(accessToken: String, restaurantId: String, externalIdsByOrderId: JMap[String, JMap[String, String]]): CompletionStage[JMap[String, BulkResult[Order]]] =
+    acceptOrders(accessToken, restaurantId, externalIdsByOrderId, defaultParallelism)
+
+  override def rejectOrders(accessToken: String, restaurantId: String, orderIds: JList[String], comment: String, parallelism: Int): CompletionStage[JMap[String, BulkResult[Order]]] = {
+    toJava(Bulk.run(orderIds.asScala, parallelism) { orderId =>
+      toScala(rejectOrder(accessToken, restaurantId, orderId, comment))
+    })
+  }
+
+  override def rejectOrders(accessToken: String, restaurantId: String, orderIds: JList[String], comment: String): CompletionStage[JMap[String, BulkResult[Order]]] =
+    rejectOrders(accessToken, restaurantId, orderIds, comment, defaultParallelism)
+
+  override def setOrderProperties(accessToken: String, restaurantId: String, orderId: String, properties: JMap[String, String]): CompletionStage[Order] = {
+    val request = Put(s"$apiUrl/organizations/$restaurantId/orders/$orderId/properties", Json.stringify(properties))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Order](request, writeRetries = WriteRetries.Always))
+  }
+
+  override def setOrderContactId(accessToken: String, restaurantId: String, orderId: String, contactId: String): CompletionStage[Order] =  {
+    val request = Post(s"$apiUrl/admin/organizations/$restaurantId/orders/$orderId/setContactId", contactId)
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Order](request))
+  }
+
+  override def confirmOrderCashier(organizationId: String, orderId: String): CompletionStage[Order] = {
+    val request = Post(s"$apiUrl/organizations/$organizationId/orders/$orderId/confirmCashier?as=${Actors.restaurant}")
+    toJava(execute[Order](request))
+  }
+
+  override def submitReservation(accessToken: String, reservation: Reservation): CompletionStage[Reservation] = {
+    toJava(submit[Reservation](accessToken, reservation.restaurantId, "reservations", Json.stringify(reservation)))
+  }
+
+  override def retrieveReservationAsOwner(accessToken: String, restaurantId: String, reservationId: String): CompletionStage[Reservation] = {
+    val request = Get(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId?viewMode=${Actors.customer}")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Reservation](request))
+  }
+
+  override def retrieveReservationAsRestaurant(accessToken: String, restaurantId: String, reservationId: String): CompletionStage[Reservation] = {
+    val request = Get(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId?viewMode=${Actors.restaurant}")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[Reservation](request))
+  }
+
+  override def retrieveUnhandledReservations(accessToken: String, restaurantId: String): CompletionStage[JList[Reservation]] = {
+    val request = Get(s"$apiUrl/organizations/$restaurantId/reservations?viewMode=${Actors.restaurant}&unhandled=true")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(retrieveResults[Reservation](request))
+  }
+
+  override def retrieveReservationsByIdAsRestaurant(accessToken: String, restaurantId: String, reservationIds: JList[String], parallelism: Int): CompletionStage[JMap[String, BulkResult[Reservation]]] = {
+    toJava(Bulk.run(reservationIds.asScala, parallelism) { reservationId =>
+      toScala(retrieveReservationAsRestaurant(accessToken, restaurantId, reservationId))
+    })
+  }
+
+  override def retrieveReservationsByIdAsRestaurant(accessToken: String, restaurantId: String, reservationIds: JList[String]): CompletionStage[JMap[String, BulkResult[Reservation]]] =
+    retrieveReservationsByIdAsRestaurant(accessToken, restaurantId, reservationIds, defaultParallelism)
+
+  override def retrieveReservationsByIdAsRestaurant(accessToken: String, restaurantId: String, reservationIds: JList[String], parallelism: Int, consumer: BiConsumer[String, BulkResult[Reservation]]): CompletionStage[Void] = {
+    toJava(Bulk.stream(reservationIds.asScala, parallelism) { reservationId =>
+      toScala(retrieveReservationAsRestaurant(accessToken, restaurantId, reservationId))
+    } { consumer.accept })
+  }
+
+  override def retrieveUnhandledReservations(accessToken: String, restaurantId: String, consumer: Consumer[Reservation]): CompletionStage[Integer] = {
+    val request = Get(s"$apiUrl/organizations/$restaurantId/reservations?viewMode=${Actors.restaurant}&unhandled=true")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(streamResults[Reservation](request) { consumer.accept })
+  }
+
+  override def reservationFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore): ReservationFeed = {
+    reservationFeed(accessToken, restaurantId, cursorStore, ChangeFeed.defaultStart(System.currentTimeMillis),
+      backlog = Some(() => awaitBacklog(retrieveUnhandledReservations(accessToken, restaurantId))))
+  }
+
+  override def reservationFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore, start: FeedCursor): ReservationFeed =
+    reservationFeed(accessToken, restaurantId, cursorStore, start, backlog = None)
+
+  private def reservationFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore, start: FeedCursor,
+                              backlog: Option[() => Seq[Reservation]]): ReservationFeed = {
+    new ChangeFeed[Reservation](s"reservations/$restaurantId", Option(cursorStore).getOrElse(new InMemoryCursorStore), start,
+      changesSince = modifiedSince => stream[Reservation](from = modifiedSince, descending = false)(
+        request = (cursor, limit) => restaurantChangesRequest(accessToken, restaurantId, "reservations", cursor, limit))(
+        timestampOf = _.modified.getTime, idOf = _.id),
+      idOf = _.id, createdOf = _.created.getTime, modifiedOf = _.modified.getTime, statusOf = _.status,
+      backlog = backlog) with ReservationFeed
+  }
+
+  private def restaurantChangesRequest(accessToken: String, restaurantId: String, collection: String, modifiedSince: Long, limit: Int): HttpRequest = {
+    Get(s"$apiUrl/organizations/$restaurantId/$collection?viewMode=${Actors.restaurant}&modified=gte:$modifiedSince&order=modified:asc&limit=$limit")
+      .addHeader(Authorization.oauth2(accessToken))
+  }
+
+  override def setReservationStatusAsRestaurant(accessToken: String, restaurantId: String, reservationId: String, status: String, comment: String): CompletionStage[Reservation] = {
+    status match {
+      case ReservationStatuses.accepted =>
+        val request = Post(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId/accept?as=${Actors.restaurant}",
+          Json.stringify(Comment(comment = Option(comment))))
+          .addHeader(Authorization.oauth2(accessToken))
+        toJava(execute[Reservation](request, writeRetries = WriteRetries.IfUnapplied))
+
+      case ReservationStatuses.canceled =>
+        val request = Post(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId/cancel?as=${Actors.restaurant}",
+          Json.stringify(Comment(comment = Option(comment))))
+          .addHeader(Authorization.oauth2(accessToken))
+        toJava(execute[Reservation](request, writeRetries = WriteRetries.IfUnapplied))
+    }
+  }
+
+  override def acceptReservations(accessToken: String, restaurantId: String, reservationIds: JList[String], comment: String, parallelism: Int): CompletionStage[JMap[String, BulkResult[Reservation]]] = {
+    toJava(Bulk.run(reservationIds.asScala, parallelism) { reservationId =>
+      toScala(setReservationStatusAsRestaurant(accessToken, restaurantId, reservationId, ReservationStatuses.accepted, comment))
+    })
+  }
+
+  override def acceptReservations(accessToken: String, restaurantId: String, reservationIds: JList[String], comment: String): CompletionStage[JMap[String, BulkResult[Reservation]]] =
+    acceptReservations(accessToken, restaurantId, reservationIds, comment, defaultParallelism)
+
+  override def cancelReservations(accessToken: String, restaurantId: String, reservationIds: JList[String], comment: String, parallelism: Int): CompletionStage[JMap[String, BulkResult[Reservation]]] = {
+    toJava(Bulk.run(reservationIds.asScala, parallelism) { reservationId =>
+      toScala(setReservationStatusAsRestaurant(accessToken, restaurantId, reservationId, ReservationStatuses.canceled, comment))
+    })
+  }
+
+  override def cancelReservations(accessToken: String, restaurantId: String, reservationIds: JList[String], comment: String): CompletionStage[JMap[String, BulkResult[Reservation]]] =
+    cancelReservations(accessToken, restaurantId, reservationIds, comment, defaultParallelism)
+
+  override def retrieveOrdersByCreatedAsc(accessToken: String, restaurantId: String, contactId: String, createdSince: Date, limit: Integer = 1000): CompletionStage[JList[Order]] =
+    retrieveOrdersByCreated(accessToken, restaurantId, contactId, createdSince, limit, "asc")
+
+  override def retrieveOrdersByCreatedDesc(accessToken: String, restaurantId: String, contactId: String, createdSince: Date, limit: Integer = 1000): CompletionStage[JList[Order]] =
+    retrieveOrdersByCreated(accessToken, restaurantId, contactId, createdSince, limit, "desc")
+
+  private def retrieveOrdersByCreated(accessToken: String, restaurantId: String, contactId: String, createdSince: Date, limit: Integer, order: String): CompletionStage[JList[Order]] = {
+    val createdSinceTimestamp = Option(createdSince).map { _.getTime }.getOrElse(0L)
+    val actualLimit = Option(limit).map { _.toInt }.getOrElse(1000)
+    val request = ordersByCreatedRequest(accessToken, restaurantId, contactId, s"gte:$createdSinceTimestamp", actualLimit, order)
+    toJava(retrieveResults[Order](request))
+  }
+
+  override def streamOrdersByCreatedAsc(accessToken: String, restaurantId: String, contactId: String, createdSince: Date): JStream[Order] = {
+    stream[Order](from = Option(createdSince).map { _.getTime }.getOrElse(0L), descending = false)(
+      request = (cursor, limit) => ordersByCreatedRequest(accessToken, restaurantId, contactId, s"gte:$cursor", limit, "asc"))(
+      timestampOf = _.created.getTime, idOf = _.id)
+  }
+
+  override def streamOrdersByCreatedDesc(accessToken: String, restaurantId: String, contactId: String, createdSince: Date): JStream[Order] = {
+    val createdSinceTimestamp = Option(createdSince).map { _.getTime }.getOrElse(0L)
+    stream[Order](from = Long.MaxValue, descending = true)(
+      request = (cursor, limit) => ordersByCreatedRequest(accessToken, restaurantId, contactId, s"lte:$cursor", limit, "desc"))(
+      timestampOf = _.created.getTime, idOf = _.id,
+      isPast = _.created.getTime < createdSinceTimestamp)
+  }
+
+  private def ordersByCreatedRequest(accessToken: String, restaurantId: String, contactId: String, created: String, limit: Int, order: String): HttpRequest = {
+    val organizationParam = Option(restaurantId).map { value => s"&organizationId=$value"}.getOrElse("")
+    val contactIdParam = Option(contactId).map { value => s"&contactId=$value"}.getOrElse("")
+    val createdParam = s"&created=$created"
+    val limitParam = s"&limit=$limit"
+    val queryParams = s"$organizationParam$contactIdParam$createdParam$limitParam"
+    Get(s"$apiUrl/admin/orders?viewMode=${Actors.restaurant}&order=created:${order}$queryParams").addHeader(Authorization.oauth2(accessToken))
+  }
+
+  override def setReservationStatusAsOwner(accessToken: String, restaurantId: String, reservationId: String, status: String, comment: String): CompletionStage[Reservation] = {
+    status match {
+      case ReservationStatuses.canceled =>
+        val request = Post(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId/cancel?as=${Actors.customer}",
+          Json.stringify(Comment(comment = Option(comment))))
+          .addHeader(Authorization.oauth2(accessToken))
+        toJava(execute[Reservation](request, writeRetries = WriteRetries.IfUnapplied))
+    }
+  }
+
+  override def retrieveReservationsByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date, limit: Integer): CompletionStage[JList[Reservation]] = {
+    retrieveUserReservations(accessToken, organizationId, new AuthenticationUser(Namespaces.phone, phone), modifiedSince, limit)
+  }
+
+  override def retrieveReservationsByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date, limit: Integer): CompletionStage[JList[Reservation]] = {
+    retrieveUserReservations(accessToken, organizationId, new AuthenticationUser(Namespaces.email, email), modifiedSince, limit)
+  }
+
+  private def retrieveUserReservations(accessToken: String, organizationId: String, user: AuthenticationUser, modifiedSince: Date, limit: Integer): CompletionStage[JList[Reservation]] = {
+    val modifiedSinceTimestamp = Option(modifiedSince).map { _.getTime }.getOrElse(0L)
+    val actualLimit = Option(limit).map { _.toInt }.getOrElse(1000000)
+    val request = userReservationsRequest(accessToken, organizationId, user, modifiedSinceTimestamp, actualLimit)
+    toJava(retrieveResults[Reservation](request))
+  }
+
+  override def streamReservationsByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date): JStream[Reservation] = {
+    streamUserReservations(accessToken, organizationId, new AuthenticationUser(Namespaces.phone, phone), modifiedSince)
+  }
+
+  override def streamReservationsByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date): JStream[Reservation] = {
+    streamUserReservations(accessToken, organizationId, new AuthenticationUser(Namespaces.email, email), modifiedSince)
+  }
+
+  private def streamUserReservations(accessToken: String, organizationId: String, user: AuthenticationUser, modifiedSince: Date): JStream[Reservation] = {
+    stream[Reservation](from = Option(modifiedSince).map { _.getTime }.getOrElse(0L), descending = false)(
+      request = (cursor, limit) => userReservationsRequest(accessToken, organizationId, user, cursor, limit))(
+      timestampOf = _.modified.getTime, idOf = _.id)
+  }
+
+  private def userReservationsRequest(accessToken: String, organizationId: String, user: AuthenticationUser, modifiedSince: Long, limit: Int): HttpRequest = {
+    Get(s"$apiUrl/organizations/$organizationId/reservations?viewMode=${Actors.restaurant}&user=${user.ns}:${URLEncoder.encode(user.id, "UTF-8")}&modified=gte:$modifiedSince&limit=$limit")
+      .addHeader(Authorization.oauth2(accessToken))
+  }
+
+  override def deleteOrganization(accessToken: String, organizationId: String): CompletionStage[Void] = {
+    val request = Delete(s"$apiUrl/organizations/$organizationId")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(invalidating(organizationId) { executeWithoutResult(request, writeRetries = WriteRetries.IfUnapplied).map { _ => null: Void } })
+  }
+
+  override def deleteCustomerByPhone(accessToken: String, organizationId: String, phone: String): CompletionStage[Void] = {
+    deleteCustomer(accessToken, organizationId, new AuthenticationUser(Namespaces.phone, phone))
+  }
+
+  override def deleteCustomerByEmail(accessToken: String, organizationId: String, email: String): CompletionStage[Void] = {
+    deleteCustomer(accessToken, organizationId, new AuthenticationUser(Namespaces.email, email))
+  }
+
+  override def getMyAccount(accessToken: String): CompletionStage[ClientInfo] = {
+    val request = Get(s"$apiUrl/me/account")
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[ClientInfo](request))
+  }
+
+  override def setMyAccount(accessToken: String, account: ClientInfo): CompletionStage[ClientInfo] = {
+    val request = Put(s"$apiUrl/me/account", Json.stringify(account))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[ClientInfo](request, writeRetries = WriteRetries.Always))
+  }
+
+  override def addMyAccountCards(accessToken: String, cardTokens: JList[CreditCardToken]): CompletionStage[ClientInfo] = {
+    val request = Post(s"$apiUrl/me/account/cards", Json.stringify(CardTokens(cardTokens.asScala)))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(execute[ClientInfo](request))
+  }
+
+  private def deleteCustomer(accessToken: String, organizationId: String, customer: AuthenticationUser): CompletionStage[Void] = {
+    val request = Post(s"$apiUrl/organizations/$organizationId/delete_customer", Json.stringify(customer))
+      .addHeader(Authorization.oauth2(accessToken))
+    toJava(executeWithoutResult(request).map { _ => null: Void })
+  }
+
+  /**
+   * Posts a new order or reservation (as the given JSON).
+   *
+   * @param idempotencyKey Sent as the Idempotency-Key header, so that the API processes a repeated submission once.
+   */
+  private def submit[T: ClassTag](accessToken: String, restaurantId: String, collection: String, body: String,
+                                  idempotencyKey: String = null): Future[T] = {
+    val anonymousRequest = Post(s"$apiUrl/organizations/$restaurantId/$collection", body)
+    val authorizedRequest = Option(accessToken) match {
+      case Some(at) => anonymousRequest.addHeader(Authorization.oauth2(at))
+      case None => anonymousRequest
+    }
+    val request = Option(idempotencyKey) match {
+      case Some(key) => authorizedRequest.addHeader(RawHeader("Idempotency-Key", key))
+      case None => authorizedRequest
+    }
+    execute[T](request)
+  }
+
+  private def sendSubmission(entry: SubmissionJournal.Entry, accessToken: String): Future[AnyRef] = {
+    entry.kind match {
+      case SubmissionJournal.Kind.Order =>
+        submit[Order](accessToken, entry.restaurantId, entry.kind.collection, entry.body, entry.idempotencyKey)
+      case SubmissionJournal.Kind.Reservation =>
+        submit[Reservation](accessToken, entry.restaurantId, entry.kind.collection, entry.body, entry.idempotencyKey)
+    }
+  }
+
+  private def cachedGet[T: Manifest](request: HttpRequest, organizationId: String)
+                                    (ttl: ResponseCacheSettings => FiniteDuration): Future[T] = {
+    cachedGets match {
+      case Some(cache) => cache.get[T](encoded(request), organizationId, ttl(cache.settings))
+      case None => coalesced(request, implicitly[Manifest[T]].runtimeClass) {
+        pipeline(request, hedged = true) { exchange =>
+          send(request, exchange).flatMap { StreamingJson.read[T](_) }.map { decoded =>
+            exchange.read(decoded.bytes)
+            decoded.value
+          }
+        }
+      }
+    }
+  }
+
+  private def retrieveResults[T: ClassTag](request: HttpRequest): Future[JList[T]] = {
+    coalesced(request, implicitly[ClassTag[T]].runtimeClass) {
+      pipeline(request) { exchange =>
+        // Collected per attempt, so that a retry starts over
+        val results = new JArrayList[T]()
+        readResults[T](request, exchange) { results.add(_) }.map { _ => results }
+      }
+    }
+  }
+
+  /**
+   * Sends the request, and binds the response, e.g. `execute[Order](request)`.
+   *
+   * @param writeRetries Which failures the request may be retried after, if it is a write (see [[ResilienceSettings]]).
+   */
+  private def execute[T: ClassTag](request: HttpRequest, writeRetries: WriteRetries = WriteRetries.Never): Future[T] = {
+    val keyedRequest = withIdempotencyKey(request, writeRetries)
+    pipeline(keyedRequest, writeRetries) { exchange =>
+      send(keyedRequest, exchange).flatMap { StreamingJson.read[T](_) }.map { decoded =>
+        exchange.read(decoded.bytes)
+        decoded.value
+      }
+    }
+  }
+
+  /** Like [[execute]], for calls whose response body (if any) is not needed. */
+  private def executeWithoutResult(request: HttpRequest, writeRetries: WriteRetries = WriteRetries.Never): Future[Unit] = {
+    val keyedRequest = withIdempotencyKey(request, writeRetries)
+    pipeline(keyedRequest, writeRetries) { exchange =>
+      send(keyedRequest, exchange).flatMap { HttpResponses.drain(_) }
+    }
+  }
+
+  /**
+   * Adds an Idempotency-Key to a write that may be retried, the same for every attempt. The key is advisory: an API
+   * that honors it applies the write once even if an earlier attempt was applied, but nothing relies on that (see
+   * [[WriteRetries.IfUnapplied]]).
+   */
+  private def withIdempotencyKey(request: HttpRequest, writeRetries: WriteRetries): HttpRequest = {
+    if (writeRetries != WriteRetries.Never && Option(resilienceSettings).exists { _.retryWrites }) {
+      request.addHeader(RawHeader("Idempotency-Key", UUID.randomUUID.toString))
+    } else {
+      request
+    }
+  }
+
+  /** Encodes the request and hands it to the transport, recording both on the exchange. */
+  private def send(request: HttpRequest, exchange: Exchange): Future[TransportResponse] = {
+    Transports.send(theTransport, exchange.sent(encoded(request))).map { exchange.received }
+  }
+
+  private def encoded(request: HttpRequest): HttpRequest = {
+    compression.map { _.encode(request) }.getOrElse(request)
+  }
+
+  private def coalesced[T](request: HttpRequest, binding: Class[_])(fetch: => Future[T]): Future[T] = {
+    coalescer match {
+      case Some(theCoalescer) => theCoalescer.get(request, binding)(fetch)
+      case None => fetch
+    }
+  }
+
+  private def streamResults[T: ClassTag](request: HttpRequest)(onElement: T => Unit): Future[Integer] = {
+    // Results already handed to the consumer can't be taken back, so only failures before the first one are retried
+    @volatile var delivered = false
+    pipeline(request, restartable = !delivered) { exchange =>
+      readResults[T](request, exchange) { element =>
+        delivered = true
+        onElement(element)
+      }.map { decoded => Int.box(decoded.value) }
+    }
+  }
+
+  private def readResults[T: ClassTag](request: HttpRequest, exchange: Exchange)
+                                      (onElement: T => Unit): Future[StreamingJson.Decoded[Int]] = {
+    send(request, exchange).flatMap { StreamingJson.readResults[T](_)(onElement) }.map { decoded =>
+      exchange.read(decoded.bytes)
+      decoded
+    }
+  }
+
+  private def stream[T: ClassTag](from: Long, descending: Boolean)
+                                 (request: (Long, Int) => HttpRequest)
+                                 (timestampOf: T => Long, idOf: T => String,
+                                  isPast: T => Boolean = (_: T) => false): JStream[T] = {
+    val fetch = (cursor: Long, limit: Int) => {
+      val pageRequest = request(cursor, limit)
+      pipeline(pageRequest) { exchange =>
+        val items = Vector.newBuilder[T]
+        readResults[T](pageRequest, exchange) { items += _ }.map { decoded =>
+          Page(items.result(), decoded.bytes)
+        }
+      }
+    }
+    val iterator = new PagedIterator[T](fetch, from, descending, timestampOf, idOf, isPast,
+      new PageSizer(pagingSettings), pagingSettings.maxPageSize, pagingSettings.pageTimeout)
+    StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+      .onClose(() => iterator.close())
+  }
+
+  private def invalidating[T](organizationId: String)(write: Future[T]): Future[T] = {
+    write.andThen { case _ =>
+      cachedGets.foreach { _.invalidate(organizationId) }
+      menuUploads.foreach { _.invalidate(organizationId) }
+      authorizationClient.invalidateOrganization(organizationId)
+    }
+  }
+
+  override def close(): Unit = {
+    submissionQueue.foreach { _.close() }
+    cachedGets.foreach { _.close() }
+    authorizationClient.close()
+    ownedRuntime.foreach { _.close() }
+  }
+}
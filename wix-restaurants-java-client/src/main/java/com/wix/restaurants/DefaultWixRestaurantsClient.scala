@@ -1,441 +1,368 @@
 package com.wix.restaurants
 
-import java.net.URLEncoder
+import java.util.concurrent.CompletionStage
+import java.util.function.{BiConsumer, Consumer}
+import java.util.stream.{Stream => JStream}
 import java.util.{Date, List => JList, Map => JMap}
-import akka.actor.ActorSystem
-import akka.http.javadsl.model.headers.{AcceptEncoding, Authorization}
-import akka.http.scaladsl.client.RequestBuilding.{Delete, Get, Post, Put}
-import akka.http.scaladsl.model.headers.HttpEncoding
 import com.openrest.v1_1._
 import com.wix.pay.smaug.client.model.CreditCardToken
-import com.wix.rest.rfc7807.api.model.ErrorResponse
-import com.wix.rest.rfc7807.client.AkkaRestClient
-import com.wix.restaurants.authentication.model.{Namespaces, User => AuthenticationUser}
 import com.wix.restaurants.authentication.{DefaultWixRestaurantsAuthenticationClient, WixRestaurantsAuthenticationClient}
-import com.wix.restaurants.authorization.{AuthorizationClient, DefaultAuthorizationClient}
-import com.wix.restaurants.exceptions._
+import com.wix.restaurants.authorization.AuthorizationClient
+import com.wix.restaurants.bulk.BulkResult
+import com.wix.restaurants.feeds.{CursorStore, FeedCursor, OrderFeed, ReservationFeed}
 import com.wix.restaurants.i18n.Locale
-import com.wix.restaurants.json.Json
-import com.wix.restaurants.orders.{Orders, Statuses => OrderStatuses}
-import com.wix.restaurants.reservations.{Reservation, Reservations, Statuses => ReservationStatuses}
+import com.wix.restaurants.menus.MenuUpdate
+import com.wix.restaurants.orders.{OrderSummary, Statuses => OrderStatuses}
+import com.wix.restaurants.paging.PagingSettings
+import com.wix.restaurants.reservations.{Reservation, Statuses => ReservationStatuses}
 
 import scala.collection.JavaConverters._
+import scala.compat.java8.FutureConverters.toScala
+import scala.concurrent.Await
 import scala.concurrent.duration._
-import scala.concurrent.{Await, ExecutionContext}
 
-class DefaultWixRestaurantsClient(apiUrl: String = "https://api.wixrestaurants.com/v2",
-                                  authApiUrl: String = "https://auth.wixrestaurants.com/v2",
-                                  readTimeout: Duration = Duration.Inf) extends WixRestaurantsClient {
+/**
+ * Blocking adapter over [[AsyncWixRestaurantsClient]]: every call waits up to readTimeout for the async result.
+ * Closing this client closes the underlying async client.
+ *
+ * The stream* methods wait for each page up to the async client's PagingSettings.pageTimeout, which the secondary
+ * constructors set to readTimeout.
+ *
+ * The bulk methods that return a map of results (e.g. acceptOrders) run the fan-out themselves, over the async
+ * client's single-item calls, and wait up to readTimeout for the whole of it, not for each of its calls. Items
+ * without a result by then are reported as failed with a TimeoutException, alongside the results of the others; the
+ * ones not started yet are never sent. Those taking a consumer throw the TimeoutException instead, once the results
+ * so far were handed over. Either way, set readTimeout to allow for the number of items over the parallelism, or use
+ * the async client.
+ */
+class DefaultWixRestaurantsClient(asyncClient: AsyncWixRestaurantsClient,
+                                  authenticationClient: WixRestaurantsAuthenticationClient,
+                                  readTimeout: Duration) extends WixRestaurantsClient {
+
+  def this(apiUrl: String = "https://api.wixrestaurants.com/v2",
+           authApiUrl: String = "https://auth.wixrestaurants.com/v2",
+           readTimeout: Duration = Duration.Inf,
+           runtime: WixRestaurantsRuntime = null) = this(
+    asyncClient = new DefaultAsyncWixRestaurantsClient(apiUrl = apiUrl, runtime = runtime,
+      pagingSettings = PagingSettings().withPageTimeout(readTimeout)),
+    authenticationClient = new DefaultWixRestaurantsAuthenticationClient(authApiUrl, Some(readTimeout)),
+    readTimeout = readTimeout)
+
+  def this(apiUrl: String, authApiUrl: String, readTimeout: Duration) = this(apiUrl, authApiUrl, readTimeout, null)
+
+
+  private val defaultParallelism: Int = asyncClient match {
+    case client: DefaultAsyncWixRestaurantsClient => client.defaultParallelism
+    case _ => WixRestaurantsRuntimeSettings.defaults.maxConnections
+  }
+
+  def getAsyncClient: AsyncWixRestaurantsClient = asyncClient
 
-  private val authenticationClient: WixRestaurantsAuthenticationClient = new DefaultWixRestaurantsAuthenticationClient(
-    authApiUrl, Some(readTimeout))
-  private val authorizationClient: AuthorizationClient = new DefaultAuthorizationClient(
-    apiUrl = apiUrl)
+  override def getAuthenticationClient: WixRestaurantsAuthenticationClient = authenticationClient
 
-  private implicit val system: ActorSystem = ActorSystem("akka-wix-restaurants-client-system")
-  private implicit val executionContext: ExecutionContext = system.dispatcher
-  private val client: AkkaRestClient = new AkkaRestClient(errorResponseAsException = ExceptionTranslator.asException)
+  override def getAuthorizationClient: AuthorizationClient = asyncClient.getAuthorizationClient
 
+  override def retrieveRestaurantInfo(restaurantId: String): RestaurantFullInfo =
+    await(asyncClient.retrieveRestaurantInfo(restaurantId))
 
-  override def getAuthenticationClient: WixRestaurantsAuthenticationClient = authenticationClient
+  override def retrieveOrganization(organizationId: String): Organization =
+    await(asyncClient.retrieveOrganization(organizationId))
 
-  override def getAuthorizationClient: AuthorizationClient = authorizationClient
+  override def retrieveOrganizationAsAdmin(accessToken: String, organizationId: String): Organization =
+    await(asyncClient.retrieveOrganizationAsAdmin(accessToken, organizationId))
 
-  override def retrieveRestaurantInfo(restaurantId: String): RestaurantFullInfo = {
-    val request = Get(s"$apiUrl/organizations/$restaurantId/full")
-    Await.result(client.execute(request) withResult[RestaurantFullInfo](), readTimeout)
-  }
+  override def setOrganization(accessToken: String, organization: Organization): Organization =
+    await(asyncClient.setOrganization(accessToken, organization))
 
-  override def retrieveOrganization(organizationId: String): Organization = {
-    val request = Get(s"$apiUrl/organizations/$organizationId")
-    Await.result(client.execute(request) withResult[Organization](), readTimeout)
-  }
+  override def createOrganization(accessToken: String, organization: Organization): Organization =
+    await(asyncClient.createOrganization(accessToken, organization))
 
-  override def retrieveOrganizationAsAdmin(accessToken: String, organizationId: String): Organization = {
-    val request = Get(s"$apiUrl/admin/organizations/$organizationId")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Organization](), readTimeout)
-  }
+  override def createOrganizationAsAdmin(accessToken: String, organization: Organization): Organization =
+    await(asyncClient.createOrganizationAsAdmin(accessToken, organization))
 
-  override def setOrganization(accessToken: String, organization: Organization): Organization = {
-    val request = Put(s"$apiUrl/organizations/${organization.id}", Json.stringify(organization))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Organization](), readTimeout)
-  }
+  override def setOrganizationAsAdmin(accessToken: String, organization: Organization): Organization =
+    await(asyncClient.setOrganizationAsAdmin(accessToken, organization))
 
-  override def createOrganization(accessToken: String, organization: Organization): Organization = {
-    val anonymousRequest = Post(s"$apiUrl/organizations", Json.stringify(organization))
-    val request = Option(accessToken) match {
-      case Some(at) => anonymousRequest.addHeader(Authorization.oauth2(at))
-      case None => anonymousRequest
-    }
-    Await.result(client.execute(request) withResult[Organization](), readTimeout)
-  }
+  override def changeOrganizationLocale(accessToken: String, organizationId: String, locale: Locale): Unit =
+    await(asyncClient.changeOrganizationLocale(accessToken, organizationId, locale))
 
-  override def createOrganizationAsAdmin(accessToken: String, organization: Organization): Organization = {
-    val request = Post(s"$apiUrl/admin/organizations", Json.stringify(organization))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Organization](), readTimeout)
-  }
+  override def addOrganizationProduct(accessToken: String, organizationId: String, product: Product): Unit =
+    await(asyncClient.addOrganizationProduct(accessToken, organizationId, product))
 
-  override def setOrganizationAsAdmin(accessToken: String, organization: Organization): Organization = {
-    val request = Put(s"$apiUrl/admin/organizations/${organization.id}", Json.stringify(organization))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Organization](), readTimeout)
-  }
+  override def removeOrganizationProduct(accessToken: String, organizationId: String, product: Product): Unit =
+    await(asyncClient.removeOrganizationProduct(accessToken, organizationId, product))
 
-  override def changeOrganizationLocale(accessToken: String, organizationId: String, locale: Locale): Unit = {
-    val request = Post(s"$apiUrl/organizations/$organizationId/change_locale?locale=$locale")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withoutResult(), readTimeout)
-  }
+  override def getNotifications(accessToken: String , organizationId: String): Notifications =
+    await(asyncClient.getNotifications(accessToken, organizationId))
 
-  override def addOrganizationProduct(accessToken: String, organizationId: String, product: Product): Unit = {
-    val request = Post(s"$apiUrl/organizations/$organizationId/products/add", Json.stringify(product))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withoutResult(), readTimeout)
-  }
+  override def setNotifications(accessToken: String, organizationId: String, notifications: Notifications): Notifications =
+    await(asyncClient.setNotifications(accessToken, organizationId, notifications))
 
-  override def removeOrganizationProduct(accessToken: String, organizationId: String, product: Product): Unit = {
-    val request = Post(s"$apiUrl/organizations/$organizationId/products/remove", Json.stringify(product))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withoutResult(), readTimeout)
-  }
+  override def getSecrets(accessToken: String , organizationId: String): Secrets =
+    await(asyncClient.getSecrets(accessToken, organizationId))
 
-  override def getNotifications(accessToken: String , organizationId: String): Notifications = {
-    val request = Get(s"$apiUrl/organizations/$organizationId/notifications")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Notifications](), readTimeout)
-  }
+  override def setSecrets(accessToken: String, organizationId: String, secrets: Secrets): Secrets =
+    await(asyncClient.setSecrets(accessToken, organizationId, secrets))
 
-  override def setNotifications(accessToken: String, organizationId: String, notifications: Notifications): Notifications = {
-    val request = Put(s"$apiUrl/organizations/$organizationId/notifications", Json.stringify(notifications))
-        .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Notifications](), readTimeout)
-  }
+  override def getMenu(accessToken: String , restaurantId: String): Menu =
+    await(asyncClient.getMenu(accessToken, restaurantId))
 
-  override def getSecrets(accessToken: String , organizationId: String): Secrets = {
-    val request = Get(s"$apiUrl/organizations/$organizationId/secrets")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Secrets](), readTimeout)
-  }
+  override def getMenuWithLocationId(accessToken: String , restaurantId: String, locationId: String): Menu =
+    await(asyncClient.getMenuWithLocationId(accessToken, restaurantId, locationId))
 
-  override def setSecrets(accessToken: String, organizationId: String, secrets: Secrets): Secrets = {
-    val request = Put(s"$apiUrl/organizations/$organizationId/secrets", Json.stringify(secrets))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Secrets](), readTimeout)
-  }
+  override def getMenuWithLocationIdAsGzip(accessToken: String , restaurantId: String, locationId: String): Menu =
+    await(asyncClient.getMenuWithLocationIdAsGzip(accessToken, restaurantId, locationId))
 
-  override def getMenu(accessToken: String , restaurantId: String): Menu = {
-    val request = Get(s"$apiUrl/organizations/$restaurantId/menu")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Menu](), readTimeout)
-  }
+  override def setMenu(accessToken: String, restaurantId: String, menu: Menu): Menu =
+    await(asyncClient.setMenu(accessToken, restaurantId, menu))
 
-  override def getMenuWithLocationId(accessToken: String , restaurantId: String, locationId: String): Menu = {
-    val queryLocationId = Option(locationId).map { theLocationId => s"?locationId=$theLocationId" }.getOrElse("")
-    val request = Get(s"$apiUrl/organizations/$restaurantId/menu${queryLocationId}")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Menu](), readTimeout)
-  }
+  override def setMenuWithLocationId(accessToken: String , restaurantId: String,  menu: Menu, locationId: String): Menu =
+    await(asyncClient.setMenuWithLocationId(accessToken, restaurantId, menu, locationId))
 
-  override def getMenuWithLocationIdAsGzip(accessToken: String , restaurantId: String, locationId: String): Menu = {
-    val queryLocationId = Option(locationId).map { theLocationId => s"?locationId=$theLocationId" }.getOrElse("")
-    val request = Get(s"$apiUrl/organizations/$restaurantId/menu${queryLocationId}")
-      .addHeader(Authorization.oauth2(accessToken))
-      .addHeader(AcceptEncoding.create(HttpEncoding("gzip")))
-    Await.result(client.execute(request) withResult[Menu](), readTimeout)
-  }
+  override def updateMenu(accessToken: String, restaurantId: String, locationId: String, menu: Menu): MenuUpdate =
+    await(asyncClient.updateMenu(accessToken, restaurantId, locationId, menu))
 
-  override def setMenu(accessToken: String, restaurantId: String, menu: Menu): Menu = {
-    val request = Put(s"$apiUrl/organizations/$restaurantId/menu", Json.stringify(menu))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Menu](), readTimeout)
-  }
+  override def aMenuWithUpdatedLocale(accessToken: String ,menu: Menu, fromLocale: String, toLocale: String): Menu =
+    await(asyncClient.aMenuWithUpdatedLocale(accessToken, menu, fromLocale, toLocale))
 
-  override def setMenuWithLocationId(accessToken: String , restaurantId: String,  menu: Menu, locationId: String): Menu = {
-    val queryLocationId = Option(locationId).map { theLocationId => s"?locationId=$theLocationId" }.getOrElse("")
-    val request = Put(s"$apiUrl/organizations/$restaurantId/menu${queryLocationId}", Json.stringify(menu))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Menu](), readTimeout)
-  }
+  override def menuChangeLocale(accessToken: String ,menu: Menu, fromLocale: String, toLocale: String): Menu =
+    await(asyncClient.menuChangeLocale(accessToken, menu, fromLocale, toLocale))
 
-  override def aMenuWithUpdatedLocale(accessToken: String ,menu: Menu, fromLocale: String, toLocale: String): Menu = {
-    val request = Get(s"$apiUrl/admin/aMenuWithUpdatedLocale?fromLocale=$fromLocale&toLocale=$toLocale", Json.stringify(menu))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Menu](), readTimeout)
-  }
+  override def submitOrder(accessToken: String, order: Order): Order =
+    await(asyncClient.submitOrder(accessToken, order))
 
-  override def menuChangeLocale(accessToken: String ,menu: Menu, fromLocale: String, toLocale: String): Menu = {
-    val request = Post(s"$apiUrl/admin/menu/changeLocale?fromLocale=$fromLocale&toLocale=$toLocale", Json.stringify(menu))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Menu](), readTimeout)
-  }
+  override def retrieveOrderAsRestaurant(accessToken: String, restaurantId: String, orderId: String): Order =
+    await(asyncClient.retrieveOrderAsRestaurant(accessToken, restaurantId, orderId))
+
+  override def retrieveOrderAsOwner(accessToken: String, restaurantId: String, orderId: String): Order =
+    await(asyncClient.retrieveOrderAsOwner(accessToken, restaurantId, orderId))
 
-  override def submitOrder(accessToken: String, order: Order): Order = {
-    val anonymousRequest = Post(s"$apiUrl/organizations/${order.restaurantId}/orders", Json.stringify(order))
-    val request = Option(accessToken) match {
-      case Some(at) => anonymousRequest.addHeader(Authorization.oauth2(at))
-      case None => anonymousRequest
+  override def retrieveNewOrders(accessToken: String, restaurantId: String): JList[Order] =
+    await(asyncClient.retrieveNewOrders(accessToken, restaurantId))
+
+  override def retrieveNewOrders(accessToken: String, restaurantId: String, consumer: Consumer[Order]): Int =
+    await(asyncClient.retrieveNewOrders(accessToken, restaurantId, consumer))
+
+  override def orderFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore): OrderFeed =
+    asyncClient.orderFeed(accessToken, restaurantId, cursorStore)
+
+  override def orderFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore, start: FeedCursor): OrderFeed =
+    asyncClient.orderFeed(accessToken, restaurantId, cursorStore, start)
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, limit: Int): JList[Order] =
+    await(asyncClient.retrieveOrdersAsRestaurant(accessToken, restaurantId, status, limit))
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, limit: Int, consumer: Consumer[Order]): Int =
+    await(asyncClient.retrieveOrdersAsRestaurant(accessToken, restaurantId, status, limit, consumer))
+
+  override def retrieveNewOrderSummaries(accessToken: String, restaurantId: String): JList[OrderSummary] =
+    await(asyncClient.retrieveNewOrderSummaries(accessToken, restaurantId))
+
+  override def retrieveOrderSummariesAsRestaurant(accessToken: String, restaurantId: String, status: String, limit: Int): JList[OrderSummary] =
+    await(asyncClient.retrieveOrderSummariesAsRestaurant(accessToken, restaurantId, status, limit))
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, delivered: String, created: String, order: String, limit: Int): JList[Order] =
+    await(asyncClient.retrieveOrdersAsRestaurant(accessToken, restaurantId, status, delivered, created, order, limit))
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, delivered: String, created: String, order: String, limit: Int, locationIds: String): JList[Order] =
+    await(asyncClient.retrieveOrdersAsRestaurant(accessToken, restaurantId, status, delivered, created, order, limit, locationIds))
+
+  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, deliveryTime: String, delivered: String, created: String, order: String, limit: Int, locationIds: String): JList[Order] =
+    await(asyncClient.retrieveOrdersAsRestaurant(accessToken, restaurantId, status, deliveryTime, delivered, created, order, limit, locationIds))
+
+  override def retrieveOrdersByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date, limit: Integer): JList[Order] =
+    await(asyncClient.retrieveOrdersByPhone(accessToken, organizationId, phone, modifiedSince, limit))
+
+  override def streamOrdersByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date): JStream[Order] =
+    asyncClient.streamOrdersByPhone(accessToken, organizationId, phone, modifiedSince)
+
+  override def retrieveOrdersByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date, limit: Integer): JList[Order] =
+    await(asyncClient.retrieveOrdersByEmail(accessToken, organizationId, email, modifiedSince, limit))
+
+  override def streamOrdersByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date): JStream[Order] =
+    asyncClient.streamOrdersByEmail(accessToken, organizationId, email, modifiedSince)
+
+  override def acceptOrder(accessToken: String, restaurantId: String, orderId: String, externalIds: JMap[String, String]): Order =
+    await(asyncClient.acceptOrder(accessToken, restaurantId, orderId, externalIds))
+
+  override def acceptOrderWithComment(accessToken: String, restaurantId: String, orderId: String, comment: String) : Order =
+    await(asyncClient.acceptOrderWithComment(accessToken, restaurantId, orderId, comment))
+
+  override def acceptOrderWithCommentAndPickupTime(accessToken: String, restaurantId: String, orderId: String, comment: String, pickupTime: Date) : Order =
+    await(asyncClient.acceptOrderWithCommentAndPickupTime(accessToken, restaurantId, orderId, comment, pickupTime))
+
+  override def acceptOrderWithCommentAndDropOffTime(accessToken: String, restaurantId: String, orderId: String, comment: String, dropOffTime: Date) : Order =
+    await(asyncClient.acceptOrderWithCommentAndDropOffTime(accessToken, restaurantId, orderId, comment, dropOffTime))
+
+  override def rejectOrder(accessToken: String, restaurantId: String, orderId: String, comment: String): Order =
+    await(asyncClient.rejectOrder(accessToken, restaurantId, orderId, comment))
+
+  override def retrieveNewOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], parallelism: Int): JMap[String, BulkResult[JList[Order]]] =
+    retrieveOrdersOfRestaurants(accessToken, restaurantIds, OrderStatuses.new_, 10000, parallelism)
+
+  override def retrieveNewOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String]): JMap[String, BulkResult[JList[Order]]] =
+    retrieveNewOrdersOfRestaurants(accessToken, restaurantIds, defaultParallelism)
+
+  override def retrieveNewOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], parallelism: Int, consumer: BiConsumer[String, BulkResult[JList[Order]]]): Unit =
+    await(asyncClient.retrieveNewOrdersOfRestaurants(accessToken, restaurantIds, parallelism, consumer))
+
+  override def retrieveOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], status: String, limit: Int, parallelism: Int): JMap[String, BulkResult[JList[Order]]] =
+    awaitBulk(restaurantIds.asScala, parallelism) { restaurantId =>
+      asyncClient.retrieveOrdersAsRestaurant(accessToken, restaurantId, status, limit)
     }
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
 
-  override def retrieveOrderAsRestaurant(accessToken: String, restaurantId: String, orderId: String): Order = {
-    val request = Get(s"$apiUrl/organizations/$restaurantId/orders/$orderId?viewMode=${Actors.restaurant}")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def retrieveOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], status: String, limit: Int): JMap[String, BulkResult[JList[Order]]] =
+    retrieveOrdersOfRestaurants(accessToken, restaurantIds, status, limit, defaultParallelism)
 
-  override def retrieveOrderAsOwner(accessToken: String, restaurantId: String, orderId: String): Order = {
-    val request = Get(s"$apiUrl/organizations/$restaurantId/orders/$orderId?viewMode=${Actors.customer}")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def retrieveOrdersOfRestaurants(accessToken: String, restaurantIds: JList[String], status: String, limit: Int, parallelism: Int, consumer: BiConsumer[String, BulkResult[JList[Order]]]): Unit =
+    await(asyncClient.retrieveOrdersOfRestaurants(accessToken, restaurantIds, status, limit, parallelism, consumer))
 
-  override def retrieveNewOrders(accessToken: String, restaurantId: String): JList[Order] = {
-    retrieveOrdersAsRestaurant(accessToken, restaurantId, OrderStatuses.new_, 10000)
-  }
+  override def retrieveOrdersByIdAsRestaurant(accessToken: String, restaurantId: String, orderIds: JList[String], parallelism: Int): JMap[String, BulkResult[Order]] =
+    awaitBulk(orderIds.asScala, parallelism) { orderId =>
+      asyncClient.retrieveOrderAsRestaurant(accessToken, restaurantId, orderId)
+    }
 
-  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, limit: Int): JList[Order] = {
-    val statusPart = Option(status).map { theStatus => s"&status=$theStatus" }.getOrElse("")
-    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart&limit=$limit")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result[Orders](client.execute(request) withResult[Orders](), readTimeout).results
-  }
+  override def retrieveOrdersByIdAsRestaurant(accessToken: String, restaurantId: String, orderIds: JList[String]): JMap[String, BulkResult[Order]] =
+    retrieveOrdersByIdAsRestaurant(accessToken, restaurantId, orderIds, defaultParallelism)
 
-  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, delivered: String, created: String, order: String, limit: Int): JList[Order] = {
-    val statusPart = Option(status).map { value => s"&status=$value"}.getOrElse("")
-    val deliveredPart = Option(delivered).map { value => s"&delivered=$value" }.getOrElse("")
-    val createdPart = Option(created).map { value => s"&created=$value" }.getOrElse("")
-    val orderPart = Option(order).map { value => s"&order=$value" }.getOrElse("")
-    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart$deliveredPart$createdPart$orderPart&limit=$limit")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result[Orders](client.execute(request) withResult[Orders](), readTimeout).results
-  }
+  override def retrieveOrdersByIdAsRestaurant(accessToken: String, restaurantId: String, orderIds: JList[String], parallelism: Int, consumer: BiConsumer[String, BulkResult[Order]]): Unit =
+    await(asyncClient.retrieveOrdersByIdAsRestaurant(accessToken, restaurantId, orderIds, parallelism, consumer))
 
-  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, delivered: String, created: String, order: String, limit: Int, locationIds: String): JList[Order] = {
-    val statusPart = Option(status).map { value => s"&status=$value"}.getOrElse("")
-    val deliveredPart = Option(delivered).map { value => s"&delivered=$value" }.getOrElse("")
-    val createdPart = Option(created).map { value => s"&created=$value" }.getOrElse("")
-    val orderPart = Option(order).map { value => s"&order=$value" }.getOrElse("")
-    val locationIdsPart = Option(locationIds).map { value => s"&locationIds=$value" }.getOrElse("")
-    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart$deliveredPart$createdPart$orderPart$locationIdsPart&limit=$limit")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result[Orders](client.execute(request) withResult[Orders](), readTimeout).results
-  }
+  override def acceptOrders(accessToken: String, restaurantId: String, externalIdsByOrderId: JMap[String, JMap[String, String]], parallelism: Int): JMap[String, BulkResult[Order]] =
+    awaitBulk(externalIdsByOrderId.keySet.asScala.toList, parallelism) { orderId =>
+      asyncClient.acceptOrder(accessToken, restaurantId, orderId, externalIdsByOrderId.get(orderId))
+    }
 
-  override def retrieveOrdersAsRestaurant(accessToken: String, restaurantId: String, status: String, deliveryTime: String, delivered: String, created: String, order: String, limit: Int, locationIds: String): JList[Order] = {
-    val statusPart = Option(status).map { value => s"&status=$value"}.getOrElse("")
-    val deliveryTimePart = Option(deliveryTime).map { value => s"&deliveryTime=$value" }.getOrElse("")
-    val deliveredPart = Option(delivered).map { value => s"&delivered=$value" }.getOrElse("")
-    val createdPart = Option(created).map { value => s"&created=$value" }.getOrElse("")
-    val orderPart = Option(order).map { value => s"&order=$value" }.getOrElse("")
-    val locationIdsPart = Option(locationIds).map { value => s"&locationIds=$value" }.getOrElse("")
-    val request = Get(s"$apiUrl/organizations/$restaurantId/orders?viewMode=${Actors.restaurant}$statusPart$deliveryTimePart$deliveredPart$createdPart$orderPart$locationIdsPart&limit=$limit")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result[Orders](client.execute(request) withResult[Orders](), readTimeout).results
-  }
+  override def acceptOrders(accessToken: String, restaurantId: String, externalIdsByOrderId: JMap[String, JMap[String, String]]): JMap[String, BulkResult[Order]] =
+    acceptOrders(accessToken, restaurantId, externalIdsByOrderId, defaultParallelism)
 
-  override def retrieveOrdersByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date, limit: Integer): JList[Order] = {
-    retrieveUserOrders(accessToken, organizationId, new AuthenticationUser(Namespaces.phone, phone), modifiedSince, limit)
-  }
+  override def rejectOrders(accessToken: String, restaurantId: String, orderIds: JList[String], comment: String, parallelism: Int): JMap[String, BulkResult[Order]] =
+    awaitBulk(orderIds.asScala, parallelism) { orderId =>
+      asyncClient.rejectOrder(accessToken, restaurantId, orderId, comment)
+    }
 
-  override def retrieveOrdersByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date, limit: Integer): JList[Order] = {
-    retrieveUserOrders(accessToken, organizationId, new AuthenticationUser(Namespaces.email, email), modifiedSince, limit)
-  }
+  override def rejectOrders(accessToken: String, restaurantId: String, orderIds: JList[String], comment: String): JMap[String, BulkResult[Order]] =
+    rejectOrders(accessToken, restaurantId, orderIds, comment, defaultParallelism)
 
-  private def retrieveUserOrders(accessToken: String, organizationId: String, user: AuthenticationUser, modifiedSince: Date, limit: Integer): JList[Order] = {
-    val modifiedSinceTimestamp = Option(modifiedSince).map { _.getTime }.getOrElse(0L)
-    val actualLimit = Option(limit).map { _.toInt }.getOrElse(1000000)
-    val request = Get(s"$apiUrl/organizations/$organizationId/orders?viewMode=${Actors.restaurant}&user=${user.ns}:${URLEncoder.encode(user.id, "UTF-8")}&modified=gte:$modifiedSinceTimestamp&limit=$actualLimit")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result[Orders](client.execute(request) withResult[Orders](), readTimeout).results
-  }
+  override def setOrderProperties(accessToken: String, restaurantId: String, orderId: String, properties: JMap[String, String]): Order =
+    await(asyncClient.setOrderProperties(accessToken, restaurantId, orderId, properties))
 
-  override def acceptOrder(accessToken: String, restaurantId: String, orderId: String, externalIds: JMap[String, String]): Order = {
-    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/accept?as=${Actors.restaurant}", Json.stringify(Comment(None)))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def setOrderContactId(accessToken: String, restaurantId: String, orderId: String, contactId: String): Order =
+    await(asyncClient.setOrderContactId(accessToken, restaurantId, orderId, contactId))
 
-  override def acceptOrderWithComment(accessToken: String, restaurantId: String, orderId: String, comment: String) : Order = {
-    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/accept?as=${Actors.restaurant}", Json.stringify(Comment(Option(comment))))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def confirmOrderCashier(organizationId: String, orderId: String): Order =
+    await(asyncClient.confirmOrderCashier(organizationId, orderId))
 
-  override def acceptOrderWithCommentAndPickupTime(accessToken: String, restaurantId: String, orderId: String, comment: String, pickupTime: Date) : Order = {
-    val pickupTimeParam = Option(pickupTime).map(time => s"&pickupTime=${time.getTime.toString}").getOrElse("")
-    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/accept?as=${Actors.restaurant}$pickupTimeParam", Json.stringify(Comment(Option(comment))))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def submitReservation(accessToken: String, reservation: Reservation): Reservation =
+    await(asyncClient.submitReservation(accessToken, reservation))
 
-  override def acceptOrderWithCommentAndDropOffTime(accessToken: String, restaurantId: String, orderId: String, comment: String, dropOffTime: Date) : Order = {
-    val dropOffTimeParam = Option(dropOffTime).map(time => s"&dropoffTime=${time.getTime.toString}").getOrElse("")
-    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/accept?as=${Actors.restaurant}$dropOffTimeParam", Json.stringify(Comment(Option(comment))))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def retrieveReservationAsOwner(accessToken: String, restaurantId: String, reservationId: String): Reservation =
+    await(asyncClient.retrieveReservationAsOwner(accessToken, restaurantId, reservationId))
 
-  override def rejectOrder(accessToken: String, restaurantId: String, orderId: String, comment: String): Order = {
-    val request = Post(s"$apiUrl/organizations/$restaurantId/orders/$orderId/cancel?as=${Actors.restaurant}", Json.stringify(Comment(Option(comment))))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def retrieveReservationAsRestaurant(accessToken: String, restaurantId: String, reservationId: String): Reservation =
+    await(asyncClient.retrieveReservationAsRestaurant(accessToken, restaurantId, reservationId))
 
-  override def setOrderProperties(accessToken: String, restaurantId: String, orderId: String, properties: JMap[String, String]): Order = {
-    val request = Put(s"$apiUrl/organizations/$restaurantId/orders/$orderId/properties", Json.stringify(properties))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def retrieveUnhandledReservations(accessToken: String, restaurantId: String): JList[Reservation] =
+    await(asyncClient.retrieveUnhandledReservations(accessToken, restaurantId))
 
-  override def setOrderContactId(accessToken: String, restaurantId: String, orderId: String, contactId: String): Order =  {
-    val request = Post(s"$apiUrl/admin/organizations/$restaurantId/orders/$orderId/setContactId", contactId)
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def retrieveUnhandledReservations(accessToken: String, restaurantId: String, consumer: Consumer[Reservation]): Int =
+    await(asyncClient.retrieveUnhandledReservations(accessToken, restaurantId, consumer))
 
-  override def confirmOrderCashier(organizationId: String, orderId: String): Order = {
-    val request = Post(s"$apiUrl/organizations/$organizationId/orders/$orderId/confirmCashier?as=${Actors.restaurant}")
-    Await.result(client.execute(request) withResult[Order](), readTimeout)
-  }
+  override def retrieveReservationsByIdAsRestaurant(accessToken: String, restaurantId: String, reservationIds: JList[String], parallelism: Int): JMap[String, BulkResult[Reservation]] =
+    awaitBulk(reservationIds.asScala, parallelism) { reservationId =>
+      asyncClient.retrieveReservationAsRestaurant(accessToken, restaurantId, reservationId)
+    }
 
-  override def submitReservation(accessToken: String, reservation: Reservation): Reservation = {
-    val request = Post(s"$apiUrl/organizations/${reservation.restaurantId}/reservations", Json.stringify(reservation))
-    Option(accessToken).foreach { theAccessToken => request.addHeader(Authorization.oauth2(theAccessToken)) }
-    Await.result(client.execute(request) withResult[Reservation](), readTimeout)
-  }
+  override def retrieveReservationsByIdAsRestaurant(accessToken: String, restaurantId: String, reservationIds: JList[String]): JMap[String, BulkResult[Reservation]] =
+    retrieveReservationsByIdAsRestaurant(accessToken, restaurantId, reservationIds, defaultParallelism)
 
-  override def retrieveReservationAsOwner(accessToken: String, restaurantId: String, reservationId: String): Reservation = {
-    val request = Get(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId?viewMode=${Actors.customer}")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Reservation](), readTimeout)
-  }
+  override def retrieveReservationsByIdAsRestaurant(accessToken: String, restaurantId: String, reservationIds: JList[String], parallelism: Int, consumer: BiConsumer[String, BulkResult[Reservation]]): Unit =
+    await(asyncClient.retrieveReservationsByIdAsRestaurant(accessToken, restaurantId, reservationIds, parallelism, consumer))
 
-  override def retrieveReservationAsRestaurant(accessToken: String, restaurantId: String, reservationId: String): Reservation = {
-    val request = Get(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId?viewMode=${Actors.restaurant}")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[Reservation](), readTimeout)
-  }
+  override def reservationFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore): ReservationFeed =
+    asyncClient.reservationFeed(accessToken, restaurantId, cursorStore)
 
-  override def retrieveUnhandledReservations(accessToken: String, restaurantId: String): JList[Reservation] = {
-    val request = Get(s"$apiUrl/organizations/$restaurantId/reservations?viewMode=${Actors.restaurant}&unhandled=true")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result[Reservations](client.execute(request) withResult[Reservations](), readTimeout).results
-  }
+  override def reservationFeed(accessToken: String, restaurantId: String, cursorStore: CursorStore, start: FeedCursor): ReservationFeed =
+    asyncClient.reservationFeed(accessToken, restaurantId, cursorStore, start)
 
-  override def setReservationStatusAsRestaurant(accessToken: String, restaurantId: String, reservationId: String, status: String, comment: String): Reservation = {
-    status match {
-      case ReservationStatuses.accepted =>
-        val request = Post(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId/accept?as=${Actors.restaurant}",
-          Json.stringify(Comment(comment = Option(comment))))
-          .addHeader(Authorization.oauth2(accessToken))
-        Await.result(client.execute(request) withResult[Reservation](), readTimeout)
-
-      case ReservationStatuses.canceled =>
-        val request = Post(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId/cancel?as=${Actors.restaurant}",
-          Json.stringify(Comment(comment = Option(comment))))
-          .addHeader(Authorization.oauth2(accessToken))
-        Await.result(client.execute(request) withResult[Reservation](), readTimeout)
+  override def setReservationStatusAsRestaurant(accessToken: String, restaurantId: String, reservationId: String, status: String, comment: String): Reservation =
+    await(asyncClient.setReservationStatusAsRestaurant(accessToken, restaurantId, reservationId, status, comment))
+
+  override def acceptReservations(accessToken: String, restaurantId: String, reservationIds: JList[String], comment: String, parallelism: Int): JMap[String, BulkResult[Reservation]] =
+    awaitBulk(reservationIds.asScala, parallelism) { reservationId =>
+      asyncClient.setReservationStatusAsRestaurant(accessToken, restaurantId, reservationId, ReservationStatuses.accepted, comment)
     }
-  }
+
+  override def acceptReservations(accessToken: String, restaurantId: String, reservationIds: JList[String], comment: String): JMap[String, BulkResult[Reservation]] =
+    acceptReservations(accessToken, restaurantId, reservationIds, comment, defaultParallelism)
+
+  override def cancelReservations(accessToken: String, restaurantId: String, reservationIds: JList[String], comment: String, parallelism: Int): JMap[String, BulkResult[Reservation]] =
+    awaitBulk(reservationIds.asScala, parallelism) { reservationId =>
+      asyncClient.setReservationStatusAsRestaurant(accessToken, restaurantId, reservationId, ReservationStatuses.canceled, comment)
+    }
+
+  override def cancelReservations(accessToken: String, restaurantId: String, reservationIds: JList[String], comment: String): JMap[String, BulkResult[Reservation]] =
+    cancelReservations(accessToken, restaurantId, reservationIds, comment, defaultParallelism)
 
   override def retrieveOrdersByCreatedAsc(accessToken: String, restaurantId: String, contactId: String, createdSince: Date, limit: Integer = 1000): JList[Order] =
-    retrieveOrdersByCreated(accessToken, restaurantId, contactId, createdSince, limit, "asc")
+    await(asyncClient.retrieveOrdersByCreatedAsc(accessToken, restaurantId, contactId, createdSince, limit))
 
   override def retrieveOrdersByCreatedDesc(accessToken: String, restaurantId: String, contactId: String, createdSince: Date, limit: Integer = 1000): JList[Order] =
-    retrieveOrdersByCreated(accessToken, restaurantId, contactId, createdSince, limit, "desc")
-
-  private def retrieveOrdersByCreated(accessToken: String, restaurantId: String, contactId: String, createdSince: Date, limit: Integer, order: String): JList[Order] = {
-    val organizationParam = Option(restaurantId).map { value => s"&organizationId=$value"}.getOrElse("")
-    val contactIdParam = Option(contactId).map { value => s"&contactId=$value"}.getOrElse("")
-    val createdSinceTimestamp = Option(createdSince).map { _.getTime }.getOrElse(0L)
-    val createdSinceParam = s"&created=gte:${createdSinceTimestamp}"
-    val actualLimit = Option(limit).map { _.toInt }.getOrElse(1000)
-    val limitParam = s"&limit=${actualLimit}"
-    val queryParams = s"$organizationParam$contactIdParam$createdSinceParam$limitParam"
-    val request = Get(s"$apiUrl/admin/orders?viewMode=${Actors.restaurant}&order=created:${order}$queryParams").addHeader(Authorization.oauth2(accessToken))
-    Await.result[Orders](client.execute(request) withResult[Orders](), readTimeout).results
-  }
+    await(asyncClient.retrieveOrdersByCreatedDesc(accessToken, restaurantId, contactId, createdSince, limit))
 
-  override def setReservationStatusAsOwner(accessToken: String, restaurantId: String, reservationId: String, status: String, comment: String): Reservation = {
-    status match {
-      case ReservationStatuses.canceled =>
-        val request = Post(s"$apiUrl/organizations/$restaurantId/reservations/$reservationId/cancel?as=${Actors.customer}",
-          Json.stringify(Comment(comment = Option(comment))))
-          .addHeader(Authorization.oauth2(accessToken))
-        Await.result(client.execute(request) withResult[Reservation](), readTimeout)
-    }
-  }
+  override def streamOrdersByCreatedAsc(accessToken: String, restaurantId: String, contactId: String, createdSince: Date): JStream[Order] =
+    asyncClient.streamOrdersByCreatedAsc(accessToken, restaurantId, contactId, createdSince)
 
-  override def retrieveReservationsByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date, limit: Integer): JList[Reservation] = {
-    retrieveUserReservations(accessToken, organizationId, new AuthenticationUser(Namespaces.phone, phone), modifiedSince, limit)
-  }
+  override def streamOrdersByCreatedDesc(accessToken: String, restaurantId: String, contactId: String, createdSince: Date): JStream[Order] =
+    asyncClient.streamOrdersByCreatedDesc(accessToken, restaurantId, contactId, createdSince)
 
-  override def retrieveReservationsByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date, limit: Integer): JList[Reservation] = {
-    retrieveUserReservations(accessToken, organizationId, new AuthenticationUser(Namespaces.email, email), modifiedSince, limit)
-  }
+  override def setReservationStatusAsOwner(accessToken: String, restaurantId: String, reservationId: String, status: String, comment: String): Reservation =
+    await(asyncClient.setReservationStatusAsOwner(accessToken, restaurantId, reservationId, status, comment))
 
-  private def retrieveUserReservations(accessToken: String, organizationId: String, user: AuthenticationUser, modifiedSince: Date, limit: Integer): JList[Reservation] = {
-    val modifiedSinceTimestamp = Option(modifiedSince).map { _.getTime }.getOrElse(0L)
-    val actualLimit = Option(limit).map { _.toInt }.getOrElse(1000000)
-    val request = Get(s"$apiUrl/organizations/$organizationId/reservations?viewMode=${Actors.restaurant}&user=${user.ns}:${URLEncoder.encode(user.id, "UTF-8")}&modified=gte:$modifiedSinceTimestamp&limit=$actualLimit")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result[Reservations](client.execute(request) withResult[Reservations](), readTimeout).results
-  }
+  override def retrieveReservationsByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date, limit: Integer): JList[Reservation] =
+    await(asyncClient.retrieveReservationsByPhone(accessToken, organizationId, phone, modifiedSince, limit))
 
-  override def deleteOrganization(accessToken: String, organizationId: String): Unit = {
-    val request = Delete(s"$apiUrl/organizations/$organizationId")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withoutResult(), readTimeout)
-  }
+  override def streamReservationsByPhone(accessToken: String, organizationId: String, phone: String, modifiedSince: Date): JStream[Reservation] =
+    asyncClient.streamReservationsByPhone(accessToken, organizationId, phone, modifiedSince)
 
-  override def deleteCustomerByPhone(accessToken: String, organizationId: String, phone: String): Unit = {
-    deleteCustomer(accessToken, organizationId, new AuthenticationUser(Namespaces.phone, phone))
-  }
+  override def retrieveReservationsByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date, limit: Integer): JList[Reservation] =
+    await(asyncClient.retrieveReservationsByEmail(accessToken, organizationId, email, modifiedSince, limit))
 
-  override def deleteCustomerByEmail(accessToken: String, organizationId: String, email: String): Unit = {
-    deleteCustomer(accessToken, organizationId, new AuthenticationUser(Namespaces.email, email))
-  }
+  override def streamReservationsByEmail(accessToken: String, organizationId: String, email: String, modifiedSince: Date): JStream[Reservation] =
+    asyncClient.streamReservationsByEmail(accessToken, organizationId, email, modifiedSince)
 
-  override def getMyAccount(accessToken: String): ClientInfo = {
-    val request = Get(s"$apiUrl/me/account")
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[ClientInfo](), readTimeout)
-  }
+  override def deleteOrganization(accessToken: String, organizationId: String): Unit =
+    await(asyncClient.deleteOrganization(accessToken, organizationId))
 
-  override def setMyAccount(accessToken: String, account: ClientInfo): ClientInfo = {
-    val request = Put(s"$apiUrl/me/account", Json.stringify(account))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[ClientInfo](), readTimeout)
-  }
+  override def deleteCustomerByPhone(accessToken: String, organizationId: String, phone: String): Unit =
+    await(asyncClient.deleteCustomerByPhone(accessToken, organizationId, phone))
 
-  override def addMyAccountCards(accessToken: String, cardTokens: JList[CreditCardToken]): ClientInfo = {
-    val request = Post(s"$apiUrl/me/account/cards", Json.stringify(CardTokens(cardTokens.asScala)))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withResult[ClientInfo](), readTimeout)
-  }
+  override def deleteCustomerByEmail(accessToken: String, organizationId: String, email: String): Unit =
+    await(asyncClient.deleteCustomerByEmail(accessToken, organizationId, email))
 
-  private def deleteCustomer(accessToken: String, organizationId: String, customer: AuthenticationUser): Unit = {
-    val request = Post(s"$apiUrl/organizations/$organizationId/delete_customer", Json.stringify(customer))
-      .addHeader(Authorization.oauth2(accessToken))
-    Await.result(client.execute(request) withoutResult(), readTimeout)
+  override def getMyAccount(accessToken: String): ClientInfo =
+    await(asyncClient.getMyAccount(accessToken))
+
+  override def setMyAccount(accessToken: String, account: ClientInfo): ClientInfo =
+    await(asyncClient.setMyAccount(accessToken, account))
+
+  override def addMyAccountCards(accessToken: String, cardTokens: JList[CreditCardToken]): ClientInfo =
+    await(asyncClient.addMyAccountCards(accessToken, cardTokens))
+
+  /**
+   * Closes the async client. The authentication client isn't closed, as its library has no way to release it: the
+   * one created by the secondary constructors (along with whatever its HTTP library holds) is only released once
+   * unreachable. To avoid one per client, create a single authentication client and pass it to every client.
+   */
+  override def close(): Unit = {
+    asyncClient.close()
   }
-}
 
+  private def await[T](result: CompletionStage[T]): T = {
+    Await.result(toScala(result), readTimeout)
+  }
 
-private object ExceptionTranslator {
-  def asException(errorResponse: ErrorResponse): RuntimeException = {
-    errorResponse.`type` match {
-      case Errors.InvalidData => new InvalidDataException(errorResponse.detail.orNull)
-      case Errors.Forbidden => new NoPermissionException(errorResponse.detail.orNull)
-      case Errors.Conflict => new ConflictException(errorResponse.detail.orNull)
-      case Errors.NotFound => new NotFoundException(errorResponse.detail.orNull)
-      case Errors.Internal => new InternalException(errorResponse.detail.orNull)
-      case Errors.TemporarilyUnavailable => new TemporarilyUnavailableException(errorResponse.detail.orNull)
-      case _ => new RestaurantsException(s"Type: '${errorResponse.`type`}'${errorResponse.detail.map(detail => s", Detail: '$detail'").getOrElse("")}")
-    }
+  private def awaitBulk[T](ids: Seq[String], parallelism: Int)(call: String => CompletionStage[T]): JMap[String, BulkResult[T]] = {
+    Bulk.await(ids, parallelism, readTimeout)(call)
   }
 }
@@ -0,0 +1,322 @@
+package com.wix.restaurants
+
+import java.io.{IOException, UncheckedIOException}
+import java.util.concurrent.atomic.LongAdder
+import java.util.concurrent.{Executors, LinkedBlockingQueue, RejectedExecutionException, ThreadFactory, ThreadLocalRandom, TimeUnit}
+import java.util.{ArrayDeque, UUID, ArrayList => JArrayList, LinkedHashMap => JLinkedHashMap}
+
+import com.openrest.v1_1.Order
+import com.wix.restaurants.DurableSubmissionQueue.JournalWriter
+import com.wix.restaurants.SubmissionJournal.{Entry, Kind}
+import com.wix.restaurants.json.Json
+import com.wix.restaurants.reservations.Reservation
+import com.wix.restaurants.submissions.{Submission, SubmissionQueue, SubmissionQueueSettings, SubmissionQueueStats}
+
+import scala.collection.JavaConverters._
+import scala.compat.java8.FutureConverters.toJava
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, ExecutionContext, Future, Promise}
+import scala.util.control.NonFatal
+import scala.util.{Failure, Success, Try}
+
+/**
+ * Journals submissions, and sends them in the background. See [[SubmissionQueueSettings]].
+ *
+ * The journal's I/O runs on a thread of its own (see [[JournalWriter]]), never under this queue's lock, nor on the
+ * client's dispatcher.
+ *
+ * @param send Sends a submission once, with its idempotency key, and the given access token (or none if null).
+ */
+private[restaurants] class DurableSubmissionQueue(settings: SubmissionQueueSettings,
+                                                  send: (Entry, String) => Future[AnyRef])
+                                                 (implicit executionContext: ExecutionContext) extends SubmissionQueue {
+  /**
+   * A submission not completed yet, and its attempts so far.
+   *
+   * @param accessToken The token it was made with, or null if it was restored from the journal (or made without one).
+   */
+  private class Pending(val entry: Entry, val accessToken: String) {
+    val promise: Promise[AnyRef] = Promise[AnyRef]()
+    var attempts = 0
+  }
+
+  private val sent = new LongAdder
+  private val retries = new LongAdder
+  private val failed = new LongAdder
+
+  private val journal = new SubmissionJournal(settings.journal)
+  private val writer = new JournalWriter(journal)
+  // Guarded by this, as are inFlight and closed. Submissions are pending from the time they are being journaled.
+  private val pending = new JLinkedHashMap[String, Pending]()
+  private val ready = new ArrayDeque[Pending]()
+  private var inFlight = 0
+  private var closed = false
+
+  private val retryScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory {
+    override def newThread(runnable: Runnable): Thread = {
+      val thread = new Thread(runnable, "wix-restaurants-submission-retries")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+
+  journal.restored.foreach { entry =>
+    val restored = new Pending(entry, null)
+    pending.put(entry.idempotencyKey, restored)
+    // Without accessTokens, those made with a token stay in the journal until the queue is opened with it
+    if (!entry.authenticated || settings.accessTokens != null) {
+      ready.add(restored)
+    }
+  }
+  dispatch()
+
+  override def submitOrder(accessToken: String, order: Order): Submission[Order] =
+    submitOrder(accessToken, order, null)
+
+  override def submitOrder(accessToken: String, order: Order, idempotencyKey: String): Submission[Order] =
+    submit[Order](Kind.Order, accessToken, order.restaurantId, Json.stringify(order), idempotencyKey)
+
+  override def submitReservation(accessToken: String, reservation: Reservation): Submission[Reservation] =
+    submitReservation(accessToken, reservation, null)
+
+  override def submitReservation(accessToken: String, reservation: Reservation, idempotencyKey: String): Submission[Reservation] =
+    submit[Reservation](Kind.Reservation, accessToken, reservation.restaurantId, Json.stringify(reservation), idempotencyKey)
+
+  override def getStats: SubmissionQueueStats = {
+    val now = System.currentTimeMillis
+    synchronized {
+      val oldestAge = if (pending.isEmpty) 0L else now - pending.values.iterator.next.entry.journaledAt
+      new SubmissionQueueStats(pending.size, oldestAge, inFlight, sent.sum, retries.sum, failed.sum,
+        if (closed) 0L else writer.size)
+    }
+  }
+
+  /**
+   * Stops sending. Submissions still in flight complete, but aren't recorded in the journal, and are sent again
+   * (with the same idempotency key) once it is opened again.
+   */
+  def close(): Unit = {
+    val journalClosed = synchronized {
+      if (!closed) {
+        closed = true
+        Some(writer.close())
+      } else {
+        None
+      }
+    }
+    retryScheduler.shutdownNow()
+    journalClosed.foreach { Await.ready(_, Duration.Inf) }
+  }
+
+  private def submit[T](kind: Kind, accessToken: String, restaurantId: String, body: String,
+                        idempotencyKey: String): Submission[T] = {
+    val key = Option(idempotencyKey).getOrElse(UUID.randomUUID.toString)
+    val (submission, journaled) = synchronized {
+      if (closed) {
+        throw new IllegalStateException("Submission queue is closed")
+      }
+      Option(pending.get(key)) match {
+        case Some(existing) =>
+          require(existing.entry.kind == kind, s"Idempotency key $key is already used by a pending ${existing.entry.kind}")
+          (existing, None)
+        case None =>
+          val added = new Pending(Entry(key, kind, restaurantId, accessToken != null, body, System.currentTimeMillis),
+            accessToken)
+          pending.put(key, added)
+          // Queued under the lock, so that it's written before close closes the journal
+          (added, Some(writer.append(added.entry)))
+      }
+    }
+
+    journaled.foreach { appended =>
+      Try(Await.result(appended, Duration.Inf)) match {
+        case Success(_) =>
+          synchronized { ready.add(submission) }
+        case Failure(e) =>
+          synchronized { pending.remove(key) }
+          submission.promise.tryFailure(e) // For those that submitted it again meanwhile
+          e match {
+            case io: IOException => throw new UncheckedIOException("Submission couldn't be journaled", io)
+            case _ => throw e
+          }
+      }
+    }
+    dispatch()
+    new Submission[T](key, toJava(submission.promise.future.asInstanceOf[Future[T]]))
+  }
+
+  /** Sends ready submissions, up to the concurrency. */
+  private def dispatch(): Unit = {
+    val toSend = synchronized {
+      val batch = Vector.newBuilder[Pending]
+      while (!closed && inFlight < settings.concurrency && !ready.isEmpty) {
+        batch += ready.poll()
+        inFlight += 1
+      }
+      batch.result()
+    }
+    toSend.foreach(attempt)
+  }
+
+  private def attempt(submission: Pending): Unit = {
+    submission.attempts += 1
+    val result = try send(submission.entry, accessTokenOf(submission)) catch { case NonFatal(e) => Future.failed(e) }
+    result.onComplete { outcome =>
+      outcome match {
+        case Success(_) =>
+          sent.increment()
+          complete(submission, outcome)
+        case Failure(e) if settings.retryable(e) && !isExpired(submission.entry) =>
+          retries.increment()
+          retryLater(submission)
+        case Failure(_) =>
+          failed.increment()
+          complete(submission, outcome)
+      }
+      synchronized { inFlight -= 1 }
+      dispatch()
+    }
+  }
+
+  private def retryLater(submission: Pending): Unit = {
+    val backoff = math.min(settings.maxBackoff.toMillis.toDouble,
+      settings.initialBackoff.toMillis * math.pow(2, submission.attempts - 1)).toLong
+    try {
+      retryScheduler.schedule(new Runnable {
+        override def run(): Unit = {
+          synchronized {
+            if (!closed) {
+              ready.add(submission)
+            }
+          }
+          dispatch()
+        }
+      }, ThreadLocalRandom.current.nextLong(backoff + 1), TimeUnit.MILLISECONDS)
+    } catch {
+      case _: RejectedExecutionException => // Closed; sent again once the journal is opened again
+    }
+  }
+
+  private def complete(submission: Pending, outcome: Try[AnyRef]): Unit = {
+    val key = submission.entry.idempotencyKey
+    synchronized {
+      pending.remove(key)
+      if (!closed) {
+        writer.complete(key)
+      }
+    }
+
+    submission.promise.tryComplete(outcome)
+    Option(settings.listener).foreach { listener =>
+      try {
+        (outcome, submission.entry.kind) match {
+          case (Success(order: Order), Kind.Order) => listener.onOrderSubmitted(key, order)
+          case (Success(reservation: Reservation), Kind.Reservation) => listener.onReservationSubmitted(key, reservation)
+          case (Failure(e), _) => listener.onFailed(key, e)
+          case _ =>
+        }
+      } catch {
+        case NonFatal(_) => // The listener's problem
+      }
+    }
+  }
+
+  private def accessTokenOf(submission: Pending): String = {
+    if (submission.entry.authenticated && settings.accessTokens != null) {
+      settings.accessTokens.accessTokenFor(submission.entry.restaurantId)
+    } else {
+      submission.accessToken
+    }
+  }
+
+  private def isExpired(entry: Entry): Boolean = {
+    System.currentTimeMillis - entry.journaledAt > settings.maxAge.toMillis
+  }
+}
+
+private[restaurants] object DurableSubmissionQueue {
+  /**
+   * Owns the journal, and does all of its I/O on a thread of its own. Appends queued meanwhile are written together,
+   * and forced to disk once for all of them (a group commit). Completions are written in the background, and the
+   * journal is rewritten from the submissions this writer journaled, in journal order.
+   */
+  private class JournalWriter(journal: SubmissionJournal) {
+    private sealed trait Operation
+    private case class Append(entry: Entry, done: Promise[Unit]) extends Operation
+    private case class Complete(idempotencyKey: String) extends Operation
+    private case class Close(done: Promise[Unit]) extends Operation
+
+    private val operations = new LinkedBlockingQueue[Operation]()
+    // Only used by the thread
+    private val journaled = new JLinkedHashMap[String, Entry]()
+    @volatile private var journalSize = journal.size
+
+    journal.restored.foreach { entry => journaled.put(entry.idempotencyKey, entry) }
+
+    private val thread = new Thread(new Runnable {
+      override def run(): Unit = writeAll()
+    }, "wix-restaurants-submission-journal")
+    thread.setDaemon(true)
+    thread.start()
+
+    /** @return completed once the submission is forced to disk. */
+    def append(entry: Entry): Future[Unit] = {
+      val done = Promise[Unit]()
+      operations.add(Append(entry, done))
+      done.future
+    }
+
+    def complete(idempotencyKey: String): Unit = operations.add(Complete(idempotencyKey))
+
+    def size: Long = journalSize
+
+    /** Closes the journal, once the operations queued before are done. Nothing may be queued after. */
+    def close(): Future[Unit] = {
+      val done = Promise[Unit]()
+      operations.add(Close(done))
+      done.future
+    }
+
+    private def writeAll(): Unit = {
+      val batch = new JArrayList[Operation]()
+      val appends = new JArrayList[Append]()
+      var open = true
+      while (open) {
+        batch.add(operations.take())
+        operations.drainTo(batch)
+        batch.asScala.foreach {
+          case append: Append => appends.add(append)
+          case Complete(idempotencyKey) =>
+            flush(appends)
+            journaled.remove(idempotencyKey)
+            try {
+              journal.complete(idempotencyKey, journaled.size) { journaled.values.asScala.toVector }
+            } catch {
+              case NonFatal(_) => // Sent again after a restart, with the same idempotency key
+            }
+          case Close(done) =>
+            flush(appends)
+            open = false
+            done.complete(Try(journal.close()))
+        }
+        flush(appends)
+        batch.clear()
+        if (open) {
+          journalSize = journal.size
+        }
+      }
+    }
+
+    private def flush(appends: JArrayList[Append]): Unit = {
+      if (!appends.isEmpty) {
+        val entries = appends.asScala.map { _.entry }
+        val appended = Try(journal.append(entries: _*))
+        if (appended.isSuccess) {
+          entries.foreach { entry => journaled.put(entry.idempotencyKey, entry) }
+        }
+        appends.asScala.foreach { _.done.complete(appended) }
+        appends.clear()
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.wix.restaurants
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.wix.restaurants.exceptions._
+
+import scala.util.Try
+
+private object ExceptionTranslator {
+  /**
+   * Translates an error response, which may or may not be an RFC 7807 problem. Other bodies (e.g. a proxy's error
+   * page) are translated by their status alone, so that only the transient ones are retried.
+   */
+  def asException(status: Int, body: Array[Byte]): RuntimeException = {
+    // readTree gives null for an empty body
+    Try(JsonCodec.mapper.readTree(body)).toOption.flatMap { Option(_) }.filter { _.hasNonNull("type") } match {
+      case Some(errorResponse) => asException(errorResponse.get("type").asText, textField(errorResponse, "detail"))
+      case None => asException(status)
+    }
+  }
+
+  private def asException(status: Int): RuntimeException = {
+    val message = s"Unexpected HTTP status $status"
+    status match {
+      case 400 | 422 => new InvalidDataException(message)
+      case 401 | 403 => new NoPermissionException(message)
+      case 404 => new NotFoundException(message)
+      case 409 => new ConflictException(message)
+      case 429 | 503 => new TemporarilyUnavailableException(message)
+      case _ if status >= 500 && status < 600 => new InternalException(message)
+      case _ => new RestaurantsException(message)
+    }
+  }
+
+  private def asException(`type`: String, detail: Option[String]): RuntimeException = {
+    `type` match {
+      case Errors.InvalidData => new InvalidDataException(detail.orNull)
+      case Errors.Forbidden => new NoPermissionException(detail.orNull)
+      case Errors.Conflict => new ConflictException(detail.orNull)
+      case Errors.NotFound => new NotFoundException(detail.orNull)
+      case Errors.Internal => new InternalException(detail.orNull)
+      case Errors.TemporarilyUnavailable => new TemporarilyUnavailableException(detail.orNull)
+      case _ => new RestaurantsException(s"Type: '${`type`}'${detail.map(detail => s", Detail: '$detail'").getOrElse("")}")
+    }
+  }
+
+  private def textField(node: JsonNode, field: String): Option[String] = {
+    Option(node.get(field)).filterNot { _.isNull }.map { _.asText }
+  }
+}
@@ -0,0 +1,89 @@
+package com.wix.restaurants
+
+import java.io.{ByteArrayOutputStream, IOException, InputStream}
+import java.util.zip.{GZIPInputStream, InflaterInputStream}
+
+import com.wix.restaurants.exceptions.CommunicationException
+import com.wix.restaurants.transport.TransportResponse
+
+import scala.concurrent.{ExecutionContext, Future, blocking}
+import scala.util.Try
+
+/** Helpers for reading the responses handed back by a [[com.wix.restaurants.transport.HttpTransport]]. */
+private[restaurants] object HttpResponses {
+  /**
+   * @return the decompressed body. Reads the gzip header, so must be called where blocking is expected; closes the
+   *         body if that fails.
+   */
+  def decode(response: TransportResponse): InputStream = {
+    try {
+      Option(response.header("content-encoding")).map { _.trim.toLowerCase } match {
+        case Some("gzip") | Some("x-gzip") => new GZIPInputStream(response.body)
+        case Some("deflate") => new InflaterInputStream(response.body)
+        case _ => response.body
+      }
+    } catch {
+      case e: IOException =>
+        response.body.close()
+        throw e
+    }
+  }
+
+  def header(response: TransportResponse, lowercaseName: String): Option[String] = {
+    Option(response.headers.get(lowercaseName))
+  }
+
+  /** Closes the body without reading it; for bodies that are known to be empty, e.g. 304 responses. */
+  def discard(response: TransportResponse): Unit = {
+    response.body.close()
+  }
+
+  /**
+   * Fails with the translated error if the response is not successful, otherwise reads and drops the body (rather
+   * than abandoning it, which may cost the connection).
+   */
+  def drain(response: TransportResponse)(implicit executionContext: ExecutionContext): Future[Unit] = {
+    if (response.isSuccess) {
+      Future {
+        blocking {
+          val in = response.body
+          try {
+            val buffer = new Array[Byte](4096)
+            while (in.read(buffer) >= 0) {}
+          } catch {
+            case e: IOException => throw new CommunicationException("Failed to read response", e)
+          } finally {
+            in.close()
+          }
+        }
+      }
+    } else {
+      failure(response)
+    }
+  }
+
+  /** Reads an unsuccessful response's (small) error body, and fails with the translated error. */
+  def failure(response: TransportResponse)(implicit executionContext: ExecutionContext): Future[Nothing] = {
+    Future {
+      // A body that can't be read is translated like any other non RFC 7807 body
+      val body = blocking { Try(readFully(response)).getOrElse(Array.emptyByteArray) }
+      throw ExceptionTranslator.asException(response.status, body)
+    }
+  }
+
+  private def readFully(response: TransportResponse): Array[Byte] = {
+    val in = decode(response)
+    try {
+      val out = new ByteArrayOutputStream()
+      val buffer = new Array[Byte](4096)
+      var n = in.read(buffer)
+      while (n >= 0) {
+        out.write(buffer, 0, n)
+        n = in.read(buffer)
+      }
+      out.toByteArray
+    } finally {
+      in.close()
+    }
+  }
+}
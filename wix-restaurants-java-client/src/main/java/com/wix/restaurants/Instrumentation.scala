@@ -0,0 +1,95 @@
+package com.wix.restaurants
+
+import akka.http.scaladsl.model.{HttpRequest, Uri}
+import com.wix.restaurants.metrics.{RequestEvent, RequestListener}
+import com.wix.restaurants.transport.TransportResponse
+
+import scala.concurrent.{ExecutionContext, Future}
+import scala.util.control.NonFatal
+
+/**
+ * Reports every request sent through [[apply]] to a [[RequestListener]].
+ *
+ * Clients without a listener don't create one of these at all, and pass [[Exchange.untracked]] to their send
+ * functions instead, so disabled instrumentation costs nothing but a closure.
+ */
+private[restaurants] class Instrumentation(listener: RequestListener, apiUrl: String)
+                                          (implicit executionContext: ExecutionContext) {
+  private val basePath = Uri(apiUrl).path.toString.stripSuffix("/")
+
+  /**
+   * @param startNanos When the call started waiting to be sent (System.nanoTime); queue time is measured from then.
+   * @param send       Sends the request, passing it through the exchange's `sent` right before handing it to the
+   *                   transport.
+   */
+  def apply[T](request: HttpRequest, startNanos: Long = System.nanoTime)(send: Exchange => Future[T]): Future[T] = {
+    val exchange = new Exchange(startNanos)
+    val result = try { send(exchange) } catch { case NonFatal(e) => Future.failed(e) }
+    result.onComplete { completed =>
+      val endNanos = System.nanoTime
+      val sentNanos = if (exchange.sentNanos != 0L) exchange.sentNanos else endNanos
+      val event = new RequestEvent(request.method.value, Instrumentation.endpointOf(request.uri, basePath),
+        exchange.status, completed.failed.toOption.orNull, exchange.requestBytes, exchange.responseBytes,
+        sentNanos - exchange.startNanos, endNanos - sentNanos)
+      try {
+        listener.onRequest(event)
+      } catch {
+        case NonFatal(_) => // Listeners must not fail requests
+      }
+    }
+    result
+  }
+}
+
+private[restaurants] object Instrumentation {
+  /** Path segments that are followed by an id. */
+  private val collections = Set("organizations", "orders", "reservations")
+
+  /** @return the URI's path relative to basePath, with the segments that follow a collection replaced by "{id}". */
+  def endpointOf(uri: Uri, basePath: String): String = {
+    val path = uri.path.toString
+    val relative = if (path.startsWith(basePath)) path.substring(basePath.length) else path
+    val segments = relative.split('/')
+    val template = new StringBuilder
+    for (i <- segments.indices if segments(i).nonEmpty) {
+      template.append('/').append(if (i > 0 && collections.contains(segments(i - 1))) "{id}" else segments(i))
+    }
+    if (template.isEmpty) "/" else template.toString
+  }
+}
+
+/** What is known about a request while it's being sent, filled in by the send function as it goes. */
+private[restaurants] class Exchange(val startNanos: Long) {
+  @volatile private[restaurants] var sentNanos: Long = 0L
+  @volatile private[restaurants] var requestBytes: Long = -1L
+  @volatile private[restaurants] var status: Int = 0
+  @volatile private[restaurants] var responseBytes: Long = -1L
+
+  /** Marks the end of the queue time; call with the request as it is handed to the transport (i.e. encoded). */
+  def sent(request: HttpRequest): HttpRequest = {
+    requestBytes = request.entity.contentLengthOption.getOrElse(-1L)
+    sentNanos = System.nanoTime
+    request
+  }
+
+  def received(response: TransportResponse): TransportResponse = {
+    status = response.status
+    responseBytes = response.contentLength
+    response
+  }
+
+  /** Records the number of (decompressed) bytes read, for responses whose size wasn't known up front. */
+  def read(bytes: Long): Unit = {
+    if (responseBytes < 0) {
+      responseBytes = bytes
+    }
+  }
+}
+
+private[restaurants] object Exchange {
+  val untracked: Exchange = new Exchange(0L) {
+    override def sent(request: HttpRequest): HttpRequest = request
+    override def received(response: TransportResponse): TransportResponse = response
+    override def read(bytes: Long): Unit = {}
+  }
+}
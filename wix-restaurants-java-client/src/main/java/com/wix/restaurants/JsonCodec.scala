@@ -0,0 +1,18 @@
+package com.wix.restaurants
+
+import com.fasterxml.jackson.databind.{DeserializationFeature, ObjectMapper}
+
+import scala.reflect.ClassTag
+
+/**
+ * Jackson binding of response bodies. The model classes carry their own Jackson annotations, so this binds them as
+ * the SDK's Json serializes them (see StreamingJsonTest), only ignoring properties unknown to this version.
+ */
+private[restaurants] object JsonCodec {
+  val mapper: ObjectMapper = new ObjectMapper()
+    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+
+  def parse[T: ClassTag](bytes: Array[Byte]): T = {
+    mapper.readValue(bytes, implicitly[ClassTag[T]].runtimeClass.asInstanceOf[Class[T]])
+  }
+}
@@ -0,0 +1,223 @@
+package com.wix.restaurants
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.{ArrayDeque => JArrayDeque, ArrayList => JArrayList, List => JList}
+
+import akka.actor.{ActorSystem, Cancellable}
+import akka.http.scaladsl.model.{HttpRequest, Uri}
+import com.wix.restaurants.compression.CallClass
+import com.wix.restaurants.exceptions.LimitExceededException
+import com.wix.restaurants.limits.{Limit, LimitSettings, LimitStats}
+
+import scala.annotation.tailrec
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.util.control.NonFatal
+
+/**
+ * Applies [[LimitSettings]]: every call waits for a slot in its (organization, call class) partition.
+ *
+ * Partitions idle for settings.idleTimeout are swept out of the map by the calls that follow (at most once per
+ * idleTimeout). A swept partition is retired first, so a call racing the sweep creates a fresh one instead.
+ */
+private[restaurants] class Limiter(settings: LimitSettings)
+                                  (implicit system: ActorSystem, executionContext: ExecutionContext) {
+  private val partitions = new ConcurrentHashMap[(String, CallClass), Limiter.Partition]()
+  private val sweptAt = new AtomicLong(System.nanoTime)
+
+  def apply[T](request: HttpRequest)(call: => Future[T]): Future[T] = {
+    sweepIfDue()
+    submit((Limiter.organizationOf(request.uri).orNull, Compression.callClassOf(request.uri)), call)
+  }
+
+  @tailrec
+  private def submit[T](key: (String, CallClass), call: => Future[T]): Future[T] = {
+    var partition = partitions.get(key)
+    if (partition == null) {
+      partition = partitions.computeIfAbsent(key, _ => new Limiter.Partition(key._1, key._2, settings.limitOf(key._2)))
+    }
+    partition.submit(call) match {
+      case Some(result) => result
+      case None =>
+        partitions.remove(key, partition)
+        submit(key, call)
+    }
+  }
+
+  private def sweepIfDue(): Unit = {
+    val now = System.nanoTime
+    val last = sweptAt.get
+    if (now - last >= settings.idleTimeout.toNanos && sweptAt.compareAndSet(last, now)) {
+      val idleSince = now - settings.idleTimeout.toNanos
+      partitions.asScala.foreach { case (key, partition) =>
+        if (partition.retireIfIdle(idleSince)) {
+          partitions.remove(key, partition)
+        }
+      }
+    }
+  }
+
+  def stats: JList[LimitStats] = {
+    val stats = new JArrayList[LimitStats]()
+    partitions.values.asScala.foreach { partition => stats.add(partition.stats) }
+    stats
+  }
+}
+
+private[restaurants] object Limiter {
+  /** @return the organization (or restaurant) the request addresses, from its path or its organizationId parameter. */
+  def organizationOf(uri: Uri): Option[String] = {
+    val segments = uri.path.toString.split('/')
+    val index = segments.indexOf("organizations")
+    if (index >= 0 && index + 1 < segments.length) {
+      Some(segments(index + 1))
+    } else {
+      uri.query().get("organizationId")
+    }
+  }
+
+  private class Partition(organizationId: String, callClass: CallClass, limit: Limit)
+                         (implicit system: ActorSystem, executionContext: ExecutionContext) {
+    private class Waiter(val start: () => Unit, val reject: Throwable => Unit) {
+      var timeout: Cancellable = _
+    }
+
+    // Guarded by this
+    private val queue = new JArrayDeque[Waiter]()
+    private var inFlight = 0
+    private var tokens: Double = limit.burst
+    private var refilledAt = System.nanoTime
+    private var wakeUp: Option[Cancellable] = None
+    private var admitted = 0L
+    private var rejected = 0L
+    private var timedOut = 0L
+    private var usedAt = System.nanoTime
+    private var retired = false
+
+    /** @return the call's result, or None if this partition was retired and the call must go to a fresh one. */
+    def submit[T](call: => Future[T]): Option[Future[T]] = {
+      val promise = Promise[T]()
+      val waiter = new Waiter(
+        start = () => promise.completeWith(run(call)),
+        reject = e => promise.tryFailure(e))
+
+      val admittedNow = synchronized {
+        if (retired) {
+          None
+        } else {
+          usedAt = System.nanoTime
+          if (queue.isEmpty && tryAcquire()) {
+            Some(true)
+          } else if (queue.size < limit.maxQueued) {
+            queue.addLast(waiter)
+            waiter.timeout = system.scheduler.scheduleOnce(limit.maxQueueTime) { expire(waiter) }
+            scheduleWakeUp()
+            Some(false)
+          } else {
+            rejected += 1
+            waiter.reject(new LimitExceededException(s"Too many ${callClass.name.toLowerCase} calls for ${describe}"))
+            Some(false)
+          }
+        }
+      }
+      admittedNow.map { startNow =>
+        if (startNow) {
+          waiter.start()
+        }
+        promise.future
+      }
+    }
+
+    /**
+     * Retires this partition if it has had no calls in flight or queued since idleSince (a System.nanoTime), and its
+     * token bucket is full, so that a fresh partition would behave the same.
+     */
+    def retireIfIdle(idleSince: Long): Boolean = synchronized {
+      refill()
+      if (inFlight == 0 && queue.isEmpty && usedAt - idleSince <= 0 &&
+          (limit.ratePerSecond == 0.0 || tokens >= limit.burst)) {
+        retired = true
+      }
+      retired
+    }
+
+    def stats: LimitStats = synchronized {
+      new LimitStats(organizationId, callClass, inFlight, queue.size, admitted, rejected, timedOut)
+    }
+
+    private def run[T](call: => Future[T]): Future[T] = {
+      val result = try { call } catch { case NonFatal(e) => Future.failed(e) }
+      result.andThen { case _ =>
+        synchronized {
+          inFlight -= 1
+          usedAt = System.nanoTime
+        }
+        drain()
+      }
+    }
+
+    /** Starts as many queued calls as the limits allow, outside the lock. */
+    private def drain(): Unit = {
+      val ready = new JArrayList[Waiter]()
+      synchronized {
+        while (!queue.isEmpty && tryAcquire()) {
+          val waiter = queue.pollFirst()
+          waiter.timeout.cancel()
+          ready.add(waiter)
+        }
+        scheduleWakeUp()
+      }
+      ready.asScala.foreach { _.start() }
+    }
+
+    private def expire(waiter: Waiter): Unit = {
+      val expired = synchronized {
+        val removed = queue.remove(waiter)
+        if (removed) {
+          timedOut += 1
+        }
+        removed
+      }
+      if (expired) {
+        waiter.reject(new LimitExceededException(s"Waited for more than ${limit.maxQueueTime} for ${describe}"))
+      }
+    }
+
+    // Called with the lock held
+    private def tryAcquire(): Boolean = {
+      refill()
+      if (inFlight < limit.maxConcurrent && (limit.ratePerSecond == 0.0 || tokens >= 1.0)) {
+        inFlight += 1
+        tokens -= 1.0
+        admitted += 1
+        true
+      } else {
+        false
+      }
+    }
+
+    // Called with the lock held
+    private def refill(): Unit = {
+      if (limit.ratePerSecond > 0.0) {
+        val now = System.nanoTime
+        tokens = Math.min(limit.burst.toDouble, tokens + (now - refilledAt) * limit.ratePerSecond / 1e9)
+        refilledAt = now
+      }
+    }
+
+    /** Queued calls that only wait for a token (not for a call to complete) need a timer to wake them up. */
+    private def scheduleWakeUp(): Unit = {
+      if (wakeUp.isEmpty && !queue.isEmpty && inFlight < limit.maxConcurrent && limit.ratePerSecond > 0.0) {
+        val delay = ((1.0 - tokens) / limit.ratePerSecond * 1e9).toLong.max(1L).nanos
+        wakeUp = Some(system.scheduler.scheduleOnce(delay) {
+          synchronized { wakeUp = None }
+          drain()
+        })
+      }
+    }
+
+    private def describe: String = Option(organizationId).map { id => s"organization $id" }.getOrElse("calls without an organization")
+  }
+}
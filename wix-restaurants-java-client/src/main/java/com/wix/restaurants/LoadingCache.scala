@@ -0,0 +1,80 @@
+package com.wix.restaurants
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.{AtomicLong, LongAdder}
+import java.util.{LinkedHashMap => JLinkedHashMap, Map => JMap}
+
+import com.wix.restaurants.cache.CacheStats
+
+import scala.concurrent.duration.FiniteDuration
+import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.util.Success
+
+/**
+ * In-memory cache of asynchronously loaded values, bounded by number of entries (least recently used are evicted),
+ * with a TTL per entry. Concurrent lookups of a missing key share a single load. Failed loads are not cached.
+ */
+private[restaurants] class LoadingCache[K, V](maxEntries: Int, ttl: FiniteDuration)
+                                             (implicit executionContext: ExecutionContext) {
+  private case class Entry(value: V, loadedAt: Long)
+
+  private val entries = new JLinkedHashMap[K, Entry](16, 0.75f, true) {
+    override def removeEldestEntry(eldest: JMap.Entry[K, Entry]): Boolean = size > maxEntries
+  }
+  private val loading = new ConcurrentHashMap[K, Future[V]]()
+  private val generation = new AtomicLong()
+  private val hits = new LongAdder
+  private val misses = new LongAdder
+  private val loads = new LongAdder
+
+  def get(key: K)(load: => Future[V]): Future[V] = {
+    val cached = entries.synchronized { Option(entries.get(key)) }
+    cached match {
+      case Some(entry) if System.currentTimeMillis - entry.loadedAt < ttl.toMillis =>
+        hits.increment()
+        Future.successful(entry.value)
+      case _ =>
+        misses.increment()
+        loadOnce(key, load)
+    }
+  }
+
+  def invalidate(key: K): Unit = {
+    // Loads already in flight may predate the change: don't store them, and don't let new callers join them
+    generation.incrementAndGet()
+    loading.remove(key)
+    entries.synchronized { entries.remove(key) }
+  }
+
+  def invalidateAll(): Unit = {
+    generation.incrementAndGet()
+    loading.clear()
+    entries.synchronized { entries.clear() }
+  }
+
+  def stats: CacheStats = {
+    new CacheStats(hits.sum, misses.sum, loads.sum, entries.synchronized { entries.size })
+  }
+
+  private def loadOnce(key: K, load: => Future[V]): Future[V] = {
+    val promise = Promise[V]()
+    val future = promise.future
+    Option(loading.putIfAbsent(key, future)) match {
+      case Some(inFlight) => inFlight
+      case None =>
+        loads.increment()
+        val loadGeneration = generation.get
+        val loaded = try { load } catch { case e: Throwable => Future.failed(e) }
+        promise.completeWith(loaded.andThen { case result =>
+          // Runs before waiters are released, so a caller that sees this result can't join this load again
+          loading.remove(key, future)
+          result match {
+            case Success(value) if generation.get == loadGeneration =>
+              entries.synchronized { entries.put(key, Entry(value, System.currentTimeMillis)) }
+            case _ =>
+          }
+        })
+        future
+    }
+  }
+}
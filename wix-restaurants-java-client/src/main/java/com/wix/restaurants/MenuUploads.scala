@@ -0,0 +1,54 @@
+package com.wix.restaurants
+
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.util.{Arrays => JArrays, LinkedHashMap => JLinkedHashMap, Map => JMap}
+
+import com.openrest.v1_1.Menu
+import com.wix.restaurants.menus.{MenuDiff, MenuFingerprint, MenuUpdate, MenuUploadSettings}
+
+import scala.concurrent.{ExecutionContext, Future}
+
+/**
+ * Remembers the last menu uploaded per (restaurant, location): a digest of the uploaded JSON to skip identical
+ * uploads, a fingerprint to diff the next upload against, and the server's response to return when skipping.
+ */
+private[restaurants] class MenuUploads(settings: MenuUploadSettings)
+                                      (implicit executionContext: ExecutionContext) {
+  private case class Upload(digest: Array[Byte], fingerprint: MenuFingerprint, result: Menu, uploadedAt: Long)
+
+  private val uploads = new JLinkedHashMap[(String, String), Upload](16, 0.75f, true) {
+    override def removeEldestEntry(eldest: JMap.Entry[(String, String), Upload]): Boolean = size > settings.maxLocations
+  }
+
+  /**
+   * @param body   The menu's JSON, as it is uploaded.
+   * @param upload Uploads the menu, unless it's identical to the last one.
+   */
+  def update(restaurantId: String, locationId: String, body: String)
+            (upload: => Future[Menu]): Future[MenuUpdate] = {
+    val key = (restaurantId, locationId)
+    val digest = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8))
+    val last = uploads.synchronized { Option(uploads.get(key)) }
+
+    last match {
+      case Some(previous) if JArrays.equals(previous.digest, digest) &&
+        System.currentTimeMillis - previous.uploadedAt < settings.maxAge.toMillis =>
+        Future.successful(new MenuUpdate(previous.result, MenuDiff.empty, false))
+
+      case _ =>
+        val fingerprint = MenuFingerprint.of(body)
+        upload.map { result =>
+          uploads.synchronized { uploads.put(key, Upload(digest, fingerprint, result, System.currentTimeMillis)) }
+          new MenuUpdate(result, last.map { _.fingerprint.diff(fingerprint) }.orNull, true)
+        }
+    }
+  }
+
+  /** Forgets the restaurant's uploads, at all locations. */
+  def invalidate(restaurantId: String): Unit = {
+    uploads.synchronized {
+      uploads.keySet.removeIf { key => key._1 == restaurantId }
+    }
+  }
+}
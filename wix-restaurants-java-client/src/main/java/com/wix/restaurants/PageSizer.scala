@@ -0,0 +1,21 @@
+package com.wix.restaurants
+
+import com.wix.restaurants.paging.PagingSettings
+
+/** Adapts page size to observed latency and payload size. Not thread-safe; one instance per paged query. */
+private[restaurants] class PageSizer(settings: PagingSettings) {
+  private var pageSize: Int = settings.initialPageSize
+
+  def current: Int = pageSize
+
+  def update(numItems: Int, bytes: Long, latencyMillis: Long): Unit = {
+    if (numItems > 0) {
+      val byLatency = pageSize.toLong * settings.targetPageLatency.toMillis / math.max(latencyMillis, 1L)
+      val byBytes = settings.targetPageBytes / math.max(bytes / numItems, 1L)
+      val next = math.min(byLatency, byBytes)
+        .max(pageSize / 2L).min(pageSize * 2L)
+        .max(settings.minPageSize.toLong).min(settings.maxPageSize.toLong)
+      pageSize = next.toInt
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.wix.restaurants
+
+import java.util.NoSuchElementException
+import java.util.concurrent.TimeoutException
+
+import com.wix.restaurants.exceptions.PageOverflowException
+
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.util.{Failure, Success, Try}
+
+private[restaurants] case class Page[T](items: Seq[T], bytes: Long)
+
+/**
+ * Lazily iterates over a query whose results are sorted by timestamp, and which is paged by requesting results
+ * "from" a cursor timestamp, inclusive. While a page is being consumed, the next one is already being fetched.
+ *
+ * Consecutive pages overlap on the boundary timestamp, since several items may share it, so items at the boundary
+ * that were already returned are skipped. When a full page consists of a single timestamp, the next request for it
+ * doubles the page size, up to maxPageSize. If even that page is full of a single timestamp, its items are returned,
+ * and the iteration then fails with a [[PageOverflowException]] rather than skip the rest of them.
+ *
+ * @param fetch       Fetches a page, given cursor and limit.
+ * @param descending  Whether timestamps decrease from page to page.
+ * @param isPast      Whether an item is beyond the requested range, ending the iteration.
+ * @param timeout     How long to wait for a page, past which the iteration is closed, and fails with a
+ *                    TimeoutException.
+ */
+private[restaurants] class PagedIterator[T](fetch: (Long, Int) => Future[Page[T]],
+                                            from: Long,
+                                            descending: Boolean,
+                                            timestampOf: T => Long,
+                                            idOf: T => String,
+                                            isPast: T => Boolean,
+                                            sizer: PageSizer,
+                                            maxPageSize: Int,
+                                            timeout: Duration)
+                                           (implicit executionContext: ExecutionContext) extends java.util.Iterator[T] with AutoCloseable {
+  private case class Cursor(timestamp: Long, seen: Set[String], limit: Int)
+  private case class Loaded(items: Seq[T], next: Option[Try[Cursor]])
+
+  private var buffer: Iterator[T] = Iterator.empty
+  private var pending: Option[Future[Loaded]] = Some(load(Cursor(from, Set.empty, sizer.current)))
+
+  override def hasNext: Boolean = {
+    while (!buffer.hasNext && pending.isDefined) {
+      val loaded = try {
+        Await.result(pending.get, timeout)
+      } catch {
+        case e: TimeoutException =>
+          close()
+          throw e
+      }
+      pending = loaded.next.map { next => Future.fromTry(next).flatMap(load) } // Prefetch
+      buffer = loaded.items.iterator
+    }
+    buffer.hasNext
+  }
+
+  override def next(): T = {
+    if (!hasNext) {
+      throw new NoSuchElementException
+    }
+    buffer.next()
+  }
+
+  override def close(): Unit = {
+    pending = None
+    buffer = Iterator.empty
+  }
+
+  private def load(cursor: Cursor): Future[Loaded] = {
+    val startNanos = System.nanoTime
+    fetch(cursor.timestamp, cursor.limit).map { page =>
+      sizer.update(page.items.size, page.bytes, (System.nanoTime - startNanos) / 1000000)
+
+      val fresh = page.items.filterNot { item => timestampOf(item) == cursor.timestamp && cursor.seen.contains(idOf(item)) }
+      val (inRange, past) = fresh.span { item => !isPast(item) }
+      val isLastPage = past.nonEmpty || page.items.size < cursor.limit
+      Loaded(inRange, if (isLastPage) None else Some(nextCursor(cursor, page.items)))
+    }
+  }
+
+  private def nextCursor(cursor: Cursor, items: Seq[T]): Try[Cursor] = {
+    val boundary = timestampOf(items.last)
+    if (boundary != cursor.timestamp) {
+      Success(Cursor(boundary, items.filter { timestampOf(_) == boundary }.map(idOf).toSet, sizer.current))
+    } else if (cursor.limit < maxPageSize) {
+      Success(Cursor(boundary, cursor.seen ++ items.map(idOf), math.min(cursor.limit * 2, maxPageSize)))
+    } else {
+      Failure(new PageOverflowException(
+        s"At least $maxPageSize items share the timestamp $boundary, past which paging can't continue without skipping some (see PagingSettings.maxPageSize)"))
+    }
+  }
+}
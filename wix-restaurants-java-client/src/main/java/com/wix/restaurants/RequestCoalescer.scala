@@ -0,0 +1,44 @@
+package com.wix.restaurants
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAdder
+
+import akka.http.scaladsl.model.HttpRequest
+import com.wix.restaurants.cache.CoalescingStats
+
+import scala.concurrent.{ExecutionContext, Future, Promise}
+
+/**
+ * Lets identical GETs (same URI and Authorization header) that overlap in time share a single request and its
+ * decoded result. Nothing is kept once the request completes; see [[CachedGets]] for TTL caching.
+ *
+ * Only callers that bind the response to the same type share it (e.g. a list of orders isn't shared with a list of
+ * order summaries retrieved from the same URI).
+ *
+ * Shared results are handed to every caller, and must not be modified.
+ */
+private[restaurants] class RequestCoalescer(implicit executionContext: ExecutionContext) {
+  private val inFlight = new ConcurrentHashMap[String, Future[Any]]()
+  private val requests = new LongAdder
+  private val coalesced = new LongAdder
+
+  def get[T](request: HttpRequest, binding: Class[_] = classOf[Any])(fetch: => Future[T]): Future[T] = {
+    requests.increment()
+    val key = s"${CachedGets.keyOf(request)} ${binding.getName}"
+    val promise = Promise[Any]()
+    val future = promise.future
+    Option(inFlight.putIfAbsent(key, future)) match {
+      case Some(shared) =>
+        coalesced.increment()
+        shared.asInstanceOf[Future[T]]
+
+      case None =>
+        val fetched = try { fetch } catch { case e: Throwable => Future.failed(e) }
+        // Removed before waiters are released, so a caller that sees this result can't join this request again
+        promise.completeWith(fetched.andThen { case _ => inFlight.remove(key, future) })
+        future.asInstanceOf[Future[T]]
+    }
+  }
+
+  def stats: CoalescingStats = new CoalescingStats(requests.sum, coalesced.sum, inFlight.size)
+}
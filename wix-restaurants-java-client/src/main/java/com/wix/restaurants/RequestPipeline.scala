@@ -0,0 +1,46 @@
+package com.wix.restaurants
+
+import akka.http.scaladsl.model.HttpRequest
+
+import scala.concurrent.Future
+
+/**
+ * Everything a request goes through between the client's calls and the transport: per-organization limits, retries,
+ * circuit breaking and hedging, then instrumentation of each attempt. Each stage is skipped unless enabled.
+ */
+private[restaurants] class RequestPipeline(instrumentation: Option[Instrumentation] = None,
+                                           val resilience: Option[Resilience] = None,
+                                           val limiter: Option[Limiter] = None) {
+  /**
+   * @param writeRetries Which failures a write may be retried after, see [[Resilience.apply]].
+   * @param hedged       Whether a slow attempt may be raced by a second one.
+   * @param restartable  Checked before retries, see [[Resilience.apply]].
+   * @param send         Sends the request once; see [[Instrumentation.apply]].
+   */
+  def apply[T](request: HttpRequest, writeRetries: WriteRetries = WriteRetries.Never, hedged: Boolean = false,
+               restartable: => Boolean = true)(send: Exchange => Future[T]): Future[T] = {
+    // Time spent waiting for the limiter counts as the first attempt's queue time
+    val calledAt = if (instrumentation.isDefined) System.nanoTime else 0L
+    @volatile var attempted = false
+    def attempt: Future[T] = {
+      instrumentation match {
+        case Some(theInstrumentation) =>
+          val startNanos = if (attempted) System.nanoTime else calledAt
+          attempted = true
+          theInstrumentation(request, startNanos)(send)
+        case None => send(Exchange.untracked)
+      }
+    }
+    def resilient: Future[T] = {
+      resilience match {
+        case Some(theResilience) => theResilience(request, writeRetries, hedged, restartable)(attempt)
+        case None => attempt
+      }
+    }
+
+    limiter match {
+      case Some(theLimiter) => theLimiter(request)(resilient)
+      case None => resilient
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.wix.restaurants
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.{AtomicInteger, LongAdder}
+
+import akka.actor.ActorSystem
+import akka.http.scaladsl.model.{HttpMethods, HttpRequest}
+import akka.pattern.after
+import com.wix.restaurants.exceptions.CircuitOpenException
+import com.wix.restaurants.resilience.{ResilienceSettings, ResilienceStats}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+import scala.concurrent.{ExecutionContext, Future, Promise}
+import scala.util.{Failure, Success, Try}
+
+/** Applies [[ResilienceSettings]] to the attempts of a request. */
+private[restaurants] class Resilience(val settings: ResilienceSettings)
+                                     (implicit system: ActorSystem, executionContext: ExecutionContext) {
+  private val breakers = new ConcurrentHashMap[String, CircuitBreaker]()
+  private val retries = new LongAdder
+  private val hedges = new LongAdder
+  private val rejected = new LongAdder
+
+  /**
+   * @param writeRetries Which failures the request may be retried after, if it is a write; GETs may be retried after
+   *                     any retryable failure.
+   * @param restartable  Checked before every retry, for attempts that may have had side effects (e.g. handed some
+   *                     results to a consumer).
+   * @param attempt      Sends the request once; called again for every retry and hedge.
+   */
+  def apply[T](request: HttpRequest, writeRetries: WriteRetries, hedged: Boolean, restartable: => Boolean)
+              (attempt: => Future[T]): Future[T] = {
+    val breaker = breakerOf(request)
+    val retryable: Throwable => Boolean = if (request.method == HttpMethods.GET) {
+      settings.retryable
+    } else if (!settings.retryWrites) {
+      _ => false
+    } else {
+      writeRetries match {
+        case WriteRetries.Always => settings.retryable
+        case WriteRetries.IfUnapplied => e => settings.retryable(e) && ResilienceSettings.isUnapplied(e)
+        case WriteRetries.Never => _ => false
+      }
+    }
+
+    def run(retriesLeft: Int, backoff: FiniteDuration): Future[T] = {
+      val result = settings.hedgeAfter match {
+        case Some(delay) if hedged => hedge(delay)(guarded(breaker)(attempt))
+        case _ => guarded(breaker)(attempt)
+      }
+      result.recoverWith { case e if retriesLeft > 0 && retryable(e) && restartable =>
+        retries.increment()
+        val nextBackoff = (backoff * settings.backoffMultiplier).min(settings.maxBackoff) match {
+          case finite: FiniteDuration => finite
+          case _ => settings.maxBackoff
+        }
+        after(jittered(backoff), system.scheduler)(run(retriesLeft - 1, nextBackoff))
+      }
+    }
+
+    run(settings.maxRetries, settings.initialBackoff)
+  }
+
+  def stats: ResilienceStats = {
+    new ResilienceStats(retries.sum, hedges.sum, rejected.sum, breakers.values.asScala.count { _.isOpen })
+  }
+
+  private def guarded[T](breaker: CircuitBreaker)(attempt: => Future[T]): Future[T] = {
+    breaker(attempt).andThen { case Failure(_: CircuitOpenException) => rejected.increment() }
+  }
+
+  /** Starts a second attempt if the first hasn't completed after delay; the first success wins. */
+  private def hedge[T](delay: FiniteDuration)(attempt: => Future[T]): Future[T] = {
+    val promise = Promise[T]()
+    val pending = new AtomicInteger(1)
+    def settle(result: Try[T]): Unit = result match {
+      case Success(_) => promise.tryComplete(result)
+      case Failure(_) => if (pending.decrementAndGet() == 0) promise.tryComplete(result)
+    }
+
+    attempt.onComplete(settle)
+    val timer = system.scheduler.scheduleOnce(delay) {
+      // Only if the first attempt is still pending (a failed one is retried instead)
+      if (!promise.isCompleted && pending.getAndUpdate { n => if (n > 0) n + 1 else n } > 0) {
+        hedges.increment()
+        attempt.onComplete(settle)
+      }
+    }
+    promise.future.andThen { case _ => timer.cancel() }
+  }
+
+  private def jittered(backoff: FiniteDuration): FiniteDuration = {
+    ThreadLocalRandom.current.nextLong(backoff.toNanos + 1).nanos
+  }
+
+  private def breakerOf(request: HttpRequest): CircuitBreaker = {
+    val host = request.uri.authority.toString
+    val breaker = breakers.get(host)
+    if (breaker != null) {
+      breaker
+    } else {
+      breakers.computeIfAbsent(host, _ => new CircuitBreaker(host, settings.failureThreshold, settings.resetTimeout, settings.retryable))
+    }
+  }
+}
+
+/** Which failures a write may be retried after. */
+private[restaurants] sealed trait WriteRetries
+
+private[restaurants] object WriteRetries {
+  /** None, e.g. for submitting an order, which a repeat would submit twice. */
+  case object Never extends WriteRetries
+
+  /**
+   * Only those that show it wasn't applied (see [[ResilienceSettings.isUnapplied]]), e.g. for accepting an order,
+   * which fails as a conflict or succeeds differently if repeated after it was applied.
+   */
+  case object IfUnapplied extends WriteRetries
+
+  /** Any retryable one, e.g. for a PUT, which leaves the resource as it is if repeated. */
+  case object Always extends WriteRetries
+}
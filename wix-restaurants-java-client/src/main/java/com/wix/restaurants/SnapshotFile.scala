@@ -0,0 +1,320 @@
+package com.wix.restaurants
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataOutputStream, IOException}
+import java.nio.channels.FileChannel
+import java.nio.{ByteBuffer, MappedByteBuffer}
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, NoSuchFileException, Path, StandardCopyOption, StandardOpenOption}
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.zip.{CRC32, Deflater, DeflaterOutputStream, InflaterInputStream}
+
+import com.openrest.v1_1.{Menu, RestaurantFullInfo}
+
+import scala.util.control.NonFatal
+
+/**
+ * The snapshot file format, version 1. Numbers are big-endian, strings are an int length (-1 for null) followed by
+ * that many bytes of UTF-8.
+ *
+ * {{{
+ * header: magic ("WRSN"), version (int), entry count (int), index length (int), index CRC-32 (int),
+ *         written at (long, epoch millis)
+ * index:  per document: kind (byte), fetched at (long), data offset (long), data length (int), decoded length (int),
+ *         data CRC-32 (int), key, organization id, ETag, Last-Modified
+ * data:   per document, its JSON, deflated
+ * }}}
+ *
+ * The index is small, and read up front. Documents are read from the memory-mapped file (and checked) on demand, until
+ * the reader is closed.
+ */
+private[restaurants] object SnapshotFile {
+  val magic: Int = 0x57524e53
+  val version: Int = 1
+
+  private val headerLength = 4 + 4 + 4 + 4 + 4 + 8
+  private val fixedEntryLength = 1 + 8 + 8 + 4 + 4 + 4
+
+  /** The documents that snapshots keep. */
+  sealed abstract class Kind(val id: Byte, val valueClass: Class[_])
+
+  object Kind {
+    case object RestaurantInfo extends Kind(1, classOf[RestaurantFullInfo])
+    case object Menu extends Kind(2, classOf[Menu])
+
+    private val all = Seq(RestaurantInfo, Menu)
+
+    def of(id: Byte): Option[Kind] = all.find { _.id == id }
+
+    def of(value: Any): Option[Kind] = all.find { _.valueClass.isInstance(value) }
+  }
+
+  /** A document, as indexed in a snapshot file. */
+  case class Entry(key: String, kind: Kind, organizationId: String, etag: String, lastModified: String,
+                   fetchedAt: Long, offset: Long, length: Int, decodedLength: Int, crc: Int)
+
+  /** A document to write: its metadata, and its deflated JSON. */
+  case class Document(key: String, kind: Kind, organizationId: String, etag: String, lastModified: String,
+                      fetchedAt: Long, data: Array[Byte], decodedLength: Int)
+
+  /** An open snapshot file: its index, over the memory-mapped file. Thread-safe. */
+  class Reader(val entries: Map[String, Entry], mapped: MappedByteBuffer, val size: Long) {
+    private val buffer = mapped.asReadOnlyBuffer()
+    // Reads hold the read lock, so that close never unmaps the file under them
+    private val lock = new ReentrantReadWriteLock
+    @volatile private var closed = false
+
+    def isOpen: Boolean = !closed
+
+    /**
+     * @return the document's deflated JSON, checked against its CRC.
+     * @throws IOException if the document is corrupt, or the reader is closed.
+     */
+    def data(entry: Entry): Array[Byte] = {
+      lock.readLock.lock()
+      try {
+        if (closed) {
+          throw new IOException(s"Snapshot file closed: ${entry.key}")
+        }
+        val data = new Array[Byte](entry.length)
+        val view = buffer.duplicate()
+        view.position(entry.offset.toInt)
+        view.get(data)
+        if (crcOf(data) != entry.crc) {
+          throw new IOException(s"Corrupt snapshot document: ${entry.key}")
+        }
+        data
+      } finally {
+        lock.readLock.unlock()
+      }
+    }
+
+    def decode(entry: Entry): Any = {
+      val in = new InflaterInputStream(new ByteArrayInputStream(data(entry)))
+      try {
+        JsonCodec.mapper.readValue(in, entry.kind.valueClass)
+      } finally {
+        in.close()
+      }
+    }
+
+    /** @return the document, for writing to a new snapshot, with its fetch time updated. */
+    def document(entry: Entry, fetchedAt: Long): Document = {
+      Document(entry.key, entry.kind, entry.organizationId, entry.etag, entry.lastModified, fetchedAt, data(entry),
+        entry.decodedLength)
+    }
+
+    /**
+     * Unmaps the file, rather than waiting for the mapping to be garbage collected: Windows can't replace (or delete)
+     * a file that is still mapped.
+     */
+    def close(): Unit = {
+      lock.writeLock.lock()
+      try {
+        if (!closed) {
+          closed = true
+          unmap(mapped)
+        }
+      } finally {
+        lock.writeLock.unlock()
+      }
+    }
+  }
+
+  /** @return a document of the given value (which must be of a [[Kind]]). */
+  def encode(key: String, organizationId: String, etag: String, lastModified: String, fetchedAt: Long,
+             value: Any): Document = {
+    val json = JsonCodec.mapper.writeValueAsBytes(value)
+    val deflated = new ByteArrayOutputStream(json.length / 4)
+    val out = new DeflaterOutputStream(deflated, new Deflater(Deflater.BEST_SPEED))
+    out.write(json)
+    out.close()
+    Document(key, Kind.of(value).get, organizationId, etag, lastModified, fetchedAt, deflated.toByteArray, json.length)
+  }
+
+  /**
+   * @return the snapshot file's reader, or None if there is no such file.
+   * @throws IOException if the file can't be read, isn't a snapshot, or is of another format version.
+   */
+  def read(file: Path): Option[Reader] = {
+    val channel = try {
+      FileChannel.open(file, StandardOpenOption.READ)
+    } catch {
+      case _: NoSuchFileException => return None
+    }
+
+    try {
+      val size = channel.size
+      if (size < headerLength || size > Int.MaxValue) {
+        throw new IOException(s"Not a snapshot file: $file")
+      }
+      val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+
+      if (buffer.getInt != magic) {
+        throw new IOException(s"Not a snapshot file: $file")
+      }
+      val fileVersion = buffer.getInt
+      if (fileVersion != version) {
+        throw new IOException(s"Unsupported snapshot version $fileVersion: $file")
+      }
+      val count = buffer.getInt
+      val indexLength = buffer.getInt
+      val indexCrc = buffer.getInt
+      buffer.getLong // Written at
+
+      if (indexLength < 0 || headerLength.toLong + indexLength > size) {
+        throw new IOException(s"Truncated snapshot file: $file")
+      }
+      val index = new Array[Byte](indexLength)
+      buffer.get(index)
+      if (crcOf(index) != indexCrc) {
+        throw new IOException(s"Corrupt snapshot index: $file")
+      }
+
+      val in = ByteBuffer.wrap(index)
+      val entries = Map.newBuilder[String, Entry]
+      for (_ <- 0 until count) {
+        val kindId = in.get
+        val kind = Kind.of(kindId).getOrElse { throw new IOException(s"Unknown snapshot document kind $kindId: $file") }
+        val fetchedAt = in.getLong
+        val offset = in.getLong
+        val length = in.getInt
+        val decodedLength = in.getInt
+        val crc = in.getInt
+        val key = readString(in)
+        if (offset < headerLength + indexLength || offset + length > size) {
+          throw new IOException(s"Truncated snapshot file: $file")
+        }
+        entries += key -> Entry(key, kind, readString(in), readString(in), readString(in), fetchedAt, offset, length,
+          decodedLength, crc)
+      }
+      Some(new Reader(entries.result(), buffer, size))
+    } catch {
+      case e: IOException => throw e
+      case NonFatal(e) => throw new IOException(s"Corrupt snapshot file: $file", e) // e.g. a BufferUnderflowException
+    } finally {
+      channel.close() // The mapping stays valid
+    }
+  }
+
+  /**
+   * Writes the documents to a temporary file next to the given one, forces it to disk, and atomically moves it over
+   * the given file.
+   *
+   * @return the size of the file written.
+   */
+  def write(file: Path, documents: Seq[Document], writtenAt: Long): Long = {
+    val encodedStrings = documents.map { document =>
+      Seq(document.key, document.organizationId, document.etag, document.lastModified).map { encodeString }
+    }
+    val indexLength = encodedStrings.map { strings =>
+      fixedEntryLength + strings.map { string => 4 + Option(string).map { _.length }.getOrElse(0) }.sum
+    }.sum
+
+    val indexBytes = new ByteArrayOutputStream(indexLength)
+    val index = new DataOutputStream(indexBytes)
+    var offset = headerLength.toLong + indexLength
+    documents.zip(encodedStrings).foreach { case (document, strings) =>
+      index.writeByte(document.kind.id)
+      index.writeLong(document.fetchedAt)
+      index.writeLong(offset)
+      index.writeInt(document.data.length)
+      index.writeInt(document.decodedLength)
+      index.writeInt(crcOf(document.data))
+      strings.foreach { string =>
+        index.writeInt(if (string == null) -1 else string.length)
+        if (string != null) {
+          index.write(string)
+        }
+      }
+      offset += document.data.length
+    }
+    index.close()
+
+    val header = ByteBuffer.allocate(headerLength)
+      .putInt(magic)
+      .putInt(version)
+      .putInt(documents.size)
+      .putInt(indexLength)
+      .putInt(crcOf(indexBytes.toByteArray))
+      .putLong(writtenAt)
+    header.flip()
+
+    val directory = file.toAbsolutePath.getParent
+    val temporary = Files.createTempFile(directory, s"${file.getFileName}.", ".tmp")
+    try {
+      val channel = FileChannel.open(temporary, StandardOpenOption.WRITE)
+      try {
+        writeFully(channel, header)
+        writeFully(channel, ByteBuffer.wrap(indexBytes.toByteArray))
+        documents.foreach { document => writeFully(channel, ByteBuffer.wrap(document.data)) }
+        channel.force(true)
+      } finally {
+        channel.close()
+      }
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+    } catch {
+      case e: Throwable =>
+        Files.deleteIfExists(temporary)
+        throw e
+    }
+    forceDirectory(directory)
+    offset
+  }
+
+  /**
+   * Releases the mapping right away, through the JDK's internal cleaner (Java 9 and later, then Java 8). Where neither
+   * is available, the mapping is only released once garbage collected.
+   */
+  private def unmap(buffer: MappedByteBuffer): Unit = {
+    try {
+      val unsafeClass = Class.forName("sun.misc.Unsafe")
+      val theUnsafe = unsafeClass.getDeclaredField("theUnsafe")
+      theUnsafe.setAccessible(true)
+      unsafeClass.getMethod("invokeCleaner", classOf[ByteBuffer]).invoke(theUnsafe.get(null), buffer)
+    } catch {
+      case _: NoSuchMethodException =>
+        try {
+          val cleanerMethod = buffer.getClass.getMethod("cleaner")
+          cleanerMethod.setAccessible(true)
+          Option(cleanerMethod.invoke(buffer)).foreach { cleaner => cleaner.getClass.getMethod("clean").invoke(cleaner) }
+        } catch {
+          case NonFatal(_) =>
+        }
+      case NonFatal(_) =>
+    }
+  }
+
+  private def writeFully(channel: FileChannel, buffer: ByteBuffer): Unit = {
+    while (buffer.hasRemaining) {
+      channel.write(buffer)
+    }
+  }
+
+  /** Makes the move durable, where the platform supports syncing directories (it doesn't on Windows). */
+  private def forceDirectory(directory: Path): Unit = {
+    try {
+      val channel = FileChannel.open(directory, StandardOpenOption.READ)
+      try channel.force(true) finally channel.close()
+    } catch {
+      case _: IOException =>
+    }
+  }
+
+  private def encodeString(string: String): Array[Byte] = Option(string).map { _.getBytes(StandardCharsets.UTF_8) }.orNull
+
+  private def readString(in: ByteBuffer): String = {
+    in.getInt match {
+      case -1 => null
+      case length =>
+        val bytes = new Array[Byte](length)
+        in.get(bytes)
+        new String(bytes, StandardCharsets.UTF_8)
+    }
+  }
+
+  private def crcOf(bytes: Array[Byte]): Int = {
+    val crc = new CRC32
+    crc.update(bytes)
+    crc.getValue.toInt
+  }
+}
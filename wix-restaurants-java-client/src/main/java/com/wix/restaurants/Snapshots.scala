@@ -0,0 +1,195 @@
+package com.wix.restaurants
+
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.util.Base64
+import java.util.concurrent.atomic.LongAdder
+import java.util.concurrent.{ConcurrentHashMap, Executors, ThreadFactory, TimeUnit}
+
+import com.wix.restaurants.SnapshotFile.Kind
+import com.wix.restaurants.cache.{CachedResponse, SnapshotSettings, SnapshotStats}
+
+import scala.collection.JavaConverters._
+import scala.util.control.NonFatal
+
+/**
+ * The snapshot of a [[CachedGets]]: restores the restaurant info and menus missing from its store, and keeps those it
+ * fetches for the next snapshot file. See [[SnapshotSettings]].
+ *
+ * Keys are those of [[CachedGets]], with the credentials replaced by a hash.
+ */
+private[restaurants] class Snapshots(settings: SnapshotSettings) {
+  private val restoredCount = new LongAdder
+  private val writes = new LongAdder
+  private val failures = new LongAdder
+  // Written by the writer only, under this
+  @volatile private var consecutiveWriteFailures = 0
+  @volatile private var lastWriteFailure: Throwable = _
+
+  @volatile private var reader: Option[SnapshotFile.Reader] = open()
+
+  /** Documents fetched since the last write. */
+  private val changed = new ConcurrentHashMap[String, CachedResponse]()
+  /** Documents of the current file that were revalidated since the last write, and when. */
+  private val revalidated = new ConcurrentHashMap[String, java.lang.Long]()
+  /** Organizations invalidated since the last write, whose documents in the current file are dropped. */
+  private val invalidated = ConcurrentHashMap.newKeySet[String]()
+
+  private val writer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory {
+    override def newThread(runnable: Runnable): Thread = {
+      val thread = new Thread(runnable, "wix-restaurants-snapshot-writer")
+      thread.setDaemon(true)
+      thread
+    }
+  })
+  writer.scheduleWithFixedDelay(new Runnable {
+    override def run(): Unit = write()
+  }, settings.writeInterval.toMillis, settings.writeInterval.toMillis, TimeUnit.MILLISECONDS)
+
+  /** @return the latest known response for the given key, or None if it isn't in the snapshot (or is too old). */
+  def restore(cacheKey: String): Option[CachedResponse] = {
+    val key = Snapshots.keyOf(cacheKey)
+    val restored = Option(changed.get(key)).orElse {
+      for {
+        theReader <- reader
+        entry <- theReader.entries.get(key) if !invalidated.contains(entry.organizationId)
+        value <- decode(theReader, entry)
+      } yield new CachedResponse(entry.organizationId, value, entry.etag, entry.lastModified, entry.decodedLength,
+        Option(revalidated.get(key)).map { _.longValue }.getOrElse(entry.fetchedAt))
+    }.filterNot { response => isExpired(response.fetchedAt) }
+
+    restored.foreach { _ => restoredCount.increment() }
+    restored
+  }
+
+  /** Keeps the response for the next write, if it is restaurant info or a menu. */
+  def put(cacheKey: String, response: CachedResponse): Unit = {
+    if (Kind.of(response.value).isDefined) {
+      val key = Snapshots.keyOf(cacheKey)
+      val unchanged = !changed.containsKey(key) && reader.flatMap { _.entries.get(key) }.exists { entry =>
+        entry.etag != null && entry.etag == response.etag && !invalidated.contains(entry.organizationId)
+      }
+      if (unchanged) {
+        // Typically revalidated with a 304: the file's copy is rewritten as is, rather than encoded again
+        revalidated.put(key, response.fetchedAt)
+      } else {
+        changed.put(key, response)
+      }
+    }
+  }
+
+  def invalidate(organizationId: String): Unit = {
+    invalidated.add(organizationId)
+    changed.values.removeIf { _.organizationId == organizationId }
+  }
+
+  /**
+   * Writes a new snapshot file, if anything changed since the last one: the documents fetched since, and the current
+   * file's other documents (copied as is). Failures are counted, and retried with the next write; see
+   * [[SnapshotStats]] for those that persist.
+   */
+  def write(): Unit = synchronized {
+    val theReader = reader
+    val writtenChanges = changed.asScala.toMap
+    val writtenRevalidations = revalidated.asScala.toMap
+    val writtenInvalidations = invalidated.asScala.toSet
+    if (writtenChanges.nonEmpty || writtenRevalidations.nonEmpty || writtenInvalidations.nonEmpty) {
+      try {
+        val changedDocuments = writtenChanges.toSeq.collect {
+          case (key, response) if !isExpired(response.fetchedAt) =>
+            SnapshotFile.encode(key, response.organizationId, response.etag, response.lastModified,
+              response.fetchedAt, response.value)
+        }
+        val keptDocuments = theReader.toSeq.flatMap { fileReader =>
+          fileReader.entries.values.toSeq.flatMap { entry =>
+            val fetchedAt = writtenRevalidations.get(entry.key).map { _.longValue }.getOrElse(entry.fetchedAt)
+            if (writtenChanges.contains(entry.key) || writtenInvalidations.contains(entry.organizationId) ||
+              isExpired(fetchedAt)) {
+              None
+            } else {
+              try {
+                Some(fileReader.document(entry, fetchedAt))
+              } catch {
+                case NonFatal(_) => None // Corrupt: dropped, and fetched again when needed
+              }
+            }
+          }
+        }
+
+        // Windows can't replace a mapped file. Lookups meanwhile miss the snapshot, as if it were empty.
+        reader = None
+        theReader.foreach { _.close() }
+        try {
+          SnapshotFile.write(settings.file, changedDocuments ++ keptDocuments, System.currentTimeMillis)
+        } finally {
+          // The new snapshot, or the previous one (which is still valid) if it couldn't be replaced
+          reader = open()
+        }
+        writes.increment()
+        consecutiveWriteFailures = 0
+        lastWriteFailure = null
+
+        // Unless they changed again in the meantime
+        writtenChanges.foreach { case (key, response) => changed.remove(key, response) }
+        writtenRevalidations.foreach { case (key, fetchedAt) => revalidated.remove(key, fetchedAt) }
+        invalidated.removeAll(writtenInvalidations.asJava)
+      } catch {
+        case NonFatal(e) =>
+          failures.increment()
+          consecutiveWriteFailures += 1
+          lastWriteFailure = e
+      }
+    }
+  }
+
+  def stats: SnapshotStats = {
+    val theReader = reader
+    new SnapshotStats(theReader.map { _.entries.size }.getOrElse(0), theReader.map { _.size }.getOrElse(0L),
+      restoredCount.sum, writes.sum, failures.sum, consecutiveWriteFailures, lastWriteFailure)
+  }
+
+  /** Stops writing in the background, writes the last changes, and unmaps the file. */
+  def close(): Unit = {
+    writer.shutdown()
+    write()
+    synchronized { reader.foreach { _.close() } }
+  }
+
+  private def open(): Option[SnapshotFile.Reader] = {
+    try {
+      SnapshotFile.read(settings.file)
+    } catch {
+      case NonFatal(_) =>
+        failures.increment()
+        None
+    }
+  }
+
+  private def decode(theReader: SnapshotFile.Reader, entry: SnapshotFile.Entry): Option[Any] = {
+    try {
+      Some(theReader.decode(entry))
+    } catch {
+      case NonFatal(_) =>
+        if (theReader.isOpen) { // Otherwise replaced meanwhile, rather than unreadable
+          failures.increment()
+        }
+        None
+    }
+  }
+
+  private def isExpired(fetchedAt: Long): Boolean = System.currentTimeMillis - fetchedAt > settings.maxAge.toMillis
+}
+
+private[restaurants] object Snapshots {
+  /** @return the snapshot key of a [[CachedGets]] key: the URI, and a hash of the credentials (if any). */
+  def keyOf(cacheKey: String): String = {
+    val separator = cacheKey.lastIndexOf('|')
+    val (uri, authorization) = (cacheKey.substring(0, separator), cacheKey.substring(separator + 1))
+    if (authorization.isEmpty) {
+      cacheKey
+    } else {
+      val hash = MessageDigest.getInstance("SHA-256").digest(authorization.getBytes(StandardCharsets.UTF_8))
+      s"$uri|${Base64.getUrlEncoder.withoutPadding.encodeToString(hash)}"
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.wix.restaurants
+
+import java.io.{FilterInputStream, IOException, InputStream}
+
+import com.fasterxml.jackson.core.{JsonParseException, JsonParser, JsonToken}
+import com.wix.restaurants.exceptions.CommunicationException
+import com.wix.restaurants.transport.TransportResponse
+
+import scala.concurrent.{ExecutionContext, Future, blocking}
+import scala.reflect.ClassTag
+
+/**
+ * Binds JSON responses straight from the (decompressed) body stream, so that a response is never held in memory
+ * as a whole byte array or string next to the objects it is bound to.
+ *
+ * The parser reads from the transport's blocking InputStream over the body, so parsing runs inside `blocking`.
+ */
+private[restaurants] object StreamingJson {
+  /** A decoded value, along with the number of (decompressed) bytes it was read from. */
+  case class Decoded[T](value: T, bytes: Long)
+
+  def read[T: ClassTag](response: TransportResponse)(implicit executionContext: ExecutionContext): Future[Decoded[T]] = {
+    withParser(response) { parser =>
+      JsonCodec.mapper.readValue(parser, runtimeClass[T])
+    }
+  }
+
+  /**
+   * Hands each element of the top-level "results" array to onElement as soon as it is bound, without building the
+   * list. Other fields are skipped. The decoded value is the number of elements.
+   */
+  def readResults[T: ClassTag](response: TransportResponse)(onElement: T => Unit)
+                              (implicit executionContext: ExecutionContext): Future[Decoded[Int]] = {
+    withParser(response) { parser =>
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected a JSON object")
+      }
+
+      var count = 0
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        val field = parser.getCurrentName
+        parser.nextToken()
+        if (field == "results" && parser.getCurrentToken == JsonToken.START_ARRAY) {
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            onElement(JsonCodec.mapper.readValue(parser, runtimeClass[T]))
+            count += 1
+          }
+        } else {
+          parser.skipChildren()
+        }
+      }
+      count
+    }
+  }
+
+  private def withParser[R](response: TransportResponse)(parse: JsonParser => R)
+                           (implicit executionContext: ExecutionContext): Future[Decoded[R]] = {
+    if (!response.isSuccess) {
+      HttpResponses.failure(response)
+    } else {
+      Future {
+        blocking {
+          try {
+            val in = new CountingInputStream(HttpResponses.decode(response))
+            val parser = JsonCodec.mapper.getFactory.createParser(in)
+            try {
+              val value = parse(parser)
+              Decoded(value, in.count)
+            } finally {
+              parser.close() // Also closes the body, discarding whatever wasn't read
+            }
+          } catch {
+            case e: IOException => throw new CommunicationException("Failed to read response", e)
+          }
+        }
+      }
+    }
+  }
+
+
+  private def runtimeClass[T: ClassTag]: Class[T] = implicitly[ClassTag[T]].runtimeClass.asInstanceOf[Class[T]]
+
+  private class CountingInputStream(in: InputStream) extends FilterInputStream(in) {
+    var count: Long = 0L
+
+    override def read(): Int = {
+      val b = super.read()
+      if (b >= 0) {
+        count += 1
+      }
+      b
+    }
+
+    override def read(b: Array[Byte], off: Int, len: Int): Int = {
+      val n = super.read(b, off, len)
+      if (n > 0) {
+        count += n
+      }
+      n
+    }
+  }
+}
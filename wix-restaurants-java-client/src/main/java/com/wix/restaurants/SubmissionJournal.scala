@@ -0,0 +1,291 @@
+package com.wix.restaurants
+
+import java.io.{ByteArrayOutputStream, DataOutputStream, IOException}
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, NoSuchFileException, Path, StandardCopyOption, StandardOpenOption}
+import java.util.zip.CRC32
+
+import scala.collection.JavaConverters._
+import scala.util.control.NonFatal
+
+/**
+ * The append-only journal of a [[DurableSubmissionQueue]], format version 2. Numbers are big-endian, strings are an
+ * int length (-1 for null) followed by that many bytes of UTF-8.
+ *
+ * {{{
+ * header:  magic ("WRSJ"), version (int)
+ * records: length (int), CRC-32 of the payload (int), payload
+ * payload: submitted: 1 (byte), idempotency key, kind (byte), journaled at (long, epoch millis), restaurant id,
+ *                     authenticated (byte, 1 if made with an access token), JSON body
+ *          completed: 2 (byte), idempotency key
+ * }}}
+ *
+ * Version 1 held the access token itself in place of authenticated. Such journals are still read, and the rewrite on
+ * open drops their tokens.
+ *
+ * Opening a journal replays it, drops a torn (or corrupt) tail, and rewrites it with only the pending submissions.
+ * Not thread-safe.
+ */
+private[restaurants] class SubmissionJournal(file: Path) {
+  import SubmissionJournal._
+
+  private var channel: FileChannel = _
+  private var completedSinceRewrite = 0
+
+  /** The pending submissions found on open, in journal order. */
+  val restored: Seq[Entry] = {
+    val entries = replay()
+    rewrite(entries)
+    entries
+  }
+
+  /** Appends the submissions, and forces them to disk (once for all of them). */
+  def append(entries: Entry*): Unit = {
+    write(entries.map(submitted), force = true)
+  }
+
+  /**
+   * Records that the submission completed. The record isn't forced to disk: if it is lost, the submission is sent
+   * again after a restart, with the same idempotency key.
+   *
+   * @param pendingCount The number of submissions still pending.
+   * @param pending      The submissions still pending, if the journal is compacted.
+   */
+  def complete(idempotencyKey: String, pendingCount: Int)(pending: => Seq[Entry]): Unit = {
+    write(Seq(new Record(completedRecord, idempotencyKey)))
+    completedSinceRewrite += 1
+
+    if (pendingCount == 0) {
+      channel.truncate(headerLength)
+      channel.force(false)
+      completedSinceRewrite = 0
+    } else if (completedSinceRewrite >= rewriteAfter && completedSinceRewrite >= pendingCount) {
+      rewrite(pending)
+    }
+  }
+
+  def size: Long = channel.size
+
+  def close(): Unit = channel.close()
+
+  private def write(records: Seq[Record], force: Boolean = false): Unit = {
+    val position = channel.position
+    try {
+      records.foreach { record => writeFully(channel, record.toBuffer) }
+      if (force) {
+        channel.force(false)
+      }
+    } catch {
+      case e: Throwable =>
+        // Leaves no partial record behind (which would hide the records appended after it on replay), nor records
+        // that may not be durable, of submissions that failed
+        try channel.truncate(position) catch { case NonFatal(_) => }
+        throw e
+    }
+  }
+
+  private def replay(): Seq[Entry] = {
+    val bytes = try {
+      ByteBuffer.wrap(Files.readAllBytes(file))
+    } catch {
+      case _: NoSuchFileException => return Seq.empty
+    }
+    if (bytes.remaining < headerLength || bytes.getInt != magic) {
+      throw new IOException(s"Not a submission journal: $file")
+    }
+    val fileVersion = bytes.getInt
+    if (fileVersion != version && fileVersion != versionWithTokens) {
+      throw new IOException(s"Unsupported submission journal version $fileVersion: $file")
+    }
+
+    val pending = new java.util.LinkedHashMap[String, Entry]()
+    var torn = false
+    while (bytes.remaining > 0 && !torn) {
+      readRecord(bytes) match {
+        case Some(payload) =>
+          val recordType = payload.get
+          val idempotencyKey = readString(payload)
+          recordType match {
+            case `submittedRecord` =>
+              val kind = Kind.of(payload.get)
+              val journaledAt = payload.getLong
+              val restaurantId = readString(payload)
+              val authenticated = if (fileVersion == versionWithTokens) readString(payload) != null else payload.get == 1
+              pending.put(idempotencyKey, Entry(idempotencyKey, kind, restaurantId, authenticated, readString(payload),
+                journaledAt))
+            case `completedRecord` =>
+              pending.remove(idempotencyKey)
+            case other =>
+              throw new IOException(s"Unknown submission journal record $other: $file")
+          }
+        case None => torn = true // Written by a submission that never returned
+      }
+    }
+
+    pending.values.asScala.toVector
+  }
+
+  /** @return the next record's payload, or None if it is truncated or corrupt. */
+  private def readRecord(bytes: ByteBuffer): Option[ByteBuffer] = {
+    if (bytes.remaining < 8) {
+      None
+    } else {
+      val length = bytes.getInt
+      val crc = bytes.getInt
+      if (length < 0 || length > bytes.remaining) {
+        None
+      } else {
+        val payload = new Array[Byte](length)
+        bytes.get(payload)
+        if (crcOf(payload) == crc) Some(ByteBuffer.wrap(payload)) else None
+      }
+    }
+  }
+
+  /**
+   * Replaces the journal with one of the given submissions: writes it to a temporary file next to the journal, forces
+   * it to disk, and atomically moves it over the journal.
+   */
+  private def rewrite(entries: Seq[Entry]): Unit = {
+    if (channel != null) {
+      channel.close() // Windows can't replace open files
+    }
+
+    val directory = file.toAbsolutePath.getParent
+    val temporary = Files.createTempFile(directory, s"${file.getFileName}.", ".tmp")
+    try {
+      val out = FileChannel.open(temporary, StandardOpenOption.WRITE)
+      try {
+        val header = ByteBuffer.allocate(headerLength).putInt(magic).putInt(version)
+        header.flip()
+        writeFully(out, header)
+        entries.foreach { entry => writeFully(out, submitted(entry).toBuffer) }
+        out.force(true)
+      } finally {
+        out.close()
+      }
+      Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+      forceDirectory(directory)
+      completedSinceRewrite = 0
+    } catch {
+      case e: Throwable =>
+        Files.deleteIfExists(temporary)
+        throw e
+    } finally {
+      // The new journal, or the previous one (which is still valid) if it couldn't be replaced
+      if (Files.exists(file)) {
+        channel = FileChannel.open(file, StandardOpenOption.WRITE)
+        channel.position(channel.size)
+      }
+    }
+  }
+}
+
+private[restaurants] object SubmissionJournal {
+  val magic: Int = 0x5752534a
+  val version: Int = 2
+  private val versionWithTokens = 1
+
+  private val headerLength = 4 + 4
+  private val submittedRecord: Byte = 1
+  private val completedRecord: Byte = 2
+
+  /** Completed records after which the journal is rewritten, unless fewer than the pending submissions. */
+  private val rewriteAfter = 1000
+
+  /** What a submission submits, and where. */
+  sealed abstract class Kind(val id: Byte, val collection: String)
+
+  object Kind {
+    case object Order extends Kind(1, "orders")
+    case object Reservation extends Kind(2, "reservations")
+
+    def of(id: Byte): Kind = id match {
+      case Order.id => Order
+      case Reservation.id => Reservation
+      case _ => throw new IOException(s"Unknown submission kind $id")
+    }
+  }
+
+  /**
+   * A journaled submission: the request to send, and when it was journaled.
+   *
+   * @param authenticated Whether the submission was made with an access token, which isn't journaled.
+   */
+  case class Entry(idempotencyKey: String, kind: Kind, restaurantId: String, authenticated: Boolean, body: String,
+                   journaledAt: Long)
+
+  private def submitted(entry: Entry): Record = {
+    val record = new Record(submittedRecord, entry.idempotencyKey)
+    record.writeByte(entry.kind.id)
+    record.writeLong(entry.journaledAt)
+    record.writeString(entry.restaurantId)
+    record.writeByte(if (entry.authenticated) 1 else 0)
+    record.writeString(entry.body)
+    record
+  }
+
+  /** A record being written: its payload, framed with its length and CRC by toBuffer. */
+  private class Record(recordType: Byte, idempotencyKey: String) {
+    private val bytes = new ByteArrayOutputStream(256)
+    private val out = new DataOutputStream(bytes)
+    out.writeByte(recordType)
+    writeString(idempotencyKey)
+
+    def writeByte(value: Byte): Unit = out.writeByte(value)
+
+    def writeLong(value: Long): Unit = out.writeLong(value)
+
+    def writeString(string: String): Unit = {
+      if (string == null) {
+        out.writeInt(-1)
+      } else {
+        val encoded = string.getBytes(StandardCharsets.UTF_8)
+        out.writeInt(encoded.length)
+        out.write(encoded)
+      }
+    }
+
+    def toBuffer: ByteBuffer = {
+      out.flush()
+      val payload = bytes.toByteArray
+      val buffer = ByteBuffer.allocate(8 + payload.length).putInt(payload.length).putInt(crcOf(payload)).put(payload)
+      buffer.flip()
+      buffer
+    }
+  }
+
+  private def readString(in: ByteBuffer): String = {
+    in.getInt match {
+      case -1 => null
+      case length =>
+        val bytes = new Array[Byte](length)
+        in.get(bytes)
+        new String(bytes, StandardCharsets.UTF_8)
+    }
+  }
+
+  private def writeFully(channel: FileChannel, buffer: ByteBuffer): Unit = {
+    while (buffer.hasRemaining) {
+      channel.write(buffer)
+    }
+  }
+
+  /** Makes the move durable, where the platform supports syncing directories (it doesn't on Windows). */
+  private def forceDirectory(directory: Path): Unit = {
+    try {
+      val channel = FileChannel.open(directory, StandardOpenOption.READ)
+      try channel.force(true) finally channel.close()
+    } catch {
+      case _: IOException =>
+    }
+  }
+
+  private def crcOf(bytes: Array[Byte]): Int = {
+    val crc = new CRC32
+    crc.update(bytes)
+    crc.getValue.toInt
+  }
+}
@@ -0,0 +1,41 @@
+package com.wix.restaurants
+
+import java.util.concurrent.CompletionException
+import java.util.{LinkedHashMap => JLinkedHashMap}
+
+import akka.http.scaladsl.model.{HttpEntity, HttpRequest}
+import com.wix.restaurants.transport.{HttpTransport, TransportRequest, TransportResponse}
+
+import scala.compat.java8.FutureConverters.toScala
+import scala.concurrent.{ExecutionContext, Future}
+import scala.util.control.NonFatal
+
+/** Hands the requests the clients build (as Akka HTTP models) to an [[HttpTransport]]. */
+private[restaurants] object Transports {
+  def send(transport: HttpTransport, request: HttpRequest)(implicit executionContext: ExecutionContext): Future[TransportResponse] = {
+    val response = try {
+      toScala(transport.send(requestOf(request)))
+    } catch {
+      case NonFatal(e) => Future.failed(e) // Transports that throw rather than fail
+    }
+    response.recoverWith {
+      // Stages derived from a failed one fail with a CompletionException, which retries wouldn't recognize
+      case e: CompletionException if e.getCause != null => Future.failed(e.getCause)
+    }
+  }
+
+  def requestOf(request: HttpRequest): TransportRequest = {
+    val headers = new JLinkedHashMap[String, String]()
+    request.headers.foreach { header => headers.put(header.name, header.value) }
+
+    val body = request.entity match {
+      case HttpEntity.Strict(_, data) if data.isEmpty => null
+      case HttpEntity.Strict(contentType, data) =>
+        headers.put("Content-Type", contentType.value)
+        data.toArray
+      case _ => throw new IllegalArgumentException(s"Streamed request entities are not supported: ${request.uri}")
+    }
+
+    new TransportRequest(request.method.value, request.uri.toString, headers, body)
+  }
+}
@@ -4,14 +4,24 @@ import com.openrest.v1_1.*;
 import com.wix.pay.smaug.client.model.CreditCardToken;
 import com.wix.restaurants.authentication.WixRestaurantsAuthenticationClient;
 import com.wix.restaurants.authorization.AuthorizationClient;
+import com.wix.restaurants.bulk.BulkResult;
+import com.wix.restaurants.feeds.CursorStore;
+import com.wix.restaurants.feeds.FeedCursor;
+import com.wix.restaurants.feeds.OrderFeed;
+import com.wix.restaurants.feeds.ReservationFeed;
 import com.wix.restaurants.i18n.Locale;
+import com.wix.restaurants.menus.MenuUpdate;
+import com.wix.restaurants.orders.OrderSummary;
 import com.wix.restaurants.reservations.Reservation;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-public interface WixRestaurantsClient {
+public interface WixRestaurantsClient extends AutoCloseable {
     WixRestaurantsAuthenticationClient getAuthenticationClient();
     AuthorizationClient getAuthorizationClient();
 
@@ -41,6 +51,22 @@ public interface WixRestaurantsClient {
     Menu getMenuWithLocationIdAsGzip(String accessToken, String restaurantId, String locationId);
     Menu setMenu(String accessToken, String restaurantId, Menu menu);
     Menu setMenuWithLocationId(String accessToken, String restaurantId, Menu menu, String locationId);
+
+    /**
+     * Uploads the menu like {@link #setMenuWithLocationId(String, String, Menu, String)}, and reports what changed
+     * since the last menu this client uploaded to the same restaurant and location.
+     *
+     * If the client tracks menu uploads (see its menuUploadSettings), a menu identical to the last one uploaded is not
+     * uploaded again, and the server's response to the last upload is returned instead.
+     *
+     * @param accessToken      Access token with permissions to the restaurant.
+     * @param restaurantId     The restaurant's identifier.
+     * @param locationId       The location's identifier, or null for the restaurant's default menu.
+     * @param menu             The menu to upload.
+     * @return the server's menu, whether it was actually uploaded, and what changed.
+     */
+    MenuUpdate updateMenu(String accessToken, String restaurantId, String locationId, Menu menu);
+
     Menu aMenuWithUpdatedLocale(String accessToken, Menu menu, String fromLocale, String toLocale);
     Menu menuChangeLocale(String accessToken, Menu menu, String fromLocale, String toLocale);
 
@@ -49,19 +75,176 @@ public interface WixRestaurantsClient {
     Order retrieveOrderAsOwner(String accessToken, String restaurantId, String orderId);
     Order retrieveOrderAsRestaurant(String accessToken, String restaurantId, String orderId);
     List<Order> retrieveNewOrders(String accessToken, String restaurantId);
+
+    /**
+     * Hands new orders to the consumer one at a time, as they are parsed from the response, without building the
+     * full list. Use this instead of {@link #retrieveNewOrders(String, String)} for restaurants with large backlogs.
+     *
+     * The consumer is called sequentially, on a client thread.
+     *
+     * @param accessToken      Access token with permissions to the restaurant.
+     * @param restaurantId     The restaurant's identifier.
+     * @param consumer         Receives each order.
+     * @return the number of orders handed to the consumer.
+     */
+    int retrieveNewOrders(String accessToken, String restaurantId, Consumer<Order> consumer);
+
+    /**
+     * Creates a feed of the restaurant's new and modified orders. Unlike polling {@link #retrieveNewOrders(String, String)},
+     * each poll fetches only the orders modified since the previous one.
+     *
+     * Unless the cursor store has a cursor for the feed, it first delivers the current new orders (those
+     * {@link #retrieveNewOrders(String, String)} returns) as created, then the orders modified from a few minutes ago
+     * on, so that a server clock somewhat behind this machine's doesn't make it miss changes. Orders modified in those
+     * few minutes may be delivered even if modified before the feed was created.
+     *
+     * @param accessToken      Access token with permissions to the restaurant.
+     * @param restaurantId     The restaurant's identifier.
+     * @param cursorStore      Where to load the feed's cursor from and save it to, or null to keep the cursor in memory.
+     * @return an order feed, with no listeners and not yet started.
+     */
+    OrderFeed orderFeed(String accessToken, String restaurantId, CursorStore cursorStore);
+
+    /**
+     * Creates a feed of the restaurant's new and modified orders, which starts from the given cursor unless the cursor
+     * store has one for the feed.
+     *
+     * @param start            Where to start, e.g. {@link FeedCursor#initial} to deliver every existing order first,
+     *                         or {@link FeedCursor#startingAt(long)}.
+     * @see #orderFeed(String, String, CursorStore)
+     */
+    OrderFeed orderFeed(String accessToken, String restaurantId, CursorStore cursorStore, FeedCursor start);
+
     List<Order> retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, int limit);
+
+    /**
+     * Like {@link #retrieveOrdersAsRestaurant(String, String, String, int)}, but hands orders to the consumer one at
+     * a time, as they are parsed, without building the full list.
+     *
+     * @return the number of orders handed to the consumer.
+     */
+    int retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, int limit, Consumer<Order> consumer);
+
+    /**
+     * Like {@link #retrieveNewOrders(String, String)}, but binds only each order's {@link OrderSummary}.
+     *
+     * @see #retrieveOrderSummariesAsRestaurant(String, String, String, int)
+     */
+    List<OrderSummary> retrieveNewOrderSummaries(String accessToken, String restaurantId);
+
+    /**
+     * Like {@link #retrieveOrdersAsRestaurant(String, String, String, int)}, but binds only each order's
+     * {@link OrderSummary}, skipping its items, payments and the rest while parsing. Much cheaper to parse and to
+     * keep around than full orders, for lists that only show a few fields of each order.
+     *
+     * Retrieve the full orders that are actually needed by id, e.g. with
+     * {@link #retrieveOrdersByIdAsRestaurant(String, String, List, int)}.
+     */
+    List<OrderSummary> retrieveOrderSummariesAsRestaurant(String accessToken, String restaurantId, String status, int limit);
+
+    /**
+     * Retrieves the new orders of many restaurants at once (e.g. all of a chain's locations), running up to
+     * parallelism requests concurrently.
+     *
+     * Every restaurant is attempted: a failure is reported in that restaurant's result, and doesn't stop the others.
+     *
+     * @param accessToken      Access token with permissions to the restaurants.
+     * @param restaurantIds    The restaurants' identifiers.
+     * @param parallelism      Maximum number of requests in flight.
+     * @return each restaurant's new orders, in the given order.
+     */
+    Map<String, BulkResult<List<Order>>> retrieveNewOrdersOfRestaurants(String accessToken, List<String> restaurantIds, int parallelism);
+
+    /** Same as above, with parallelism set to the runtime's maximum connections per host. */
+    Map<String, BulkResult<List<Order>>> retrieveNewOrdersOfRestaurants(String accessToken, List<String> restaurantIds);
+
+    /**
+     * Like {@link #retrieveNewOrdersOfRestaurants(String, List, int)}, but hands each restaurant's result to the
+     * consumer as soon as it arrives, rather than once all restaurants are done. Returns once all results were handed.
+     *
+     * The consumer is called sequentially, on a client thread, with the restaurant's identifier and result.
+     */
+    void retrieveNewOrdersOfRestaurants(String accessToken, List<String> restaurantIds, int parallelism, BiConsumer<String, BulkResult<List<Order>>> consumer);
+
+    /**
+     * Same as {@link #retrieveOrdersAsRestaurant(String, String, String, int)}, for many restaurants at once, running
+     * up to parallelism requests concurrently.
+     *
+     * Every restaurant is attempted: a failure is reported in that restaurant's result, and doesn't stop the others.
+     *
+     * @return each restaurant's orders, in the given order.
+     */
+    Map<String, BulkResult<List<Order>>> retrieveOrdersOfRestaurants(String accessToken, List<String> restaurantIds, String status, int limit, int parallelism);
+
+    /** Same as above, with parallelism set to the runtime's maximum connections per host. */
+    Map<String, BulkResult<List<Order>>> retrieveOrdersOfRestaurants(String accessToken, List<String> restaurantIds, String status, int limit);
+
+    /**
+     * Like {@link #retrieveOrdersOfRestaurants(String, List, String, int, int)}, but hands each restaurant's result to
+     * the consumer as soon as it arrives. Returns once all results were handed.
+     *
+     * The consumer is called sequentially, on a client thread, with the restaurant's identifier and result.
+     */
+    void retrieveOrdersOfRestaurants(String accessToken, List<String> restaurantIds, String status, int limit, int parallelism, BiConsumer<String, BulkResult<List<Order>>> consumer);
+
+    /**
+     * Retrieves many orders of a restaurant by id, running up to parallelism requests concurrently.
+     *
+     * Every order is attempted: a failure (e.g. NotFoundException) is reported in that order's result, and doesn't
+     * stop the others.
+     *
+     * @return each order's result, in the given order.
+     */
+    Map<String, BulkResult<Order>> retrieveOrdersByIdAsRestaurant(String accessToken, String restaurantId, List<String> orderIds, int parallelism);
+
+    /** Same as above, with parallelism set to the runtime's maximum connections per host. */
+    Map<String, BulkResult<Order>> retrieveOrdersByIdAsRestaurant(String accessToken, String restaurantId, List<String> orderIds);
+
+    /**
+     * Like {@link #retrieveOrdersByIdAsRestaurant(String, String, List, int)}, but hands each order's result to the
+     * consumer as soon as it arrives. Returns once all results were handed.
+     *
+     * The consumer is called sequentially, on a client thread, with the order's identifier and result.
+     */
+    void retrieveOrdersByIdAsRestaurant(String accessToken, String restaurantId, List<String> orderIds, int parallelism, BiConsumer<String, BulkResult<Order>> consumer);
+
     List<Order> retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, String delivered, String created, String order, int limit);
     List<Order> retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, String delivered, String created, String order, int limit, String locationIds);
     List<Order> retrieveOrdersAsRestaurant(String accessToken, String restaurantId, String status, String deliveryTime, String delivered, String created, String order, int limit, String locationIds);
     List<Order> retrieveOrdersByCreatedAsc(String accessToken, String restaurantId, String contactId, Date createdSince, Integer limit);
     List<Order> retrieveOrdersByCreatedDesc(String accessToken, String restaurantId, String contactId, Date createdSince, Integer limit);
 
+    /**
+     * Lazily iterates all orders created since the given date, oldest first, fetching pages on demand.
+     * Close the stream to stop fetching.
+     *
+     * @param accessToken      Access token with admin permissions.
+     * @param restaurantId     The restaurant's identifier, or null for all restaurants.
+     * @param contactId        The customer's contact identifier, or null for all customers.
+     * @param createdSince     Minimum creation date to return, or null for oldest.
+     * @return a stream of orders.
+     */
+    Stream<Order> streamOrdersByCreatedAsc(String accessToken, String restaurantId, String contactId, Date createdSince);
+
+    /**
+     * Lazily iterates all orders created since the given date, newest first, fetching pages on demand.
+     * Close the stream to stop fetching.
+     *
+     * @param accessToken      Access token with admin permissions.
+     * @param restaurantId     The restaurant's identifier, or null for all restaurants.
+     * @param contactId        The customer's contact identifier, or null for all customers.
+     * @param createdSince     Minimum creation date to return, or null for oldest.
+     * @return a stream of orders.
+     */
+    Stream<Order> streamOrdersByCreatedDesc(String accessToken, String restaurantId, String contactId, Date createdSince);
+
     /**
      * Retrieves a batch of orders associated with the given customer phone number.
      *
      * Orders are returned in ascending order, by modification date. Paging can be done by setting a limit (say, 100),
      * starting with a null modifiedSince, and iteratively setting modifiedSince to last returned order's modification
      * date + epsilon, as long as the number of results equals the limit.
+     * {@link #streamOrdersByPhone(String, String, String, Date)} does exactly that.
      *
      * @param accessToken      Access token with permissions to the restaurant.
      * @param organizationId   The organization's identifier.
@@ -72,12 +255,27 @@ public interface WixRestaurantsClient {
      */
     List<Order> retrieveOrdersByPhone(String accessToken, String organizationId, String phone, Date modifiedSince, Integer limit);
 
+    /**
+     * Lazily iterates all orders associated with the given customer phone number, in ascending order by modification date.
+     *
+     * Pages are fetched on demand (the next page is prefetched while the current one is consumed), and orders that
+     * share a modification date across a page boundary are returned exactly once. Close the stream to stop fetching.
+     *
+     * @param accessToken      Access token with permissions to the restaurant.
+     * @param organizationId   The organization's identifier.
+     * @param phone            Customer phone number in standard E.164 format.
+     * @param modifiedSince    Minimum modification date to return, or null for oldest.
+     * @return a stream of orders.
+     */
+    Stream<Order> streamOrdersByPhone(String accessToken, String organizationId, String phone, Date modifiedSince);
+
     /**
      * Retrieves a batch of orders associated with the given customer email.
      *
      * Orders are returned in ascending order, by modification date. Paging can be done by setting a limit (say, 100),
      * starting with a null modifiedSince, and iteratively setting modifiedSince to last returned order's modification
      * date + epsilon, as long as the number of results equals the limit.
+     * {@link #streamOrdersByEmail(String, String, String, Date)} does exactly that.
      *
      * @param accessToken      Access token with permissions to the restaurant.
      * @param organizationId   The organization's identifier.
@@ -88,11 +286,62 @@ public interface WixRestaurantsClient {
      */
     List<Order> retrieveOrdersByEmail(String accessToken, String organizationId, String email, Date modifiedSince, Integer limit);
 
+    /**
+     * Lazily iterates all orders associated with the given customer email, in ascending order by modification date.
+     *
+     * Pages are fetched on demand (the next page is prefetched while the current one is consumed), and orders that
+     * share a modification date across a page boundary are returned exactly once. Close the stream to stop fetching.
+     *
+     * @param accessToken      Access token with permissions to the restaurant.
+     * @param organizationId   The organization's identifier.
+     * @param email            Customer email.
+     * @param modifiedSince    Minimum modification date to return, or null for oldest.
+     * @return a stream of orders.
+     */
+    Stream<Order> streamOrdersByEmail(String accessToken, String organizationId, String email, Date modifiedSince);
+
+    /**
+     * Accepts an order, reporting the IDs it got in external systems (e.g. a point-of-sale's) for reference.
+     *
+     * @param accessToken  Access token with permissions to the restaurant.
+     * @param restaurantId The restaurant's identifier.
+     * @param orderId      The order's identifier.
+     * @param externalIds  The order's external IDs, by system (e.g. "org.example.pos"), or null (or empty) for none.
+     * @return the accepted order.
+     */
     Order acceptOrder(String accessToken, String restaurantId, String orderId, Map<String, String> externalIds);
     Order acceptOrderWithComment(String accessToken, String restaurantId, String orderId, String comment);
     Order acceptOrderWithCommentAndPickupTime(String accessToken, String restaurantId, String orderId, String comment, Date pickupTime);
     Order acceptOrderWithCommentAndDropOffTime(String accessToken, String restaurantId, String orderId, String comment, Date dropOffTime);
     Order rejectOrder(String accessToken, String restaurantId, String orderId, String comment);
+
+    /**
+     * Accepts many orders at once, running up to parallelism requests concurrently.
+     *
+     * Every order is attempted: a failure is reported in that order's result, and doesn't stop the others.
+     *
+     * @param accessToken          Access token with permissions to the restaurant.
+     * @param restaurantId         The restaurant's identifier.
+     * @param externalIdsByOrderId Orders to accept, each with the external IDs to report (see acceptOrder).
+     * @param parallelism          Maximum number of requests in flight.
+     * @return each order's result, in iteration order of the given map.
+     */
+    Map<String, BulkResult<Order>> acceptOrders(String accessToken, String restaurantId, Map<String, Map<String, String>> externalIdsByOrderId, int parallelism);
+
+    /** Same as above, with parallelism set to the runtime's maximum connections per host. */
+    Map<String, BulkResult<Order>> acceptOrders(String accessToken, String restaurantId, Map<String, Map<String, String>> externalIdsByOrderId);
+
+    /**
+     * Rejects many orders at once, with the same comment, running up to parallelism requests concurrently.
+     *
+     * Every order is attempted: a failure is reported in that order's result, and doesn't stop the others.
+     *
+     * @return each order's result, in the given order.
+     */
+    Map<String, BulkResult<Order>> rejectOrders(String accessToken, String restaurantId, List<String> orderIds, String comment, int parallelism);
+
+    /** Same as above, with parallelism set to the runtime's maximum connections per host. */
+    Map<String, BulkResult<Order>> rejectOrders(String accessToken, String restaurantId, List<String> orderIds, String comment);
     Order setOrderProperties(String accessToken, String restaurantId, String orderId, Map<String, String> properties);
     Order setOrderContactId(String accessToken, String restaurantId, String orderId, String contactId);
     Order confirmOrderCashier(String organizationId, String orderId);
@@ -102,7 +351,76 @@ public interface WixRestaurantsClient {
     Reservation retrieveReservationAsOwner(String accessToken, String restaurantId, String reservationId);
     Reservation retrieveReservationAsRestaurant(String accessToken, String restaurantId, String reservationId);
     List<Reservation> retrieveUnhandledReservations(String accessToken, String restaurantId);
+
+    /**
+     * Retrieves many reservations of a restaurant by id, running up to parallelism requests concurrently.
+     *
+     * Every reservation is attempted: a failure is reported in that reservation's result, and doesn't stop the others.
+     *
+     * @return each reservation's result, in the given order.
+     */
+    Map<String, BulkResult<Reservation>> retrieveReservationsByIdAsRestaurant(String accessToken, String restaurantId, List<String> reservationIds, int parallelism);
+
+    /** Same as above, with parallelism set to the runtime's maximum connections per host. */
+    Map<String, BulkResult<Reservation>> retrieveReservationsByIdAsRestaurant(String accessToken, String restaurantId, List<String> reservationIds);
+
+    /**
+     * Like {@link #retrieveReservationsByIdAsRestaurant(String, String, List, int)}, but hands each reservation's result
+     * to the consumer as soon as it arrives. Returns once all results were handed.
+     *
+     * The consumer is called sequentially, on a client thread, with the reservation's identifier and result.
+     */
+    void retrieveReservationsByIdAsRestaurant(String accessToken, String restaurantId, List<String> reservationIds, int parallelism, BiConsumer<String, BulkResult<Reservation>> consumer);
+
+    /**
+     * Like {@link #retrieveUnhandledReservations(String, String)}, but hands reservations to the consumer one at a
+     * time, as they are parsed, without building the full list.
+     *
+     * @return the number of reservations handed to the consumer.
+     */
+    int retrieveUnhandledReservations(String accessToken, String restaurantId, Consumer<Reservation> consumer);
+
+    /**
+     * Creates a feed of the restaurant's new and modified reservations. Unless the cursor store has a cursor for the
+     * feed, it first delivers the current unhandled reservations as created, like an order feed does new orders.
+     *
+     * @see #orderFeed(String, String, CursorStore)
+     */
+    ReservationFeed reservationFeed(String accessToken, String restaurantId, CursorStore cursorStore);
+
+    /**
+     * Creates a feed of the restaurant's new and modified reservations, which starts from the given cursor unless the
+     * cursor store has one for the feed.
+     *
+     * @see #orderFeed(String, String, CursorStore, FeedCursor)
+     */
+    ReservationFeed reservationFeed(String accessToken, String restaurantId, CursorStore cursorStore, FeedCursor start);
+
     Reservation setReservationStatusAsRestaurant(String accessToken, String restaurantId, String reservationId, String status, String comment);
+
+    /**
+     * Accepts many reservations at once, with the same comment, running up to parallelism requests concurrently.
+     *
+     * Every reservation is attempted: a failure is reported in that reservation's result, and doesn't stop the others.
+     *
+     * @return each reservation's result, in the given order.
+     */
+    Map<String, BulkResult<Reservation>> acceptReservations(String accessToken, String restaurantId, List<String> reservationIds, String comment, int parallelism);
+
+    /** Same as above, with parallelism set to the runtime's maximum connections per host. */
+    Map<String, BulkResult<Reservation>> acceptReservations(String accessToken, String restaurantId, List<String> reservationIds, String comment);
+
+    /**
+     * Cancels many reservations at once, with the same comment, running up to parallelism requests concurrently.
+     *
+     * Every reservation is attempted: a failure is reported in that reservation's result, and doesn't stop the others.
+     *
+     * @return each reservation's result, in the given order.
+     */
+    Map<String, BulkResult<Reservation>> cancelReservations(String accessToken, String restaurantId, List<String> reservationIds, String comment, int parallelism);
+
+    /** Same as above, with parallelism set to the runtime's maximum connections per host. */
+    Map<String, BulkResult<Reservation>> cancelReservations(String accessToken, String restaurantId, List<String> reservationIds, String comment);
     Reservation setReservationStatusAsOwner(String ownerToken, String restaurantId, String reservationId, String status, String comment);
 
     /**
@@ -111,6 +429,7 @@ public interface WixRestaurantsClient {
      * Reservations are returned in ascending order, by modification date. Paging can be done by setting a limit (say, 100),
      * starting with a null modifiedSince, and iteratively setting modifiedSince to last returned reservation's modification
      * date + epsilon, as long as the number of results equals the limit.
+     * {@link #streamReservationsByPhone(String, String, String, Date)} does exactly that.
      *
      * @param accessToken      Access token with permissions to the restaurant.
      * @param organizationId   The organization's identifier.
@@ -121,12 +440,27 @@ public interface WixRestaurantsClient {
      */
     List<Reservation> retrieveReservationsByPhone(String accessToken, String organizationId, String phone, Date modifiedSince, Integer limit);
 
+    /**
+     * Lazily iterates all reservations associated with the given customer phone number, in ascending order by modification date.
+     *
+     * Pages are fetched on demand (the next page is prefetched while the current one is consumed), and reservations that
+     * share a modification date across a page boundary are returned exactly once. Close the stream to stop fetching.
+     *
+     * @param accessToken      Access token with permissions to the restaurant.
+     * @param organizationId   The organization's identifier.
+     * @param phone            Customer phone number in standard E.164 format.
+     * @param modifiedSince    Minimum modification date to return, or null for oldest.
+     * @return a stream of reservations.
+     */
+    Stream<Reservation> streamReservationsByPhone(String accessToken, String organizationId, String phone, Date modifiedSince);
+
     /**
      * Retrieves a batch of reservations associated with the given customer email.
      *
      * Reservations are returned in ascending order, by modification date. Paging can be done by setting a limit (say, 100),
      * starting with a null modifiedSince, and iteratively setting modifiedSince to last returned reservation's modification
      * date + epsilon, as long as the number of results equals the limit.
+     * {@link #streamReservationsByEmail(String, String, String, Date)} does exactly that.
      *
      * @param accessToken      Access token with permissions to the restaurant.
      * @param organizationId   The organization's identifier.
@@ -137,6 +471,20 @@ public interface WixRestaurantsClient {
      */
     List<Reservation> retrieveReservationsByEmail(String accessToken, String organizationId, String email, Date modifiedSince, Integer limit);
 
+    /**
+     * Lazily iterates all reservations associated with the given customer email, in ascending order by modification date.
+     *
+     * Pages are fetched on demand (the next page is prefetched while the current one is consumed), and reservations that
+     * share a modification date across a page boundary are returned exactly once. Close the stream to stop fetching.
+     *
+     * @param accessToken      Access token with permissions to the restaurant.
+     * @param organizationId   The organization's identifier.
+     * @param email            Customer email.
+     * @param modifiedSince    Minimum modification date to return, or null for oldest.
+     * @return a stream of reservations.
+     */
+    Stream<Reservation> streamReservationsByEmail(String accessToken, String organizationId, String email, Date modifiedSince);
+
     // GDPR
     void deleteOrganization(String accessToken, String organizationId);
     void deleteCustomerByPhone(String accessToken, String organizationId, String phone);
@@ -146,4 +494,8 @@ public interface WixRestaurantsClient {
     ClientInfo getMyAccount(String accessToken);
     ClientInfo setMyAccount(String accessToken, ClientInfo account);
     ClientInfo addMyAccountCards(String accessToken, List<CreditCardToken> cardTokens);
+
+    /** Releases connections and threads, unless they belong to a shared {@link WixRestaurantsRuntime}. */
+    @Override
+    void close();
 }
@@ -0,0 +1,122 @@
+package com.wix.restaurants
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{ForkJoinPool, ForkJoinWorkerThread}
+
+import akka.actor.ActorSystem
+import akka.http.scaladsl.Http
+import akka.stream.{ActorMaterializer, Materializer}
+import com.typesafe.config.{Config, ConfigFactory}
+import com.wix.restaurants.transport.HttpTransport
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+import scala.concurrent.{Await, BlockContext, CanAwait, ExecutionContext}
+
+/**
+ * Dispatcher, actor system and connection pool shared by any number of clients.
+ *
+ * Clients constructed without a runtime create (and close) a private one; pass the same runtime to several
+ * clients to make them share threads and connections. Whoever creates a runtime is responsible for closing it.
+ *
+ * The actor system (and with it Akka HTTP's connection pool) is only started once something needs it: the default
+ * transport, retries, limits or bulk calls. Clients that send through another transport, without those, never
+ * start it.
+ */
+class WixRestaurantsRuntime(val settings: WixRestaurantsRuntimeSettings) extends AutoCloseable {
+  def this() = this(WixRestaurantsRuntimeSettings())
+
+  private val dispatcher: ForkJoinPool = WixRestaurantsRuntime.newDispatcher(settings)
+  @volatile private var started = false
+
+  implicit val executionContext: ExecutionContext = ExecutionContext.fromExecutorService(dispatcher)
+  implicit lazy val system: ActorSystem = {
+    started = true
+    ActorSystem(settings.name, Some(settings.asConfig), None, Some(executionContext))
+  }
+  implicit lazy val materializer: Materializer = ActorMaterializer()
+
+  /** @return whether the actor system has been started. */
+  private[restaurants] def isStarted: Boolean = started
+
+  /** Sends through the actor system's connection pool. */
+  private[restaurants] lazy val defaultTransport: HttpTransport = new AkkaTransport()
+
+  override def close(): Unit = {
+    if (started) {
+      val terminated = Http().shutdownAllConnectionPools().flatMap { _ => system.terminate() }
+      Await.result(terminated, settings.shutdownTimeout)
+    }
+    dispatcher.shutdown()
+  }
+}
+
+private object WixRestaurantsRuntime {
+  /** Sized like Akka's default dispatcher, which runs on it once the actor system is started. */
+  def newDispatcher(settings: WixRestaurantsRuntimeSettings): ForkJoinPool = {
+    val (parallelismMin, parallelismMax) = settings.dispatcherParallelism
+    val parallelism = math.ceil(Runtime.getRuntime.availableProcessors * 3.0).toInt.max(parallelismMin).min(parallelismMax)
+    val threads = new AtomicInteger()
+    val threadFactory = new ForkJoinPool.ForkJoinWorkerThreadFactory {
+      override def newThread(pool: ForkJoinPool): ForkJoinWorkerThread = {
+        val thread = new DispatcherThread(pool)
+        thread.setName(s"${settings.name}-dispatcher-${threads.incrementAndGet()}")
+        thread
+      }
+    }
+    new ForkJoinPool(parallelism, threadFactory, null, true)
+  }
+
+  /** Lets the pool add a thread while one is inside `blocking` (e.g. reading a response body), like Akka's threads do. */
+  private class DispatcherThread(pool: ForkJoinPool) extends ForkJoinWorkerThread(pool) with BlockContext {
+    override def blockOn[T](thunk: => T)(implicit permission: CanAwait): T = {
+      var result: Option[T] = None
+      ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker {
+        override def block(): Boolean = {
+          if (result.isEmpty) {
+            result = Some(thunk)
+          }
+          true
+        }
+
+        override def isReleasable: Boolean = result.isDefined
+      })
+      result.get
+    }
+  }
+}
+
+/**
+ * @param name                  Actor system name, also used as the dispatcher's thread name prefix.
+ * @param maxConnections        Maximum number of concurrent connections per host.
+ * @param maxOpenRequests       Maximum number of requests queued or in flight per host (must be a power of 2).
+ * @param keepAlive             How long an idle pooled connection is kept open.
+ * @param dispatcherParallelism Minimum and maximum number of dispatcher threads.
+ * @param shutdownTimeout       How long close() waits for connections and threads to shut down.
+ */
+case class WixRestaurantsRuntimeSettings(name: String = "akka-wix-restaurants-client-system",
+                                         maxConnections: Int = 4,
+                                         maxOpenRequests: Int = 32,
+                                         keepAlive: FiniteDuration = 60.seconds,
+                                         dispatcherParallelism: (Int, Int) = (2, 8),
+                                         shutdownTimeout: FiniteDuration = 10.seconds) {
+  require(Integer.bitCount(maxOpenRequests) == 1, s"maxOpenRequests must be a power of 2, got $maxOpenRequests")
+
+  def withMaxConnections(maxConnections: Int): WixRestaurantsRuntimeSettings = copy(maxConnections = maxConnections)
+  def withMaxOpenRequests(maxOpenRequests: Int): WixRestaurantsRuntimeSettings = copy(maxOpenRequests = maxOpenRequests)
+  def withKeepAlive(keepAlive: FiniteDuration): WixRestaurantsRuntimeSettings = copy(keepAlive = keepAlive)
+  def withDispatcherParallelism(min: Int, max: Int): WixRestaurantsRuntimeSettings = copy(dispatcherParallelism = (min, max))
+
+  private[restaurants] def asConfig: Config = {
+    ConfigFactory.parseMap(Map[String, Any](
+      "akka.http.host-connection-pool.max-connections" -> maxConnections,
+      "akka.http.host-connection-pool.max-open-requests" -> maxOpenRequests,
+      "akka.http.host-connection-pool.client.idle-timeout" -> s"${keepAlive.toMillis}ms"
+    ).mapValues { _.asInstanceOf[AnyRef] }.asJava).withFallback(ConfigFactory.load())
+  }
+}
+
+object WixRestaurantsRuntimeSettings {
+  /** Java-friendly access to the default settings. */
+  def defaults: WixRestaurantsRuntimeSettings = WixRestaurantsRuntimeSettings()
+}
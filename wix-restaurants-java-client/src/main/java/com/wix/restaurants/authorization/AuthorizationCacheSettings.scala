@@ -0,0 +1,26 @@
+package com.wix.restaurants.authorization
+
+import scala.concurrent.duration._
+
+/**
+ * Caching for permission checks: roles per access token, and the hierarchy (chain and distributor) of organizations.
+ *
+ * Roles that were revoked may still be honored for up to rolesTtl, so keep it short where that matters.
+ *
+ * @param maxAccessTokens   Maximum number of access tokens whose roles are cached.
+ * @param maxOrganizations  Maximum number of organizations whose hierarchy is cached.
+ */
+case class AuthorizationCacheSettings(rolesTtl: FiniteDuration = 1.minute,
+                                      organizationTtl: FiniteDuration = 10.minutes,
+                                      maxAccessTokens: Int = 10000,
+                                      maxOrganizations: Int = 10000) {
+  def withRolesTtl(ttl: FiniteDuration): AuthorizationCacheSettings = copy(rolesTtl = ttl)
+  def withOrganizationTtl(ttl: FiniteDuration): AuthorizationCacheSettings = copy(organizationTtl = ttl)
+  def withMaxAccessTokens(maxAccessTokens: Int): AuthorizationCacheSettings = copy(maxAccessTokens = maxAccessTokens)
+  def withMaxOrganizations(maxOrganizations: Int): AuthorizationCacheSettings = copy(maxOrganizations = maxOrganizations)
+}
+
+object AuthorizationCacheSettings {
+  /** Java-friendly access to the default settings. */
+  def defaults: AuthorizationCacheSettings = AuthorizationCacheSettings()
+}
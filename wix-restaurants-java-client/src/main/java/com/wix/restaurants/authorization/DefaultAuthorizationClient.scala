@@ -3,23 +3,64 @@ package com.wix.restaurants.authorization
 import akka.actor.ActorSystem
 import akka.http.javadsl.model.headers.Authorization
 import akka.http.scaladsl.client.RequestBuilding.Get
-import com.openrest.v1_1.Organization
-import com.wix.rest.rfc7807.client.AkkaRestClient
-import com.wix.restaurants.ExceptionTranslator
+import akka.http.scaladsl.model.HttpRequest
+import com.openrest.v1_1.{Chain, Distributor, Organization, Restaurant}
+import com.wix.restaurants.cache.CacheStats
+import com.wix.restaurants.metrics.RequestListener
+import com.wix.restaurants.resilience.ResilienceSettings
+import com.wix.restaurants.transport.HttpTransport
+import com.wix.restaurants.{Instrumentation, LoadingCache, RequestPipeline, Resilience, StreamingJson, Transports, WixRestaurantsRuntime, WixRestaurantsRuntimeSettings}
 
 import scala.collection.JavaConverters._
 import scala.concurrent.{ExecutionContext, Future}
+import scala.reflect.ClassTag
 
-class DefaultAuthorizationClient(apiUrl: String = "https://api.wixrestaurants.com/v2") extends AuthorizationClient {
-  private implicit val system: ActorSystem = ActorSystem("akka-wix-restaurants-authorization-client-system")
-  private implicit val executionContext: ExecutionContext = system.dispatcher
-  private val client: AkkaRestClient = new AkkaRestClient(errorResponseAsException = ExceptionTranslator.asException)
+/**
+ * @param runtime       Runtime to share with other clients, or null to use a private one that is closed with this client.
+ * @param cacheSettings Caching of roles and organization hierarchies, or null to fetch both on every check.
+ * @param requestListener Notified of every request sent by this client, or null to skip instrumentation.
+ * @param resilienceSettings Retries and circuit breaking for transient failures, or null to fail on the first error.
+ * @param transport     Transport to send requests through, or null to use the runtime's Akka HTTP connection pool. Not
+ *                      closed with this client.
+ */
+class DefaultAuthorizationClient(apiUrl: String = "https://api.wixrestaurants.com/v2",
+                                 runtime: WixRestaurantsRuntime = null,
+                                 cacheSettings: AuthorizationCacheSettings = null,
+                                 requestListener: RequestListener = null,
+                                 resilienceSettings: ResilienceSettings = null,
+                                 transport: HttpTransport = null) extends AuthorizationClient with AutoCloseable {
+  private val ownedRuntime: Option[WixRestaurantsRuntime] = Option(runtime) match {
+    case Some(_) => None
+    case None => Some(new WixRestaurantsRuntime(WixRestaurantsRuntimeSettings(
+      name = "akka-wix-restaurants-authorization-client-system")))
+  }
+  private val theRuntime: WixRestaurantsRuntime = ownedRuntime.getOrElse(runtime)
+  private val theTransport: HttpTransport = Option(transport).getOrElse(theRuntime.defaultTransport)
+
+  private implicit lazy val system: ActorSystem = theRuntime.system
+  private implicit val executionContext: ExecutionContext = theRuntime.executionContext
+  private val pipeline: RequestPipeline = new RequestPipeline(
+    instrumentation = Option(requestListener).map { new Instrumentation(_, apiUrl) },
+    resilience = Option(resilienceSettings).map { new Resilience(_) })
+  private val rolesCache: Option[LoadingCache[String, Seq[Role]]] = Option(cacheSettings).map { settings =>
+    new LoadingCache[String, Seq[Role]](settings.maxAccessTokens, settings.rolesTtl)
+  }
+  private val organizationsCache: Option[LoadingCache[String, Organization]] = Option(cacheSettings).map { settings =>
+    new LoadingCache[String, Organization](settings.maxOrganizations, settings.organizationTtl)
+  }
 
 
   def getRoles(accessToken: String): Future[Seq[Role]] = {
+    rolesCache match {
+      case Some(cache) => cache.get(accessToken) { fetchRoles(accessToken) }
+      case None => fetchRoles(accessToken)
+    }
+  }
+
+  private def fetchRoles(accessToken: String): Future[Seq[Role]] = {
     val request = Get(s"$apiUrl/me/roles")
       .addHeader(Authorization.oauth2(accessToken))
-    val response: Future[RolesResponse] = client.execute(request) withResult[RolesResponse]()
+    val response: Future[RolesResponse] = execute[RolesResponse](request)
     response.map { _.roles.asScala }
   }
 
@@ -54,7 +95,75 @@ class DefaultAuthorizationClient(apiUrl: String = "https://api.wixrestaurants.co
   }
 
   private def getOrganizaton(organizationId: String): Future[Organization] = {
+    organizationsCache match {
+      case Some(cache) => cache.get(organizationId) { fetchOrganization(organizationId).map(hierarchyOf) }
+      case None => fetchOrganization(organizationId)
+    }
+  }
+
+  private def fetchOrganization(organizationId: String): Future[Organization] = {
     val request = Get(s"$apiUrl/organizations/$organizationId")
-    client.execute(request) withResult[Organization]()
+    execute[Organization](request)
+  }
+
+  private def execute[T: ClassTag](request: HttpRequest): Future[T] = {
+    pipeline(request) { exchange =>
+      val response = Transports.send(theTransport, exchange.sent(request)).map { exchange.received }
+      response.flatMap { StreamingJson.read[T](_) }.map { decoded =>
+        exchange.read(decoded.bytes)
+        decoded.value
+      }
+    }
+  }
+
+  /** Keeps only what permission checks look at, so that cached organizations stay small. */
+  private def hierarchyOf(organization: Organization): Organization = {
+    organization match {
+      case restaurant: Restaurant =>
+        val hierarchy = new Restaurant
+        hierarchy.id = restaurant.id
+        hierarchy.chainId = restaurant.chainId
+        hierarchy.distributorId = restaurant.distributorId
+        hierarchy
+
+      case chain: Chain =>
+        val hierarchy = new Chain
+        hierarchy.id = chain.id
+        hierarchy.distributorId = chain.distributorId
+        hierarchy
+
+      case distributor: Distributor =>
+        val hierarchy = new Distributor
+        hierarchy.id = distributor.id
+        hierarchy
+
+      case _ =>
+        organization
+    }
+  }
+
+  /** Forgets the cached roles of the given access token, e.g. after changing its user's roles. */
+  def invalidateRoles(accessToken: String): Unit = {
+    rolesCache.foreach { _.invalidate(accessToken) }
+  }
+
+  /** Forgets the cached hierarchy of the given organization, e.g. after moving it to another chain. */
+  def invalidateOrganization(organizationId: String): Unit = {
+    organizationsCache.foreach { _.invalidate(organizationId) }
+  }
+
+  def invalidateAll(): Unit = {
+    rolesCache.foreach { _.invalidateAll() }
+    organizationsCache.foreach { _.invalidateAll() }
+  }
+
+  /** @return the roles cache's counters, or null if caching is disabled. */
+  def getRolesCacheStats: CacheStats = rolesCache.map { _.stats }.orNull
+
+  /** @return the organizations cache's counters, or null if caching is disabled. */
+  def getOrganizationsCacheStats: CacheStats = organizationsCache.map { _.stats }.orNull
+
+  override def close(): Unit = {
+    ownedRuntime.foreach { _.close() }
   }
 }
@@ -0,0 +1,32 @@
+package com.wix.restaurants.bulk;
+
+/**
+ * Outcome of a single item in a bulk operation: either the updated value, or the error it failed with.
+ * A failed item does not affect the other items in the same bulk operation.
+ */
+public class BulkResult<T> {
+    public final T value;
+    public final Throwable error;
+
+    private BulkResult(T value, Throwable error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    public static <T> BulkResult<T> success(T value) {
+        return new BulkResult<>(value, null);
+    }
+
+    public static <T> BulkResult<T> failure(Throwable error) {
+        return new BulkResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "Success(" + value + ")" : "Failure(" + error + ")";
+    }
+}
@@ -0,0 +1,30 @@
+package com.wix.restaurants.cache;
+
+/** Point-in-time counters of a cache. */
+public class CacheStats {
+    /** Lookups served from the cache. */
+    public final long hits;
+    /** Lookups that were not in the cache (or expired), including those that joined a load already in flight. */
+    public final long misses;
+    /** Loads actually issued. */
+    public final long loads;
+    /** Number of entries currently cached. */
+    public final int size;
+
+    public CacheStats(long hits, long misses, long loads, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.loads = loads;
+        this.size = size;
+    }
+
+    public double hitRate() {
+        final long lookups = hits + misses;
+        return (lookups == 0) ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats(hits=" + hits + ", misses=" + misses + ", loads=" + loads + ", size=" + size + ")";
+    }
+}
@@ -0,0 +1,29 @@
+package com.wix.restaurants.cache;
+
+/**
+ * A decoded response along with the validators needed to revalidate it.
+ *
+ * The value is shared by every caller that hits the cache, and must not be modified.
+ */
+public class CachedResponse {
+    public final String organizationId;
+    public final Object value;
+    public final String etag;
+    public final String lastModified;
+    public final long size;
+    public final long fetchedAt;
+
+    public CachedResponse(String organizationId, Object value, String etag, String lastModified, long size, long fetchedAt) {
+        this.organizationId = organizationId;
+        this.value = value;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.size = size;
+        this.fetchedAt = fetchedAt;
+    }
+
+    /** @return the same response, marked as revalidated at the given time. */
+    public CachedResponse revalidatedAt(long fetchedAt) {
+        return new CachedResponse(organizationId, value, etag, lastModified, size, fetchedAt);
+    }
+}
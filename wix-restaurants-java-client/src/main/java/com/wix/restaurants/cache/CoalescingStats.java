@@ -0,0 +1,27 @@
+package com.wix.restaurants.cache;
+
+/** Point-in-time counters of request coalescing. */
+public class CoalescingStats {
+    /** GETs eligible for coalescing. */
+    public final long requests;
+    /** GETs that joined an identical request already in flight, rather than issuing their own. */
+    public final long coalesced;
+    /** Requests currently in flight. */
+    public final int inFlight;
+
+    public CoalescingStats(long requests, long coalesced, int inFlight) {
+        this.requests = requests;
+        this.coalesced = coalesced;
+        this.inFlight = inFlight;
+    }
+
+    /** @return the fraction of GETs that were saved by coalescing. */
+    public double coalescingRate() {
+        return (requests == 0) ? 0.0 : (double) coalesced / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CoalescingStats(requests=" + requests + ", coalesced=" + coalesced + ", inFlight=" + inFlight + ")";
+    }
+}
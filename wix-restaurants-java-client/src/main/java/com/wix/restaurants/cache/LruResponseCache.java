@@ -0,0 +1,63 @@
+package com.wix.restaurants.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used eviction, bounded by the total size (in bytes, as received) of the cached responses.
+ */
+public class LruResponseCache implements ResponseCache {
+    private final long maxSize;
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    public LruResponseCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public synchronized void put(String key, CachedResponse response) {
+        final CachedResponse previous = entries.remove(key);
+        if (previous != null) {
+            size -= previous.size;
+        }
+        if (response.size > maxSize) {
+            return; // Would evict everything else, and itself
+        }
+
+        entries.put(key, response);
+        size += response.size;
+
+        final Iterator<CachedResponse> eldest = entries.values().iterator();
+        while (size > maxSize) {
+            size -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    @Override
+    public synchronized void invalidate(String organizationId) {
+        final Iterator<Map.Entry<String, CachedResponse>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            final CachedResponse response = it.next().getValue();
+            if (organizationId.equals(response.organizationId)) {
+                size -= response.size;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized int count() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,14 @@
+package com.wix.restaurants.cache;
+
+/**
+ * Storage for responses of cacheable GET endpoints, keyed by request URL and authorization scope.
+ * Implementations must be thread-safe.
+ */
+public interface ResponseCache {
+    CachedResponse get(String key);
+
+    void put(String key, CachedResponse response);
+
+    /** Drops every entry that belongs to the given organization. */
+    void invalidate(String organizationId);
+}
@@ -0,0 +1,34 @@
+package com.wix.restaurants.cache
+
+import scala.concurrent.duration._
+
+/**
+ * Read-through caching for organization, restaurant info, menu, notifications and secrets lookups.
+ *
+ * A cached response is served as-is for its endpoint's TTL. After that it is revalidated with a conditional GET,
+ * which costs a single 304 if nothing changed. Writes made through the same client invalidate the organization's
+ * entries immediately.
+ *
+ * @param store    Where responses are kept; defaults to 64MB of LRU.
+ * @param snapshot Persistence of cached restaurant info and menus across restarts, or null to keep them in memory only.
+ */
+case class ResponseCacheSettings(store: ResponseCache = new LruResponseCache(64L * 1024 * 1024),
+                                 restaurantInfoTtl: FiniteDuration = 1.minute,
+                                 organizationTtl: FiniteDuration = 1.minute,
+                                 menuTtl: FiniteDuration = 1.minute,
+                                 notificationsTtl: FiniteDuration = Duration.Zero,
+                                 secretsTtl: FiniteDuration = Duration.Zero,
+                                 snapshot: SnapshotSettings = null) {
+  def withStore(store: ResponseCache): ResponseCacheSettings = copy(store = store)
+  def withRestaurantInfoTtl(ttl: FiniteDuration): ResponseCacheSettings = copy(restaurantInfoTtl = ttl)
+  def withOrganizationTtl(ttl: FiniteDuration): ResponseCacheSettings = copy(organizationTtl = ttl)
+  def withMenuTtl(ttl: FiniteDuration): ResponseCacheSettings = copy(menuTtl = ttl)
+  def withNotificationsTtl(ttl: FiniteDuration): ResponseCacheSettings = copy(notificationsTtl = ttl)
+  def withSecretsTtl(ttl: FiniteDuration): ResponseCacheSettings = copy(secretsTtl = ttl)
+  def withSnapshot(snapshot: SnapshotSettings): ResponseCacheSettings = copy(snapshot = snapshot)
+}
+
+object ResponseCacheSettings {
+  /** Java-friendly access to the default settings. */
+  def defaults: ResponseCacheSettings = ResponseCacheSettings()
+}
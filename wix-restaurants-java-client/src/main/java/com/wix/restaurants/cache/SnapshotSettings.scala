@@ -0,0 +1,39 @@
+package com.wix.restaurants.cache
+
+import java.nio.file.Path
+
+import scala.concurrent.duration._
+
+/**
+ * Persistence of cached restaurant info and menus to a local snapshot file, so that a restarted client can serve
+ * them immediately, rather than downloading every restaurant's documents again before it can answer.
+ *
+ * A document restored from the snapshot is served as is, and revalidated in the background (with a conditional GET,
+ * which costs a single 304 if nothing changed). Other cached responses (organizations, notifications, secrets) are
+ * never written to disk, nor are access tokens: documents are keyed by URI and a hash of the credentials.
+ *
+ * The file is only read on demand (it is memory-mapped, and documents are decoded when first requested). Changes are
+ * written in the background, and on close, to a temporary file that then atomically replaces the snapshot, so a crash
+ * leaves either the previous snapshot or the new one, never a partial file. Unreadable or corrupt snapshots (and
+ * snapshots of other format versions) are ignored. A failed write is retried with the next one; writes that keep
+ * failing (e.g. when the directory isn't writable) show in SnapshotStats.consecutiveWriteFailures, along with the last
+ * error.
+ *
+ * @param file          The snapshot file. Its directory must exist, and be writable.
+ * @param writeInterval How often changes are written.
+ * @param maxAge        Documents not fetched or revalidated for this long are dropped from the snapshot.
+ */
+case class SnapshotSettings(file: Path,
+                            writeInterval: FiniteDuration = 30.seconds,
+                            maxAge: FiniteDuration = 7.days) {
+  require(file != null, "file must not be null")
+  require(writeInterval > Duration.Zero, s"writeInterval must be positive, got $writeInterval")
+
+  def withWriteInterval(writeInterval: FiniteDuration): SnapshotSettings = copy(writeInterval = writeInterval)
+  def withMaxAge(maxAge: FiniteDuration): SnapshotSettings = copy(maxAge = maxAge)
+}
+
+object SnapshotSettings {
+  /** Java-friendly access to the default settings, for the given file. */
+  def forFile(file: Path): SnapshotSettings = SnapshotSettings(file)
+}
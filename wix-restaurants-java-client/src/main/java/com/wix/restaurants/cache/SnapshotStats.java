@@ -0,0 +1,37 @@
+package com.wix.restaurants.cache;
+
+/** Point-in-time counters of a snapshot store. */
+public class SnapshotStats {
+    /** Documents in the snapshot file as last read or written. */
+    public final int entries;
+    /** Size of the snapshot file as last read or written, in bytes. */
+    public final long size;
+    /** Lookups served from the snapshot (i.e. missing from the response cache, and found in the snapshot). */
+    public final long restored;
+    /** Snapshots written. */
+    public final long writes;
+    /** Snapshots that failed to be read or written. */
+    public final long failures;
+    /** Writes that failed since the last one that succeeded: more than one means they keep failing. */
+    public final int consecutiveWriteFailures;
+    /** Why the last write failed, or null if it succeeded (or there was none). */
+    public final Throwable lastWriteFailure;
+
+    public SnapshotStats(int entries, long size, long restored, long writes, long failures,
+                         int consecutiveWriteFailures, Throwable lastWriteFailure) {
+        this.entries = entries;
+        this.size = size;
+        this.restored = restored;
+        this.writes = writes;
+        this.failures = failures;
+        this.consecutiveWriteFailures = consecutiveWriteFailures;
+        this.lastWriteFailure = lastWriteFailure;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotStats(entries=" + entries + ", size=" + size + ", restored=" + restored + ", writes=" + writes +
+                ", failures=" + failures + ", consecutiveWriteFailures=" + consecutiveWriteFailures +
+                ", lastWriteFailure=" + lastWriteFailure + ")";
+    }
+}
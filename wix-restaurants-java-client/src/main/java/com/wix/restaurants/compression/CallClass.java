@@ -0,0 +1,13 @@
+package com.wix.restaurants.compression;
+
+/** Groups of endpoints whose compression can be configured separately (see {@link CompressionSettings}). */
+public enum CallClass {
+    /** Menus, which are by far the largest payloads. */
+    MENUS,
+    /** Organizations and their properties (notifications, secrets, products). */
+    ORGANIZATIONS,
+    ORDERS,
+    RESERVATIONS,
+    /** Everything else, e.g. user accounts. */
+    OTHER
+}
@@ -0,0 +1,31 @@
+package com.wix.restaurants.compression
+
+import scala.annotation.varargs
+
+/**
+ * Compression of request bodies and responses, per [[CallClass]].
+ *
+ * Responses are negotiated with Accept-Encoding, and decoded transparently. Request bodies are compressed only when
+ * at least minRequestBytes long, as smaller bodies rarely gain enough to pay for the extra CPU.
+ *
+ * @param requestCoding      Content coding for request bodies: "gzip" or "deflate".
+ * @param minRequestBytes    Smallest request body that is compressed.
+ * @param compressedRequests Call classes whose request bodies are compressed.
+ * @param compressedResponses Call classes for which compressed responses are accepted.
+ */
+case class CompressionSettings(requestCoding: String = "gzip",
+                               minRequestBytes: Int = 8 * 1024,
+                               compressedRequests: Set[CallClass] = Set(CallClass.MENUS, CallClass.ORGANIZATIONS),
+                               compressedResponses: Set[CallClass] = CallClass.values.toSet) {
+  require(requestCoding == "gzip" || requestCoding == "deflate", s"Unsupported request coding: $requestCoding")
+
+  def withRequestCoding(requestCoding: String): CompressionSettings = copy(requestCoding = requestCoding)
+  def withMinRequestBytes(minRequestBytes: Int): CompressionSettings = copy(minRequestBytes = minRequestBytes)
+  @varargs def withCompressedRequests(callClasses: CallClass*): CompressionSettings = copy(compressedRequests = callClasses.toSet)
+  @varargs def withCompressedResponses(callClasses: CallClass*): CompressionSettings = copy(compressedResponses = callClasses.toSet)
+}
+
+object CompressionSettings {
+  /** Java-friendly access to the default settings. */
+  def defaults: CompressionSettings = CompressionSettings()
+}
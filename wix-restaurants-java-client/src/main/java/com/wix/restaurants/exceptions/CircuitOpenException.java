@@ -0,0 +1,8 @@
+package com.wix.restaurants.exceptions;
+
+/** The call wasn't sent, because recent calls to the same host kept failing (see ResilienceSettings). */
+public class CircuitOpenException extends TemporarilyUnavailableException {
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
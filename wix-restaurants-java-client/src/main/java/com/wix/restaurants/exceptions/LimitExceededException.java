@@ -0,0 +1,8 @@
+package com.wix.restaurants.exceptions;
+
+/** The call wasn't sent, because its organization is over the client-side limits (see LimitSettings). */
+public class LimitExceededException extends TemporarilyUnavailableException {
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
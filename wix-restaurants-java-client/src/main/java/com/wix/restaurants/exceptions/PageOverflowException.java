@@ -0,0 +1,11 @@
+package com.wix.restaurants.exceptions;
+
+/**
+ * A stream* history query can't continue, because more items share a single timestamp than fit in the largest page
+ * (see PagingSettings), and the rest of them would be skipped.
+ */
+public class PageOverflowException extends RestaurantsException {
+    public PageOverflowException(String message) {
+        super(message);
+    }
+}
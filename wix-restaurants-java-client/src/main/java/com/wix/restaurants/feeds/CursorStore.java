@@ -0,0 +1,13 @@
+package com.wix.restaurants.feeds;
+
+/**
+ * Persists feed cursors, so that a restarted feed resumes where it left off rather than re-scanning from scratch.
+ *
+ * Feeds are identified by strings such as "orders/{restaurantId}". Implementations must be thread-safe.
+ */
+public interface CursorStore {
+    /** @return the last saved cursor, or null if none was saved. */
+    FeedCursor load(String feedId);
+
+    void save(String feedId, FeedCursor cursor);
+}
@@ -0,0 +1,29 @@
+package com.wix.restaurants.feeds;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental feed of changes to a single restaurant's orders or reservations.
+ *
+ * Each poll fetches only what was modified since the feed's cursor, delivers it to the listeners, and saves the
+ * advanced cursor to the feed's {@link CursorStore}. Items are delivered at most once per modification.
+ */
+public interface Feed<T> extends AutoCloseable {
+    void addListener(FeedListener<T> listener);
+    void removeListener(FeedListener<T> listener);
+
+    /**
+     * Fetches and delivers all changes since the cursor, on the calling thread.
+     * @return the number of events delivered.
+     */
+    int poll();
+
+    /** Polls on a background thread, waiting the given delay between the end of one poll and the start of the next. */
+    void start(long delay, TimeUnit unit);
+
+    FeedCursor getCursor();
+
+    /** Stops background polling. The cursor remains saved. */
+    @Override
+    void close();
+}
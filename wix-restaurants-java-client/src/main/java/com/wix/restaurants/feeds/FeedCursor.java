@@ -0,0 +1,78 @@
+package com.wix.restaurants.feeds;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Position in a change feed: the modification time of the last delivered change, along with the identifiers of
+ * items already delivered at exactly that time (several items may share it).
+ *
+ * Cursors are immutable, and can be persisted as a string via {@link #serialize()} and {@link #parse(String)}.
+ */
+public class FeedCursor {
+    /** Before every change, e.g. to start a feed with the full history. */
+    public static final FeedCursor initial = new FeedCursor(0L, Collections.<String>emptySet());
+
+    public final long modifiedSince;
+    public final Set<String> seen;
+
+    public FeedCursor(long modifiedSince, Set<String> seen) {
+        this.modifiedSince = modifiedSince;
+        this.seen = Collections.unmodifiableSet(seen);
+    }
+
+    /** @return a cursor positioned before the changes made at or after the given time (epoch millis). */
+    public static FeedCursor startingAt(long modifiedSince) {
+        return new FeedCursor(modifiedSince, Collections.<String>emptySet());
+    }
+
+    /** @return a cursor positioned after the given item. */
+    public FeedCursor advancedTo(long modified, String id) {
+        if (modified < modifiedSince) {
+            return this;
+        }
+
+        final Set<String> newSeen = (modified == modifiedSince) ? new HashSet<>(seen) : new HashSet<String>();
+        newSeen.add(id);
+        return new FeedCursor(modified, newSeen);
+    }
+
+    /** @return whether the given item was already delivered. */
+    public boolean hasSeen(long modified, String id) {
+        return (modified < modifiedSince) || ((modified == modifiedSince) && seen.contains(id));
+    }
+
+    /** @return a compact string form, e.g. "1514764800000:1234,5678". Identifiers must not contain ':' or ','. */
+    public String serialize() {
+        return seen.isEmpty() ? Long.toString(modifiedSince) : modifiedSince + ":" + String.join(",", seen);
+    }
+
+    public static FeedCursor parse(String serialized) {
+        final int separator = serialized.indexOf(':');
+        if (separator < 0) {
+            return new FeedCursor(Long.parseLong(serialized), Collections.<String>emptySet());
+        }
+        return new FeedCursor(Long.parseLong(serialized.substring(0, separator)),
+                new HashSet<>(Arrays.asList(serialized.substring(separator + 1).split(","))));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FeedCursor)) return false;
+        final FeedCursor that = (FeedCursor) o;
+        return (modifiedSince == that.modifiedSince) && seen.equals(that.seen);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(modifiedSince) + seen.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return serialize();
+    }
+}
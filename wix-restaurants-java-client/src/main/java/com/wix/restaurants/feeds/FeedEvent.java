@@ -0,0 +1,24 @@
+package com.wix.restaurants.feeds;
+
+/** A change to an order or reservation, as observed by a feed. */
+public class FeedEvent<T> {
+    public enum Type {
+        /** An item created since the feed's cursor. */
+        CREATED,
+        /** A known item whose status changed. */
+        STATUS_CHANGED,
+        /** Any other modification, including status changes of items the feed hasn't seen before. */
+        MODIFIED
+    }
+
+    public final Type type;
+    public final T item;
+    /** The item's status as last seen by this feed, or null if unknown. */
+    public final String previousStatus;
+
+    public FeedEvent(Type type, T item, String previousStatus) {
+        this.type = type;
+        this.item = item;
+        this.previousStatus = previousStatus;
+    }
+}
@@ -0,0 +1,15 @@
+package com.wix.restaurants.feeds;
+
+/**
+ * Receives a feed's events, one at a time, on the thread that polls the feed.
+ *
+ * The feed waits for each call to return before delivering the next event, so a slow listener slows down polling
+ * rather than letting events pile up in memory. If onEvent throws, polling stops, and the event is redelivered on the
+ * next poll.
+ */
+public interface FeedListener<T> {
+    void onEvent(FeedEvent<T> event);
+
+    /** Called when a background poll fails, e.g. due to a communication error. The next poll is still attempted. */
+    default void onError(Throwable error) {}
+}
@@ -0,0 +1,19 @@
+package com.wix.restaurants.feeds;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/** Keeps cursors for the lifetime of the process only. */
+public class InMemoryCursorStore implements CursorStore {
+    private final ConcurrentMap<String, FeedCursor> cursors = new ConcurrentHashMap<>();
+
+    @Override
+    public FeedCursor load(String feedId) {
+        return cursors.get(feedId);
+    }
+
+    @Override
+    public void save(String feedId, FeedCursor cursor) {
+        cursors.put(feedId, cursor);
+    }
+}
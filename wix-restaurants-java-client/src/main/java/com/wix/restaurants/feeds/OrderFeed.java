@@ -0,0 +1,7 @@
+package com.wix.restaurants.feeds;
+
+import com.openrest.v1_1.Order;
+
+/** @see com.wix.restaurants.WixRestaurantsClient#orderFeed(String, String, CursorStore) */
+public interface OrderFeed extends Feed<Order> {
+}
@@ -0,0 +1,7 @@
+package com.wix.restaurants.feeds;
+
+import com.wix.restaurants.reservations.Reservation;
+
+/** @see com.wix.restaurants.WixRestaurantsClient#reservationFeed(String, String, CursorStore) */
+public interface ReservationFeed extends Feed<Reservation> {
+}
@@ -0,0 +1,103 @@
+package com.wix.restaurants.helpers;
+
+import com.openrest.v1_1.Item;
+import com.openrest.v1_1.MenuSection;
+import com.openrest.v1_1.Variation;
+import com.wix.restaurants.i18n.Locale;
+import com.wix.restaurants.i18n.LocalizedString;
+
+/**
+ * A menu's titles and descriptions, localized once to a single locale (falling back to the default locale, like
+ * {@link Localizer}) and stored by the ordinals of a {@link MenuIndex}, so rendering them is a plain array read.
+ *
+ * Choices are items, so a choice's title is the title of its item. Views are immutable and safe to share between
+ * threads; use {@link LocalizedMenuViews} to keep the views of the menus and locales in use.
+ */
+public class LocalizedMenuView {
+    private final MenuIndex index;
+    private final Locale locale;
+
+    private final String[] itemTitles;
+    private final String[] itemDescriptions;
+    private final String[] sectionTitles;
+    private final String[] sectionDescriptions;
+    // Titles of item i's variations are variationTitles[variationStart[i] .. variationStart[i + 1])
+    private final int[] variationStart;
+    private final String[] variationTitles;
+
+    public LocalizedMenuView(MenuIndex index, Locale defaultLocale, Locale locale) {
+        this.index = index;
+        this.locale = locale;
+        final Localizer localizer = new Localizer(defaultLocale, locale);
+
+        itemTitles = new String[index.size()];
+        itemDescriptions = new String[index.size()];
+        variationStart = new int[index.size() + 1];
+        int numVariations = 0;
+        for (int i = 0; i < index.size(); ++i) {
+            final Item item = index.item(i);
+            itemTitles[i] = localize(localizer, item.title);
+            itemDescriptions[i] = localize(localizer, item.description);
+            variationStart[i] = numVariations;
+            numVariations += index.variationCount(i);
+        }
+        variationStart[index.size()] = numVariations;
+
+        variationTitles = new String[numVariations];
+        for (int i = 0; i < index.size(); ++i) {
+            for (int v = 0; v < index.variationCount(i); ++v) {
+                final Variation variation = index.variation(i, v);
+                variationTitles[variationStart[i] + v] = localize(localizer, variation.title);
+            }
+        }
+
+        sectionTitles = new String[index.sectionCount()];
+        sectionDescriptions = new String[index.sectionCount()];
+        for (int s = 0; s < index.sectionCount(); ++s) {
+            final MenuSection section = index.section(s);
+            sectionTitles[s] = localize(localizer, section.title);
+            sectionDescriptions[s] = localize(localizer, section.description);
+        }
+    }
+
+    private static String localize(Localizer localizer, LocalizedString localizedString) {
+        return (localizedString != null) ? localizer.localize(localizedString) : "";
+    }
+
+    public MenuIndex index() {
+        return index;
+    }
+
+    public Locale locale() {
+        return locale;
+    }
+
+    public String itemTitle(int itemOrdinal) {
+        return itemTitles[itemOrdinal];
+    }
+
+    public String itemDescription(int itemOrdinal) {
+        return itemDescriptions[itemOrdinal];
+    }
+
+    public String variationTitle(int itemOrdinal, int variationIndex) {
+        if ((variationIndex < 0) || (variationIndex >= variationStart[itemOrdinal + 1] - variationStart[itemOrdinal])) {
+            throw new IndexOutOfBoundsException("Item " + index.item(itemOrdinal).id + " has no variation #" + variationIndex);
+        }
+        return variationTitles[variationStart[itemOrdinal] + variationIndex];
+    }
+
+    public String sectionTitle(int sectionOrdinal) {
+        return sectionTitles[sectionOrdinal];
+    }
+
+    public String sectionDescription(int sectionOrdinal) {
+        return sectionDescriptions[sectionOrdinal];
+    }
+
+    /** @return the number of strings in this view, a measure of its size. */
+    public int stringCount() {
+        return itemTitles.length + itemDescriptions.length + variationTitles.length +
+                sectionTitles.length + sectionDescriptions.length;
+    }
+}
@@ -0,0 +1,130 @@
+package com.wix.restaurants.helpers;
+
+import com.openrest.v1_1.Menu;
+import com.wix.restaurants.i18n.Locale;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of {@link LocalizedMenuView}s per (menu version, default locale, locale), so each menu is indexed once and
+ * localized once per pair of locales. Views of the same menu version share a single {@link MenuIndex}.
+ *
+ * A menu version is any string that changes whenever the menu does, e.g. the restaurant's id and the menu's modified
+ * timestamp. Least-recently-used views are evicted to keep the total number of localized strings under a bound.
+ *
+ * Thread-safe. Views are built outside the lock, so concurrent first lookups of the same view may each build it.
+ */
+public class LocalizedMenuViews {
+    private static class Key {
+        final String menuVersion;
+        final Locale defaultLocale;
+        final Locale locale;
+
+        Key(String menuVersion, Locale defaultLocale, Locale locale) {
+            this.menuVersion = menuVersion;
+            this.defaultLocale = defaultLocale;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return menuVersion.equals(other.menuVersion) && Objects.equals(defaultLocale, other.defaultLocale) &&
+                    Objects.equals(locale, other.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * menuVersion.hashCode() + Objects.hashCode(defaultLocale)) + Objects.hashCode(locale);
+        }
+    }
+
+    private final long maxStrings;
+    private final LinkedHashMap<Key, LocalizedMenuView> views = new LinkedHashMap<>(16, 0.75f, true);
+    // Index of each menu version with views in the cache, and how many views use it
+    private final Map<String, MenuIndex> indexes = new HashMap<>();
+    private final Map<String, Integer> indexUsers = new HashMap<>();
+    private long strings = 0;
+
+    /** @param maxStrings Bound on the total number of localized strings in the cached views. */
+    public LocalizedMenuViews(long maxStrings) {
+        this.maxStrings = maxStrings;
+    }
+
+    /**
+     * @param menuVersion   Identifies the menu's contents (see class comment).
+     * @param menu          The menu, only used if this version wasn't indexed yet.
+     * @param defaultLocale Locale to fall back to, usually the restaurant's.
+     * @param locale        Locale to localize to.
+     */
+    public LocalizedMenuView get(String menuVersion, Menu menu, Locale defaultLocale, Locale locale) {
+        final Key key = new Key(menuVersion, defaultLocale, locale);
+        MenuIndex index;
+        synchronized (this) {
+            final LocalizedMenuView view = views.get(key);
+            if (view != null) {
+                return view;
+            }
+            index = indexes.get(menuVersion);
+        }
+
+        if (index == null) {
+            index = new MenuIndex(menu);
+        }
+        final LocalizedMenuView view = new LocalizedMenuView(index, defaultLocale, locale);
+        put(key, view);
+        return view;
+    }
+
+    private synchronized void put(Key key, LocalizedMenuView view) {
+        if (views.containsKey(key) || (view.stringCount() > maxStrings)) {
+            return; // Built concurrently, or would evict everything else
+        }
+
+        views.put(key, view);
+        strings += view.stringCount();
+        indexes.putIfAbsent(key.menuVersion, view.index());
+        indexUsers.merge(key.menuVersion, 1, Integer::sum);
+
+        final Iterator<Map.Entry<Key, LocalizedMenuView>> eldest = views.entrySet().iterator();
+        while (strings > maxStrings) {
+            final Map.Entry<Key, LocalizedMenuView> entry = eldest.next();
+            strings -= entry.getValue().stringCount();
+            eldest.remove();
+            if (indexUsers.merge(entry.getKey().menuVersion, -1, Integer::sum) == 0) {
+                indexUsers.remove(entry.getKey().menuVersion);
+                indexes.remove(entry.getKey().menuVersion);
+            }
+        }
+    }
+
+    /** Drops the views of a menu version, e.g. once it's known to be replaced. */
+    public synchronized void invalidate(String menuVersion) {
+        final Iterator<Map.Entry<Key, LocalizedMenuView>> it = views.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<Key, LocalizedMenuView> entry = it.next();
+            if (entry.getKey().menuVersion.equals(menuVersion)) {
+                strings -= entry.getValue().stringCount();
+                it.remove();
+            }
+        }
+        indexes.remove(menuVersion);
+        indexUsers.remove(menuVersion);
+    }
+
+    /** @return the total number of localized strings in the cached views. */
+    public synchronized long size() {
+        return strings;
+    }
+
+    public synchronized int count() {
+        return views.size();
+    }
+}
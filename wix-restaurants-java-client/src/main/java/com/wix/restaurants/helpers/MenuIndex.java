@@ -0,0 +1,280 @@
+package com.wix.restaurants.helpers;
+
+import com.openrest.v1_1.Item;
+import com.openrest.v1_1.Menu;
+import com.openrest.v1_1.MenuSection;
+import com.openrest.v1_1.Variation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only index over a menu, for answering lookups without walking the menu's lists by id.
+ *
+ * Items and sections are assigned dense ordinals (in menu order), which are then used for every other lookup. Prices,
+ * variation choices and their prices, and section contents are resolved once, up front, into primitive arrays.
+ *
+ * The index is immutable and safe to share between threads. It references (but doesn't copy) the menu's items and
+ * sections, so the menu must not be modified once indexed; index the new version instead.
+ */
+public class MenuIndex {
+    /** Ordinal returned for ids that are not in the menu. */
+    public static final int NONE = -1;
+
+    private final Map<String, Integer> itemOrdinals;
+    private final Item[] items;
+    private final int[] prices;
+
+    // Variations of item i are variations[itemVariations[i] .. itemVariations[i + 1])
+    private final int[] itemVariations;
+    private final Variation[] variations;
+
+    // Choices of variation v are choiceItems/choicePrices[variationChoices[v] .. variationChoices[v + 1])
+    private final int[] variationChoices;
+    private final int[] choiceItems;
+    private final int[] choicePrices;
+
+    private final Map<String, Integer> sectionOrdinals;
+    private final MenuSection[] sections;
+
+    // Items of section s are sectionItems[sectionItemsStart[s] .. sectionItemsStart[s + 1]), likewise for children
+    private final int[] sectionItemsStart;
+    private final int[] sectionItems;
+    private final int[] sectionChildrenStart;
+    private final int[] sectionChildren;
+    private final int[] topLevelSections;
+
+    public MenuIndex(Menu menu) {
+        final int numItems = menu.items.size();
+        itemOrdinals = new HashMap<>(numItems * 2);
+        items = menu.items.toArray(new Item[numItems]);
+        prices = new int[numItems];
+        for (int i = 0; i < numItems; ++i) {
+            itemOrdinals.put(items[i].id, i);
+            prices[i] = items[i].price;
+        }
+
+        // Variations and their choices
+        itemVariations = new int[numItems + 1];
+        final List<Variation> allVariations = new ArrayList<>();
+        for (int i = 0; i < numItems; ++i) {
+            itemVariations[i] = allVariations.size();
+            allVariations.addAll(items[i].variations);
+        }
+        itemVariations[numItems] = allVariations.size();
+        variations = allVariations.toArray(new Variation[allVariations.size()]);
+
+        variationChoices = new int[variations.length + 1];
+        int numChoices = 0;
+        for (int v = 0; v < variations.length; ++v) {
+            variationChoices[v] = numChoices;
+            numChoices += variations[v].itemIds.size();
+        }
+        variationChoices[variations.length] = numChoices;
+
+        choiceItems = new int[numChoices];
+        choicePrices = new int[numChoices];
+        for (int v = 0; v < variations.length; ++v) {
+            int c = variationChoices[v];
+            for (String choiceItemId : variations[v].itemIds) {
+                choiceItems[c] = ordinalOf(choiceItemId);
+                final Integer choicePrice = variations[v].prices.get(choiceItemId);
+                choicePrices[c] = (choicePrice != null) ? choicePrice : 0;
+                ++c;
+            }
+        }
+
+        // Sections, flattened depth-first
+        final List<MenuSection> allSections = new ArrayList<>();
+        for (MenuSection section : menu.sections) {
+            flatten(section, allSections);
+        }
+        sections = allSections.toArray(new MenuSection[allSections.size()]);
+        sectionOrdinals = new HashMap<>(sections.length * 2);
+        for (int s = 0; s < sections.length; ++s) {
+            if (sections[s].id != null) {
+                sectionOrdinals.put(sections[s].id, s);
+            }
+        }
+
+        sectionItemsStart = new int[sections.length + 1];
+        sectionChildrenStart = new int[sections.length + 1];
+        int numSectionItems = 0;
+        int numSectionChildren = 0;
+        for (int s = 0; s < sections.length; ++s) {
+            sectionItemsStart[s] = numSectionItems;
+            sectionChildrenStart[s] = numSectionChildren;
+            numSectionItems += sections[s].itemIds.size();
+            numSectionChildren += sections[s].children.size();
+        }
+        sectionItemsStart[sections.length] = numSectionItems;
+        sectionChildrenStart[sections.length] = numSectionChildren;
+
+        sectionItems = new int[numSectionItems];
+        sectionChildren = new int[numSectionChildren];
+        final Map<MenuSection, Integer> sectionIdentities = new IdentityHashMap<>(sections.length * 2);
+        for (int s = 0; s < sections.length; ++s) {
+            sectionIdentities.put(sections[s], s);
+        }
+        for (int s = 0; s < sections.length; ++s) {
+            int i = sectionItemsStart[s];
+            for (String itemId : sections[s].itemIds) {
+                sectionItems[i++] = ordinalOf(itemId);
+            }
+            int c = sectionChildrenStart[s];
+            for (MenuSection child : sections[s].children) {
+                sectionChildren[c++] = sectionIdentities.get(child);
+            }
+        }
+
+        topLevelSections = new int[menu.sections.size()];
+        int t = 0;
+        for (MenuSection section : menu.sections) {
+            topLevelSections[t++] = sectionIdentities.get(section);
+        }
+    }
+
+    private static void flatten(MenuSection section, List<MenuSection> sections) {
+        sections.add(section);
+        for (MenuSection child : section.children) {
+            flatten(child, sections);
+        }
+    }
+
+    // Items
+
+    /** @return the number of items in the menu. */
+    public int size() {
+        return items.length;
+    }
+
+    /** @return the item's ordinal, or {@link #NONE} if it's not in the menu. */
+    public int ordinalOf(String itemId) {
+        final Integer ordinal = itemOrdinals.get(itemId);
+        return (ordinal != null) ? ordinal : NONE;
+    }
+
+    public Item item(int itemOrdinal) {
+        return items[itemOrdinal];
+    }
+
+    /** @return the item with the given id, or null if it's not in the menu. */
+    public Item getItem(String itemId) {
+        final Integer ordinal = itemOrdinals.get(itemId);
+        return (ordinal != null) ? items[ordinal] : null;
+    }
+
+    /** @return the item's price, in minor currency units (e.g. cents). */
+    public int price(int itemOrdinal) {
+        return prices[itemOrdinal];
+    }
+
+    // Variations
+
+    public int variationCount(int itemOrdinal) {
+        return itemVariations[itemOrdinal + 1] - itemVariations[itemOrdinal];
+    }
+
+    public Variation variation(int itemOrdinal, int variationIndex) {
+        return variations[variationOf(itemOrdinal, variationIndex)];
+    }
+
+    public int choiceCount(int itemOrdinal, int variationIndex) {
+        final int v = variationOf(itemOrdinal, variationIndex);
+        return variationChoices[v + 1] - variationChoices[v];
+    }
+
+    /** @return the ordinal of the given choice's item, or {@link #NONE} if it's not in the menu. */
+    public int choiceItem(int itemOrdinal, int variationIndex, int choiceIndex) {
+        return choiceItems[choiceOf(itemOrdinal, variationIndex, choiceIndex)];
+    }
+
+    /** @return the price of the given choice within its variation (0 if the variation doesn't price it). */
+    public int choicePrice(int itemOrdinal, int variationIndex, int choiceIndex) {
+        return choicePrices[choiceOf(itemOrdinal, variationIndex, choiceIndex)];
+    }
+
+    /**
+     * @return the price of choosing the given item in the variation (0 if the variation doesn't price it), or
+     *         {@link #NONE} if it isn't one of the variation's choices.
+     */
+    public int choicePrice(int itemOrdinal, int variationIndex, String choiceItemId) {
+        final int choiceItemOrdinal = ordinalOf(choiceItemId);
+        final int v = variationOf(itemOrdinal, variationIndex);
+        for (int c = variationChoices[v]; c < variationChoices[v + 1]; ++c) {
+            if ((choiceItems[c] == choiceItemOrdinal) && (choiceItemOrdinal != NONE)) {
+                return choicePrices[c];
+            }
+        }
+        return NONE;
+    }
+
+    private int variationOf(int itemOrdinal, int variationIndex) {
+        final int v = itemVariations[itemOrdinal] + variationIndex;
+        if ((variationIndex < 0) || (v >= itemVariations[itemOrdinal + 1])) {
+            throw new IndexOutOfBoundsException("Item " + items[itemOrdinal].id + " has no variation #" + variationIndex);
+        }
+        return v;
+    }
+
+    private int choiceOf(int itemOrdinal, int variationIndex, int choiceIndex) {
+        final int v = variationOf(itemOrdinal, variationIndex);
+        final int c = variationChoices[v] + choiceIndex;
+        if ((choiceIndex < 0) || (c >= variationChoices[v + 1])) {
+            throw new IndexOutOfBoundsException("Variation #" + variationIndex + " of item " + items[itemOrdinal].id + " has no choice #" + choiceIndex);
+        }
+        return c;
+    }
+
+    // Sections
+
+    /** @return the number of sections in the menu, at all levels. */
+    public int sectionCount() {
+        return sections.length;
+    }
+
+    /** @return the section's ordinal, or {@link #NONE} if it's not in the menu. */
+    public int sectionOrdinalOf(String sectionId) {
+        final Integer ordinal = sectionOrdinals.get(sectionId);
+        return (ordinal != null) ? ordinal : NONE;
+    }
+
+    public MenuSection section(int sectionOrdinal) {
+        return sections[sectionOrdinal];
+    }
+
+    public int topLevelSectionCount() {
+        return topLevelSections.length;
+    }
+
+    public int topLevelSection(int index) {
+        return topLevelSections[index];
+    }
+
+    public int sectionItemCount(int sectionOrdinal) {
+        return sectionItemsStart[sectionOrdinal + 1] - sectionItemsStart[sectionOrdinal];
+    }
+
+    /** @return the ordinal of the section's index-th item, or {@link #NONE} if it's not in the menu. */
+    public int sectionItem(int sectionOrdinal, int index) {
+        if ((index < 0) || (index >= sectionItemCount(sectionOrdinal))) {
+            throw new IndexOutOfBoundsException("Section #" + sectionOrdinal + " has no item #" + index);
+        }
+        return sectionItems[sectionItemsStart[sectionOrdinal] + index];
+    }
+
+    public int sectionChildCount(int sectionOrdinal) {
+        return sectionChildrenStart[sectionOrdinal + 1] - sectionChildrenStart[sectionOrdinal];
+    }
+
+    /** @return the ordinal of the section's index-th child section. */
+    public int sectionChild(int sectionOrdinal, int index) {
+        if ((index < 0) || (index >= sectionChildCount(sectionOrdinal))) {
+            throw new IndexOutOfBoundsException("Section #" + sectionOrdinal + " has no child #" + index);
+        }
+        return sectionChildren[sectionChildrenStart[sectionOrdinal] + index];
+    }
+}
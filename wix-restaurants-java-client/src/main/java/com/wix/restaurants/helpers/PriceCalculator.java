@@ -5,6 +5,7 @@ import com.openrest.v1_1.OrderItem;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 public class PriceCalculator {
     public double price(OrderItem orderItem) {
@@ -19,6 +20,41 @@ public class PriceCalculator {
         return price(Arrays.asList(orderItems));
     }
 
+    /**
+     * Exact price in minor currency units (e.g. cents), computed without allocating.
+     * @throws ArithmeticException if the price overflows a long.
+     */
+    public long priceInCents(OrderItem orderItem) {
+        final List<List<OrderItem>> variationsChoices = orderItem.variationsChoices;
+        long choicesTotal = 0;
+        if (variationsChoices instanceof RandomAccess) {
+            // Iterators aren't optimized away across the recursion, so index lists that support it
+            for (int i = 0; i < variationsChoices.size(); ++i) {
+                choicesTotal = Math.addExact(choicesTotal, priceInCents(variationsChoices.get(i)));
+            }
+        } else {
+            for (List<OrderItem> choices : variationsChoices) {
+                choicesTotal = Math.addExact(choicesTotal, priceInCents(choices));
+            }
+        }
+        return Math.multiplyExact(Math.addExact(orderItem.price, choicesTotal), orderItem.count);
+    }
+
+    /** @see #priceInCents(OrderItem) */
+    public long priceInCents(List<OrderItem> orderItems) {
+        long total = 0;
+        if (orderItems instanceof RandomAccess) {
+            for (int i = 0; i < orderItems.size(); ++i) {
+                total = Math.addExact(total, priceInCents(orderItems.get(i)));
+            }
+        } else {
+            for (OrderItem orderItem : orderItems) {
+                total = Math.addExact(total, priceInCents(orderItem));
+            }
+        }
+        return total;
+    }
+
     private BigDecimal priceImpl(OrderItem orderItem) {
         BigDecimal choicesTotal = new BigDecimal(0);
         for (List<OrderItem> choices : orderItem.variationsChoices) {
@@ -0,0 +1,36 @@
+package com.wix.restaurants.limits
+
+import scala.concurrent.duration._
+
+/**
+ * Concurrency and rate limits of one partition (an organization's calls of one [[com.wix.restaurants.compression.CallClass]]).
+ *
+ * A call that is over either limit waits in the partition's queue, in order, for up to maxQueueTime. If the queue
+ * already holds maxQueued calls, or the wait times out, the call fails with
+ * [[com.wix.restaurants.exceptions.LimitExceededException]] without being sent. With maxQueued = 0 calls over the
+ * limits fail immediately.
+ *
+ * @param maxConcurrent Maximum number of calls in flight.
+ * @param ratePerSecond Token bucket refill rate, or 0 for no rate limit.
+ * @param burst         Token bucket capacity, i.e. how many calls may be sent at once after an idle period.
+ */
+case class Limit(maxConcurrent: Int = 2,
+                 ratePerSecond: Double = 0.0,
+                 burst: Int = 1,
+                 maxQueued: Int = 64,
+                 maxQueueTime: FiniteDuration = 10.seconds) {
+  require(maxConcurrent > 0, s"maxConcurrent must be positive, got $maxConcurrent")
+  require(ratePerSecond >= 0.0, s"ratePerSecond must not be negative, got $ratePerSecond")
+  require(burst > 0, s"burst must be positive, got $burst")
+  require(maxQueued >= 0, s"maxQueued must not be negative, got $maxQueued")
+
+  def withMaxConcurrent(maxConcurrent: Int): Limit = copy(maxConcurrent = maxConcurrent)
+  def withRate(ratePerSecond: Double, burst: Int): Limit = copy(ratePerSecond = ratePerSecond, burst = burst)
+  def withQueue(maxQueued: Int, maxQueueTime: FiniteDuration): Limit = copy(maxQueued = maxQueued, maxQueueTime = maxQueueTime)
+  def withFastFail: Limit = copy(maxQueued = 0)
+}
+
+object Limit {
+  /** Java-friendly access to the default limit. */
+  def defaults: Limit = Limit()
+}
@@ -0,0 +1,37 @@
+package com.wix.restaurants.limits
+
+import com.wix.restaurants.compression.CallClass
+
+import scala.concurrent.duration._
+
+/**
+ * Bulkheads and rate limits per organization, so that one tenant's heavy use (e.g. a full order history export) can't
+ * take the connections that other tenants' calls need.
+ *
+ * Calls are partitioned by the organization (or restaurant) they address, and by their call class. Each partition is
+ * limited separately, by the limit of its call class. Calls that don't address an organization (e.g. user accounts)
+ * share a single partition per call class.
+ *
+ * A partition that has been idle (no calls in flight or queued, and a full token bucket) for idleTimeout is dropped,
+ * together with its [[LimitStats]], so that a client serving many organizations only keeps those in use.
+ *
+ * Limits apply to requests actually sent: cached and coalesced responses don't count. Retries of a call (see
+ * [[com.wix.restaurants.resilience.ResilienceSettings]]) are made within the call's slot.
+ *
+ * @param defaultLimit Limit of the call classes without one of their own.
+ * @param idleTimeout  How long a partition may stay idle before it is dropped.
+ */
+case class LimitSettings(defaultLimit: Limit = Limit(),
+                         limits: Map[CallClass, Limit] = Map.empty,
+                         idleTimeout: FiniteDuration = 1.minute) {
+  def withDefaultLimit(limit: Limit): LimitSettings = copy(defaultLimit = limit)
+  def withLimit(callClass: CallClass, limit: Limit): LimitSettings = copy(limits = limits + (callClass -> limit))
+  def withIdleTimeout(idleTimeout: FiniteDuration): LimitSettings = copy(idleTimeout = idleTimeout)
+
+  def limitOf(callClass: CallClass): Limit = limits.getOrElse(callClass, defaultLimit)
+}
+
+object LimitSettings {
+  /** Java-friendly access to the default settings. */
+  def defaults: LimitSettings = LimitSettings()
+}
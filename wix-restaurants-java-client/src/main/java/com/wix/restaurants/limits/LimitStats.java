@@ -0,0 +1,37 @@
+package com.wix.restaurants.limits;
+
+import com.wix.restaurants.compression.CallClass;
+
+/** Point-in-time counters of one partition (an organization's calls of one call class). */
+public class LimitStats {
+    /** The organization, or null for the partition of calls that don't address one. */
+    public final String organizationId;
+    public final CallClass callClass;
+    /** Calls currently in flight. */
+    public final int inFlight;
+    /** Calls currently waiting for a slot. */
+    public final int queued;
+    /** Calls let through so far, with or without waiting. */
+    public final long admitted;
+    /** Calls failed because the queue was full (or queueing is disabled). */
+    public final long rejected;
+    /** Calls failed because they waited for longer than maxQueueTime. */
+    public final long timedOut;
+
+    public LimitStats(String organizationId, CallClass callClass, int inFlight, int queued,
+                      long admitted, long rejected, long timedOut) {
+        this.organizationId = organizationId;
+        this.callClass = callClass;
+        this.inFlight = inFlight;
+        this.queued = queued;
+        this.admitted = admitted;
+        this.rejected = rejected;
+        this.timedOut = timedOut;
+    }
+
+    @Override
+    public String toString() {
+        return "LimitStats(" + organizationId + ", " + callClass + ", inFlight=" + inFlight + ", queued=" + queued +
+                ", admitted=" + admitted + ", rejected=" + rejected + ", timedOut=" + timedOut + ")";
+    }
+}
@@ -0,0 +1,81 @@
+package com.wix.restaurants.menus;
+
+import com.openrest.v1_1.Menu;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Structural difference between two versions of a menu: the items and sections that were added, removed or changed,
+ * and which aspects of each changed.
+ *
+ * Items are identified by id. Sections are identified by id too, or by their position in the menu if they have none.
+ * A section whose child sections changed is only reported as changed if the list of children itself changed.
+ */
+public class MenuDiff {
+    public enum Type {
+        ADDED,
+        REMOVED,
+        CHANGED
+    }
+
+    public enum Aspect {
+        /** An item's price, or the choice prices of its variations. */
+        PRICE,
+        /** An item's variations, other than their prices. */
+        VARIATIONS,
+        AVAILABILITY,
+        /** A section's item ids. */
+        ITEMS,
+        /** A section's child sections (which, not their contents). */
+        CHILDREN,
+        /** Anything else: titles, descriptions, media, properties etc. */
+        CONTENT
+    }
+
+    public static class Change {
+        public final Type type;
+        public final String id;
+        /** What changed, for {@link Type#CHANGED}; empty otherwise. */
+        public final Set<Aspect> aspects;
+
+        public Change(Type type, String id, Set<Aspect> aspects) {
+            this.type = type;
+            this.id = id;
+            this.aspects = Collections.unmodifiableSet(aspects);
+        }
+
+        @Override
+        public String toString() {
+            return type + "(" + id + ((type == Type.CHANGED) ? ", " + aspects : "") + ")";
+        }
+    }
+
+    /** Changed items, in menu order, followed by those that were removed. */
+    public final List<Change> items;
+    /** Changed sections, in (depth-first) menu order, followed by those that were removed. */
+    public final List<Change> sections;
+
+    public MenuDiff(List<Change> items, List<Change> sections) {
+        this.items = Collections.unmodifiableList(items);
+        this.sections = Collections.unmodifiableList(sections);
+    }
+
+    public static MenuDiff empty() {
+        return new MenuDiff(Collections.<Change>emptyList(), Collections.<Change>emptyList());
+    }
+
+    public static MenuDiff between(Menu before, Menu after) {
+        return MenuFingerprint.of(before).diff(MenuFingerprint.of(after));
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty() && sections.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "MenuDiff(items: " + items + ", sections: " + sections + ")";
+    }
+}
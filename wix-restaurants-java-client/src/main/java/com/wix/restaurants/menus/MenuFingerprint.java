@@ -0,0 +1,301 @@
+package com.wix.restaurants.menus;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openrest.v1_1.Menu;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact summary of a menu: a 64-bit hash of every aspect of every item and section, from which the
+ * {@link MenuDiff} to another version of the menu is computed without keeping the menu itself.
+ *
+ * Fingerprints are computed in a single streaming pass over the menu's JSON, and diffed, in time linear in the size
+ * of the menu. Object fields are hashed independently of their order, so fingerprints don't depend on the iteration
+ * order of the menu's maps.
+ */
+public class MenuFingerprint {
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    private static final JsonFactory jsonFactory = mapper.getFactory();
+
+    private static final MenuDiff.Aspect[] aspects = MenuDiff.Aspect.values();
+    private static final int price = MenuDiff.Aspect.PRICE.ordinal();
+    private static final int variations = MenuDiff.Aspect.VARIATIONS.ordinal();
+    private static final int availability = MenuDiff.Aspect.AVAILABILITY.ordinal();
+    private static final int items = MenuDiff.Aspect.ITEMS.ordinal();
+    private static final int children = MenuDiff.Aspect.CHILDREN.ordinal();
+    private static final int content = MenuDiff.Aspect.CONTENT.ordinal();
+
+    private static final long objectSeed = 0x9e3779b97f4a7c15L;
+    private static final long arraySeed = 0xc2b2ae3d27d4eb4fL;
+    private static final long emptyObject = mix(objectSeed);
+
+    // Aspect hashes of each item/section, indexed by aspect ordinal
+    private final Map<String, long[]> itemHashes;
+    private final Map<String, long[]> sectionHashes;
+
+    private MenuFingerprint(Map<String, long[]> itemHashes, Map<String, long[]> sectionHashes) {
+        this.itemHashes = itemHashes;
+        this.sectionHashes = sectionHashes;
+    }
+
+    public static MenuFingerprint of(Menu menu) {
+        try {
+            return of(mapper.writeValueAsBytes(menu));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @param json The menu, serialized as JSON (e.g. the body of a menu upload). */
+    public static MenuFingerprint of(String json) {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return of(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MenuFingerprint of(byte[] json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return of(parser);
+        }
+    }
+
+    private static MenuFingerprint of(JsonParser parser) throws IOException {
+        final Map<String, long[]> itemHashes = new LinkedHashMap<>();
+        final List<String> sectionKeys = new ArrayList<>();
+        final List<long[]> sectionHashes = new ArrayList<>();
+
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if (field.equals("items") && (value == JsonToken.START_ARRAY)) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    addItem(parser, itemHashes);
+                }
+            } else if (field.equals("sections") && (value == JsonToken.START_ARRAY)) {
+                int index = 0;
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    addSection(parser, "#" + index++, sectionKeys, sectionHashes);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        final Map<String, long[]> sections = new LinkedHashMap<>(sectionKeys.size() * 2);
+        for (int i = 0; i < sectionKeys.size(); ++i) {
+            sections.put(sectionKeys.get(i), sectionHashes.get(i));
+        }
+        return new MenuFingerprint(itemHashes, sections);
+    }
+
+    /** @return what changed from this (older) version of the menu to the given (newer) one. */
+    public MenuDiff diff(MenuFingerprint newer) {
+        return new MenuDiff(diff(itemHashes, newer.itemHashes), diff(sectionHashes, newer.sectionHashes));
+    }
+
+    private static List<MenuDiff.Change> diff(Map<String, long[]> before, Map<String, long[]> after) {
+        final List<MenuDiff.Change> changes = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : after.entrySet()) {
+            final long[] previous = before.get(entry.getKey());
+            if (previous == null) {
+                changes.add(new MenuDiff.Change(MenuDiff.Type.ADDED, entry.getKey(), EnumSet.noneOf(MenuDiff.Aspect.class)));
+            } else if (!Arrays.equals(previous, entry.getValue())) {
+                final Set<MenuDiff.Aspect> changed = EnumSet.noneOf(MenuDiff.Aspect.class);
+                for (int i = 0; i < aspects.length; ++i) {
+                    if (previous[i] != entry.getValue()[i]) {
+                        changed.add(aspects[i]);
+                    }
+                }
+                changes.add(new MenuDiff.Change(MenuDiff.Type.CHANGED, entry.getKey(), changed));
+            }
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                changes.add(new MenuDiff.Change(MenuDiff.Type.REMOVED, key, EnumSet.noneOf(MenuDiff.Aspect.class)));
+            }
+        }
+        return changes;
+    }
+
+    /** Parses an item, from just after its START_OBJECT to its END_OBJECT. */
+    private static void addItem(JsonParser parser, Map<String, long[]> itemHashes) throws IOException {
+        final long[] hashes = new long[aspects.length];
+        String id = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final long fieldHash = hashText(field);
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getValueAsString();
+                    break;
+                case "price":
+                    hashes[price] += mix(fieldHash, hashValue(parser));
+                    break;
+                case "availability":
+                    hashes[availability] += mix(fieldHash, hashValue(parser));
+                    break;
+                case "variations":
+                    // Choice prices count as price changes, anything else about the variations as a variations change
+                    int index = 0;
+                    if (parser.currentToken() == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            addVariation(parser, index++, hashes);
+                        }
+                    } else {
+                        hashes[variations] += mix(fieldHash, hashValue(parser));
+                    }
+                    hashes[variations] += mix(fieldHash, index);
+                    break;
+                default:
+                    hashes[content] += mix(fieldHash, hashValue(parser));
+                    break;
+            }
+        }
+        itemHashes.put(id, hashes);
+    }
+
+    private static void addVariation(JsonParser parser, int index, long[] hashes) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final long fieldHash = mix(hashText(field), index);
+            parser.nextToken();
+            final long valueHash = hashValue(parser);
+            if (!field.equals("prices")) {
+                hashes[variations] += mix(fieldHash, valueHash);
+            } else if (valueHash != emptyObject) {
+                hashes[price] += mix(fieldHash, valueHash);
+            }
+        }
+    }
+
+    /**
+     * Parses a section and its children, from just after its START_OBJECT to its END_OBJECT. Sections are added in
+     * depth-first order, parents before their children.
+     *
+     * @return the section's key.
+     */
+    private static String addSection(JsonParser parser, String position, List<String> keys, List<long[]> sectionHashes)
+            throws IOException {
+        final int slot = keys.size();
+        final long[] hashes = new long[aspects.length];
+        keys.add(null); // The id may come after the children
+        sectionHashes.add(hashes);
+
+        String id = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final long fieldHash = hashText(field);
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getValueAsString();
+                    break;
+                case "children":
+                    // Which children, by key; their contents are hashed as sections of their own
+                    long childrenHash = arraySeed;
+                    if (parser.currentToken() == JsonToken.START_ARRAY) {
+                        int index = 0;
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            final String childKey = addSection(parser, position + "/" + index++, keys, sectionHashes);
+                            childrenHash = mix(childrenHash, hashText(childKey));
+                        }
+                    } else {
+                        childrenHash = hashValue(parser);
+                    }
+                    hashes[children] += mix(fieldHash, childrenHash);
+                    break;
+                case "itemIds":
+                    hashes[items] += mix(fieldHash, hashValue(parser));
+                    break;
+                case "availability":
+                    hashes[availability] += mix(fieldHash, hashValue(parser));
+                    break;
+                default:
+                    hashes[content] += mix(fieldHash, hashValue(parser));
+                    break;
+            }
+        }
+
+        final String key = (id != null) ? id : position;
+        keys.set(slot, key);
+        return key;
+    }
+
+    /** Hashes the value at the parser's current token, leaving the parser on its last token. */
+    private static long hashValue(JsonParser parser) throws IOException {
+        final JsonToken token = parser.currentToken();
+        switch (token) {
+            case START_OBJECT:
+                // Sum of field hashes, so that field order doesn't matter
+                long objectHash = objectSeed;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final long fieldHash = hashText(parser.getCurrentName());
+                    parser.nextToken();
+                    objectHash += mix(fieldHash, hashValue(parser));
+                }
+                return mix(objectHash);
+            case START_ARRAY:
+                long arrayHash = arraySeed;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    arrayHash = mix(arrayHash, hashValue(parser));
+                }
+                return arrayHash;
+            default:
+                return mix(token.ordinal(), hashText(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but got " + actual);
+        }
+    }
+
+    // 64-bit FNV-1a over UTF-16 code units, and the MurmurHash3 finalizer for combining
+
+    private static long hashText(String s) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); ++i) {
+            hash = (hash ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long hashText(char[] chars, int offset, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; ++i) {
+            hash = (hash ^ chars[i]) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mix(long a, long b) {
+        return mix(a * 31 + mix(b));
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,27 @@
+package com.wix.restaurants.menus;
+
+import com.openrest.v1_1.Menu;
+
+/** Outcome of uploading a menu with the client's updateMenu. */
+public class MenuUpdate {
+    /** The menu as stored by the server (when not uploaded, as returned by the previous upload). */
+    public final Menu menu;
+    /**
+     * What changed since the last menu uploaded by this client to the same restaurant and location, or null if
+     * that's unknown (no previous upload, or menu upload tracking is disabled).
+     */
+    public final MenuDiff diff;
+    /** Whether the menu was actually uploaded, rather than skipped as unchanged. */
+    public final boolean uploaded;
+
+    public MenuUpdate(Menu menu, MenuDiff diff, boolean uploaded) {
+        this.menu = menu;
+        this.diff = diff;
+        this.uploaded = uploaded;
+    }
+
+    @Override
+    public String toString() {
+        return "MenuUpdate(uploaded=" + uploaded + ", diff=" + diff + ")";
+    }
+}
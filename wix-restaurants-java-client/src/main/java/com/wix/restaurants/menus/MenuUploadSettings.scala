@@ -0,0 +1,24 @@
+package com.wix.restaurants.menus
+
+import scala.concurrent.duration._
+
+/**
+ * Tracking of the last menu uploaded per restaurant and location, so that uploads identical to it are skipped.
+ *
+ * The server's copy may be changed by others (e.g. from the dashboard) without this client knowing, so identical
+ * menus are uploaded anyway once the last upload is older than maxAge. Writes this client makes to the restaurant
+ * through other calls reset its tracking immediately.
+ *
+ * @param maxAge       How long after an upload identical menus are skipped.
+ * @param maxLocations Maximum number of (restaurant, location) pairs tracked; the least recently used are dropped.
+ */
+case class MenuUploadSettings(maxAge: FiniteDuration = 1.hour,
+                              maxLocations: Int = 10000) {
+  def withMaxAge(maxAge: FiniteDuration): MenuUploadSettings = copy(maxAge = maxAge)
+  def withMaxLocations(maxLocations: Int): MenuUploadSettings = copy(maxLocations = maxLocations)
+}
+
+object MenuUploadSettings {
+  /** Java-friendly access to the default settings. */
+  def defaults: MenuUploadSettings = MenuUploadSettings()
+}
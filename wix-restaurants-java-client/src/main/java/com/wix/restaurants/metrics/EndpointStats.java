@@ -0,0 +1,51 @@
+package com.wix.restaurants.metrics;
+
+import java.util.Map;
+
+/** Point-in-time counters and latencies of one endpoint (method and path template). */
+public class EndpointStats {
+    public final String method;
+    public final String endpoint;
+    /** Completed requests, including failed ones. */
+    public final long requests;
+    /** Requests that failed. */
+    public final long errors;
+    /** Failed requests by error type (see {@link RequestEvent#errorType()}). */
+    public final Map<String, Long> errorsByType;
+    /** Requests by HTTP status, for the requests whose status is known. */
+    public final Map<Integer, Long> requestsByStatus;
+    /** Total request body bytes sent, for the requests whose size is known. */
+    public final long requestBytes;
+    /** Total response body bytes received, for the requests whose size is known. */
+    public final long responseBytes;
+    /** Queue plus service time, in microseconds. */
+    public final LatencyHistogram latency;
+    /** Service time only, in microseconds. */
+    public final LatencyHistogram serviceTime;
+
+    public EndpointStats(String method, String endpoint, long requests, long errors,
+                         Map<String, Long> errorsByType, Map<Integer, Long> requestsByStatus,
+                         long requestBytes, long responseBytes, LatencyHistogram latency, LatencyHistogram serviceTime) {
+        this.method = method;
+        this.endpoint = endpoint;
+        this.requests = requests;
+        this.errors = errors;
+        this.errorsByType = errorsByType;
+        this.requestsByStatus = requestsByStatus;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.latency = latency;
+        this.serviceTime = serviceTime;
+    }
+
+    public double errorRate() {
+        return (requests == 0) ? 0.0 : (double) errors / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointStats(" + method + " " + endpoint + ", requests=" + requests + ", errors=" + errors +
+                ", p50=" + latency.percentile(50) + "us, p99=" + latency.percentile(99) + "us, max=" + latency.max() +
+                "us, requestBytes=" + requestBytes + ", responseBytes=" + responseBytes + ")";
+    }
+}
@@ -0,0 +1,114 @@
+package com.wix.restaurants.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, lock-free histogram of latencies in microseconds, in the manner of HdrHistogram.
+ *
+ * Values under 64us are counted exactly. Above that, every power of 2 is split into 32 linear buckets, so recorded
+ * values (and the percentiles computed from them) are within ~3% of the actual ones. Values are capped at 2^40us
+ * (about 12 days). Recording is a handful of atomic increments, and never allocates.
+ */
+public class LatencyHistogram {
+    private static final int EXACT = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MIN_EXPONENT = 6; // log2(EXACT)
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = EXACT + (MAX_EXPONENT - MIN_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        final long value = Math.min(Math.max(micros, 0L), MAX_VALUE);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /** @return the largest recorded value, in microseconds (exact). */
+    public long max() {
+        return max.get();
+    }
+
+    /** @return the mean of the recorded values, in microseconds (exact). */
+    public double mean() {
+        final long n = count.sum();
+        return (n == 0) ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile e.g. 99.9
+     * @return the value that the given percentage of recorded values are at or below, in microseconds (0 if nothing
+     *         was recorded).
+     */
+    public long percentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max());
+            }
+        }
+        return max();
+    }
+
+    /** @return a copy of this histogram, which is unaffected by values recorded from now on. */
+    public LatencyHistogram snapshot() {
+        final LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; ++i) {
+            copy.counts.set(i, counts.get(i));
+        }
+        copy.count.add(count.sum());
+        copy.sum.add(sum.sum());
+        copy.max.set(max.get());
+        return copy;
+    }
+
+    static int bucketOf(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT + (exponent - MIN_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueOf(int bucket) {
+        if (bucket < EXACT) {
+            return bucket;
+        }
+        final int exponent = (bucket - EXACT) / SUB_BUCKETS + MIN_EXPONENT;
+        final long subBucket = (bucket - EXACT) % SUB_BUCKETS;
+        final long lowest = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram(count=" + count() + ", p50=" + percentile(50) + "us, p99=" + percentile(99) +
+                "us, max=" + max() + "us)";
+    }
+}
@@ -0,0 +1,61 @@
+package com.wix.restaurants.metrics;
+
+/** A completed request, as reported to a {@link RequestListener}. */
+public class RequestEvent {
+    /** HTTP method, e.g. "GET". */
+    public final String method;
+    /**
+     * The request path relative to the API URL, with ids replaced by "{id}" and without the query, e.g.
+     * "/organizations/{id}/orders/{id}/accept".
+     */
+    public final String endpoint;
+    /**
+     * HTTP status of the response, or 0 if the request failed before a response was received.
+     */
+    public final int status;
+    /** The error the request failed with, or null if it succeeded. */
+    public final Throwable error;
+    /** Size of the request body as sent (i.e. after compression), or -1 if it is not known. */
+    public final long requestBytes;
+    /**
+     * Size of the response body as received, or as read after decompression when that is all that is known, or -1 if
+     * it is not known.
+     */
+    public final long responseBytes;
+    /** Time from the call until the request was handed to the connection pool. */
+    public final long queueNanos;
+    /** Time from handing the request to the connection pool until the response was fully read, or the request failed. */
+    public final long serviceNanos;
+
+    public RequestEvent(String method, String endpoint, int status, Throwable error,
+                        long requestBytes, long responseBytes, long queueNanos, long serviceNanos) {
+        this.method = method;
+        this.endpoint = endpoint;
+        this.status = status;
+        this.error = error;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.queueNanos = queueNanos;
+        this.serviceNanos = serviceNanos;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /** @return the simple class name of the error (e.g. "NotFoundException"), or null if the request succeeded. */
+    public String errorType() {
+        return (error != null) ? error.getClass().getSimpleName() : null;
+    }
+
+    public long latencyNanos() {
+        return queueNanos + serviceNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestEvent(" + method + " " + endpoint + ", status=" + status + ", error=" + errorType() +
+                ", requestBytes=" + requestBytes + ", responseBytes=" + responseBytes +
+                ", queueNanos=" + queueNanos + ", serviceNanos=" + serviceNanos + ")";
+    }
+}
@@ -0,0 +1,14 @@
+package com.wix.restaurants.metrics;
+
+/**
+ * Receives an event for every HTTP request a client sends, once the request completes (successfully or not).
+ *
+ * Calls are made on the client's dispatcher, possibly from several threads at once, so implementations must be
+ * thread-safe and fast; hand anything slow off to another thread. Exceptions thrown by a listener are ignored.
+ *
+ * Responses served from a client-side cache, and requests coalesced into one already in flight, are not requests,
+ * and are not reported.
+ */
+public interface RequestListener {
+    void onRequest(RequestEvent event);
+}
@@ -0,0 +1,127 @@
+package com.wix.restaurants.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in {@link RequestListener} that keeps counters and latency histograms per endpoint, in memory.
+ *
+ * Recording takes no locks and doesn't allocate once an endpoint (and its error types and statuses) has been seen.
+ * Memory is fixed per endpoint (about 25KB), and the number of endpoints is bounded by the client's API.
+ */
+public class RequestMetrics implements RequestListener {
+    private static final int MAX_STATUS = 599;
+
+    // By endpoint, then by method
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Endpoint>> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void onRequest(RequestEvent event) {
+        ConcurrentHashMap<String, Endpoint> methods = endpoints.get(event.endpoint);
+        if (methods == null) {
+            methods = endpoints.computeIfAbsent(event.endpoint, k -> new ConcurrentHashMap<>());
+        }
+        Endpoint endpoint = methods.get(event.method);
+        if (endpoint == null) {
+            endpoint = methods.computeIfAbsent(event.method, k -> new Endpoint(event.method, event.endpoint));
+        }
+        endpoint.record(event);
+    }
+
+    /** @return the stats of the given endpoint (e.g. "GET", "/organizations/{id}/menu"), or null if it wasn't called. */
+    public EndpointStats get(String method, String endpoint) {
+        final Map<String, Endpoint> methods = endpoints.get(endpoint);
+        final Endpoint theEndpoint = (methods != null) ? methods.get(method) : null;
+        return (theEndpoint != null) ? theEndpoint.stats() : null;
+    }
+
+    /** @return the stats of every endpoint called so far, by endpoint and then method. */
+    public List<EndpointStats> getStats() {
+        final List<EndpointStats> stats = new ArrayList<>();
+        for (Map<String, Endpoint> methods : endpoints.values()) {
+            for (Endpoint endpoint : methods.values()) {
+                stats.add(endpoint.stats());
+            }
+        }
+        stats.sort(Comparator.<EndpointStats, String>comparing(s -> s.endpoint).thenComparing(s -> s.method));
+        return stats;
+    }
+
+    /** Forgets everything recorded so far. */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static class Endpoint {
+        private final String method;
+        private final String endpoint;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final ConcurrentHashMap<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+        private final AtomicLongArray requestsByStatus = new AtomicLongArray(MAX_STATUS + 1);
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+
+        Endpoint(String method, String endpoint) {
+            this.method = method;
+            this.endpoint = endpoint;
+        }
+
+        void record(RequestEvent event) {
+            requests.increment();
+            if (event.error != null) {
+                errors.increment();
+                counter(errorsByType, event.errorType()).increment();
+            }
+            if ((event.status > 0) && (event.status <= MAX_STATUS)) {
+                requestsByStatus.incrementAndGet(event.status);
+            }
+            if (event.requestBytes > 0) {
+                requestBytes.add(event.requestBytes);
+            }
+            if (event.responseBytes > 0) {
+                responseBytes.add(event.responseBytes);
+            }
+            latency.record(TimeUnit.NANOSECONDS.toMicros(event.latencyNanos()));
+            serviceTime.record(TimeUnit.NANOSECONDS.toMicros(event.serviceNanos));
+        }
+
+        private static LongAdder counter(ConcurrentHashMap<String, LongAdder> counters, String key) {
+            final LongAdder counter = counters.get(key);
+            return (counter != null) ? counter : counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+
+        EndpointStats stats() {
+            return new EndpointStats(method, endpoint, requests.sum(), errors.sum(),
+                    sums(errorsByType), statuses(), requestBytes.sum(), responseBytes.sum(),
+                    latency.snapshot(), serviceTime.snapshot());
+        }
+
+        private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+            final Map<String, Long> sums = new TreeMap<>();
+            counters.forEach((key, counter) -> sums.put(key, counter.sum()));
+            return Collections.unmodifiableMap(sums);
+        }
+
+        private Map<Integer, Long> statuses() {
+            final Map<Integer, Long> statuses = new TreeMap<>();
+            for (int status = 0; status <= MAX_STATUS; ++status) {
+                final long count = requestsByStatus.get(status);
+                if (count > 0) {
+                    statuses.put(status, count);
+                }
+            }
+            return Collections.unmodifiableMap(statuses);
+        }
+    }
+}
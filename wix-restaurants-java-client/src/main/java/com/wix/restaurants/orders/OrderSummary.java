@@ -0,0 +1,67 @@
+package com.wix.restaurants.orders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.openrest.olo.dispatches.Dispatch;
+import com.openrest.v1_1.Order;
+
+import java.util.Date;
+
+/**
+ * The few fields of an order that lists (e.g. kitchen displays, dashboards) show, bound straight from the order's
+ * JSON: items, payments, properties and the rest of the order are skipped while parsing, and never materialized.
+ *
+ * Retrieve the full order by id (e.g. with retrieveOrderAsRestaurant, or retrieveOrdersByIdAsRestaurant for several)
+ * once it is actually needed.
+ */
+@JsonDeserialize(using = OrderSummaryDeserializer.class)
+public class OrderSummary {
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    public final String id;
+    public final String restaurantId;
+    /** @see Statuses */
+    public final String status;
+    public final Date created;
+    public final Date modified;
+    /** Total price, in the currency's minor units (e.g. cents), or null if unknown. */
+    public final Integer price;
+    public final String currency;
+    /** The order's dispatch type (e.g. delivery or takeout), or null if it has none. */
+    public final String dispatchType;
+    public final String contactFirstName;
+    public final String contactLastName;
+
+    public OrderSummary(String id, String restaurantId, String status, Date created, Date modified, Integer price,
+                        String currency, String dispatchType, String contactFirstName, String contactLastName) {
+        this.id = id;
+        this.restaurantId = restaurantId;
+        this.status = status;
+        this.created = created;
+        this.modified = modified;
+        this.price = price;
+        this.currency = currency;
+        this.dispatchType = dispatchType;
+        this.contactFirstName = contactFirstName;
+        this.contactLastName = contactLastName;
+    }
+
+    /** @return the summary of an order that is already fully materialized. */
+    public static OrderSummary of(Order order) {
+        return new OrderSummary(order.id, order.restaurantId, order.status, order.created, order.modified,
+                order.price, order.currency,
+                dispatchTypeOf(order.delivery),
+                (order.contact != null) ? order.contact.firstName : null,
+                (order.contact != null) ? order.contact.lastName : null);
+    }
+
+    /** The dispatch's "type" as it appears in JSON (where it may be implied by the dispatch's class). */
+    private static String dispatchTypeOf(Dispatch dispatch) {
+        return (dispatch != null) ? mapper.valueToTree(dispatch).path("type").asText(null) : null;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderSummary(id=" + id + ", status=" + status + ", price=" + price + ")";
+    }
+}
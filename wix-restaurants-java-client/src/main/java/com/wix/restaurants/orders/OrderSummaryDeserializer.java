@@ -0,0 +1,120 @@
+package com.wix.restaurants.orders;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Binds an {@link OrderSummary} from an order's JSON in a single pass, skipping the subtrees of all other fields
+ * without binding (or buffering) them. Field values are parsed like full binding parses the same fields of an Order.
+ */
+public class OrderSummaryDeserializer extends StdDeserializer<OrderSummary> {
+    public OrderSummaryDeserializer() {
+        super(OrderSummary.class);
+    }
+
+    @Override
+    public OrderSummary deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        }
+        if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (OrderSummary) ctxt.handleUnexpectedToken(OrderSummary.class, p);
+        }
+
+        String id = null;
+        String restaurantId = null;
+        String status = null;
+        Date created = null;
+        Date modified = null;
+        Integer price = null;
+        String currency = null;
+        String dispatchType = null;
+        String contactFirstName = null;
+        String contactLastName = null;
+
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            final String field = p.getCurrentName();
+            p.nextToken();
+            switch (field) {
+                case "id":
+                    id = parseString(p, ctxt);
+                    break;
+                case "restaurantId":
+                    restaurantId = parseString(p, ctxt);
+                    break;
+                case "status":
+                    status = parseString(p, ctxt);
+                    break;
+                case "created":
+                    created = _parseDate(p, ctxt);
+                    break;
+                case "modified":
+                    modified = _parseDate(p, ctxt);
+                    break;
+                case "price":
+                    price = (p.getCurrentToken() == JsonToken.VALUE_NULL) ? null : _parseIntPrimitive(p, ctxt);
+                    break;
+                case "currency":
+                    currency = parseString(p, ctxt);
+                    break;
+                case "delivery":
+                    for (String nested = firstField(p); nested != null; nested = nextField(p)) {
+                        if (nested.equals("type")) {
+                            dispatchType = parseString(p, ctxt);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                    break;
+                case "contact":
+                    for (String nested = firstField(p); nested != null; nested = nextField(p)) {
+                        if (nested.equals("firstName")) {
+                            contactFirstName = parseString(p, ctxt);
+                        } else if (nested.equals("lastName")) {
+                            contactLastName = parseString(p, ctxt);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+
+        return new OrderSummary(id, restaurantId, status, created, modified, price, currency, dispatchType,
+                contactFirstName, contactLastName);
+    }
+
+    private String parseString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return (p.getCurrentToken() == JsonToken.VALUE_NULL) ? null : _parseString(p, ctxt);
+    }
+
+    /**
+     * Enters a nested object, positioned at its value.
+     * @return the name of its first field, or null if it is empty (or not an object at all, e.g. null).
+     */
+    private static String firstField(JsonParser p) throws IOException {
+        if (p.getCurrentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        return nextField(p);
+    }
+
+    /** @return the name of the nested object's next field, positioned at its value, or null at the object's end. */
+    private static String nextField(JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.FIELD_NAME) {
+            return null;
+        }
+        final String field = p.getCurrentName();
+        p.nextToken();
+        return field;
+    }
+}
@@ -8,7 +8,6 @@ import com.wix.restaurants.helpers.PriceCalculator;
 import com.wix.restaurants.i18n.Locale;
 import com.wix.restaurants.payments.Payment;
 
-import java.math.BigDecimal;
 import java.util.Currency;
 
 public class OrderBuilder {
@@ -62,7 +61,7 @@ public class OrderBuilder {
 
     public OrderBuilder addItem(OrderItem orderItem) {
         order.orderItems.add(orderItem);
-        order.price += BigDecimal.valueOf(calculator.price(orderItem)).movePointRight(2).intValueExact();
+        order.price = Math.addExact(order.price, Math.toIntExact(calculator.priceInCents(orderItem)));
         return this;
     }
 
@@ -0,0 +1,33 @@
+package com.wix.restaurants.paging
+
+import scala.concurrent.duration._
+
+/**
+ * Page sizing for the stream* history queries.
+ *
+ * Each page is sized from the previous one's latency and average item size, aiming at the targets below, and
+ * never grows or shrinks by more than a factor of 2 at a time.
+ *
+ * @param pageTimeout How long consuming a stream waits for a page, past which the stream is closed and fails with a
+ *                    TimeoutException.
+ */
+case class PagingSettings(initialPageSize: Int = 100,
+                          minPageSize: Int = 10,
+                          maxPageSize: Int = 1000,
+                          targetPageLatency: FiniteDuration = 1.second,
+                          targetPageBytes: Long = 1024L * 1024,
+                          pageTimeout: Duration = Duration.Inf) {
+  require(minPageSize > 0 && minPageSize <= initialPageSize && initialPageSize <= maxPageSize,
+    s"Expected 0 < minPageSize <= initialPageSize <= maxPageSize, got $minPageSize, $initialPageSize, $maxPageSize")
+
+  def withInitialPageSize(initialPageSize: Int): PagingSettings = copy(initialPageSize = initialPageSize)
+  def withPageSizeRange(minPageSize: Int, maxPageSize: Int): PagingSettings = copy(minPageSize = minPageSize, maxPageSize = maxPageSize)
+  def withTargetPageLatency(targetPageLatency: FiniteDuration): PagingSettings = copy(targetPageLatency = targetPageLatency)
+  def withTargetPageBytes(targetPageBytes: Long): PagingSettings = copy(targetPageBytes = targetPageBytes)
+  def withPageTimeout(pageTimeout: Duration): PagingSettings = copy(pageTimeout = pageTimeout)
+}
+
+object PagingSettings {
+  /** Java-friendly access to the default settings. */
+  def defaults: PagingSettings = PagingSettings()
+}
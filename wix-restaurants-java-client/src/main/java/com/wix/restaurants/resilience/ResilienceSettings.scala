@@ -0,0 +1,81 @@
+package com.wix.restaurants.resilience
+
+import com.wix.restaurants.exceptions.{CircuitOpenException, CommunicationException, InternalException, LimitExceededException, TemporarilyUnavailableException}
+
+import scala.concurrent.TimeoutException
+import scala.concurrent.duration._
+
+/**
+ * Retries, circuit breaking and hedging for transient failures.
+ *
+ * Retries: GETs and PUTs (which are safe to repeat) are retried up to maxRetries times when they fail with a retryable
+ * error. Deletes, and accepting, rejecting or canceling an order or reservation, are retried only when the error also
+ * shows that the request wasn't applied (see isUnapplied): after a timeout or a server error, the first attempt may
+ * have been applied, and a retry would fail (e.g. with a conflict) although the call succeeded. Each retry waits a
+ * random delay between 0 and the current backoff (full jitter), which starts at initialBackoff and is multiplied by
+ * backoffMultiplier after every retry, up to maxBackoff. Writes that may be retried are sent with an Idempotency-Key,
+ * the same for every attempt; it is advisory, as the API isn't known to honor it. Other writes (e.g. submitOrder) are
+ * never retried.
+ *
+ * Circuit breaking: after failureThreshold consecutive retryable errors from a host, calls to it fail immediately with
+ * [[CircuitOpenException]] for resetTimeout. Then a single trial call is let through, which closes the circuit if it
+ * succeeds and reopens it otherwise; results of calls sent before the circuit opened are ignored. Client errors (e.g.
+ * NotFoundException) don't count as failures.
+ *
+ * Hedging: a read of organizations, restaurant info, menus, notifications or secrets that hasn't completed within
+ * hedgeAfter is sent again, and whichever response arrives first is used. Off by default.
+ *
+ * @param retryWrites Whether writes are retried too, as above; GETs are retried regardless.
+ * @param retryable   Which errors are transient: by default server-side errors, communication failures and timeouts.
+ */
+case class ResilienceSettings(maxRetries: Int = 3,
+                              initialBackoff: FiniteDuration = 100.millis,
+                              maxBackoff: FiniteDuration = 2.seconds,
+                              backoffMultiplier: Double = 2.0,
+                              retryWrites: Boolean = true,
+                              failureThreshold: Int = 5,
+                              resetTimeout: FiniteDuration = 10.seconds,
+                              hedgeAfter: Option[FiniteDuration] = None,
+                              retryable: Throwable => Boolean = ResilienceSettings.isTransient) {
+  require(maxRetries >= 0, s"maxRetries must not be negative, got $maxRetries")
+  require(backoffMultiplier >= 1.0, s"backoffMultiplier must be at least 1, got $backoffMultiplier")
+  require(failureThreshold > 0, s"failureThreshold must be positive, got $failureThreshold")
+
+  def withMaxRetries(maxRetries: Int): ResilienceSettings = copy(maxRetries = maxRetries)
+  def withBackoff(initial: FiniteDuration, max: FiniteDuration): ResilienceSettings = copy(initialBackoff = initial, maxBackoff = max)
+  def withBackoffMultiplier(multiplier: Double): ResilienceSettings = copy(backoffMultiplier = multiplier)
+  def withRetryWrites(retryWrites: Boolean): ResilienceSettings = copy(retryWrites = retryWrites)
+  def withFailureThreshold(failureThreshold: Int): ResilienceSettings = copy(failureThreshold = failureThreshold)
+  def withResetTimeout(resetTimeout: FiniteDuration): ResilienceSettings = copy(resetTimeout = resetTimeout)
+  def withHedgeAfter(hedgeAfter: FiniteDuration): ResilienceSettings = copy(hedgeAfter = Some(hedgeAfter))
+  def withoutHedging: ResilienceSettings = copy(hedgeAfter = None)
+}
+
+object ResilienceSettings {
+  /** Java-friendly access to the default settings. */
+  def defaults: ResilienceSettings = ResilienceSettings()
+
+  def isTransient(error: Throwable): Boolean = {
+    error match {
+      case _: CircuitOpenException | _: LimitExceededException => false
+      case _: TemporarilyUnavailableException | _: InternalException | _: CommunicationException => true
+      case _: TimeoutException | _: java.util.concurrent.TimeoutException => true
+      case _: java.io.IOException | _: akka.stream.StreamTcpException => true
+      case _ => false
+    }
+  }
+
+  /**
+   * Whether the error shows that the request wasn't applied: it was never sent (the connection was refused, or the
+   * client turned it down), or the API turned it down as temporarily unavailable, without processing it.
+   */
+  def isUnapplied(error: Throwable): Boolean = {
+    error match {
+      case _: CircuitOpenException | _: LimitExceededException | _: TemporarilyUnavailableException => true
+      case _: java.net.ConnectException => true
+      // How Akka HTTP reports a connection that couldn't be established
+      case e: akka.stream.StreamTcpException => Option(e.getMessage).exists { _.startsWith("Tcp command [Connect(") }
+      case _ => false
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.wix.restaurants.resilience;
+
+/** Point-in-time counters of retries, circuit breaking and hedging. */
+public class ResilienceStats {
+    /** Attempts made after a transient failure. */
+    public final long retries;
+    /** Second requests sent because the first was slower than the hedging delay. */
+    public final long hedges;
+    /** Calls that failed immediately because their host's circuit was open. */
+    public final long rejected;
+    /** Hosts whose circuit is currently open. */
+    public final int openCircuits;
+
+    public ResilienceStats(long retries, long hedges, long rejected, int openCircuits) {
+        this.retries = retries;
+        this.hedges = hedges;
+        this.rejected = rejected;
+        this.openCircuits = openCircuits;
+    }
+
+    @Override
+    public String toString() {
+        return "ResilienceStats(retries=" + retries + ", hedges=" + hedges + ", rejected=" + rejected +
+                ", openCircuits=" + openCircuits + ")";
+    }
+}
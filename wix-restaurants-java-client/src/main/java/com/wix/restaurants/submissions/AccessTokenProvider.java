@@ -0,0 +1,18 @@
+package com.wix.restaurants.submissions;
+
+/**
+ * Supplies the access tokens that submissions are sent with, so that the journal doesn't have to hold them (see
+ * {@link SubmissionQueueSettings}).
+ */
+@FunctionalInterface
+public interface AccessTokenProvider {
+    /**
+     * Called before every attempt to send a submission that was made with an access token, including retries and
+     * submissions restored after a restart. Called on the client's threads; implementations must be thread-safe, and
+     * should return a cached token rather than block to fetch one.
+     *
+     * @param restaurantId The restaurant the submission is sent to.
+     * @return a current access token with permissions to submit to the restaurant.
+     */
+    String accessTokenFor(String restaurantId);
+}
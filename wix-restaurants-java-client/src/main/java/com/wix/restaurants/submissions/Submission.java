@@ -0,0 +1,24 @@
+package com.wix.restaurants.submissions;
+
+import java.util.concurrent.CompletionStage;
+
+/** A journaled submission. */
+public class Submission<T> {
+    public final String idempotencyKey;
+    /**
+     * Completes with the API's response once it is sent, or fails with its non-transient error (or the last transient
+     * one, once the submission expires). Submissions restored after a restart are reported to the
+     * {@link SubmissionListener} instead.
+     */
+    public final CompletionStage<T> result;
+
+    public Submission(String idempotencyKey, CompletionStage<T> result) {
+        this.idempotencyKey = idempotencyKey;
+        this.result = result;
+    }
+
+    @Override
+    public String toString() {
+        return "Submission(idempotencyKey=" + idempotencyKey + ")";
+    }
+}
@@ -0,0 +1,21 @@
+package com.wix.restaurants.submissions;
+
+import com.openrest.v1_1.Order;
+import com.wix.restaurants.reservations.Reservation;
+
+/**
+ * Receives the outcome of every submission, including those restored from the journal after a restart. Called on the
+ * client's threads; implementations must be thread-safe, and shouldn't block.
+ */
+public interface SubmissionListener {
+    default void onOrderSubmitted(String idempotencyKey, Order order) {}
+
+    default void onReservationSubmitted(String idempotencyKey, Reservation reservation) {}
+
+    /**
+     * Called when a submission is dropped from the journal without being accepted: it failed with a non-transient
+     * error (e.g. InvalidDataException, or NoPermissionException for an expired access token), or was still failing
+     * after the queue's maxAge.
+     */
+    default void onFailed(String idempotencyKey, Throwable error) {}
+}
@@ -0,0 +1,37 @@
+package com.wix.restaurants.submissions;
+
+import com.openrest.v1_1.Order;
+import com.wix.restaurants.reservations.Reservation;
+
+/**
+ * Submits orders and reservations through a local journal: each submission is appended to the journal (and forced to
+ * disk) before returning, and sent in the background, retrying transient failures, until the API accepts or rejects
+ * it. Pending submissions survive process restarts, and are sent once the queue is opened again.
+ *
+ * Every submission carries an idempotency key (sent as the Idempotency-Key header), so that a retry of a submission
+ * whose response was lost isn't processed twice.
+ *
+ * Access tokens aren't journaled: see {@link SubmissionQueueSettings} for the tokens submissions are sent with.
+ *
+ * @see SubmissionQueueSettings
+ */
+public interface SubmissionQueue {
+    /** Like {@link #submitOrder(String, Order, String)}, with a generated idempotency key. */
+    Submission<Order> submitOrder(String accessToken, Order order);
+
+    /**
+     * @param idempotencyKey Identifies the submission, e.g. to submit the same kiosk checkout again after a crash; if
+     *                       it is still pending, its existing submission is returned.
+     * @throws java.io.UncheckedIOException if the submission couldn't be journaled (e.g. the disk is full); it isn't
+     *                                      sent.
+     */
+    Submission<Order> submitOrder(String accessToken, Order order, String idempotencyKey);
+
+    /** Like {@link #submitReservation(String, Reservation, String)}, with a generated idempotency key. */
+    Submission<Reservation> submitReservation(String accessToken, Reservation reservation);
+
+    /** @see #submitOrder(String, Order, String) */
+    Submission<Reservation> submitReservation(String accessToken, Reservation reservation, String idempotencyKey);
+
+    SubmissionQueueStats getStats();
+}
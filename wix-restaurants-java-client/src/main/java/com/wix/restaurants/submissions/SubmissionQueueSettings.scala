@@ -0,0 +1,63 @@
+package com.wix.restaurants.submissions
+
+import java.nio.file.Path
+
+import com.wix.restaurants.exceptions.{CircuitOpenException, LimitExceededException}
+import com.wix.restaurants.resilience.ResilienceSettings
+
+import scala.concurrent.duration._
+
+/**
+ * A local journal for submitting orders and reservations in the background. See [[SubmissionQueue]].
+ *
+ * The journal is an append-only file: a record per submission, and a record per completed one. It is rewritten with
+ * only the pending submissions on open, and once enough submissions completed. A record torn by a crash (i.e. the
+ * submission call never returned) is dropped.
+ *
+ * Access tokens aren't journaled, as they are secrets, and expire long before some submissions are sent. With
+ * accessTokens, every attempt to send a submission made with a token gets a current one from it. Without it, each
+ * submission is sent with the token it was made with, which is only held in memory: those restored after a restart
+ * stay pending in the journal, unsent, until the queue is opened with accessTokens. Submissions made without a token
+ * are sent without one either way.
+ *
+ * Pending submissions are sent by up to concurrency at a time. A submission that fails with a retryable error is
+ * retried after a random delay between 0 and its current backoff (full jitter), which starts at initialBackoff and
+ * doubles after every retry, up to maxBackoff, until maxAge after it was journaled.
+ *
+ * @param journal      The journal file. Its directory must exist, and be writable. A journal must be used by a
+ *                     single client at a time.
+ * @param listener     Notified of every submission's outcome, or null.
+ * @param retryable    Which errors are transient: by default those that [[ResilienceSettings]] retries, and calls
+ *                     rejected by an open circuit or client-side limits.
+ * @param accessTokens Supplies the access tokens submissions are sent with, or null.
+ */
+case class SubmissionQueueSettings(journal: Path,
+                                   concurrency: Int = 4,
+                                   initialBackoff: FiniteDuration = 1.second,
+                                   maxBackoff: FiniteDuration = 1.minute,
+                                   maxAge: FiniteDuration = 1.day,
+                                   listener: SubmissionListener = null,
+                                   retryable: Throwable => Boolean = SubmissionQueueSettings.isRetryable,
+                                   accessTokens: AccessTokenProvider = null) {
+  require(journal != null, "journal must not be null")
+  require(concurrency > 0, s"concurrency must be positive, got $concurrency")
+  require(initialBackoff > Duration.Zero, s"initialBackoff must be positive, got $initialBackoff")
+
+  def withConcurrency(concurrency: Int): SubmissionQueueSettings = copy(concurrency = concurrency)
+  def withBackoff(initial: FiniteDuration, max: FiniteDuration): SubmissionQueueSettings = copy(initialBackoff = initial, maxBackoff = max)
+  def withMaxAge(maxAge: FiniteDuration): SubmissionQueueSettings = copy(maxAge = maxAge)
+  def withListener(listener: SubmissionListener): SubmissionQueueSettings = copy(listener = listener)
+  def withAccessTokens(accessTokens: AccessTokenProvider): SubmissionQueueSettings = copy(accessTokens = accessTokens)
+}
+
+object SubmissionQueueSettings {
+  /** Java-friendly access to the default settings, for the given journal file. */
+  def forJournal(journal: Path): SubmissionQueueSettings = SubmissionQueueSettings(journal)
+
+  def isRetryable(error: Throwable): Boolean = {
+    error match {
+      case _: CircuitOpenException | _: LimitExceededException => true
+      case _ => ResilienceSettings.isTransient(error)
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.wix.restaurants.submissions;
+
+/** Point-in-time counters of a submission queue. */
+public class SubmissionQueueStats {
+    /** Submissions in the journal that weren't accepted or dropped yet, including those being sent. */
+    public final int depth;
+    /** Time since the oldest pending submission was journaled, or 0 if there is none. */
+    public final long oldestAgeMillis;
+    /** Submissions being sent. */
+    public final int inFlight;
+    /** Submissions accepted by the API. */
+    public final long sent;
+    /** Attempts made after a transient failure. */
+    public final long retries;
+    /** Submissions dropped after a non-transient failure, or once expired. */
+    public final long failed;
+    /** Size of the journal file, in bytes. */
+    public final long journalSize;
+
+    public SubmissionQueueStats(int depth, long oldestAgeMillis, int inFlight, long sent, long retries, long failed,
+                                long journalSize) {
+        this.depth = depth;
+        this.oldestAgeMillis = oldestAgeMillis;
+        this.inFlight = inFlight;
+        this.sent = sent;
+        this.retries = retries;
+        this.failed = failed;
+        this.journalSize = journalSize;
+    }
+
+    @Override
+    public String toString() {
+        return "SubmissionQueueStats(depth=" + depth + ", oldestAgeMillis=" + oldestAgeMillis + ", inFlight=" +
+                inFlight + ", sent=" + sent + ", retries=" + retries + ", failed=" + failed + ", journalSize=" +
+                journalSize + ")";
+    }
+}
@@ -0,0 +1,25 @@
+package com.wix.restaurants.transport;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Moves the clients' HTTP requests and responses over the wire.
+ *
+ * The clients build requests (URLs, headers, JSON and compressed bodies) and read responses (decompression, JSON
+ * binding, translating RFC 7807 errors into exceptions); a transport only sends bytes and hands back what it received.
+ * Clients constructed without a transport use their runtime's Akka HTTP connection pool.
+ *
+ * Implementations must be thread-safe. Whoever creates a transport is responsible for closing it, after the clients
+ * that use it.
+ */
+public interface HttpTransport extends AutoCloseable {
+    /**
+     * @return the response, as soon as its status and headers are received (the body may still be on its way). Fails,
+     *         rather than throws, if the request could not be sent or no response was received, preferably with an
+     *         IOException (which is retried as transient, see ResilienceSettings).
+     */
+    CompletionStage<TransportResponse> send(TransportRequest request);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,38 @@
+package com.wix.restaurants.transport;
+
+import java.util.Collections;
+import java.util.Map;
+
+/** A request, as handed to an {@link HttpTransport}: fully built, and (if so configured) compressed. */
+public class TransportRequest {
+    /** HTTP method, e.g. "GET". */
+    public final String method;
+    /** Absolute URI, including the query. */
+    public final String uri;
+    /** Headers to send, in order, including Content-Type and Content-Encoding when there is a body. */
+    public final Map<String, String> headers;
+    /** The body as sent, or null if there is none. */
+    public final byte[] body;
+
+    public TransportRequest(String method, String uri, Map<String, String> headers, byte[] body) {
+        this.method = method;
+        this.uri = uri;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+    }
+
+    /** @return the value of the given header (case insensitive), or null if there is none. */
+    public String header(String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportRequest(" + method + " " + uri + ")";
+    }
+}
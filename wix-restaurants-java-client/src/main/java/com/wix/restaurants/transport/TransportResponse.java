@@ -0,0 +1,42 @@
+package com.wix.restaurants.transport;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A response, as received by an {@link HttpTransport}: still encoded (e.g. gzipped), with a body that may still be
+ * streaming in. The client reads the body from a blocking thread, and always closes it, also when it doesn't need it.
+ */
+public class TransportResponse {
+    /** HTTP status, e.g. 200. */
+    public final int status;
+    /** Response headers by lowercase name (the first value of repeated headers), including Content-Type. */
+    public final Map<String, String> headers;
+    /** Size of the body as received, or -1 if it is not known up front (e.g. chunked responses). */
+    public final long contentLength;
+    /** The (possibly encoded) body; closing it before it is fully read discards the rest. */
+    public final InputStream body;
+
+    public TransportResponse(int status, Map<String, String> headers, long contentLength, InputStream body) {
+        this.status = status;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.contentLength = contentLength;
+        this.body = body;
+    }
+
+    public boolean isSuccess() {
+        return status >= 200 && status < 300;
+    }
+
+    /** @return the value of the given header (case insensitive), or null if there is none. */
+    public String header(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public String toString() {
+        return "TransportResponse(status=" + status + ", contentLength=" + contentLength + ")";
+    }
+}
@@ -0,0 +1,146 @@
+package com.wix.restaurants
+
+import java.util.concurrent.{CompletableFuture, ConcurrentLinkedQueue, TimeoutException}
+import java.util.concurrent.atomic.AtomicInteger
+
+import akka.actor.ActorSystem
+import akka.stream.{ActorMaterializer, Materializer}
+import com.wix.restaurants.bulk.BulkResult
+import com.wix.restaurants.exceptions.ConflictException
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+import scala.concurrent.{Await, ExecutionContext, Future, Promise}
+
+class BulkTest extends SpecWithJUnit with AfterAll {
+  private implicit val system: ActorSystem = ActorSystem("BulkTest")
+  private implicit val materializer: Materializer = ActorMaterializer()
+  private implicit val executionContext: ExecutionContext = system.dispatcher
+
+  override def afterAll(): Unit = system.terminate()
+
+  private def await[T](future: Future[T]): T = Await.result(future, 5.seconds)
+
+  trait Ctx extends Scope {
+    val ids = (1 to 20).map { i => s"id$i" }
+  }
+
+  "run" should {
+    "return every item's result, in the given order" in new Ctx {
+      val results = await(Bulk.run(ids, 4) { id => Future { Thread.sleep(ids.size - ids.indexOf(id)); id.toUpperCase } })
+
+      results.keySet.asScala.toList must be_===(ids.toList)
+      results.values.asScala.map { _.value }.toList must be_===(ids.map { _.toUpperCase }.toList)
+    }
+
+    "report failures per item, without stopping the others" in new Ctx {
+      val results = await(Bulk.run(ids, 4) { id =>
+        if (id == "id3") Future.failed(new ConflictException("already accepted")) else Future.successful(id)
+      })
+
+      results.get("id3").isSuccess must beFalse
+      results.get("id3").error must beAnInstanceOf[ConflictException]
+      results.asScala.count { _._2.isSuccess } must be_===(ids.size - 1)
+    }
+
+    "report calls that throw instead of failing" in new Ctx {
+      val results = await(Bulk.run(ids, 4) { id => if (id == "id1") throw new IllegalArgumentException(id) else Future.successful(id) })
+
+      results.get("id1").error must beAnInstanceOf[IllegalArgumentException]
+      results.get("id2").isSuccess must beTrue
+    }
+
+    "run at most parallelism calls at a time" in new Ctx {
+      val inFlight = new AtomicInteger()
+      val maxInFlight = new AtomicInteger()
+
+      await(Bulk.run(ids, 3) { id =>
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), math.max)
+        Future { Thread.sleep(5); inFlight.decrementAndGet() }
+      })
+
+      maxInFlight.get must be_<=(3)
+    }
+  }
+
+  "stream" should {
+    "hand every item's result to the consumer as it completes" in new Ctx {
+      val calls = ids.map { id => id -> Promise[String]() }.toMap
+      val received = new ConcurrentLinkedQueue[(String, BulkResult[String])]()
+      val done = Bulk.stream(ids, ids.size) { id => calls(id).future } { (id, result) => received.add(id -> result) }
+
+      // Completes the calls in reverse, each once the previous one's result was handed over
+      ids.reverse.zipWithIndex.foreach { case (id, completed) =>
+        if (id == "id3") calls(id).failure(new ConflictException("already accepted")) else calls(id).success(id)
+        received.size must eventually(be_===(completed + 1))
+      }
+      await(done)
+
+      received.asScala.map { _._1 }.toList must be_===(ids.reverse.toList)
+      received.asScala.collectFirst { case ("id3", result) => result.error } must beSome(beAnInstanceOf[ConflictException])
+    }
+
+    "fail, without starting further calls, if the consumer throws" in new Ctx {
+      val started = new AtomicInteger()
+
+      await(Bulk.stream(ids, 1) { id => started.incrementAndGet(); Future.successful(id) } { (_, _) =>
+        throw new IllegalStateException("consumer failed")
+      }) must throwA[IllegalStateException]
+
+      started.get must be_<(ids.size)
+    }
+  }
+
+  "await" should {
+    "return every item's result, in the given order" in new Ctx {
+      val results = Bulk.await(ids, 4, 5.seconds) { id =>
+        if (id == "id3") CompletableFuture.supplyAsync[String](() => throw new ConflictException("already accepted"))
+        else CompletableFuture.supplyAsync[String](() => id.toUpperCase)
+      }
+
+      results.keySet.asScala.toList must be_===(ids.toList)
+      results.get("id3").error must beAnInstanceOf[ConflictException]
+      results.get("id4").value must be_===("ID4")
+    }
+
+    "run at most parallelism calls at a time" in new Ctx {
+      val inFlight = new AtomicInteger()
+      val maxInFlight = new AtomicInteger()
+
+      Bulk.await(ids, 3, 5.seconds) { id =>
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), math.max)
+        CompletableFuture.supplyAsync { () => Thread.sleep(5); inFlight.decrementAndGet() }
+      }
+
+      maxInFlight.get must be_<=(3)
+    }
+
+    "keep the results so far on timeout, failing the other items with a TimeoutException" in new Ctx {
+      val started = new AtomicInteger()
+      val results = Bulk.await(ids, 2, 200.millis) { id =>
+        started.incrementAndGet()
+        if (id == "id2") new CompletableFuture[String]() else CompletableFuture.completedFuture(id)
+      }
+
+      results.keySet.asScala.toList must be_===(ids.toList)
+      results.get("id1").value must be_===("id1")
+      results.get("id2").error must beAnInstanceOf[TimeoutException]
+      results.asScala.count { _._2.isSuccess } must be_===(ids.size - 1)
+      started.get must be_===(ids.size)
+    }
+
+    "not start calls once the timeout is over" in new Ctx {
+      val started = new AtomicInteger()
+      val results = Bulk.await(ids, 1, 200.millis) { id =>
+        started.incrementAndGet()
+        if (id == "id2") new CompletableFuture[String]() else CompletableFuture.completedFuture(id)
+      }
+
+      started.get must be_===(2)
+      results.get("id1").isSuccess must beTrue
+      results.asScala.count { _._2.error.isInstanceOf[TimeoutException] } must be_===(ids.size - 1)
+    }
+  }
+}
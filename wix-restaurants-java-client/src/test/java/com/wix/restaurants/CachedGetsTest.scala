@@ -0,0 +1,171 @@
+package com.wix.restaurants
+
+import java.io.ByteArrayInputStream
+import java.util.concurrent.{CompletableFuture, CompletionStage, ConcurrentHashMap, ConcurrentLinkedQueue, TimeUnit}
+
+import com.openrest.v1_1.Organization
+import com.wix.restaurants.cache.ResponseCacheSettings
+import com.wix.restaurants.transport.{HttpTransport, TransportRequest, TransportResponse}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+
+class CachedGetsTest extends SpecWithJUnit with AfterAll {
+  private val runtime = new WixRestaurantsRuntime()
+
+  override def afterAll(): Unit = runtime.close()
+
+  private def await[T](stage: CompletionStage[T]): T = {
+    try {
+      stage.toCompletableFuture.get(5, TimeUnit.SECONDS)
+    } catch {
+      case e: java.util.concurrent.ExecutionException => throw e.getCause
+    }
+  }
+
+  private def anOrganization(id: String): Organization = {
+    val organization = new Organization
+    organization.id = id
+    organization
+  }
+
+  /**
+   * Answers GETs of restaurant info with the restaurant's current currency, and its version as ETag and Last-Modified
+   * (or with a 304, if the request has them). Echoes PUTs. GETs are held while holding. Records requests.
+   */
+  class FakeTransport extends HttpTransport {
+    val requests = new ConcurrentLinkedQueue[TransportRequest]()
+    val held = new ConcurrentLinkedQueue[CompletableFuture[TransportResponse]]()
+    val currencies = new ConcurrentHashMap[String, String]()
+    @volatile var holding = false
+
+    override def send(request: TransportRequest): CompletionStage[TransportResponse] = {
+      requests.add(request)
+      if (request.method != "GET") {
+        respond(200, Map.empty, new String(request.body, "UTF-8"))
+      } else if (holding) {
+        val future = new CompletableFuture[TransportResponse]()
+        held.add(future)
+        future.thenCompose(_ => get(request))
+      } else {
+        get(request)
+      }
+    }
+
+    private def get(request: TransportRequest): CompletionStage[TransportResponse] = {
+      val restaurantId = request.uri.split("/").reverse(1)
+      val currency = currencies.getOrDefault(restaurantId, "USD")
+      val version = s""""$currency""""
+      val lastModified = s"Mon, 01 Jan 2018 00:00:00 GMT ($currency)"
+      if (request.header("If-None-Match") == version && request.header("If-Modified-Since") == lastModified) {
+        respond(304, Map.empty, "")
+      } else {
+        respond(200, Map("etag" -> version, "last-modified" -> lastModified),
+          s"""{"restaurant":{"id":"$restaurantId","currency":"$currency"}}""")
+      }
+    }
+
+    private def respond(status: Int, headers: Map[String, String], body: String): CompletionStage[TransportResponse] = {
+      val bytes = body.getBytes("UTF-8")
+      CompletableFuture.completedFuture(new TransportResponse(status,
+        (headers + ("content-type" -> "application/json")).asJava, bytes.length.toLong, new ByteArrayInputStream(bytes)))
+    }
+
+    def release(): Unit = Iterator.continually(held.poll()).takeWhile { _ != null }.foreach { _.complete(null) }
+
+    def gets: List[TransportRequest] = requests.asScala.toList.filter { _.method == "GET" }
+
+    override def close(): Unit = {}
+  }
+
+  trait Ctx extends Scope {
+    val transport = new FakeTransport
+
+    def settings: ResponseCacheSettings = ResponseCacheSettings.defaults
+
+    lazy val client = new DefaultAsyncWixRestaurantsClient(apiUrl = "https://api.example.org/v2", runtime = runtime,
+      cacheSettings = settings, transport = transport)
+
+    def currencyOf(restaurantId: String): String = await(client.retrieveRestaurantInfo(restaurantId)).restaurant.currency
+  }
+
+  "a client with a response cache" should {
+    "serve repeated lookups from the cache within their TTL" in new Ctx {
+      currencyOf("123") must be_===("USD")
+      transport.currencies.put("123", "EUR")
+
+      currencyOf("123") must be_===("USD")
+      transport.gets must haveSize(1)
+      client.close()
+    }
+
+    "revalidate expired responses with their validators, and keep them if not modified" in new Ctx {
+      override def settings: ResponseCacheSettings = super.settings.withRestaurantInfoTtl(Duration.Zero)
+
+      val first = await(client.retrieveRestaurantInfo("123"))
+      val second = await(client.retrieveRestaurantInfo("123"))
+
+      second must be(first)
+      transport.gets must haveSize(2)
+      transport.gets.last.header("If-None-Match") must be_===("\"USD\"")
+      transport.gets.last.header("If-Modified-Since") must be_===("Mon, 01 Jan 2018 00:00:00 GMT (USD)")
+      client.close()
+    }
+
+    "replace expired responses that were modified" in new Ctx {
+      override def settings: ResponseCacheSettings = super.settings.withRestaurantInfoTtl(Duration.Zero)
+
+      currencyOf("123") must be_===("USD")
+      transport.currencies.put("123", "EUR")
+
+      currencyOf("123") must be_===("EUR")
+      currencyOf("123") must be_===("EUR")
+      transport.gets.last.header("If-None-Match") must be_===("\"EUR\"")
+      client.close()
+    }
+
+    "load a response once for concurrent callers" in new Ctx {
+      transport.holding = true
+      val results = (1 to 5).map { _ => client.retrieveRestaurantInfo("123") }
+      transport.gets.size must eventually(be_===(1))
+
+      transport.release()
+      results.map { await(_).restaurant.currency }.toSet must be_===(Set("USD"))
+      transport.gets must haveSize(1)
+      client.close()
+    }
+
+    "drop the responses of organizations written through the client" in new Ctx {
+      currencyOf("123") must be_===("USD")
+      currencyOf("456") must be_===("USD")
+      transport.currencies.put("123", "EUR")
+      transport.currencies.put("456", "EUR")
+
+      await(client.setOrganization("some-token", anOrganization("123")))
+      currencyOf("123") must be_===("EUR")
+      currencyOf("456") must be_===("USD")
+      client.close()
+    }
+
+    "not store loads in flight during a write to their organization, but store other organizations'" in new Ctx {
+      transport.holding = true
+      val written = client.retrieveRestaurantInfo("123")
+      val other = client.retrieveRestaurantInfo("456")
+      transport.gets.size must eventually(be_===(2))
+
+      await(client.setOrganization("some-token", anOrganization("123")))
+      transport.release()
+      await(written).restaurant.currency must be_===("USD")
+      await(other).restaurant.currency must be_===("USD")
+
+      transport.holding = false
+      currencyOf("123")
+      currencyOf("456")
+      transport.gets.count { _.uri.endsWith("/456/full") } must be_===(1)
+      transport.gets.count { _.uri.endsWith("/123/full") } must be_===(2)
+      client.close()
+    }
+  }
+}
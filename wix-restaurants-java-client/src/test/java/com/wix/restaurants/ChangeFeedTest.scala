@@ -0,0 +1,189 @@
+package com.wix.restaurants
+
+import java.util.stream.{Stream => JStream}
+
+import com.wix.restaurants.feeds.FeedEvent.Type
+import com.wix.restaurants.feeds.{FeedCursor, FeedEvent, FeedListener, InMemoryCursorStore}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+import scala.concurrent.duration._
+
+class ChangeFeedTest extends SpecWithJUnit {
+  case class Item(id: String, created: Long, modified: Long, status: String)
+
+  trait Ctx extends Scope {
+    val items = mutable.Map.empty[String, Item]
+    val store = new InMemoryCursorStore
+    val events = mutable.Buffer.empty[FeedEvent[Item]]
+
+    def put(item: Item): Unit = items.put(item.id, item)
+
+    def aFeed(start: FeedCursor = FeedCursor.initial, backlog: Option[() => Seq[Item]] = None): ChangeFeed[Item] = {
+      val changesSince = (modifiedSince: Long) => {
+        JStream.of(items.values.filter { _.modified >= modifiedSince }.toSeq.sortBy { _.modified }: _*)
+      }
+      val feed = new ChangeFeed[Item]("orders/some-restaurant", store, start, changesSince,
+        _.id, _.created, _.modified, _.status, backlog = backlog)
+      feed.addListener(new FeedListener[Item] {
+        override def onEvent(event: FeedEvent[Item]): Unit = events += event
+      })
+      feed
+    }
+
+    def pending: Option[() => Seq[Item]] = Some(() => items.values.filter { _.status == "new" }.toSeq.sortBy { _.created })
+
+    def delivered: Seq[(String, Type)] = events.map { event => event.item.id -> event.`type` }
+  }
+
+  "poll" should {
+    "deliver every item as created on the first poll of a feed started from the initial cursor" in new Ctx {
+      put(Item("a", 1, 1, "new"))
+      put(Item("b", 2, 2, "new"))
+
+      aFeed().poll() must be_===(2)
+      delivered must be_===(Seq("a" -> Type.CREATED, "b" -> Type.CREATED))
+    }
+
+    "deliver nothing when nothing changed" in new Ctx {
+      put(Item("a", 1, 1, "new"))
+      val feed = aFeed()
+      feed.poll()
+      events.clear()
+
+      feed.poll() must be_===(0)
+      events must beEmpty
+    }
+
+    "deliver items sharing the cursor's modification time exactly once" in new Ctx {
+      put(Item("a", 1, 5, "new"))
+      val feed = aFeed()
+      feed.poll()
+      put(Item("b", 5, 5, "new"))
+
+      feed.poll() must be_===(1)
+      delivered must be_===(Seq("a" -> Type.CREATED, "b" -> Type.CREATED))
+    }
+
+    "report status changes with the previous status" in new Ctx {
+      put(Item("a", 1, 1, "new"))
+      val feed = aFeed()
+      feed.poll()
+      put(Item("a", 1, 2, "accepted"))
+
+      feed.poll()
+      events.last.`type` must be_===(Type.STATUS_CHANGED)
+      events.last.previousStatus must be_===("new")
+    }
+
+    "report other modifications of known items as modified" in new Ctx {
+      put(Item("a", 1, 1, "new"))
+      val feed = aFeed()
+      feed.poll()
+      put(Item("a", 1, 2, "new"))
+
+      feed.poll()
+      delivered.last must be_===("a" -> Type.MODIFIED)
+    }
+
+    "save the cursor, so that a new feed resumes from it" in new Ctx {
+      put(Item("a", 1, 1, "new"))
+      put(Item("b", 2, 2, "new"))
+      aFeed().poll()
+      events.clear()
+      put(Item("c", 3, 3, "new"))
+
+      aFeed().poll() must be_===(1)
+      delivered must be_===(Seq("c" -> Type.CREATED))
+      store.load("orders/some-restaurant") must be_===(FeedCursor.parse("3:c"))
+    }
+
+    "deliver only items modified from the start on, as created if created from then on too" in new Ctx {
+      put(Item("a", 1, 1, "accepted"))
+      put(Item("b", 2, 5, "accepted"))
+      put(Item("c", 6, 6, "new"))
+
+      aFeed(FeedCursor.startingAt(5)).poll() must be_===(2)
+      delivered must be_===(Seq("b" -> Type.MODIFIED, "c" -> Type.CREATED))
+    }
+
+    "save the start right away, and resume from a saved cursor rather than the start" in new Ctx {
+      aFeed(FeedCursor.startingAt(5))
+      store.load("orders/some-restaurant") must be_===(FeedCursor.startingAt(5))
+      put(Item("a", 1, 1, "new"))
+      put(Item("b", 7, 7, "new"))
+
+      aFeed(FeedCursor.startingAt(10)).poll() must be_===(1)
+      delivered must be_===(Seq("b" -> Type.CREATED))
+    }
+
+    "deliver the backlog as created first, then the changes from the start on, each item once" in new Ctx {
+      put(Item("a", 1, 1, "new"))
+      put(Item("b", 2, 2, "accepted"))
+      put(Item("c", 3, 6, "new"))
+      put(Item("d", 4, 7, "accepted"))
+
+      val feed = aFeed(FeedCursor.startingAt(5), pending)
+      feed.poll() must be_===(3)
+      delivered must be_===(Seq("a" -> Type.CREATED, "c" -> Type.CREATED, "d" -> Type.MODIFIED))
+
+      put(Item("a", 1, 8, "accepted"))
+      feed.poll() must be_===(1)
+      events.last.`type` must be_===(Type.STATUS_CHANGED)
+    }
+
+    "save the start only once the backlog was delivered" in new Ctx {
+      put(Item("a", 1, 1, "new"))
+      aFeed(FeedCursor.startingAt(5), pending)
+      store.load("orders/some-restaurant") must beNull
+
+      aFeed(FeedCursor.startingAt(5), pending).poll() must be_===(1)
+      store.load("orders/some-restaurant") must be_===(FeedCursor.startingAt(5))
+      events.clear()
+
+      aFeed(FeedCursor.startingAt(10), pending).poll() must be_===(0)
+    }
+
+    "miss no changes by default when this machine's clock is ahead of the server's" in new Ctx {
+      val serverNow = 1500000000000L
+      val clientNow = serverNow + 1.minute.toMillis
+      put(Item("a", serverNow - 1.day.toMillis, serverNow - 1.day.toMillis, "new"))
+      put(Item("b", serverNow - 1.hour.toMillis, serverNow - 10.seconds.toMillis, "accepted"))
+
+      val feed = aFeed(ChangeFeed.defaultStart(clientNow), pending)
+      put(Item("c", serverNow, serverNow, "new"))
+
+      feed.poll() must be_===(3)
+      delivered must be_===(Seq("a" -> Type.CREATED, "c" -> Type.CREATED, "b" -> Type.MODIFIED))
+    }
+
+    "redeliver an event whose listener failed" in new Ctx {
+      put(Item("a", 1, 1, "new"))
+      put(Item("b", 2, 2, "new"))
+      val feed = aFeed()
+      var failing = true
+      feed.addListener(new FeedListener[Item] {
+        override def onEvent(event: FeedEvent[Item]): Unit = if (failing && event.item.id == "b") throw new RuntimeException("boom")
+      })
+
+      feed.poll() must throwA[RuntimeException]
+      failing = false
+      events.clear()
+
+      feed.poll() must be_===(1)
+      delivered must be_===(Seq("b" -> Type.CREATED))
+    }
+  }
+
+  "FeedCursor" should {
+    "survive serialization" in {
+      val cursor = FeedCursor.initial.advancedTo(10, "a").advancedTo(10, "b")
+
+      FeedCursor.parse(cursor.serialize()) must be_===(cursor)
+      FeedCursor.parse(FeedCursor.initial.serialize()) must be_===(FeedCursor.initial)
+      cursor.seen.asScala must be_===(Set("a", "b"))
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.wix.restaurants
+
+import java.io.{ByteArrayInputStream, InputStream}
+import java.util.zip.{GZIPInputStream, InflaterInputStream}
+
+import akka.http.scaladsl.model._
+import akka.http.scaladsl.model.headers.{`Accept-Encoding`, `Content-Encoding`, HttpEncodings}
+import akka.util.ByteString
+import com.wix.restaurants.compression.{CallClass, CompressionSettings}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+class CompressionTest extends SpecWithJUnit {
+  private val apiUrl = "https://api.wixrestaurants.com/v2"
+  private val largeBody = "{\"sections\":[" + ("{\"title\":\"Pizzas\"}," * 1000) + "{}]}"
+
+  private def aPut(path: String, body: String): HttpRequest = {
+    HttpRequest(HttpMethods.PUT, s"$apiUrl$path", entity = HttpEntity(ContentTypes.`application/json`, body))
+  }
+
+  private def bodyOf(request: HttpRequest): ByteString = request.entity.asInstanceOf[HttpEntity.Strict].data
+
+  private def decompress(bytes: ByteString)(decoder: InputStream => InputStream): String = {
+    val in = decoder(new ByteArrayInputStream(bytes.toArray))
+    try {
+      scala.io.Source.fromInputStream(in, "UTF-8").mkString
+    } finally {
+      in.close()
+    }
+  }
+
+  trait Ctx extends Scope {
+    val settings = CompressionSettings(minRequestBytes = 1024)
+    def compression = new Compression(settings)
+  }
+
+  "encode" should {
+    "compress large request bodies" in new Ctx {
+      val encoded = compression.encode(aPut("/organizations/123/menu", largeBody))
+
+      encoded.header[`Content-Encoding`].map { _.encodings } must beSome(Seq(HttpEncodings.gzip))
+      bodyOf(encoded).length must be_<(largeBody.length)
+      decompress(bodyOf(encoded)) { new GZIPInputStream(_) } must be_===(largeBody)
+    }
+
+    "keep the request's content type and a known length" in new Ctx {
+      val encoded = compression.encode(aPut("/organizations/123/menu", largeBody))
+
+      encoded.entity.contentType must be_===(ContentTypes.`application/json`)
+      encoded.entity.contentLengthOption must beSome(bodyOf(encoded).length.toLong)
+    }
+
+    "use deflate when configured to" in new Ctx {
+      override val settings = CompressionSettings(requestCoding = "deflate", minRequestBytes = 1024)
+      val encoded = compression.encode(aPut("/organizations/123/menu", largeBody))
+
+      decompress(bodyOf(encoded)) { new InflaterInputStream(_) } must be_===(largeBody)
+    }
+
+    "leave small request bodies as-is" in new Ctx {
+      val encoded = compression.encode(aPut("/organizations/123/menu", "{}"))
+
+      encoded.header[`Content-Encoding`] must beNone
+      bodyOf(encoded).utf8String must be_===("{}")
+    }
+
+    "leave request bodies of other call classes as-is" in new Ctx {
+      val encoded = compression.encode(aPut("/organizations/123/orders/456/properties", largeBody))
+
+      encoded.header[`Content-Encoding`] must beNone
+    }
+
+    "accept compressed responses" in new Ctx {
+      val encoded = compression.encode(HttpRequest(uri = s"$apiUrl/organizations/123/full"))
+
+      encoded.header[`Accept-Encoding`] must beSome
+    }
+
+    "not override an explicit Accept-Encoding" in new Ctx {
+      val request = HttpRequest(uri = s"$apiUrl/organizations/123/menu").addHeader(`Accept-Encoding`(HttpEncodings.gzip))
+
+      compression.encode(request).headers.count { _.is("accept-encoding") } must be_===(1)
+    }
+
+    "not accept compressed responses for excluded call classes" in new Ctx {
+      override val settings = CompressionSettings().withCompressedResponses(CallClass.MENUS)
+
+      compression.encode(HttpRequest(uri = s"$apiUrl/organizations/123/orders")).header[`Accept-Encoding`] must beNone
+    }
+  }
+
+  "callClassOf" should {
+    "classify endpoints by path" in {
+      Compression.callClassOf(Uri(s"$apiUrl/organizations/123/menu?locationId=1")) must be_===(CallClass.MENUS)
+      Compression.callClassOf(Uri(s"$apiUrl/admin/aMenuWithUpdatedLocale")) must be_===(CallClass.MENUS)
+      Compression.callClassOf(Uri(s"$apiUrl/admin/orders")) must be_===(CallClass.ORDERS)
+      Compression.callClassOf(Uri(s"$apiUrl/organizations/123/reservations/456/accept")) must be_===(CallClass.RESERVATIONS)
+      Compression.callClassOf(Uri(s"$apiUrl/organizations/123/secrets")) must be_===(CallClass.ORGANIZATIONS)
+      Compression.callClassOf(Uri(s"$apiUrl/me/account")) must be_===(CallClass.OTHER)
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.wix.restaurants
+
+import com.wix.restaurants.exceptions._
+import org.specs2.mutable.SpecWithJUnit
+
+class ExceptionTranslatorTest extends SpecWithJUnit {
+  private val htmlPage = "<html>Error</html>".getBytes("UTF-8")
+
+  private def problem(`type`: String, detail: String): Array[Byte] = {
+    s"""{"type":"${`type`}","detail":"$detail"}""".getBytes("UTF-8")
+  }
+
+  "asException" should {
+    "translate RFC 7807 problems by their type" in {
+      ExceptionTranslator.asException(400, problem(Errors.Conflict, "already accepted")) must
+        beAnInstanceOf[ConflictException]
+      ExceptionTranslator.asException(500, problem(Errors.NotFound, "no such order")).getMessage must
+        be_===("no such order")
+      ExceptionTranslator.asException(400, problem("https://example.org/other", "other")) must
+        beAnInstanceOf[RestaurantsException]
+    }
+
+    "translate other bodies by the status" in {
+      ExceptionTranslator.asException(400, htmlPage) must beAnInstanceOf[InvalidDataException]
+      ExceptionTranslator.asException(422, htmlPage) must beAnInstanceOf[InvalidDataException]
+      ExceptionTranslator.asException(401, htmlPage) must beAnInstanceOf[NoPermissionException]
+      ExceptionTranslator.asException(403, htmlPage) must beAnInstanceOf[NoPermissionException]
+      ExceptionTranslator.asException(404, htmlPage) must beAnInstanceOf[NotFoundException]
+      ExceptionTranslator.asException(409, htmlPage) must beAnInstanceOf[ConflictException]
+      ExceptionTranslator.asException(429, htmlPage) must beAnInstanceOf[TemporarilyUnavailableException]
+      ExceptionTranslator.asException(503, htmlPage) must beAnInstanceOf[TemporarilyUnavailableException]
+      ExceptionTranslator.asException(500, htmlPage) must beAnInstanceOf[InternalException]
+      ExceptionTranslator.asException(502, Array.emptyByteArray) must beAnInstanceOf[InternalException]
+    }
+
+    "translate other 4xx statuses to a RestaurantsException, which isn't retried" in {
+      val e = ExceptionTranslator.asException(418, htmlPage)
+
+      e.getClass must be_===(classOf[RestaurantsException])
+      e.getMessage must contain("418")
+    }
+  }
+}
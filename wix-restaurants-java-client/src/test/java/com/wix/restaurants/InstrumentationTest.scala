@@ -0,0 +1,155 @@
+package com.wix.restaurants
+
+import java.io.ByteArrayInputStream
+import java.util.Collections
+
+import akka.http.scaladsl.model._
+import com.wix.restaurants.exceptions.NotFoundException
+import com.wix.restaurants.metrics.{LatencyHistogram, RequestEvent, RequestListener, RequestMetrics}
+import com.wix.restaurants.transport.TransportResponse
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.collection.mutable
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration._
+import scala.concurrent.{Await, Future, Promise}
+import scala.util.Try
+
+class InstrumentationTest extends SpecWithJUnit {
+  private val apiUrl = "https://api.example.org/v2"
+
+  private def await[T](future: Future[T]): T = Await.result(future, 5.seconds)
+
+  trait Ctx extends Scope {
+    val events = mutable.Buffer.empty[RequestEvent]
+    val reported = Promise[RequestEvent]()
+    val listener = new RequestListener {
+      override def onRequest(event: RequestEvent): Unit = {
+        events.synchronized { events += event }
+        reported.trySuccess(event)
+      }
+    }
+    val instrumentation = new Instrumentation(listener, apiUrl)
+
+    def anEvent(): RequestEvent = await(reported.future)
+  }
+
+  "endpointOf" should {
+    "strip the base path and the query, and replace ids" in {
+      Instrumentation.endpointOf(Uri(s"$apiUrl/organizations/123/orders/456/accept?as=restaurant"), "/v2") must
+        be_===("/organizations/{id}/orders/{id}/accept")
+      Instrumentation.endpointOf(Uri(s"$apiUrl/admin/organizations"), "/v2") must be_===("/admin/organizations")
+      Instrumentation.endpointOf(Uri(s"$apiUrl/me/roles"), "/v2") must be_===("/me/roles")
+    }
+  }
+
+  "apply" should {
+    "report method, endpoint, status and sizes" in new Ctx {
+      val request = HttpRequest(HttpMethods.PUT, Uri(s"$apiUrl/organizations/123/menu"), entity = HttpEntity("12345"))
+      await(instrumentation(request) { exchange =>
+        exchange.sent(request)
+        exchange.received(new TransportResponse(200, Collections.emptyMap(), 7L, new ByteArrayInputStream("1234567".getBytes)))
+        Future.successful("done")
+      }) must be_===("done")
+
+      val event = anEvent()
+      (event.method, event.endpoint, event.status) must be_===(("PUT", "/organizations/{id}/menu", 200))
+      (event.requestBytes, event.responseBytes) must be_===((5L, 7L))
+      event.isSuccess must beTrue
+    }
+
+    "report failures by error type, with unknown status and sizes" in new Ctx {
+      val request = HttpRequest(uri = Uri(s"$apiUrl/organizations/123"))
+      Try(await(instrumentation(request) { exchange =>
+        exchange.sent(request)
+        Future.failed(new NotFoundException("nope"))
+      }))
+
+      val event = anEvent()
+      (event.errorType, event.status, event.responseBytes) must be_===(("NotFoundException", 0, -1L))
+    }
+
+    "report exceptions thrown by the send function" in new Ctx {
+      val request = HttpRequest(uri = Uri(s"$apiUrl/me/account"))
+      Try(await(instrumentation(request) { _ => throw new IllegalStateException("boom") }))
+
+      anEvent().errorType must be_===("IllegalStateException")
+    }
+
+    "split queue time from service time" in new Ctx {
+      val request = HttpRequest(uri = Uri(s"$apiUrl/me/account"))
+      await(instrumentation(request) { exchange =>
+        Thread.sleep(20)
+        exchange.sent(request)
+        Future { Thread.sleep(30) }
+      })
+
+      val event = anEvent()
+      event.queueNanos must be_>=(20.millis.toNanos)
+      event.serviceNanos must be_>=(30.millis.toNanos)
+    }
+
+    "not fail requests when the listener throws" in {
+      val failing = new Instrumentation(new RequestListener {
+        override def onRequest(event: RequestEvent): Unit = throw new RuntimeException("listener")
+      }, apiUrl)
+
+      await(failing(HttpRequest(uri = Uri(s"$apiUrl/me/account"))) { _ => Future.successful("done") }) must be_===("done")
+    }
+  }
+
+  "RequestMetrics" should {
+    "count requests, errors, statuses and bytes per endpoint" in {
+      val metrics = new RequestMetrics
+      def anEvent(endpoint: String, status: Int, error: Throwable = null) =
+        new RequestEvent("GET", endpoint, status, error, -1L, 100L, 1000L, 2000000L)
+      metrics.onRequest(anEvent("/organizations/{id}/menu", 200))
+      metrics.onRequest(anEvent("/organizations/{id}/menu", 200))
+      metrics.onRequest(anEvent("/organizations/{id}/menu", 0, new NotFoundException("nope")))
+      metrics.onRequest(anEvent("/me/roles", 200))
+
+      val stats = metrics.get("GET", "/organizations/{id}/menu")
+      (stats.requests, stats.errors, stats.responseBytes) must be_===((3L, 1L, 300L))
+      stats.errorsByType.get("NotFoundException") must be_===(1L)
+      stats.requestsByStatus.get(200) must be_===(2L)
+      stats.latency.percentile(50) must be_===(2001L)
+      metrics.getStats.size must be_===(2)
+      metrics.get("POST", "/organizations/{id}/menu") must beNull
+    }
+  }
+
+  "LatencyHistogram" should {
+    "compute percentiles within the bucket precision" in {
+      val histogram = new LatencyHistogram
+      (1 to 10000).foreach { micros => histogram.record(micros.toLong) }
+
+      histogram.count must be_===(10000L)
+      histogram.max must be_===(10000L)
+      histogram.mean must be_===(5000.5)
+      histogram.percentile(50).toDouble must beCloseTo(5000.0, 5000.0 * 0.035)
+      histogram.percentile(99).toDouble must beCloseTo(9900.0, 9900.0 * 0.035)
+      histogram.percentile(100) must be_===(10000L)
+    }
+
+    "count small values exactly" in {
+      val histogram = new LatencyHistogram
+      Seq(0L, 3L, 3L, 63L).foreach { histogram.record }
+
+      (histogram.percentile(25), histogram.percentile(75), histogram.percentile(100)) must be_===((0L, 3L, 63L))
+    }
+
+    "keep every value within ~3%, at all magnitudes" in {
+      val values = (0 to 39).flatMap { bit => Seq(1L << bit, (1L << bit) + 1, (1L << (bit + 1)) - 1) }
+      val misplaced = values.filterNot { value =>
+        val histogram = new LatencyHistogram
+        histogram.record(value)
+        histogram.record(Long.MaxValue)
+        val recorded = histogram.percentile(50)
+        recorded >= value && recorded <= value + value / 32
+      }
+
+      misplaced must beEmpty
+    }
+  }
+}
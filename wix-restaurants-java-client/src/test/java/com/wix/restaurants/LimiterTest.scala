@@ -0,0 +1,154 @@
+package com.wix.restaurants
+
+import akka.actor.ActorSystem
+import akka.http.scaladsl.model.{HttpRequest, Uri}
+import com.wix.restaurants.compression.CallClass
+import com.wix.restaurants.exceptions.LimitExceededException
+import com.wix.restaurants.limits.{Limit, LimitSettings, LimitStats}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+import scala.concurrent.{Await, ExecutionContext, Future, Promise}
+
+class LimiterTest extends SpecWithJUnit with AfterAll {
+  private implicit val system: ActorSystem = ActorSystem("LimiterTest")
+  private implicit val executionContext: ExecutionContext = system.dispatcher
+
+  override def afterAll(): Unit = system.terminate()
+
+  private def await[T](future: Future[T]): T = Await.result(future, 5.seconds)
+
+  private def ordersOf(organizationId: String): HttpRequest = {
+    HttpRequest(uri = s"https://api.example.org/v2/organizations/$organizationId/orders?viewMode=restaurant")
+  }
+
+  trait Ctx extends Scope {
+    def limit: Limit = Limit(maxConcurrent = 2)
+    def idleTimeout: FiniteDuration = 1.minute
+    lazy val limiter = new Limiter(LimitSettings(defaultLimit = limit, idleTimeout = idleTimeout))
+    val responses = (1 to 10).map { _ => Promise[String]() }
+    @volatile var started = 0
+
+    def call(request: HttpRequest, index: Int): Future[String] = limiter(request) {
+      started += 1
+      responses(index).future
+    }
+
+    def statsOf(organizationId: String): LimitStats = {
+      limiter.stats.asScala.find { _.organizationId == organizationId }.get
+    }
+  }
+
+  "organizationOf" should {
+    "take the organization from the path, or from the organizationId parameter" in {
+      Limiter.organizationOf(Uri("https://api.example.org/v2/organizations/123/orders/456")) must beSome("123")
+      Limiter.organizationOf(Uri("https://api.example.org/v2/admin/orders?organizationId=123&limit=5")) must beSome("123")
+      Limiter.organizationOf(Uri("https://api.example.org/v2/me/account")) must beNone
+    }
+  }
+
+  "apply" should {
+    "queue calls over the concurrency limit until earlier ones complete" in new Ctx {
+      val futures = (0 to 2).map { i => call(ordersOf("123"), i) }
+      started must be_===(2)
+      statsOf("123").queued must be_===(1)
+
+      responses(0).success("first")
+      started must be_===(3).eventually
+      responses(1).success("second")
+      responses(2).success("third")
+      futures.map(await) must be_===(Seq("first", "second", "third"))
+    }
+
+    "limit each organization and call class separately" in new Ctx {
+      (0 to 1).foreach { i => call(ordersOf("123"), i) }
+      call(ordersOf("456"), 2)
+      call(HttpRequest(uri = "https://api.example.org/v2/organizations/123/menu"), 3)
+
+      started must be_===(4)
+      statsOf("123").queued must be_===(0)
+    }
+
+    "fail fast when queueing is disabled" in new Ctx {
+      override def limit: Limit = Limit(maxConcurrent = 1).withFastFail
+      call(ordersOf("123"), 0)
+
+      await(call(ordersOf("123"), 1)) must throwA[LimitExceededException]
+      started must be_===(1)
+      statsOf("123").rejected must be_===(1L)
+    }
+
+    "reject calls once the queue is full" in new Ctx {
+      override def limit: Limit = Limit(maxConcurrent = 1, maxQueued = 2)
+      (0 to 2).foreach { i => call(ordersOf("123"), i) }
+
+      await(call(ordersOf("123"), 3)) must throwA[LimitExceededException]
+      (statsOf("123").inFlight, statsOf("123").queued, statsOf("123").rejected) must be_===((1, 2, 1L))
+    }
+
+    "fail calls that wait for longer than maxQueueTime" in new Ctx {
+      override def limit: Limit = Limit(maxConcurrent = 1).withQueue(10, 50.millis)
+      call(ordersOf("123"), 0)
+
+      await(call(ordersOf("123"), 1)) must throwA[LimitExceededException]
+      statsOf("123").timedOut must be_===(1L)
+      statsOf("123").queued must be_===(0)
+    }
+
+    "release the slot of failed calls" in new Ctx {
+      override def limit: Limit = Limit(maxConcurrent = 1)
+      val second = { call(ordersOf("123"), 0); call(ordersOf("123"), 1) }
+      responses(0).failure(new RuntimeException("boom"))
+      responses(1).success("second")
+
+      await(second) must be_===("second")
+    }
+
+    "space calls out by the token bucket's rate" in new Ctx {
+      override def limit: Limit = Limit(maxConcurrent = 10).withRate(ratePerSecond = 20, burst = 1)
+      responses.foreach { _.success("done") }
+
+      val startNanos = System.nanoTime
+      (0 to 4).map { i => call(ordersOf("123"), i) }.foreach(await)
+      (System.nanoTime - startNanos).nanos must be_>=(190.millis)
+    }
+
+    "drop partitions that have been idle for idleTimeout" in new Ctx {
+      override def idleTimeout: FiniteDuration = 100.millis
+      call(ordersOf("123"), 0)
+      call(ordersOf("456"), 1)
+      responses(0).success("done")
+      limiter.stats.size must be_===(2)
+
+      Thread.sleep(200)
+      call(ordersOf("456"), 2)
+      limiter.stats.asScala.map { _.organizationId } must be_===(Seq("456"))
+      statsOf("456").inFlight must be_===(2)
+
+      await(call(ordersOf("123"), 0)) must be_===("done")
+      statsOf("123").admitted must be_===(1L)
+    }
+
+    "keep partitions whose token bucket is still refilling" in new Ctx {
+      override def idleTimeout: FiniteDuration = 50.millis
+      override def limit: Limit = Limit().withRate(ratePerSecond = 1, burst = 2)
+      responses.foreach { _.success("done") }
+      (0 to 1).foreach { i => await(call(ordersOf("123"), i)) }
+
+      Thread.sleep(100)
+      call(ordersOf("456"), 2)
+      limiter.stats.size must be_===(2)
+    }
+  }
+
+  "LimitSettings" should {
+    "use a call class's own limit, if it has one" in {
+      val settings = LimitSettings.defaults.withLimit(CallClass.MENUS, Limit(maxConcurrent = 1))
+
+      settings.limitOf(CallClass.MENUS).maxConcurrent must be_===(1)
+      settings.limitOf(CallClass.ORDERS) must be_===(Limit.defaults)
+    }
+  }
+}
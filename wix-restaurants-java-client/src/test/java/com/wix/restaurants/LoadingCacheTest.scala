@@ -0,0 +1,108 @@
+package com.wix.restaurants
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration._
+import scala.concurrent.{Await, Future, Promise}
+
+class LoadingCacheTest extends SpecWithJUnit {
+  private def await[T](future: Future[T]): T = Await.result(future, 5.seconds)
+
+  trait Ctx extends Scope {
+    val loads = new AtomicInteger()
+
+    def aCache(maxEntries: Int = 10, ttl: FiniteDuration = 1.minute) = new LoadingCache[String, String](maxEntries, ttl)
+
+    def load(value: String): Future[String] = {
+      loads.incrementAndGet()
+      Future.successful(value)
+    }
+  }
+
+  "get" should {
+    "load missing values once, and serve them from the cache afterwards" in new Ctx {
+      val cache = aCache()
+
+      await(cache.get("key") { load("value") }) must be_===("value")
+      await(cache.get("key") { load("other-value") }) must be_===("value")
+      loads.get must be_===(1)
+    }
+
+    "share a single load between concurrent lookups" in new Ctx {
+      val cache = aCache()
+      val loaded = Promise[String]()
+      val futures = (1 to 5).map { _ => cache.get("key") { loads.incrementAndGet(); loaded.future } }
+
+      loaded.success("value")
+      futures.map(await) must contain(be_===("value")).foreach
+      loads.get must be_===(1)
+      cache.stats.loads must be_===(1L)
+      cache.stats.misses must be_===(5L)
+    }
+
+    "reload expired values" in new Ctx {
+      val cache = aCache(ttl = Duration.Zero)
+
+      await(cache.get("key") { load("value") })
+      await(cache.get("key") { load("value") })
+      loads.get must be_===(2)
+    }
+
+    "not cache failures" in new Ctx {
+      val cache = aCache()
+
+      await(cache.get("key") { Future.failed(new RuntimeException("boom")) }) must throwA[RuntimeException]
+      await(cache.get("key") { load("value") }) must be_===("value")
+    }
+
+    "evict the least recently used entries" in new Ctx {
+      val cache = aCache(maxEntries = 2)
+      await(cache.get("a") { load("a") })
+      await(cache.get("b") { load("b") })
+      await(cache.get("a") { load("a") })
+      await(cache.get("c") { load("c") })
+
+      await(cache.get("a") { load("a") })
+      loads.get must be_===(3)
+      cache.stats.size must be_===(2)
+    }
+
+    "count hits and misses" in new Ctx {
+      val cache = aCache()
+      await(cache.get("key") { load("value") })
+      await(cache.get("key") { load("value") })
+      await(cache.get("key") { load("value") })
+
+      cache.stats.hits must be_===(2L)
+      cache.stats.misses must be_===(1L)
+      cache.stats.hitRate must be_===(2.0 / 3)
+    }
+  }
+
+  "invalidate" should {
+    "make the next lookup reload" in new Ctx {
+      val cache = aCache()
+      await(cache.get("key") { load("value") })
+
+      cache.invalidate("key")
+
+      await(cache.get("key") { load("new-value") }) must be_===("new-value")
+    }
+
+    "not store a load that was in flight when invalidated" in new Ctx {
+      val cache = aCache()
+      val loaded = Promise[String]()
+      val stale = cache.get("key") { loaded.future }
+
+      cache.invalidate("key")
+      loaded.success("stale-value")
+      await(stale)
+
+      await(cache.get("key") { load("new-value") }) must be_===("new-value")
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package com.wix.restaurants
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import com.openrest.v1_1.{Item, Menu}
+import com.wix.restaurants.menus.MenuUploadSettings
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration._
+import scala.concurrent.{Await, Future}
+
+class MenuUploadsTest extends SpecWithJUnit {
+  private def await[T](future: Future[T]): T = Await.result(future, 5.seconds)
+
+  private def aMenu(prices: Int*): Menu = {
+    val menu = new Menu
+    prices.zipWithIndex.foreach { case (price, i) =>
+      val item = new Item
+      item.id = s"item$i"
+      item.price = price
+      menu.items.add(item)
+    }
+    menu
+  }
+
+  trait Ctx extends Scope {
+    val settings = MenuUploadSettings()
+    lazy val uploads = new MenuUploads(settings)
+    val uploadCount = new AtomicInteger
+
+    def update(menu: Menu, restaurantId: String = "restaurant", locationId: String = null) = {
+      await(uploads.update(restaurantId, locationId, JsonCodec.mapper.writeValueAsString(menu)) {
+        uploadCount.incrementAndGet()
+        Future.successful(menu)
+      })
+    }
+  }
+
+  "update" should {
+    "upload a menu not seen before, with no diff" in new Ctx {
+      val result = update(aMenu(100))
+
+      result.uploaded must beTrue
+      result.diff must beNull
+      uploadCount.get must be_===(1)
+    }
+
+    "skip menus identical to the last upload" in new Ctx {
+      val menu = aMenu(100, 200)
+      val first = update(menu)
+      val second = update(menu)
+
+      second.uploaded must beFalse
+      second.diff.isEmpty must beTrue
+      second.menu must be(first.menu)
+      uploadCount.get must be_===(1)
+    }
+
+    "upload changed menus, with what changed" in new Ctx {
+      val menu = aMenu(100, 200)
+      update(menu)
+      menu.items.get(1).price = 250
+      val result = update(menu)
+
+      result.uploaded must beTrue
+      result.diff.items.get(0).id must be_===("item1")
+      uploadCount.get must be_===(2)
+    }
+
+    "track locations separately" in new Ctx {
+      val menu = aMenu(100)
+      update(menu, locationId = "a")
+      update(menu, locationId = "b").uploaded must beTrue
+      update(menu, locationId = "a").uploaded must beFalse
+    }
+
+    "upload again once the last upload is too old" in new Ctx {
+      override val settings = MenuUploadSettings(maxAge = Duration.Zero)
+      val menu = aMenu(100)
+      update(menu)
+
+      update(menu).uploaded must beTrue
+    }
+
+    "upload again after the restaurant is invalidated" in new Ctx {
+      val menu = aMenu(100)
+      update(menu, locationId = "a")
+      update(menu, restaurantId = "other")
+      uploads.invalidate("restaurant")
+
+      update(menu, locationId = "a").uploaded must beTrue
+      update(menu, restaurantId = "other").uploaded must beFalse
+    }
+  }
+}
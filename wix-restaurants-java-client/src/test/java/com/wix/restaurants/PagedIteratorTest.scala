@@ -0,0 +1,111 @@
+package com.wix.restaurants
+
+import java.util.concurrent.TimeoutException
+
+import com.wix.restaurants.exceptions.PageOverflowException
+import com.wix.restaurants.paging.PagingSettings
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration._
+import scala.concurrent.{Future, Promise}
+
+class PagedIteratorTest extends SpecWithJUnit {
+  case class Item(id: String, timestamp: Long)
+
+  trait Ctx extends Scope {
+    val requests = mutable.Buffer.empty[(Long, Int)]
+
+    def iterator(items: Seq[Item],
+                 from: Long = 0L,
+                 descending: Boolean = false,
+                 isPast: Item => Boolean = _ => false,
+                 pageSize: Int = 2,
+                 maxPageSize: Int = 8,
+                 timeout: Duration = Duration.Inf): PagedIterator[Item] = {
+      val sorted = if (descending) items.sortBy { -_.timestamp } else items.sortBy { _.timestamp }
+      val fetch = (cursor: Long, limit: Int) => {
+        requests.synchronized { requests += ((cursor, limit)) }
+        val matching = sorted.filter { item => if (descending) item.timestamp <= cursor else item.timestamp >= cursor }
+        Future.successful(Page(matching.take(limit), 0L))
+      }
+      val settings = PagingSettings(initialPageSize = pageSize, minPageSize = pageSize, maxPageSize = pageSize)
+      new PagedIterator[Item](fetch, from, descending, _.timestamp, _.id, isPast, new PageSizer(settings), maxPageSize, timeout)
+    }
+
+    def iterate(items: Seq[Item],
+                from: Long = 0L,
+                descending: Boolean = false,
+                isPast: Item => Boolean = _ => false,
+                pageSize: Int = 2,
+                maxPageSize: Int = 8): Seq[Item] = {
+      iterator(items, from, descending, isPast, pageSize, maxPageSize).asScala.toList
+    }
+  }
+
+  "PagedIterator" should {
+    "return nothing for an empty query" in new Ctx {
+      iterate(Nil) must beEmpty
+    }
+
+    "return all items across pages, in order" in new Ctx {
+      val items = (1 to 5).map { i => Item(s"id$i", i) }
+
+      iterate(items) must be_===(items)
+    }
+
+    "return items sharing a boundary timestamp exactly once" in new Ctx {
+      val items = Seq(Item("a", 1), Item("b", 2), Item("c", 2), Item("d", 3))
+
+      iterate(items) must be_===(items)
+    }
+
+    "widen the page when a full page is stuck on one timestamp" in new Ctx {
+      val items = Seq(Item("a", 1), Item("b", 1), Item("c", 1), Item("d", 2))
+
+      iterate(items) must be_===(items)
+      requests must contain((1L, 4))
+    }
+
+    "fail, rather than skip items, when more items share a timestamp than fit in the largest page" in new Ctx {
+      val items = (1 to 10).map { i => Item(s"id$i", 1) } :+ Item("last", 2)
+      val returned = mutable.Buffer.empty[Item]
+      val it = iterator(items, maxPageSize = 8)
+
+      (while (it.hasNext) returned += it.next()) must throwA[PageOverflowException]
+      returned must be_===(items.take(8))
+      requests must be_===(Seq((0L, 2), (1L, 2), (1L, 4), (1L, 8)))
+    }
+
+    "fail and close when a page takes longer than the timeout" in new Ctx {
+      val never = Promise[Page[Item]]().future
+      val it = new PagedIterator[Item]((_, _) => never, 0L, false, _.timestamp, _.id, _ => false,
+        new PageSizer(PagingSettings()), 1000, 50.millis)
+
+      it.hasNext must throwA[TimeoutException]
+      it.hasNext must beFalse
+    }
+
+    "iterate in descending order" in new Ctx {
+      val items = Seq(Item("a", 3), Item("b", 2), Item("c", 2), Item("d", 1))
+
+      iterate(items, from = Long.MaxValue, descending = true) must be_===(items)
+    }
+
+    "stop at the first item past the requested range" in new Ctx {
+      val items = (1 to 10).map { i => Item(s"id$i", 11 - i) }
+
+      iterate(items, from = Long.MaxValue, descending = true, isPast = _.timestamp < 8).map { _.timestamp } must be_===(Seq(10L, 9L, 8L))
+      requests.size must be_<=(3)
+    }
+
+    "not request another page after a short one" in new Ctx {
+      iterate(Seq(Item("a", 1)))
+
+      requests must haveSize(1)
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.wix.restaurants
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import akka.http.scaladsl.model.HttpRequest
+import akka.http.scaladsl.model.headers.{Authorization, OAuth2BearerToken}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration._
+import scala.concurrent.{Await, Future, Promise}
+
+class RequestCoalescerTest extends SpecWithJUnit {
+  private def await[T](future: Future[T]): T = Await.result(future, 5.seconds)
+
+  private def aRequest(uri: String = "http://example.org/organizations/123", accessToken: String = "some-token"): HttpRequest = {
+    HttpRequest(uri = uri).addHeader(Authorization(OAuth2BearerToken(accessToken)))
+  }
+
+  trait Ctx extends Scope {
+    val coalescer = new RequestCoalescer
+    val fetches = new AtomicInteger()
+    val response = Promise[String]()
+
+    def fetch(): Future[String] = {
+      fetches.incrementAndGet()
+      response.future
+    }
+  }
+
+  "get" should {
+    "share a request between identical overlapping calls" in new Ctx {
+      val futures = (1 to 3).map { _ => coalescer.get(aRequest()) { fetch() } }
+      response.success("value")
+
+      futures.map(await) must be_===(Seq("value", "value", "value"))
+      fetches.get must be_===(1)
+    }
+
+    "not share requests for different URIs or credentials" in new Ctx {
+      coalescer.get(aRequest()) { fetch() }
+      coalescer.get(aRequest(uri = "http://example.org/organizations/456")) { fetch() }
+      coalescer.get(aRequest(accessToken = "other-token")) { fetch() }
+
+      fetches.get must be_===(3)
+    }
+
+    "not share requests whose responses are bound to different types" in new Ctx {
+      coalescer.get(aRequest(), classOf[String]) { fetch() }
+      coalescer.get(aRequest(), classOf[Integer]) { fetch() }
+      coalescer.get(aRequest(), classOf[String]) { fetch() }
+
+      fetches.get must be_===(2)
+    }
+
+    "not keep results once the request completes" in new Ctx {
+      response.success("value")
+      await(coalescer.get(aRequest()) { fetch() })
+      await(coalescer.get(aRequest()) { fetch() })
+
+      fetches.get must be_===(2)
+    }
+
+    "share failures, without keeping them" in new Ctx {
+      val futures = (1 to 2).map { _ => coalescer.get(aRequest()) { fetch() } }
+      response.failure(new RuntimeException("boom"))
+
+      futures.map { future => await(future) must throwA[RuntimeException] }
+      coalescer.stats.inFlight must be_===(0)
+    }
+
+    "count requests and coalesced requests" in new Ctx {
+      (1 to 4).foreach { _ => coalescer.get(aRequest()) { fetch() } }
+
+      coalescer.stats.requests must be_===(4L)
+      coalescer.stats.coalesced must be_===(3L)
+      coalescer.stats.coalescingRate must be_===(0.75)
+    }
+  }
+}
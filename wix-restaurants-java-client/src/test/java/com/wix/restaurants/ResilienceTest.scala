@@ -0,0 +1,279 @@
+package com.wix.restaurants
+
+import java.io.ByteArrayInputStream
+import java.net.ConnectException
+import java.util.concurrent.{CompletableFuture, CompletionStage, ConcurrentLinkedQueue, TimeUnit}
+import java.util.concurrent.atomic.AtomicInteger
+
+import akka.actor.ActorSystem
+import akka.http.scaladsl.model.{HttpMethods, HttpRequest}
+import akka.stream.{ActorMaterializer, Materializer}
+import com.fasterxml.jackson.databind.JsonNode
+import com.wix.restaurants.exceptions.{CircuitOpenException, InternalException, NotFoundException, TemporarilyUnavailableException}
+import com.wix.restaurants.resilience.ResilienceSettings
+import com.wix.restaurants.transport.{HttpTransport, TransportRequest, TransportResponse}
+import org.specs2.mutable.{After, SpecWithJUnit}
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+import scala.concurrent.{Await, ExecutionContext, Future, Promise}
+import scala.util.Try
+
+class ResilienceTest extends SpecWithJUnit with AfterAll {
+  sequential
+
+  private implicit val system: ActorSystem = ActorSystem("ResilienceTest")
+  private implicit val materializer: Materializer = ActorMaterializer()
+  private implicit val executionContext: ExecutionContext = system.dispatcher
+  private val transport = new AkkaTransport
+
+  override def afterAll(): Unit = system.terminate()
+
+  private def await[T](future: Future[T]): T = Await.result(future, 10.seconds)
+
+  private val fastRetries = ResilienceSettings(initialBackoff = 1.millis, maxBackoff = 5.millis)
+
+  trait Ctx extends Scope with After {
+    val server = new StubServer(StubServer.ok("""{"id":"default"}"""))
+    override def after: Any = server.close()
+    def settings: ResilienceSettings = fastRetries
+    lazy val pipeline = new RequestPipeline(resilience = Some(new Resilience(settings)))
+
+    def aGet: HttpRequest = HttpRequest(uri = s"${server.url}/organizations/123")
+    def aPost: HttpRequest = HttpRequest(HttpMethods.POST, uri = s"${server.url}/organizations/123/orders")
+
+    def send(request: HttpRequest, writeRetries: WriteRetries = WriteRetries.Never, hedged: Boolean = false): Future[String] = {
+      pipeline(request, writeRetries, hedged) { exchange =>
+        Transports.send(transport, exchange.sent(request)).flatMap { StreamingJson.read[JsonNode](_) }.map { _.value.get("id").asText }
+      }
+    }
+  }
+
+  "retries" should {
+    "retry GETs that fail transiently, until they succeed" in new Ctx {
+      server.reply(StubServer.unavailable, StubServer.internalError, StubServer.ok("""{"id":"third"}"""))
+
+      await(send(aGet)) must be_===("third")
+      server.requests must be_===(3)
+      pipeline.resilience.get.stats.retries must be_===(2L)
+    }
+
+    "give up after maxRetries, with the last error" in new Ctx {
+      override def settings: ResilienceSettings = fastRetries.withMaxRetries(2)
+      server.reply(StubServer.unavailable, StubServer.unavailable, StubServer.internalError)
+
+      await(send(aGet)) must throwA[InternalException]
+      server.requests must be_===(3)
+    }
+
+    "not retry client errors" in new Ctx {
+      server.reply(StubServer.notFound)
+
+      await(send(aGet)) must throwA[NotFoundException]
+      server.requests must be_===(1)
+    }
+
+    "not retry writes, unless they are marked as safe to repeat" in new Ctx {
+      server.reply(StubServer.unavailable, StubServer.unavailable)
+
+      await(send(aPost)) must throwA[TemporarilyUnavailableException]
+      await(send(aPost, WriteRetries.Always)) must be_===("default")
+      server.requests must be_===(3)
+    }
+
+    "retry writes that can't be repeated only after errors that show they weren't applied" in new Ctx {
+      server.reply(StubServer.internalError, StubServer.unavailable)
+
+      await(send(aPost, WriteRetries.IfUnapplied)) must throwA[InternalException]
+      server.requests must be_===(1)
+      await(send(aPost, WriteRetries.IfUnapplied)) must be_===("default")
+      server.requests must be_===(3)
+    }
+
+    "retry writes that can't be repeated after a refused connection" in new Ctx {
+      val attempts = new AtomicInteger()
+
+      await(pipeline(aPost, WriteRetries.IfUnapplied) { _ =>
+        if (attempts.incrementAndGet() == 1) Future.failed(new ConnectException("Connection refused")) else Future.successful("sent")
+      }) must be_===("sent")
+      attempts.get must be_===(2)
+    }
+
+    "not retry marked writes when retryWrites is off" in new Ctx {
+      override def settings: ResilienceSettings = fastRetries.withRetryWrites(false)
+      server.reply(StubServer.unavailable)
+
+      await(send(aPost, WriteRetries.Always)) must throwA[TemporarilyUnavailableException]
+      server.requests must be_===(1)
+    }
+
+    "not retry attempts that are no longer restartable" in new Ctx {
+      server.reply(StubServer.unavailable)
+
+      await(pipeline(aGet, restartable = false) { exchange =>
+        Transports.send(transport, exchange.sent(aGet)).flatMap { StreamingJson.read[JsonNode](_) }
+      }) must throwA[TemporarilyUnavailableException]
+      server.requests must be_===(1)
+    }
+  }
+
+  "a client" should {
+    /** Fails the first request with the given error, and answers the others with an order. Records requests. */
+    class FlakyTransport(status: Int = 503, `type`: String = Errors.TemporarilyUnavailable) extends HttpTransport {
+      val requests = new ConcurrentLinkedQueue[TransportRequest]()
+
+      override def send(request: TransportRequest): CompletionStage[TransportResponse] = {
+        requests.add(request)
+        if (requests.size == 1) {
+          respond(status, s"""{"type":"${`type`}","detail":"stubbed"}""")
+        } else {
+          respond(200, """{"id":"456","status":"accepted"}""")
+        }
+      }
+
+      private def respond(status: Int, body: String): CompletionStage[TransportResponse] = {
+        val bytes = body.getBytes("UTF-8")
+        CompletableFuture.completedFuture(new TransportResponse(status, Map("content-type" -> "application/json").asJava,
+          bytes.length.toLong, new ByteArrayInputStream(bytes)))
+      }
+
+      def idempotencyKeys: List[String] = requests.asScala.toList.map { _.header("Idempotency-Key") }
+
+      override def close(): Unit = {}
+    }
+
+    def aClient(transport: HttpTransport, settings: ResilienceSettings): DefaultAsyncWixRestaurantsClient =
+      new DefaultAsyncWixRestaurantsClient(apiUrl = "https://api.example.org/v2", resilienceSettings = settings,
+        transport = transport)
+
+    "retry writes with the same idempotency key, so that a lost response isn't applied twice" in {
+      val transport = new FlakyTransport
+      val client = aClient(transport, fastRetries)
+      val order = try client.acceptOrder("some-token", "123", "456", null).toCompletableFuture.get(5, TimeUnit.SECONDS)
+        finally client.close()
+
+      order.status must be_===("accepted")
+      transport.idempotencyKeys must haveSize(2)
+      transport.idempotencyKeys.distinct must haveSize(1)
+      transport.idempotencyKeys.head must not(beNull)
+    }
+
+    "not retry an accept after a server error, as the first attempt may have been applied" in {
+      val transport = new FlakyTransport(500, Errors.Internal)
+      val client = aClient(transport, fastRetries)
+      val accepted = try Try(client.acceptOrder("some-token", "123", "456", null).toCompletableFuture.get(5, TimeUnit.SECONDS))
+        finally client.close()
+
+      accepted.failed.get.getCause must beAnInstanceOf[InternalException]
+      transport.requests must haveSize(1)
+    }
+
+    "not add idempotency keys to writes that aren't retried" in {
+      val transport = new FlakyTransport
+      val client = aClient(transport, fastRetries.withRetryWrites(false))
+      val accepted = try Try(client.acceptOrder("some-token", "123", "456", null).toCompletableFuture.get(5, TimeUnit.SECONDS))
+        finally client.close()
+
+      accepted must beFailedTry
+      transport.idempotencyKeys must be_===(List(null))
+    }
+  }
+
+  "the circuit breaker" should {
+    "fail fast once a host keeps failing, and close again after a successful trial" in new Ctx {
+      override def settings: ResilienceSettings = fastRetries.withMaxRetries(0).withFailureThreshold(3).withResetTimeout(200.millis)
+      (1 to 3).foreach { _ => server.reply(StubServer.internalError) }
+
+      (1 to 3).foreach { _ => await(send(aGet)) must throwA[InternalException] }
+      await(send(aGet)) must throwA[CircuitOpenException]
+      server.requests must be_===(3)
+      pipeline.resilience.get.stats.openCircuits must be_===(1)
+
+      Thread.sleep(250)
+      await(send(aGet)) must be_===("default")
+      await(send(aGet)) must be_===("default")
+      pipeline.resilience.get.stats.openCircuits must be_===(0)
+      pipeline.resilience.get.stats.rejected must be_===(1L)
+    }
+
+    "reopen if the trial call fails" in new Ctx {
+      override def settings: ResilienceSettings = fastRetries.withMaxRetries(0).withFailureThreshold(1).withResetTimeout(200.millis)
+      server.reply(StubServer.internalError, StubServer.internalError)
+
+      await(send(aGet)) must throwA[InternalException]
+      Thread.sleep(250)
+      await(send(aGet)) must throwA[InternalException]
+      await(send(aGet)) must throwA[CircuitOpenException]
+    }
+
+    "not count client errors as failures" in new Ctx {
+      override def settings: ResilienceSettings = fastRetries.withFailureThreshold(2)
+      server.reply(StubServer.notFound, StubServer.notFound, StubServer.notFound)
+
+      (1 to 3).foreach { _ => await(send(aGet)) must throwA[NotFoundException] }
+      await(send(aGet)) must be_===("default")
+    }
+
+    "ignore the late success of a call sent before the circuit opened" in {
+      val breaker = new CircuitBreaker("host", failureThreshold = 1, resetTimeout = 1.hour, ResilienceSettings.isTransient)
+      val slow = Promise[String]()
+      val slowResult = breaker(slow.future)
+
+      await(breaker(Future.failed[String](new InternalException("stubbed")))) must throwA[InternalException]
+      slow.success("late")
+      await(slowResult) must be_===("late")
+
+      breaker.isOpen must beTrue
+      await(breaker(Future.successful("next"))) must throwA[CircuitOpenException]
+    }
+
+    "let a single trial through, even if a call sent before the circuit opened fails during it" in {
+      val breaker = new CircuitBreaker("host", failureThreshold = 1, resetTimeout = 100.millis, ResilienceSettings.isTransient)
+      val slow = Promise[String]()
+      val slowResult = breaker(slow.future)
+      await(breaker(Future.failed[String](new InternalException("stubbed")))) must throwA[InternalException]
+
+      Thread.sleep(150)
+      val trial = Promise[String]()
+      val trialResult = breaker(trial.future)
+      slow.failure(new InternalException("stubbed"))
+      await(slowResult) must throwA[InternalException]
+
+      Thread.sleep(150)
+      await(breaker(Future.successful("second trial"))) must throwA[CircuitOpenException]
+      trial.success("trial")
+      await(trialResult) must be_===("trial")
+      breaker.isOpen must beFalse
+      await(breaker(Future.successful("next"))) must be_===("next")
+    }
+  }
+
+  "hedging" should {
+    "race a slow read with a second request, and use the first response" in new Ctx {
+      override def settings: ResilienceSettings = fastRetries.withHedgeAfter(50.millis)
+      server.reply(StubServer.ok("""{"id":"slow"}""", delay = 2.seconds), StubServer.ok("""{"id":"fast"}"""))
+
+      val startNanos = System.nanoTime
+      await(send(aGet, hedged = true)) must be_===("fast")
+      (System.nanoTime - startNanos).nanos must be_<(1.second)
+      pipeline.resilience.get.stats.hedges must be_===(1L)
+    }
+
+    "not send a second request when the first is fast enough" in new Ctx {
+      override def settings: ResilienceSettings = fastRetries.withHedgeAfter(1.second)
+
+      await(send(aGet, hedged = true)) must be_===("default")
+      server.requests must be_===(1)
+      pipeline.resilience.get.stats.hedges must be_===(0L)
+    }
+
+    "only hedge requests that ask for it" in new Ctx {
+      override def settings: ResilienceSettings = fastRetries.withHedgeAfter(50.millis)
+      server.reply(StubServer.ok("""{"id":"slow"}""", delay = 300.millis))
+
+      await(send(aGet)) must be_===("slow")
+      server.requests must be_===(1)
+    }
+  }
+}
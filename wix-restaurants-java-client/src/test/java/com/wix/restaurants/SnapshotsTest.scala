@@ -0,0 +1,250 @@
+package com.wix.restaurants
+
+import java.io.{ByteArrayInputStream, IOException}
+import java.nio.file.{Files, Path}
+import java.util.concurrent.{CompletableFuture, CompletionStage, ConcurrentLinkedQueue, TimeUnit}
+
+import com.openrest.v1_1.{Menu, Organization, Restaurant, RestaurantFullInfo}
+import com.wix.restaurants.cache.{CachedResponse, ResponseCacheSettings, SnapshotSettings}
+import com.wix.restaurants.transport.{HttpTransport, TransportRequest, TransportResponse}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+
+class SnapshotsTest extends SpecWithJUnit with AfterAll {
+  private val runtime = new WixRestaurantsRuntime()
+
+  override def afterAll(): Unit = runtime.close()
+
+  private def await[T](stage: CompletionStage[T]): T = {
+    try {
+      stage.toCompletableFuture.get(5, TimeUnit.SECONDS)
+    } catch {
+      case e: java.util.concurrent.ExecutionException => throw e.getCause
+    }
+  }
+
+  private val restaurantKey = "https://api.example.org/v2/organizations/123/full|"
+  private val menuKey = "https://api.example.org/v2/organizations/123/menu|Bearer some-secret-token"
+
+  private def aRestaurantInfo(id: String = "123"): RestaurantFullInfo = {
+    val full = new RestaurantFullInfo
+    full.restaurant = new Restaurant
+    full.restaurant.id = id
+    full
+  }
+
+  private def aResponse(value: Any, organizationId: String = "123", etag: String = "\"v1\"",
+                        fetchedAt: Long = System.currentTimeMillis): CachedResponse = {
+    new CachedResponse(organizationId, value, etag, null, 100L, fetchedAt)
+  }
+
+  private def restaurantIdOf(response: Option[CachedResponse]): Option[String] = {
+    response.map { _.value.asInstanceOf[RestaurantFullInfo].restaurant.id }
+  }
+
+  trait Ctx extends Scope {
+    val directory: Path = Files.createTempDirectory("snapshots-test")
+    val file: Path = directory.resolve("snapshot.bin")
+    def settings: SnapshotSettings = SnapshotSettings(file, writeInterval = 1.hour)
+
+    /** A new snapshot store over the same file, as after a restart. */
+    def restarted(): Snapshots = new Snapshots(settings)
+
+    def filesInDirectory: Seq[String] = Files.list(directory).iterator.asScala.map { _.getFileName.toString }.toSeq
+  }
+
+  "a snapshot" should {
+    "restore restaurant info and menus after a restart" in new Ctx {
+      val snapshots = restarted()
+      snapshots.put(restaurantKey, aResponse(aRestaurantInfo()))
+      snapshots.put(menuKey, aResponse(new Menu))
+      snapshots.close()
+
+      val restored = restarted()
+      val restaurant = restored.restore(restaurantKey)
+      restaurantIdOf(restaurant) must beSome("123")
+      restaurant.map { _.etag } must beSome("\"v1\"")
+      restored.restore(menuKey).map { _.value } must beSome(beAnInstanceOf[Menu])
+      restored.restore("https://api.example.org/v2/organizations/456/full|") must beNone
+      restored.stats.entries must be_===(2)
+      restored.stats.restored must be_===(2L)
+    }
+
+    "never persist other responses, or credentials" in new Ctx {
+      val organization = new Organization
+      organization.id = "123"
+
+      val snapshots = restarted()
+      snapshots.put("https://api.example.org/v2/organizations/123|Bearer some-secret-token", aResponse(organization))
+      snapshots.put(menuKey, aResponse(new Menu))
+      snapshots.close()
+
+      restarted().stats.entries must be_===(1)
+      new String(Files.readAllBytes(file), "ISO-8859-1") must not(contain("some-secret-token"))
+      restarted().restore(menuKey.replace("some-secret-token", "other-token")) must beNone
+    }
+
+    "keep documents that weren't fetched again, with their latest revalidation" in new Ctx {
+      val first = restarted()
+      first.put(restaurantKey, aResponse(aRestaurantInfo(), fetchedAt = System.currentTimeMillis - 1.minute.toMillis))
+      first.put(menuKey, aResponse(new Menu))
+      first.close()
+
+      val second = restarted()
+      val revalidatedAt = System.currentTimeMillis
+      second.put(restaurantKey, aResponse(aRestaurantInfo(), fetchedAt = revalidatedAt))
+      second.close()
+
+      val third = restarted()
+      third.stats.entries must be_===(2)
+      third.restore(restaurantKey).map { _.fetchedAt } must beSome(revalidatedAt)
+      third.restore(menuKey) must beSome
+    }
+
+    "drop invalidated organizations" in new Ctx {
+      val first = restarted()
+      first.put(restaurantKey, aResponse(aRestaurantInfo()))
+      first.put("https://api.example.org/v2/organizations/456/full|", aResponse(aRestaurantInfo("456"), organizationId = "456"))
+      first.close()
+
+      val second = restarted()
+      second.invalidate("123")
+      second.restore(restaurantKey) must beNone
+      second.close()
+
+      val third = restarted()
+      third.restore(restaurantKey) must beNone
+      restaurantIdOf(third.restore("https://api.example.org/v2/organizations/456/full|")) must beSome("456")
+    }
+
+    "drop documents older than maxAge" in new Ctx {
+      override def settings: SnapshotSettings = super.settings.withMaxAge(1.hour)
+
+      val snapshots = restarted()
+      snapshots.put(restaurantKey, aResponse(aRestaurantInfo(), fetchedAt = System.currentTimeMillis - 2.hours.toMillis))
+      snapshots.put(menuKey, aResponse(new Menu))
+      snapshots.close()
+
+      restarted().restore(restaurantKey) must beNone
+      restarted().stats.entries must be_===(1)
+    }
+
+    "ignore files that aren't snapshots, and replace them" in new Ctx {
+      Files.write(file, "not a snapshot".getBytes("UTF-8"))
+
+      val snapshots = restarted()
+      snapshots.restore(restaurantKey) must beNone
+      snapshots.stats.failures must be_===(1L)
+      snapshots.put(restaurantKey, aResponse(aRestaurantInfo()))
+      snapshots.close()
+
+      restaurantIdOf(restarted().restore(restaurantKey)) must beSome("123")
+    }
+
+    "ignore corrupt documents" in new Ctx {
+      val snapshots = restarted()
+      snapshots.put(restaurantKey, aResponse(aRestaurantInfo()))
+      snapshots.close()
+      val bytes = Files.readAllBytes(file)
+      bytes(bytes.length - 1) = (bytes(bytes.length - 1) ^ 0xff).toByte
+      Files.write(file, bytes)
+
+      restarted().restore(restaurantKey) must beNone
+    }
+
+    "replace the file atomically, leaving no temporary files behind" in new Ctx {
+      val snapshots = restarted()
+      snapshots.put(restaurantKey, aResponse(aRestaurantInfo()))
+      snapshots.write()
+      snapshots.put(menuKey, aResponse(new Menu))
+      snapshots.close()
+
+      filesInDirectory must be_===(Seq("snapshot.bin"))
+      snapshots.stats.writes must be_===(2L)
+    }
+
+    "unmap the file it replaces, or closes" in new Ctx {
+      val snapshots = restarted()
+      snapshots.put(restaurantKey, aResponse(aRestaurantInfo()))
+      snapshots.write()
+      val previous = SnapshotFile.read(file).get
+      previous.close()
+
+      previous.decode(previous.entries(Snapshots.keyOf(restaurantKey))) must throwAn[IOException]
+      snapshots.put(menuKey, aResponse(new Menu))
+      snapshots.close()
+      Files.delete(file) // Fails on Windows while still mapped
+      filesInDirectory must beEmpty
+    }
+
+    "report writes that keep failing, and write their changes once they succeed" in new Ctx {
+      val snapshots = restarted()
+      Files.createDirectories(file.resolve("not-empty")) // Files.move can't replace a non-empty directory
+
+      snapshots.put(menuKey, aResponse(new Menu))
+      snapshots.write()
+      snapshots.write()
+      snapshots.stats.consecutiveWriteFailures must be_===(2)
+      snapshots.stats.lastWriteFailure must beAnInstanceOf[IOException]
+
+      Files.delete(file.resolve("not-empty"))
+      Files.delete(file)
+      snapshots.write()
+      snapshots.stats.consecutiveWriteFailures must be_===(0)
+      snapshots.stats.lastWriteFailure must beNull
+      snapshots.close()
+      restarted().restore(menuKey) must beSome
+    }
+
+    "not write when nothing changed" in new Ctx {
+      restarted().close()
+
+      filesInDirectory must beEmpty
+    }
+  }
+
+  /** Answers with restaurant info (and an ETag), fails with an IOException once down, and records requests. */
+  class FakeTransport extends HttpTransport {
+    val requests = new ConcurrentLinkedQueue[TransportRequest]()
+    @volatile var down = false
+
+    override def send(request: TransportRequest): CompletionStage[TransportResponse] = {
+      requests.add(request)
+      if (down) {
+        val failed = new CompletableFuture[TransportResponse]()
+        failed.completeExceptionally(new IOException("down"))
+        failed
+      } else {
+        val body = """{"restaurant":{"id":"123"}}""".getBytes("UTF-8")
+        CompletableFuture.completedFuture(new TransportResponse(200,
+          Map("content-type" -> "application/json", "etag" -> "\"v1\"").asJava, body.length.toLong,
+          new ByteArrayInputStream(body)))
+      }
+    }
+
+    override def close(): Unit = {}
+  }
+
+  "a client with a snapshot" should {
+    "serve restaurant info from the snapshot after a restart, and revalidate it in the background" in new Ctx {
+      val transport = new FakeTransport
+      def aClient() = new DefaultAsyncWixRestaurantsClient(apiUrl = "https://api.example.org/v2", runtime = runtime,
+        cacheSettings = ResponseCacheSettings.defaults.withSnapshot(settings), transport = transport)
+
+      val client = aClient()
+      await(client.retrieveRestaurantInfo("123")).restaurant.id must be_===("123")
+      client.close()
+
+      transport.down = true
+      transport.requests.clear()
+      val restartedClient = aClient()
+      await(restartedClient.retrieveRestaurantInfo("123")).restaurant.id must be_===("123")
+      restartedClient.getSnapshotStats.restored must be_===(1L)
+      transport.requests.asScala.toList.map { _.header("If-None-Match") } must eventually(be_===(List("\"v1\"")))
+      restartedClient.close()
+    }
+  }
+}
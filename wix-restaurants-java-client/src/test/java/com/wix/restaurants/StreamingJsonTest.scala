@@ -0,0 +1,172 @@
+package com.wix.restaurants
+
+import java.util.Date
+
+import akka.actor.ActorSystem
+import akka.http.scaladsl.coding.Gzip
+import akka.http.scaladsl.model._
+import akka.stream.scaladsl.Source
+import akka.stream.{ActorMaterializer, Materializer}
+import akka.util.ByteString
+import com.fasterxml.jackson.databind.JsonNode
+import com.openrest.v1_1._
+import com.wix.restaurants.exceptions.{CommunicationException, NotFoundException}
+import com.wix.restaurants.i18n.{Locale, LocalizedString}
+import com.wix.restaurants.json.Json
+import com.wix.restaurants.transport.TransportResponse
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+import scala.concurrent.duration._
+import scala.concurrent.{Await, ExecutionContext, Future}
+
+class StreamingJsonTest extends SpecWithJUnit with AfterAll {
+  private implicit val system: ActorSystem = ActorSystem("StreamingJsonTest")
+  private implicit val materializer: Materializer = ActorMaterializer()
+  private implicit val executionContext: ExecutionContext = system.dispatcher
+
+  override def afterAll(): Unit = system.terminate()
+
+  private def await[T](future: Future[T]): T = Await.result(future, 5.seconds)
+
+  private def aChunkedHttpResponse(json: String, chunkSize: Int = 7, status: StatusCode = StatusCodes.OK): HttpResponse = {
+    val chunks = json.getBytes("UTF-8").grouped(chunkSize).map { ByteString(_) }.toList
+    HttpResponse(status = status, entity = HttpEntity.Chunked.fromData(ContentTypes.`application/json`, Source(chunks)))
+  }
+
+  private def aChunkedResponse(json: String, chunkSize: Int = 7, status: StatusCode = StatusCodes.OK): TransportResponse = {
+    AkkaTransport.responseOf(aChunkedHttpResponse(json, chunkSize, status))
+  }
+
+  trait Ctx extends Scope {
+    val received = mutable.Buffer.empty[String]
+    def collect(node: JsonNode): Unit = received += node.get("id").asText
+  }
+
+  private val english = Locale.fromJavaLocale(java.util.Locale.US)
+  private val hebrew = Locale.fromJavaLocale(new java.util.Locale("he", "IL"))
+
+  private def anOrder(id: String): Order = {
+    val order = new Order
+    order.id = id
+    order.restaurantId = "123"
+    order.locale = english
+    order.status = "new"
+    order.created = new Date(1500000000123L)
+    order.modified = new Date(1500000060456L)
+    order.price = 12345
+    order.currency = "ILS"
+    order.contact = new Contact
+    order.contact.firstName = "Ayelet"
+    order.contact.lastName = "Ben-Ami אבג"
+    order.contact.phone = "+972 54 000 0000"
+    order.orderItems = (1 to 3).map { i =>
+      val orderItem = new OrderItem
+      orderItem.itemId = s"item$i"
+      orderItem.count = i
+      orderItem.price = i * 100
+      orderItem
+    }.asJava
+    order.properties = Map("com.example.kitchen" -> """{"station":3}""").asJava
+    order
+  }
+
+  private def aMenu(): Menu = {
+    val menu = new Menu
+    menu.items = (1 to 5).map { i =>
+      val item = new Item
+      item.id = s"item$i"
+      item.price = i * 1000
+      item.title = new LocalizedString().put(english, s"Item $i").put(hebrew, s"מנה $i")
+      item
+    }.asJava
+    val section = new MenuSection
+    section.id = "section1"
+    section.title = new LocalizedString().put(english, "Mains")
+    section.itemIds = menu.items.asScala.map { _.id }.asJava
+    menu.sections = List(section).asJava
+    menu
+  }
+
+  private def aRestaurantInfo(): RestaurantFullInfo = {
+    val full = new RestaurantFullInfo
+    full.restaurant = new Restaurant
+    full.restaurant.id = "123"
+    full.restaurant.locale = english
+    full.restaurant.currency = "ILS"
+    full.menu = aMenu()
+    full
+  }
+
+  /** The JSON tree of the value, as serialized by the SDK's Json. */
+  private def treeOf(value: Any): JsonNode = JsonCodec.mapper.readTree(Json.stringify(value))
+
+  "readResults" should {
+    "hand each result to the callback, in order" in new Ctx {
+      val json = """{"results":[{"id":"a"},{"id":"b"},{"id":"c"}]}"""
+
+      await(StreamingJson.readResults[JsonNode](aChunkedResponse(json)) { collect }).value must be_===(3)
+      received must be_===(Seq("a", "b", "c"))
+    }
+
+    "skip fields other than results, before and after it" in new Ctx {
+      val json = """{"before":{"nested":[1,2,{"id":"x"}]},"results":[{"id":"a"}],"after":"z"}"""
+
+      await(StreamingJson.readResults[JsonNode](aChunkedResponse(json)) { collect })
+      received must be_===(Seq("a"))
+    }
+
+    "count the decompressed bytes of gzipped responses" in new Ctx {
+      val json = """{"results":[{"id":"a"},{"id":"b"}]}"""
+      val response = AkkaTransport.responseOf(Gzip.encodeMessage(aChunkedHttpResponse(json)))
+
+      await(StreamingJson.readResults[JsonNode](response) { collect }).bytes must be_===(json.length.toLong)
+      received must be_===(Seq("a", "b"))
+    }
+
+    "translate error responses" in new Ctx {
+      val json = """{"type":"https://www.wixrestaurants.com/errors/not_found","detail":"no such restaurant"}"""
+
+      await(StreamingJson.readResults[JsonNode](aChunkedResponse(json, status = StatusCodes.NotFound)) { collect }) must
+        throwA[NotFoundException]
+      received must beEmpty
+    }
+
+    "fail with a CommunicationException on malformed JSON" in new Ctx {
+      await(StreamingJson.readResults[JsonNode](aChunkedResponse("""{"results":[{"id":"a"},""")) { collect }) must
+        throwA[CommunicationException]
+    }
+  }
+
+  "read" should {
+    "bind the whole response" in {
+      val decoded = await(StreamingJson.read[JsonNode](aChunkedResponse("""{"id":"a","items":[1,2,3]}""")))
+
+      decoded.value.get("items").size must be_===(3)
+    }
+
+    "bind orders, menus and restaurant info to what the SDK's Json serializes them from" in {
+      val order = await(StreamingJson.read[Order](aChunkedResponse(Json.stringify(anOrder("1"))))).value
+      val menu = await(StreamingJson.read[Menu](aChunkedResponse(Json.stringify(aMenu())))).value
+      val full = await(StreamingJson.read[RestaurantFullInfo](aChunkedResponse(Json.stringify(aRestaurantInfo())))).value
+
+      treeOf(order) must be_===(treeOf(anOrder("1")))
+      order.created must be_===(new Date(1500000000123L))
+      treeOf(menu) must be_===(treeOf(aMenu()))
+      treeOf(full) must be_===(treeOf(aRestaurantInfo()))
+    }
+  }
+
+  "readResults" should {
+    "bind each order to what the SDK's Json serializes it from" in {
+      val orders = Seq(anOrder("1"), anOrder("2"))
+      val json = s"""{"results":[${orders.map { Json.stringify(_) }.mkString(",")}]}"""
+      val received = mutable.Buffer.empty[Order]
+
+      await(StreamingJson.readResults[Order](aChunkedResponse(json)) { received += _ })
+      received.map(treeOf) must be_===(orders.map(treeOf))
+    }
+  }
+}
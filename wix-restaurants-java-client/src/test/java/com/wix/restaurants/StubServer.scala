@@ -0,0 +1,55 @@
+package com.wix.restaurants
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+
+import akka.actor.ActorSystem
+import akka.http.scaladsl.Http
+import akka.http.scaladsl.model._
+import akka.pattern.after
+import akka.stream.Materializer
+
+import scala.concurrent.duration._
+import scala.concurrent.{Await, ExecutionContext, Future}
+
+/**
+ * Local HTTP server for tests, that answers with scripted faults and delays.
+ *
+ * Each request is answered by the next scripted reply, or by the default reply once the script runs out.
+ */
+class StubServer(defaultReply: StubServer.Reply = StubServer.Reply())
+                (implicit system: ActorSystem, materializer: Materializer, executionContext: ExecutionContext) {
+  private val script = new ConcurrentLinkedQueue[StubServer.Reply]()
+  private val received = new AtomicInteger()
+
+  private val binding = Await.result(Http().bindAndHandleAsync(handle, "127.0.0.1", 0), 5.seconds)
+
+  val url: String = s"http://127.0.0.1:${binding.localAddress.getPort}"
+
+  /** Queues replies for the next requests. */
+  def reply(replies: StubServer.Reply*): Unit = replies.foreach { script.add }
+
+  /** @return the number of requests received so far. */
+  def requests: Int = received.get
+
+  def close(): Unit = Await.result(binding.unbind(), 5.seconds)
+
+  private def handle(request: HttpRequest): Future[HttpResponse] = {
+    received.incrementAndGet()
+    request.discardEntityBytes()
+    val theReply = Option(script.poll()).getOrElse(defaultReply)
+    val response = HttpResponse(status = theReply.status, entity = HttpEntity(ContentTypes.`application/json`, theReply.body))
+    if (theReply.delay > Duration.Zero) after(theReply.delay, system.scheduler)(Future.successful(response)) else Future.successful(response)
+  }
+}
+
+object StubServer {
+  case class Reply(status: Int = 200, body: String = "{}", delay: FiniteDuration = Duration.Zero)
+
+  def ok(body: String, delay: FiniteDuration = Duration.Zero): Reply = Reply(body = body, delay = delay)
+  def unavailable: Reply = error(503, Errors.TemporarilyUnavailable)
+  def internalError: Reply = error(500, Errors.Internal)
+  def notFound: Reply = error(404, Errors.NotFound)
+
+  private def error(status: Int, `type`: String): Reply = Reply(status, s"""{"type":"${`type`}","detail":"stubbed"}""")
+}
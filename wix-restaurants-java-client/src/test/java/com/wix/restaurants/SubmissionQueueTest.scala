@@ -0,0 +1,348 @@
+package com.wix.restaurants
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataOutputStream, IOException}
+import java.nio.file.{Files, Path}
+import java.util.concurrent.{CompletableFuture, CompletionStage, ConcurrentLinkedQueue, TimeUnit}
+import java.util.zip.CRC32
+
+import com.openrest.v1_1.Order
+import com.wix.restaurants.SubmissionJournal.{Entry, Kind}
+import com.wix.restaurants.exceptions.InvalidDataException
+import com.wix.restaurants.reservations.Reservation
+import com.wix.restaurants.submissions.{SubmissionListener, SubmissionQueueSettings}
+import com.wix.restaurants.transport.{HttpTransport, TransportRequest, TransportResponse}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration._
+import scala.concurrent.{Await, Future, blocking}
+
+class SubmissionQueueTest extends SpecWithJUnit with AfterAll {
+  private val runtime = new WixRestaurantsRuntime()
+
+  override def afterAll(): Unit = runtime.close()
+
+  private def await[T](stage: CompletionStage[T]): T = {
+    try {
+      stage.toCompletableFuture.get(5, TimeUnit.SECONDS)
+    } catch {
+      case e: java.util.concurrent.ExecutionException => throw e.getCause
+    }
+  }
+
+  private def anOrder(restaurantId: String = "123"): Order = {
+    val order = new Order
+    order.restaurantId = restaurantId
+    order.comment = "Please ring the bell"
+    order
+  }
+
+  private def aReservation(restaurantId: String = "123"): Reservation = {
+    val reservation = new Reservation
+    reservation.restaurantId = restaurantId
+    reservation.partySize = 4
+    reservation
+  }
+
+  private def response(status: Int, body: String): CompletionStage[TransportResponse] = {
+    val bytes = body.getBytes("UTF-8")
+    CompletableFuture.completedFuture(new TransportResponse(status, Map("content-type" -> "application/json").asJava,
+      bytes.length.toLong, new ByteArrayInputStream(bytes)))
+  }
+
+  private def problem(status: Int, `type`: String): CompletionStage[TransportResponse] = {
+    response(status, s"""{"type":"${`type`}","detail":"stubbed"}""")
+  }
+
+  /**
+   * Echoes submitted JSON back, unless down (fails with an IOException), holding responses, or scripted otherwise.
+   * Records requests.
+   */
+  class FakeTransport extends HttpTransport {
+    val requests = new ConcurrentLinkedQueue[TransportRequest]()
+    val script = new ConcurrentLinkedQueue[() => CompletionStage[TransportResponse]]()
+    val held = new ConcurrentLinkedQueue[CompletableFuture[TransportResponse]]()
+    @volatile var down = false
+    @volatile var holding = false
+
+    override def send(request: TransportRequest): CompletionStage[TransportResponse] = {
+      requests.add(request)
+      Option(script.poll()).map { _() }.getOrElse {
+        if (down) {
+          val failed = new CompletableFuture[TransportResponse]()
+          failed.completeExceptionally(new IOException("down"))
+          failed
+        } else if (holding) {
+          val future = new CompletableFuture[TransportResponse]()
+          held.add(future)
+          future.thenCompose(_ => response(200, new String(request.body, "UTF-8")))
+        } else {
+          response(200, new String(request.body, "UTF-8"))
+        }
+      }
+    }
+
+    def release(): Unit = Iterator.continually(held.poll()).takeWhile { _ != null }.foreach { _.complete(null) }
+
+    def idempotencyKeys: List[String] = requests.asScala.toList.map { _.header("Idempotency-Key") }
+
+    override def close(): Unit = {}
+  }
+
+  /** Records every outcome, as "order|reservation|failed:{idempotency key}". */
+  class RecordingListener extends SubmissionListener {
+    val outcomes = new ConcurrentLinkedQueue[String]()
+
+    override def onOrderSubmitted(idempotencyKey: String, order: Order): Unit = outcomes.add(s"order:$idempotencyKey")
+
+    override def onReservationSubmitted(idempotencyKey: String, reservation: Reservation): Unit =
+      outcomes.add(s"reservation:$idempotencyKey")
+
+    override def onFailed(idempotencyKey: String, error: Throwable): Unit = outcomes.add(s"failed:$idempotencyKey")
+
+    def toSet: Set[String] = outcomes.asScala.toSet
+  }
+
+  trait Ctx extends Scope {
+    val directory: Path = Files.createTempDirectory("submission-queue-test")
+    val journal: Path = directory.resolve("submissions.journal")
+    val transport = new FakeTransport
+    val listener = new RecordingListener
+
+    def settings: SubmissionQueueSettings = SubmissionQueueSettings(journal, initialBackoff = 10.millis,
+      maxBackoff = 50.millis, listener = listener)
+
+    /** A new client over the same journal, as after a restart. */
+    def aClient(): DefaultAsyncWixRestaurantsClient = new DefaultAsyncWixRestaurantsClient(
+      apiUrl = "https://api.example.org/v2", runtime = runtime, transport = transport, submissionQueueSettings = settings)
+
+    def filesInDirectory: Seq[String] = Files.list(directory).iterator.asScala.map { _.getFileName.toString }.toSeq
+  }
+
+  "a submission queue" should {
+    "submit orders and reservations in the background, with idempotency keys" in new Ctx {
+      val client = aClient()
+      val queue = client.getSubmissionQueue
+      val order = queue.submitOrder("some-token", anOrder())
+      val reservation = queue.submitReservation("some-token", aReservation())
+
+      await(order.result).comment must be_===("Please ring the bell")
+      await(reservation.result).partySize must be_===(4)
+      transport.idempotencyKeys.toSet must be_===(Set(order.idempotencyKey, reservation.idempotencyKey))
+      transport.requests.asScala.map { _.header("Authorization") }.toSet must be_===(Set("Bearer some-token"))
+      transport.requests.asScala.map { _.uri }.toSet must be_===(Set(
+        "https://api.example.org/v2/organizations/123/orders", "https://api.example.org/v2/organizations/123/reservations"))
+      listener.toSet must eventually(be_===(Set(s"order:${order.idempotencyKey}", s"reservation:${reservation.idempotencyKey}")))
+
+      val stats = queue.getStats
+      stats.depth must be_===(0)
+      stats.sent must be_===(2L)
+      stats.journalSize must be_===(8L) // Just the header
+      client.close()
+    }
+
+    "retry transient failures, with the same idempotency key" in new Ctx {
+      transport.script.add(() => problem(503, Errors.TemporarilyUnavailable))
+      transport.script.add(() => problem(500, Errors.Internal))
+      val client = aClient()
+      val queue = client.getSubmissionQueue
+      val submission = queue.submitOrder("some-token", anOrder())
+
+      await(submission.result).restaurantId must be_===("123")
+      transport.idempotencyKeys must be_===(List.fill(3)(submission.idempotencyKey))
+      queue.getStats.retries must be_===(2L)
+      client.close()
+    }
+
+    "drop submissions that fail with a non-transient error" in new Ctx {
+      transport.script.add(() => problem(400, Errors.InvalidData))
+      val client = aClient()
+      val submission = client.getSubmissionQueue.submitOrder("some-token", anOrder())
+
+      await(submission.result) must throwA[InvalidDataException]
+      listener.toSet must eventually(be_===(Set(s"failed:${submission.idempotencyKey}")))
+      client.getSubmissionQueue.getStats.failed must be_===(1L)
+      client.getSubmissionQueue.getStats.depth must be_===(0)
+      client.close()
+    }
+
+    "drop submissions still failing after maxAge" in new Ctx {
+      override def settings: SubmissionQueueSettings = super.settings.withMaxAge(200.millis)
+
+      transport.down = true
+      val client = aClient()
+      val submission = client.getSubmissionQueue.submitOrder("some-token", anOrder())
+
+      await(submission.result) must throwAn[IOException]
+      client.getSubmissionQueue.getStats.retries must beGreaterThan(0L)
+      client.getSubmissionQueue.getStats.depth must be_===(0)
+      client.close()
+    }
+
+    "send submissions journaled before a restart, with tokens from accessTokens" in new Ctx {
+      override def settings: SubmissionQueueSettings = super.settings.withAccessTokens(restaurantId => s"token-of-$restaurantId")
+
+      transport.down = true
+      val client = aClient()
+      val order = client.getSubmissionQueue.submitOrder("some-token", anOrder())
+      val reservation = client.getSubmissionQueue.submitReservation(null, aReservation())
+      client.getSubmissionQueue.getStats.depth must be_===(2)
+      client.getSubmissionQueue.getStats.oldestAgeMillis must beGreaterThanOrEqualTo(0L)
+      client.close()
+
+      transport.down = false
+      transport.requests.clear()
+      val restartedClient = aClient()
+      listener.toSet must eventually(be_===(Set(s"order:${order.idempotencyKey}", s"reservation:${reservation.idempotencyKey}")))
+      transport.idempotencyKeys.toSet must be_===(Set(order.idempotencyKey, reservation.idempotencyKey))
+      transport.requests.asScala.map { request => request.uri.split('/').last -> request.header("Authorization") }.toMap must
+        be_===(Map("orders" -> "Bearer token-of-123", "reservations" -> null))
+      restartedClient.getSubmissionQueue.getStats.depth must eventually(be_===(0))
+      restartedClient.close()
+
+      filesInDirectory must be_===(Seq("submissions.journal"))
+    }
+
+    "keep submissions made with a token pending after a restart, until there are accessTokens" in new Ctx {
+      transport.down = true
+      val client = aClient()
+      val order = client.getSubmissionQueue.submitOrder("some-token", anOrder())
+      val reservation = client.getSubmissionQueue.submitReservation(null, aReservation())
+      client.close()
+
+      transport.down = false
+      transport.requests.clear()
+      val restartedClient = aClient()
+      listener.toSet must eventually(be_===(Set(s"reservation:${reservation.idempotencyKey}")))
+      restartedClient.getSubmissionQueue.getStats.depth must eventually(be_===(1))
+      transport.idempotencyKeys must be_===(List(reservation.idempotencyKey))
+      restartedClient.close()
+
+      new String(Files.readAllBytes(journal), "UTF-8") must not(contain("some-token"))
+    }
+
+    "journal submissions made concurrently" in new Ctx {
+      transport.down = true
+      val client = aClient()
+      val submitters = (1 to 8).map { _ =>
+        Future {
+          blocking { (1 to 10).map { _ => client.getSubmissionQueue.submitOrder("some-token", anOrder()).idempotencyKey } }
+        }
+      }
+      val keys = Await.result(Future.sequence(submitters), 10.seconds).flatten
+      client.getSubmissionQueue.getStats.depth must be_===(80)
+      client.close()
+
+      val journaledKeys = new SubmissionJournal(journal).restored.map { _.idempotencyKey }
+      journaledKeys.toSet must be_===(keys.toSet)
+      journaledKeys.size must be_===(80)
+    }
+
+    "send up to concurrency submissions at a time" in new Ctx {
+      override def settings: SubmissionQueueSettings = super.settings.withConcurrency(2)
+
+      transport.holding = true
+      val client = aClient()
+      val submissions = (1 to 5).map { _ => client.getSubmissionQueue.submitOrder("some-token", anOrder()) }
+
+      transport.requests.size must eventually(be_===(2))
+      client.getSubmissionQueue.getStats.inFlight must be_===(2)
+      client.getSubmissionQueue.getStats.depth must be_===(5)
+
+      transport.holding = false
+      transport.release()
+      submissions.map { submission => await(submission.result).restaurantId } must be_===(Seq.fill(5)("123"))
+      transport.requests.size must be_===(5)
+      client.close()
+    }
+
+    "keep a single pending submission per idempotency key" in new Ctx {
+      transport.down = true
+      val client = aClient()
+      val first = client.getSubmissionQueue.submitOrder("some-token", anOrder(), "checkout-1")
+      val second = client.getSubmissionQueue.submitOrder("some-token", anOrder(), "checkout-1")
+
+      second.idempotencyKey must be_===(first.idempotencyKey)
+      client.getSubmissionQueue.getStats.depth must be_===(1)
+      client.getSubmissionQueue.submitReservation("some-token", aReservation(), "checkout-1") must
+        throwAn[IllegalArgumentException]
+      client.close()
+    }
+  }
+
+  "a submission journal" should {
+    def anEntry(idempotencyKey: String): Entry =
+      Entry(idempotencyKey, Kind.Order, "123", authenticated = true, """{"restaurantId":"123"}""", 1500000000000L)
+
+    "restore pending submissions, without completed ones" in new Ctx {
+      val first = new SubmissionJournal(journal)
+      first.append(anEntry("a"))
+      first.append(anEntry("b"))
+      first.append(anEntry("c"))
+      first.complete("b", pendingCount = 2)(Seq(anEntry("a"), anEntry("c")))
+      first.close()
+
+      new SubmissionJournal(journal).restored must be_===(Seq(anEntry("a"), anEntry("c")))
+    }
+
+    "restore submissions appended together" in new Ctx {
+      val first = new SubmissionJournal(journal)
+      first.append(anEntry("a"), anEntry("b"), anEntry("c"))
+      first.close()
+
+      new SubmissionJournal(journal).restored must be_===(Seq(anEntry("a"), anEntry("b"), anEntry("c")))
+    }
+
+    "drop a torn record" in new Ctx {
+      val first = new SubmissionJournal(journal)
+      first.append(anEntry("a"))
+      first.append(anEntry("b"))
+      first.close()
+      val bytes = Files.readAllBytes(journal)
+      Files.write(journal, bytes.take(bytes.length - 3))
+
+      val second = new SubmissionJournal(journal)
+      second.restored must be_===(Seq(anEntry("a")))
+      second.append(anEntry("c"))
+      second.close()
+
+      new SubmissionJournal(journal).restored must be_===(Seq(anEntry("a"), anEntry("c")))
+    }
+
+    "read version 1 journals, dropping their access tokens" in new Ctx {
+      val payload = new ByteArrayOutputStream()
+      val record = new DataOutputStream(payload)
+      def writeString(string: String): Unit = {
+        record.writeInt(string.length)
+        record.writeBytes(string)
+      }
+      record.writeByte(1)
+      writeString("a")
+      record.writeByte(Kind.Order.id)
+      record.writeLong(1500000000000L)
+      Seq("123", "some-token", """{"restaurantId":"123"}""").foreach(writeString)
+      val crc = new CRC32
+      crc.update(payload.toByteArray)
+
+      val bytes = new ByteArrayOutputStream()
+      val out = new DataOutputStream(bytes)
+      out.writeInt(SubmissionJournal.magic)
+      out.writeInt(1)
+      out.writeInt(payload.size)
+      out.writeInt(crc.getValue.toInt)
+      out.write(payload.toByteArray)
+      Files.write(journal, bytes.toByteArray)
+
+      new SubmissionJournal(journal).restored must be_===(Seq(anEntry("a")))
+      new String(Files.readAllBytes(journal), "UTF-8") must not(contain("some-token"))
+    }
+
+    "refuse files that aren't journals" in new Ctx {
+      Files.write(journal, "not a journal".getBytes("UTF-8"))
+
+      new SubmissionJournal(journal) must throwAn[IOException]
+    }
+  }
+}
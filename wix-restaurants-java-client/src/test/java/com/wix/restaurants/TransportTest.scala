@@ -0,0 +1,120 @@
+package com.wix.restaurants
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream}
+import java.util.concurrent.{CompletableFuture, CompletionStage, ConcurrentLinkedQueue, TimeUnit}
+import java.util.zip.GZIPOutputStream
+
+import com.openrest.v1_1.Menu
+import com.wix.restaurants.exceptions.{InternalException, NotFoundException}
+import com.wix.restaurants.transport.{HttpTransport, TransportRequest, TransportResponse}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+
+class TransportTest extends SpecWithJUnit with AfterAll {
+  private val runtime = new WixRestaurantsRuntime()
+
+  override def afterAll(): Unit = runtime.close()
+
+  private def await[T](stage: CompletionStage[T]): T = {
+    try {
+      stage.toCompletableFuture.get(5, TimeUnit.SECONDS)
+    } catch {
+      case e: java.util.concurrent.ExecutionException => throw e.getCause
+    }
+  }
+
+  /** Answers every request with the given status, headers and body, and records the requests. */
+  class RecordingTransport(status: Int, headers: Map[String, String], body: Array[Byte]) extends HttpTransport {
+    val requests = new ConcurrentLinkedQueue[TransportRequest]()
+
+    override def send(request: TransportRequest): CompletionStage[TransportResponse] = {
+      requests.add(request)
+      CompletableFuture.completedFuture(
+        new TransportResponse(status, headers.asJava, body.length.toLong, new ByteArrayInputStream(body)))
+    }
+
+    override def close(): Unit = {}
+  }
+
+  trait Ctx extends Scope {
+    def status: Int = 200
+    def headers: Map[String, String] = Map("content-type" -> "application/json")
+    def body: Array[Byte] = """{"items":[],"sections":[]}""".getBytes("UTF-8")
+
+    lazy val transport = new RecordingTransport(status, headers, body)
+    lazy val client = new DefaultAsyncWixRestaurantsClient(apiUrl = "https://api.example.org/v2", runtime = runtime,
+      transport = transport)
+  }
+
+  "a client with a transport" should {
+    "send its requests through it, and bind the responses" in new Ctx {
+      await(client.setMenu("token", "123", new Menu)).items.size must be_===(0)
+
+      transport.requests.size must be_===(1)
+      val request = transport.requests.peek
+      (request.method, request.uri) must be_===(("PUT", "https://api.example.org/v2/organizations/123/menu"))
+      request.header("authorization") must be_===("Bearer token")
+      request.header("content-type") must not(beNull)
+      request.body must not(beNull)
+    }
+
+    "read and drop the bodies of calls without a result" in new Ctx {
+      await(client.deleteOrganization("token", "123")) must beNull
+
+      transport.requests.peek.body must beNull
+    }
+
+    "decompress gzipped responses" in new Ctx {
+      override def headers: Map[String, String] = super.headers + ("content-encoding" -> "gzip")
+      override def body: Array[Byte] = {
+        val out = new ByteArrayOutputStream()
+        val gzip = new GZIPOutputStream(out)
+        gzip.write(super.body)
+        gzip.close()
+        out.toByteArray
+      }
+
+      await(client.getMenu("token", "123")).items.size must be_===(0)
+    }
+
+    "translate error responses" in new Ctx {
+      override def status: Int = 404
+      override def body: Array[Byte] = s"""{"type":"${Errors.NotFound}","detail":"no such menu"}""".getBytes("UTF-8")
+
+      await(client.getMenu("token", "123")) must throwA[NotFoundException](message = "no such menu")
+    }
+
+    "fail by the status on error responses that aren't RFC 7807 problems" in new Ctx {
+      override def status: Int = 502
+      override def body: Array[Byte] = "<html>Bad Gateway</html>".getBytes("UTF-8")
+
+      await(client.getMenu("token", "123")) must throwA[InternalException]
+    }
+
+    "unwrap failures of derived stages" in new Ctx {
+      override lazy val transport = new RecordingTransport(status, headers, body) {
+        override def send(request: TransportRequest): CompletionStage[TransportResponse] = {
+          val failed = new CompletableFuture[TransportResponse]()
+          failed.completeExceptionally(new java.net.ConnectException("refused"))
+          failed.thenApply[TransportResponse] { response => response }
+        }
+      }
+
+      await(client.getMenu("token", "123")) must throwA[java.net.ConnectException]
+    }
+
+    "not start the runtime's actor system" in new Ctx {
+      val otherRuntime = new WixRestaurantsRuntime()
+      try {
+        val otherClient = new DefaultAsyncWixRestaurantsClient(runtime = otherRuntime, transport = transport)
+        await(otherClient.getMenu("token", "123"))
+
+        otherRuntime.isStarted must beFalse
+      } finally {
+        otherRuntime.close()
+      }
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.wix.restaurants.cache
+
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+class LruResponseCacheTest extends SpecWithJUnit {
+  private val organizationId = "some-organization-id"
+  private val otherOrganizationId = "some-other-organization-id"
+
+  private def aResponse(organizationId: String = organizationId, size: Long = 10): CachedResponse = {
+    new CachedResponse(organizationId, "some-value", "some-etag", null, size, 0L)
+  }
+
+  trait Ctx extends Scope {
+    val cache = new LruResponseCache(100)
+  }
+
+  "get" should {
+    "return null for unknown keys" in new Ctx {
+      cache.get("some-key") must beNull
+    }
+
+    "return what was put" in new Ctx {
+      val response = aResponse()
+      cache.put("some-key", response)
+
+      cache.get("some-key") must be(response)
+    }
+
+    "return the latest response for a key" in new Ctx {
+      val response = aResponse()
+      cache.put("some-key", aResponse())
+      cache.put("some-key", response)
+
+      cache.get("some-key") must be(response)
+      cache.size must_=== 10
+    }
+  }
+
+  "put" should {
+    "evict least recently used responses when full" in new Ctx {
+      cache.put("key1", aResponse(size = 40))
+      cache.put("key2", aResponse(size = 40))
+      cache.get("key1")
+      cache.put("key3", aResponse(size = 40))
+
+      cache.get("key1") must not(beNull)
+      cache.get("key2") must beNull
+      cache.get("key3") must not(beNull)
+      cache.size must_=== 80
+    }
+
+    "not store responses larger than the cache" in new Ctx {
+      cache.put("key1", aResponse(size = 40))
+      cache.put("key2", aResponse(size = 101))
+
+      cache.get("key1") must not(beNull)
+      cache.get("key2") must beNull
+    }
+  }
+
+  "invalidate" should {
+    "drop only the organization's responses" in new Ctx {
+      cache.put("key1", aResponse(organizationId = organizationId))
+      cache.put("key2", aResponse(organizationId = otherOrganizationId))
+      cache.invalidate(organizationId)
+
+      cache.get("key1") must beNull
+      cache.get("key2") must not(beNull)
+      cache.count must_=== 1
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.wix.restaurants.helpers
+
+import com.openrest.v1_1.{Item, Menu, MenuSection, Variation}
+import com.wix.restaurants.i18n.{Locale, LocalizedString}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.collection.JavaConverters._
+
+class LocalizedMenuViewTest extends SpecWithJUnit {
+  private val english = Locale.fromJavaLocale(java.util.Locale.US)
+  private val french = Locale.fromJavaLocale(java.util.Locale.FRANCE)
+  private val german = Locale.fromJavaLocale(java.util.Locale.GERMANY)
+
+  private def localized(translations: (Locale, String)*): LocalizedString = {
+    val localizedString = new LocalizedString
+    translations.foreach { case (locale, text) => localizedString.put(locale, text) }
+    localizedString
+  }
+
+  trait Ctx extends Scope {
+    val menu = new Menu
+    val burger = new Item
+    burger.id = "burger"
+    burger.title = localized(english -> "Burger", french -> "Hamburger")
+    burger.description = localized(english -> "With fries")
+    val toppings = new Variation
+    toppings.title = localized(english -> "Toppings", french -> "Garnitures")
+    toppings.itemIds = List("cheese").asJava
+    burger.variations = List(toppings).asJava
+    val cheese = new Item
+    cheese.id = "cheese"
+    cheese.title = localized(french -> "Fromage")
+    menu.items = List(burger, cheese).asJava
+
+    val mains = new MenuSection
+    mains.id = "mains"
+    mains.title = localized(english -> "Mains", french -> "Plats")
+    mains.itemIds = List("burger").asJava
+    menu.sections = List(mains).asJava
+
+    val index = new MenuIndex(menu)
+  }
+
+  "LocalizedMenuView" should {
+    "localize like Localizer, by ordinal" in new Ctx {
+      val view = new LocalizedMenuView(index, english, french)
+      val localizer = new Localizer(english, french)
+
+      view.itemTitle(index.ordinalOf("burger")) must be_===("Hamburger")
+      view.itemDescription(index.ordinalOf("burger")) must be_===(localizer.localize(burger.description))
+      view.variationTitle(index.ordinalOf("burger"), 0) must be_===("Garnitures")
+      view.itemTitle(index.choiceItem(index.ordinalOf("burger"), 0, 0)) must be_===("Fromage")
+      view.sectionTitle(index.sectionOrdinalOf("mains")) must be_===("Plats")
+    }
+
+    "resolve missing translations to the default locale, or to an empty string" in new Ctx {
+      val view = new LocalizedMenuView(index, english, german)
+
+      view.itemTitle(index.ordinalOf("burger")) must be_===("Burger")
+      view.itemTitle(index.ordinalOf("cheese")) must be_===("")
+      view.sectionDescription(index.sectionOrdinalOf("mains")) must be_===("")
+    }
+  }
+
+  "LocalizedMenuViews" should {
+    "cache views per menu version and locale, sharing the index" in new Ctx {
+      val views = new LocalizedMenuViews(1000)
+      val frenchView = views.get("v1", menu, english, french)
+
+      views.get("v1", menu, english, french) must be(frenchView)
+      views.get("v1", menu, english, german).index must be(frenchView.index)
+      views.get("v2", menu, english, french) must not(be(frenchView))
+      views.count must be_===(3)
+    }
+
+    "cache views per default locale too" in new Ctx {
+      val views = new LocalizedMenuViews(1000)
+      views.get("v1", menu, english, german).itemTitle(index.ordinalOf("burger")) must be_===("Burger")
+
+      views.get("v1", menu, french, german).itemTitle(index.ordinalOf("burger")) must be_===("Hamburger")
+      views.count must be_===(2)
+    }
+
+    "evict least recently used views to stay within the bound" in new Ctx {
+      val size = new LocalizedMenuView(index, english, french).stringCount
+      val views = new LocalizedMenuViews(2 * size)
+      val v1 = views.get("v1", menu, english, french)
+      views.get("v2", menu, english, french)
+      views.get("v1", menu, english, french)
+      views.get("v3", menu, english, french)
+
+      views.count must be_===(2)
+      views.size must be_===(2L * size)
+      views.get("v1", menu, english, french) must be(v1)
+    }
+
+    "forget invalidated versions" in new Ctx {
+      val views = new LocalizedMenuViews(1000)
+      val v1 = views.get("v1", menu, english, french)
+      views.invalidate("v1")
+
+      views.count must be_===(0)
+      views.get("v1", menu, english, french) must not(be(v1))
+    }
+  }
+}
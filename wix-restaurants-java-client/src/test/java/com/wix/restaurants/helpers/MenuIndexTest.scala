@@ -0,0 +1,108 @@
+package com.wix.restaurants.helpers
+
+import com.openrest.v1_1.{Item, Menu, MenuSection, Variation}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.collection.JavaConverters._
+
+class MenuIndexTest extends SpecWithJUnit {
+  private def item(id: String, price: Int, variations: Variation*): Item = {
+    val item = new Item
+    item.id = id
+    item.price = price
+    item.variations = variations.asJava
+    item
+  }
+
+  private def variation(prices: (String, Integer)*)(itemIds: String*): Variation = {
+    val variation = new Variation
+    variation.itemIds = itemIds.asJava
+    variation.prices = prices.toMap.asJava
+    variation
+  }
+
+  private def section(id: String, itemIds: String*)(children: MenuSection*): MenuSection = {
+    val section = new MenuSection
+    section.id = id
+    section.itemIds = itemIds.asJava
+    section.children = children.asJava
+    section
+  }
+
+  trait Ctx extends Scope {
+    val menu = new Menu
+    menu.items = List(
+      item("burger", 1000,
+        variation("cheese" -> Integer.valueOf(200))("cheese", "bacon"),
+        variation()("fries", "missing")),
+      item("cheese", 150),
+      item("bacon", 300),
+      item("fries", 500)
+    ).asJava
+    menu.sections = List(
+      section("mains", "burger")(section("sides", "fries", "missing")()),
+      section("extras", "cheese", "bacon")()
+    ).asJava
+
+    val index = new MenuIndex(menu)
+  }
+
+  "items" should {
+    "be assigned ordinals in menu order" in new Ctx {
+      index.size must be_===(4)
+      menu.items.asScala.map { i => index.ordinalOf(i.id) }.toList must be_===(List(0, 1, 2, 3))
+      index.item(2) must be(menu.items.get(2))
+      index.price(index.ordinalOf("bacon")) must be_===(300)
+    }
+
+    "report unknown ids" in new Ctx {
+      index.ordinalOf("missing") must be_===(MenuIndex.NONE)
+      index.getItem("missing") must beNull
+    }
+  }
+
+  "variations" should {
+    "resolve choices to ordinals and prices" in new Ctx {
+      val burger = index.ordinalOf("burger")
+      index.variationCount(burger) must be_===(2)
+      index.variationCount(index.ordinalOf("fries")) must be_===(0)
+
+      index.choiceCount(burger, 0) must be_===(2)
+      index.choiceItem(burger, 0, 1) must be_===(index.ordinalOf("bacon"))
+      index.choicePrice(burger, 0, 0) must be_===(200)
+      index.choicePrice(burger, 0, 1) must be_===(0)
+      index.choiceItem(burger, 1, 1) must be_===(MenuIndex.NONE)
+    }
+
+    "look up choice prices by id" in new Ctx {
+      val burger = index.ordinalOf("burger")
+      index.choicePrice(burger, 0, "cheese") must be_===(200)
+      index.choicePrice(burger, 0, "bacon") must be_===(0)
+      index.choicePrice(burger, 0, "fries") must be_===(MenuIndex.NONE)
+      index.choicePrice(burger, 1, "missing") must be_===(MenuIndex.NONE)
+    }
+
+    "reject out of range indices" in new Ctx {
+      index.choiceCount(index.ordinalOf("burger"), 2) must throwA[IndexOutOfBoundsException]
+      index.choicePrice(index.ordinalOf("burger"), 0, 2) must throwA[IndexOutOfBoundsException]
+    }
+  }
+
+  "sections" should {
+    "be flattened depth-first, with their items and children" in new Ctx {
+      index.sectionCount must be_===(3)
+      (0 until index.topLevelSectionCount).map { i => index.section(index.topLevelSection(i)).id }.toList must be_===(List("mains", "extras"))
+
+      val mains = index.sectionOrdinalOf("mains")
+      index.sectionItemCount(mains) must be_===(1)
+      index.sectionItem(mains, 0) must be_===(index.ordinalOf("burger"))
+      index.sectionChildCount(mains) must be_===(1)
+
+      val sides = index.sectionChild(mains, 0)
+      index.section(sides).id must be_===("sides")
+      index.sectionItem(sides, 0) must be_===(index.ordinalOf("fries"))
+      index.sectionItem(sides, 1) must be_===(MenuIndex.NONE)
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.wix.restaurants.helpers
+
+import java.util
+
+import com.openrest.v1_1.OrderItem
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.collection.JavaConverters._
+import scala.util.Random
+
+class PriceCalculatorTest extends SpecWithJUnit {
+  private def orderItem(price: Int, count: Int, variationsChoices: Seq[OrderItem]*): OrderItem =
+    linkedOrderItem(price, count, linked = false, variationsChoices: _*)
+
+  private def linkedOrderItem(price: Int, count: Int, linked: Boolean, variationsChoices: Seq[OrderItem]*): OrderItem = {
+    def list[T](items: Seq[T]): util.List[T] = if (linked) new util.LinkedList(items.asJava) else new util.ArrayList(items.asJava)
+
+    val orderItem = new OrderItem
+    orderItem.price = price
+    orderItem.count = count
+    orderItem.variationsChoices = list(variationsChoices.map { list(_) })
+    orderItem
+  }
+
+  private def randomOrderItem(random: Random, depth: Int): OrderItem = {
+    val numVariations = if (depth == 0) 0 else random.nextInt(3)
+    linkedOrderItem(
+      price = random.nextInt(100000) - 1000,
+      count = 1 + random.nextInt(20),
+      linked = random.nextBoolean(),
+      variationsChoices = (1 to numVariations).map { _ => (1 to random.nextInt(4)).map { _ => randomOrderItem(random, depth - 1) } }: _*)
+  }
+
+  trait Ctx extends Scope {
+    val calculator = new PriceCalculator
+  }
+
+  "priceInCents" should {
+    "price items with nested choices" in new Ctx {
+      val burger = orderItem(1000, 2, Seq(orderItem(150, 1), orderItem(0, 3, Seq(orderItem(25, 2)))), Seq())
+
+      calculator.priceInCents(burger) must be_===(2 * (1000 + 150 + 3 * 2 * 25))
+      calculator.priceInCents(List(burger, orderItem(99, 1)).asJava) must be_===(calculator.priceInCents(burger) + 99)
+    }
+
+    "agree with price on random orders" in new Ctx {
+      val random = new Random(12345)
+      val orders = (1 to 1000).map { _ => (1 to 1 + random.nextInt(10)).map { _ => randomOrderItem(random, 3) }.asJava }
+
+      orders.map { o => java.math.BigDecimal.valueOf(calculator.priceInCents(o)).movePointLeft(2).doubleValue } must
+        be_===(orders.map { o => calculator.price(o) })
+    }
+
+    "report overflow" in new Ctx {
+      val huge = orderItem(Int.MaxValue, Int.MaxValue)
+
+      calculator.priceInCents(huge) must be_===(Int.MaxValue.toLong * Int.MaxValue)
+      calculator.priceInCents(orderItem(0, 3, Seq(huge))) must throwA[ArithmeticException]
+      calculator.priceInCents(List(huge, huge, huge).asJava) must throwA[ArithmeticException]
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.wix.restaurants.menus
+
+import com.openrest.v1_1.{Item, Menu, MenuSection, Variation}
+import com.wix.restaurants.i18n.Locale
+import com.wix.restaurants.menus.MenuDiff.{Aspect, Type}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.Scope
+
+import scala.collection.JavaConverters._
+
+class MenuDiffTest extends SpecWithJUnit {
+  private val english = Locale.fromJavaLocale(java.util.Locale.US)
+
+  private def item(id: String, price: Int, variations: Variation*): Item = {
+    val item = new Item
+    item.id = id
+    item.price = price
+    item.title.put(english, id.capitalize)
+    item.variations = new java.util.ArrayList(variations.asJava)
+    item
+  }
+
+  private def variation(itemIds: String*): Variation = {
+    val variation = new Variation
+    variation.itemIds = new java.util.ArrayList(itemIds.asJava)
+    variation
+  }
+
+  private def section(id: String, itemIds: String*)(children: MenuSection*): MenuSection = {
+    val section = new MenuSection
+    section.id = id
+    section.itemIds = new java.util.ArrayList(itemIds.asJava)
+    section.children = new java.util.ArrayList(children.asJava)
+    section
+  }
+
+  private def changes(changes: java.util.List[MenuDiff.Change]): List[(Type, String, Set[Aspect])] =
+    changes.asScala.map { c => (c.`type`, c.id, c.aspects.asScala.toSet) }.toList
+
+  trait Ctx extends Scope {
+    def aMenu: Menu = {
+      val menu = new Menu
+      menu.items = new java.util.ArrayList(List(
+        item("burger", 1000, variation("cheese", "bacon")),
+        item("cheese", 150),
+        item("bacon", 300)
+      ).asJava)
+      menu.sections = new java.util.ArrayList(List(
+        section("mains", "burger")(section("extras", "cheese", "bacon")())
+      ).asJava)
+      menu
+    }
+
+    val before = aMenu
+    val after = aMenu
+  }
+
+  "between" should {
+    "find nothing between identical menus" in new Ctx {
+      MenuDiff.between(before, after).isEmpty must beTrue
+    }
+
+    "report added and removed items and sections" in new Ctx {
+      after.items.remove(2)
+      after.items.add(item("fries", 500))
+      after.sections.add(section("sides", "fries")())
+
+      val diff = MenuDiff.between(before, after)
+      changes(diff.items) must be_===(List((Type.ADDED, "fries", Set.empty), (Type.REMOVED, "bacon", Set.empty)))
+      changes(diff.sections) must be_===(List((Type.ADDED, "sides", Set.empty)))
+    }
+
+    "classify item changes" in new Ctx {
+      after.items.get(0).price = 1100
+      after.items.get(0).variations.get(0).prices.put("cheese", 50)
+      after.items.get(1).variations.add(variation("bacon"))
+      after.items.get(2).title.put(english, "Crispy bacon")
+
+      changes(MenuDiff.between(before, after).items) must be_===(List(
+        (Type.CHANGED, "burger", Set(Aspect.PRICE)),
+        (Type.CHANGED, "cheese", Set(Aspect.VARIATIONS)),
+        (Type.CHANGED, "bacon", Set(Aspect.CONTENT))))
+    }
+
+    "ignore the order of map entries" in new Ctx {
+      before.items.get(0).variations.get(0).prices.put("cheese", 50)
+      before.items.get(0).variations.get(0).prices.put("bacon", 100)
+      after.items.get(0).variations.get(0).prices = new java.util.LinkedHashMap[String, Integer]()
+      after.items.get(0).variations.get(0).prices.put("bacon", 100)
+      after.items.get(0).variations.get(0).prices.put("cheese", 50)
+
+      MenuDiff.between(before, after).isEmpty must beTrue
+    }
+
+    "report a section's own changes, not its children's" in new Ctx {
+      after.sections.get(0).children.get(0).itemIds.remove("bacon")
+
+      changes(MenuDiff.between(before, after).sections) must be_===(List((Type.CHANGED, "extras", Set(Aspect.ITEMS))))
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.wix.restaurants.orders
+
+import java.util.Date
+
+import com.fasterxml.jackson.databind.{DeserializationFeature, ObjectMapper}
+import com.openrest.olo.dispatches.Dispatch
+import com.openrest.v1_1.{Contact, Order, OrderItem}
+import com.wix.restaurants.payments.Payment
+import org.specs2.mutable.SpecWithJUnit
+
+class OrderSummaryTest extends SpecWithJUnit {
+  private val mapper = new ObjectMapper()
+    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+
+  private def fieldsOf(summary: OrderSummary): Seq[Any] = Seq(summary.id, summary.restaurantId, summary.status,
+    summary.created, summary.modified, summary.price, summary.currency, summary.dispatchType,
+    summary.contactFirstName, summary.contactLastName)
+
+  private def anOrder(): Order = {
+    val order = new Order
+    order.id = "order-1"
+    order.restaurantId = "restaurant-1"
+    order.status = Statuses.new_
+    order.created = new Date(1500000000000L)
+    order.modified = new Date(1500000060000L)
+    order.price = 4250
+    order.currency = "USD"
+    order.delivery = new Dispatch
+    order.delivery.`type` = "delivery"
+    order.delivery.charge = 500
+    order.contact = new Contact
+    order.contact.firstName = "Jane"
+    order.contact.lastName = "Doe"
+    order.contact.phone = "+1 555 0100"
+
+    val orderItem = new OrderItem
+    orderItem.itemId = "item-1"
+    orderItem.price = 1200
+    orderItem.count = 2
+    val choice = new OrderItem
+    choice.itemId = "extra-1"
+    orderItem.variationsChoices.add(java.util.Arrays.asList(choice))
+    order.orderItems.add(orderItem)
+
+    val payment = new Payment
+    payment.`type` = "cash"
+    payment.amount = 4250
+    order.payments.add(payment)
+    order.properties.put("id", "not-the-order-id")
+    order
+  }
+
+  private def summarize(json: String): OrderSummary = mapper.readValue(json, classOf[OrderSummary])
+
+  "an order summary" should {
+    "bind the same fields as full binding" in {
+      val order = anOrder()
+      val json = mapper.writeValueAsString(order)
+
+      fieldsOf(summarize(json)) must be_===(fieldsOf(OrderSummary.of(mapper.readValue(json, classOf[Order]))))
+      fieldsOf(summarize(json)) must be_===(Seq("order-1", "restaurant-1", Statuses.new_,
+        new Date(1500000000000L), new Date(1500000060000L), 4250, "USD", "delivery", "Jane", "Doe"))
+    }
+
+    "skip other fields, wherever they appear and however deeply nested" in {
+      val summary = summarize(
+        """{"orderItems":[{"id":"x","contact":{"firstName":"X"}}],"id":"order-1","properties":{"price":1},
+          |"contact":{"phones":[{"type":"x"}],"lastName":"Doe","address":{"firstName":"X"}},
+          |"delivery":{"address":{"type":"x"},"type":"takeout"},"price":100}""".stripMargin)
+
+      fieldsOf(summary) must be_===(Seq("order-1", null, null, null, null, 100, null, "takeout", null, "Doe"))
+    }
+
+    "accept nulls and missing objects" in {
+      val summary = summarize("""{"id":"order-1","status":null,"created":null,"delivery":null,"contact":null}""")
+
+      fieldsOf(summary) must be_===(Seq("order-1", null, null, null, null, null, null, null, null, null))
+      OrderSummary.of(new Order).dispatchType must beNull
+      OrderSummary.of(new Order).contactFirstName must beNull
+    }
+
+    "accept a null price" in {
+      summarize("""{"price":null}""").price must beNull
+    }
+
+    "parse dates like full binding" in {
+      val summary = summarize("""{"created":"2017-07-14T02:40:00.000+0000","modified":1500000060000}""")
+
+      summary.created must be_===(new Date(1500000000000L))
+      summary.modified must be_===(new Date(1500000060000L))
+    }
+
+    "bind lists of orders" in {
+      val json = mapper.writeValueAsString(java.util.Arrays.asList(anOrder(), anOrder()))
+
+      mapper.readValue(json, classOf[Array[OrderSummary]]).map { _.id }.toSeq must be_===(Seq("order-1", "order-1"))
+    }
+
+    "reject JSON that isn't an order" in {
+      summarize("""["order-1"]""") must throwA[com.fasterxml.jackson.databind.JsonMappingException]
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.wix.restaurants.examples;
+
+import com.openrest.v1_1.Order;
+import com.wix.restaurants.DefaultWixRestaurantsClient;
+import com.wix.restaurants.WixRestaurantsClient;
+import com.wix.restaurants.authentication.WixRestaurantsAuthenticationClient;
+import com.wix.restaurants.reservations.Reservation;
+import com.wix.restaurants.reservations.Statuses;
+import scala.concurrent.duration.Duration;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Demonstrates the "Customer History" flow.
+ * 1) Login with a Wix Instance to get an access token
+ * 2) Stream all of a customer's orders, totalling their price
+ * 3) Find the customer's first canceled reservation, without fetching the rest
+ *
+ * Pages are fetched as the streams are consumed, so a customer's full history is never held in memory at once.
+ *
+ * @see <a href="http://www.thetestaurant.com">The Testaurant</a>
+ */
+public class CustomerHistoryExample {
+    private final WixRestaurantsClient wixRestaurants;
+
+    public CustomerHistoryExample(WixRestaurantsClient wixRestaurants) {
+        this.wixRestaurants = wixRestaurants;
+    }
+
+    public void runExample() {
+        final String restaurantId = "8830975305376234"; // "The Testaurant"
+        final String phone = "+12024561111";
+
+        // Placeholder value that will fail authentication. Use a real value in your live setting.
+        final String wixInstance = "XXX";
+
+        // 1. Login with Wix Instance to get an access token
+        System.out.print("Authenticating...");
+        final WixRestaurantsAuthenticationClient authentication = wixRestaurants.getAuthenticationClient();
+        final String accessToken = authentication.loginWithWixInstance(wixInstance).accessToken;
+        System.out.println(" done (accessToken: " + accessToken + ").");
+
+        // 2. Stream all orders
+        try (Stream<Order> orders = wixRestaurants.streamOrdersByPhone(accessToken, restaurantId, phone, null)) {
+            final int total = orders.mapToInt(order -> order.price).sum();
+            System.out.println("Total spent: " + total);
+        }
+
+        // 3. Find the first canceled reservation (closing the stream stops fetching further pages)
+        try (Stream<Reservation> reservations = wixRestaurants.streamReservationsByPhone(accessToken, restaurantId, phone, null)) {
+            final Optional<Reservation> canceled = reservations
+                    .filter(reservation -> Statuses.canceled.equals(reservation.status))
+                    .findFirst();
+            System.out.println("First canceled reservation: " + canceled.map(reservation -> reservation.id).orElse("none"));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (WixRestaurantsClient wixRestaurants = new DefaultWixRestaurantsClient(
+                "https://api.wixrestaurants.com/v2",
+                "https://auth.wixrestaurants.com/v2",
+                Duration.Inf())) {
+            new CustomerHistoryExample(wixRestaurants).runExample();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.wix.restaurants.examples;
+
+import com.openrest.v1_1.Order;
+import com.wix.restaurants.DefaultWixRestaurantsClient;
+import com.wix.restaurants.WixRestaurantsClient;
+import com.wix.restaurants.authentication.WixRestaurantsAuthenticationClient;
+import com.wix.restaurants.feeds.CursorStore;
+import com.wix.restaurants.feeds.FeedCursor;
+import com.wix.restaurants.feeds.FeedEvent;
+import com.wix.restaurants.feeds.FeedListener;
+import com.wix.restaurants.feeds.OrderFeed;
+import scala.concurrent.duration.Duration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Demonstrates the "Order Feed" flow.
+ * 1) Login with a Wix Instance to get an access token
+ * 2) Subscribe to the restaurant's order feed, with the cursor persisted to a local file
+ * 3) Poll every few seconds, printing new orders and status changes
+ *
+ * The first run delivers the orders that are new when it starts, then the orders created or modified from then on.
+ * Restarting the example resumes from the saved cursor.
+ *
+ * @see <a href="http://www.thetestaurant.com">The Testaurant</a>
+ */
+public class OrderFeedExample {
+    private final WixRestaurantsClient wixRestaurants;
+
+    public OrderFeedExample(WixRestaurantsClient wixRestaurants) {
+        this.wixRestaurants = wixRestaurants;
+    }
+
+    public void runExample() throws InterruptedException {
+        final String restaurantId = "8830975305376234"; // "The Testaurant"
+
+        // Placeholder value that will fail authentication. Use a real value in your live setting.
+        final String wixInstance = "XXX";
+
+        // 1. Login with Wix Instance to get an access token
+        System.out.print("Authenticating...");
+        final WixRestaurantsAuthenticationClient authentication = wixRestaurants.getAuthenticationClient();
+        final String accessToken = authentication.loginWithWixInstance(wixInstance).accessToken;
+        System.out.println(" done (accessToken: " + accessToken + ").");
+
+        // 2. Subscribe to the order feed
+        try (OrderFeed feed = wixRestaurants.orderFeed(accessToken, restaurantId, new FileCursorStore(Paths.get("feed-cursors")))) {
+            feed.addListener(new FeedListener<Order>() {
+                @Override
+                public void onEvent(FeedEvent<Order> event) {
+                    switch (event.type) {
+                        case CREATED:
+                            System.out.println("New order " + event.item.id + " (" + event.item.status + ")");
+                            break;
+                        case STATUS_CHANGED:
+                            System.out.println("Order " + event.item.id + ": " + event.previousStatus + " -> " + event.item.status);
+                            break;
+                        default:
+                            System.out.println("Order " + event.item.id + " modified");
+                    }
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    System.out.println("Poll failed: " + error);
+                }
+            });
+
+            // 3. Poll every 5 seconds, for a minute
+            feed.start(5, TimeUnit.SECONDS);
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        }
+    }
+
+    /** Keeps each feed's cursor in a file of its own. */
+    private static class FileCursorStore implements CursorStore {
+        private final Path dir;
+
+        FileCursorStore(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        public FeedCursor load(String feedId) {
+            try {
+                final Path file = fileOf(feedId);
+                return Files.exists(file) ? FeedCursor.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)) : null;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void save(String feedId, FeedCursor cursor) {
+            try {
+                Files.createDirectories(dir);
+                Files.write(fileOf(feedId), cursor.serialize().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private Path fileOf(String feedId) {
+            return dir.resolve(feedId.replace('/', '_'));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (WixRestaurantsClient wixRestaurants = new DefaultWixRestaurantsClient(
+                "https://api.wixrestaurants.com/v2",
+                "https://auth.wixrestaurants.com/v2",
+                Duration.Inf())) {
+            new OrderFeedExample(wixRestaurants).runExample();
+        }
+    }
+}
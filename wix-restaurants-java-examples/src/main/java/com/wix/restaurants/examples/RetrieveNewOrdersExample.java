@@ -4,10 +4,12 @@ import com.openrest.v1_1.Order;
 import com.wix.restaurants.DefaultWixRestaurantsClient;
 import com.wix.restaurants.WixRestaurantsClient;
 import com.wix.restaurants.authentication.WixRestaurantsAuthenticationClient;
+import com.wix.restaurants.bulk.BulkResult;
 import com.wix.restaurants.exceptions.NoPermissionException;
 import scala.concurrent.duration.Duration;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -50,14 +52,25 @@ public class RetrieveNewOrdersExample {
         }
 
         // 3. Mark orders as accepted
+        final Map<String, Map<String, String>> externalIdsByOrderId = new LinkedHashMap<>();
         for (Order newOrder : newOrders) {
             // A common use-case is to submit orders to an external system, e.g. point-of-sale. If that's the case,
             // users are encouraged to report back the external system's order ID (for reference) via the externalIds
             // argument. Otherwise, an empty map should be used.
             final Map<String, String> externalIds = Collections.singletonMap("org.example.pos", "SOME-POS-ORDER-ID");
 
-            wixRestaurants.acceptOrder(accessToken, restaurantId, newOrder.id, externalIds);
+            externalIdsByOrderId.put(newOrder.id, externalIds);
         }
+
+        // Accepting orders one by one with acceptOrder works too, but takes a round-trip per order
+        System.out.print("Accepting orders...");
+        final Map<String, BulkResult<Order>> results = wixRestaurants.acceptOrders(accessToken, restaurantId, externalIdsByOrderId);
+        for (Map.Entry<String, BulkResult<Order>> result : results.entrySet()) {
+            if (!result.getValue().isSuccess()) {
+                System.out.print(" failed to accept order " + result.getKey() + " (" + result.getValue().error.getMessage() + ")");
+            }
+        }
+        System.out.println(" done.");
     }
 
     public static void main(String[] args) throws Exception {
@@ -0,0 +1,113 @@
+package com.wix.restaurants.examples;
+
+import com.wix.restaurants.DefaultWixRestaurantsClient;
+import com.wix.restaurants.WixRestaurantsClient;
+import com.wix.restaurants.WixRestaurantsRuntime;
+import scala.concurrent.duration.Duration;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the cost of running several clients side by side.
+ * 1) Start N clients, each with its own runtime, and query the test restaurant from each
+ * 2) Start N clients sharing a single runtime, and do the same
+ * 3) Compare startup time, live threads and open sockets
+ *
+ * Open sockets are counted from /proc/self/fd, so that column is only meaningful on Linux.
+ *
+ * Runs against the live API, unless given another API URL and restaurant (e.g. of the testkit's ApiSimulator, see
+ * the benchmarks' RuntimeFootprintBenchmark):
+ * <pre>RuntimeFootprintExample [numClients [apiUrl restaurantId]]</pre>
+ *
+ * @see <a href="http://www.thetestaurant.com">The Testaurant</a>
+ */
+public class RuntimeFootprintExample {
+    private static final String defaultApiUrl = "https://api.wixrestaurants.com/v2";
+    private static final String defaultRestaurantId = "8830975305376234"; // "The Testaurant"
+
+    private final int numClients;
+    private final String apiUrl;
+    private final String restaurantId;
+
+    public RuntimeFootprintExample(int numClients, String apiUrl, String restaurantId) {
+        this.numClients = numClients;
+        this.apiUrl = apiUrl;
+        this.restaurantId = restaurantId;
+    }
+
+    public RuntimeFootprintExample(int numClients) {
+        this(numClients, defaultApiUrl, defaultRestaurantId);
+    }
+
+    public void runExample() throws Exception {
+        System.out.println("Baseline: " + footprint());
+
+        // 1. Private runtime per client
+        measure("Private runtimes", null);
+
+        // 2. One shared runtime
+        try (WixRestaurantsRuntime runtime = new WixRestaurantsRuntime()) {
+            measure("Shared runtime", runtime);
+        }
+    }
+
+    private void measure(String title, WixRestaurantsRuntime runtime) {
+        final long startNanos = System.nanoTime();
+        final List<WixRestaurantsClient> clients = new ArrayList<>(numClients);
+        for (int i = 0; i < numClients; ++i) {
+            clients.add(new DefaultWixRestaurantsClient(
+                    apiUrl,
+                    "https://auth.wixrestaurants.com/v2",
+                    Duration.Inf(),
+                    runtime));
+        }
+        final long startupMillis = (System.nanoTime() - startNanos) / 1000000;
+
+        for (WixRestaurantsClient client : clients) {
+            client.retrieveRestaurantInfo(restaurantId);
+        }
+
+        System.out.println(title + " (" + numClients + " clients, startup " + startupMillis + "ms): " + footprint());
+
+        for (WixRestaurantsClient client : clients) {
+            client.close();
+        }
+    }
+
+    private static String footprint() {
+        return "threads: " + ManagementFactory.getThreadMXBean().getThreadCount() + ", sockets: " + countSockets();
+    }
+
+    private static int countSockets() {
+        final File[] fds = new File("/proc/self/fd").listFiles();
+        if (fds == null) {
+            return -1;
+        }
+
+        int count = 0;
+        for (File fd : fds) {
+            try {
+                if (Files.readSymbolicLink(fd.toPath()).toString().startsWith("socket:")) {
+                    ++count;
+                }
+            } catch (IOException e) {
+                // fd was closed while listing
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int numClients = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        if (args.length > 2) {
+            new RuntimeFootprintExample(numClients, args[1], args[2]).runExample();
+        } else {
+            new RuntimeFootprintExample(numClients).runExample();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.wix.restaurants.transport.jdk;
+
+import com.wix.restaurants.transport.HttpTransport;
+import com.wix.restaurants.transport.TransportRequest;
+import com.wix.restaurants.transport.TransportResponse;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * Sends the clients' requests through a {@link HttpClient}, rather than Akka HTTP.
+ *
+ * With this transport (and without retries, limits or bulk calls, which need the actor system) a client never starts
+ * its runtime's actor system, which makes for a much faster start and a smaller footprint; see
+ * TransportStartupBenchmark.
+ *
+ * The HttpClient's executor runs its internal tasks and response callbacks, while the client reads response bodies on
+ * its runtime's dispatcher. On Java 21+, an executor of virtual threads (Executors.newVirtualThreadPerTaskExecutor())
+ * keeps the number of platform threads down.
+ */
+public class JdkHttpTransport implements HttpTransport {
+    /** Headers that HttpClient sets itself, and doesn't let callers set. */
+    private static final Set<String> restrictedHeaders = new HashSet<>(Arrays.asList(
+            "connection", "content-length", "expect", "host", "upgrade"));
+    private static final Duration defaultConnectTimeout = Duration.ofSeconds(10);
+    private static final Duration defaultRequestTimeout = Duration.ofSeconds(60);
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+
+    /**
+     * @param client         Client to send through, e.g. one built with a proxy, SSL context or executor.
+     * @param requestTimeout How long to wait for a response's status and headers, or null to wait indefinitely.
+     */
+    public JdkHttpTransport(HttpClient client, Duration requestTimeout) {
+        this.client = client;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /** @param executor Runs the HttpClient's tasks, e.g. Executors.newVirtualThreadPerTaskExecutor() on Java 21+. */
+    public JdkHttpTransport(Executor executor) {
+        this(defaultClientBuilder().executor(executor).build(), defaultRequestTimeout);
+    }
+
+    /** Sends through a HttpClient of its own, with a default (cached) thread pool. */
+    public JdkHttpTransport() {
+        this(defaultClientBuilder().build(), defaultRequestTimeout);
+    }
+
+    /** @return a builder for the client that the convenience constructors use: no redirects, 10 seconds to connect. */
+    public static HttpClient.Builder defaultClientBuilder() {
+        return HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(defaultConnectTimeout);
+    }
+
+    @Override
+    public CompletionStage<TransportResponse> send(TransportRequest request) {
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.uri))
+                .method(request.method, (request.body != null) ?
+                        HttpRequest.BodyPublishers.ofByteArray(request.body) : HttpRequest.BodyPublishers.noBody());
+        if (requestTimeout != null) {
+            builder.timeout(requestTimeout);
+        }
+        for (Map.Entry<String, String> header : request.headers.entrySet()) {
+            if (!restrictedHeaders.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+                builder.header(header.getKey(), header.getValue());
+            }
+        }
+
+        return client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(JdkHttpTransport::responseOf);
+    }
+
+    private static TransportResponse responseOf(HttpResponse<InputStream> response) {
+        final Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            if (!header.getValue().isEmpty()) {
+                headers.putIfAbsent(header.getKey().toLowerCase(Locale.ROOT), header.getValue().get(0));
+            }
+        }
+        final long contentLength = response.headers().firstValueAsLong("content-length").orElse(-1L);
+        return new TransportResponse(response.statusCode(), headers, contentLength, response.body());
+    }
+
+    /** Nothing to close: the HttpClient's connections and threads go away with it, and executors belong to the caller. */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,95 @@
+package com.wix.restaurants.transport.jdk
+
+import java.util.concurrent.{CompletionStage, TimeUnit}
+
+import com.wix.restaurants.compression.CompressionSettings
+import com.wix.restaurants.exceptions.{NoPermissionException, NotFoundException}
+import com.wix.restaurants.orders.{Statuses => OrderStatuses}
+import com.wix.restaurants.testkit.{ApiSimulator, SimulatorSettings}
+import com.wix.restaurants.{DefaultAsyncWixRestaurantsClient, WixRestaurantsRuntime}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+
+class JdkHttpTransportTest extends SpecWithJUnit with AfterAll {
+  sequential
+
+  private val simulator = new ApiSimulator(SimulatorSettings(restaurants = 2, menuItems = 40,
+    ordersPerRestaurant = 30, reservationsPerRestaurant = 5))
+  private val restaurantId = simulator.getRestaurantIds.get(0)
+  private val accessToken = simulator.getAccessToken(restaurantId)
+
+  override def afterAll(): Unit = simulator.close()
+
+  private def await[T](stage: CompletionStage[T]): T = {
+    try {
+      stage.toCompletableFuture.get(10, TimeUnit.SECONDS)
+    } catch {
+      case e: java.util.concurrent.ExecutionException => throw e.getCause
+    }
+  }
+
+  trait Ctx extends Scope {
+    def compressionSettings: CompressionSettings = null
+
+    val runtime = new WixRestaurantsRuntime()
+    val transport = new JdkHttpTransport()
+    lazy val client = new DefaultAsyncWixRestaurantsClient(apiUrl = simulator.url, runtime = runtime,
+      compressionSettings = compressionSettings, transport = transport)
+
+    def closing[T](result: => T): T = {
+      try {
+        result
+      } finally {
+        client.close()
+        transport.close()
+        runtime.close()
+      }
+    }
+  }
+
+  "a client over the JDK transport" should {
+    "read organizations, menus and lists" in new Ctx {
+      closing {
+        await(client.retrieveRestaurantInfo(restaurantId)).menu.items.size must be_===(40)
+        await(client.getMenuWithLocationIdAsGzip(accessToken, restaurantId, null)).items.size must be_===(40)
+        await(client.retrieveOrdersAsRestaurant(accessToken, restaurantId, null, 1000)).size must be_===(30)
+      }
+    }
+
+    "send writes" in new Ctx {
+      closing {
+        val newOrder = await(client.retrieveNewOrders(accessToken, restaurantId)).get(0)
+
+        await(client.acceptOrder(accessToken, restaurantId, newOrder.id, null)).status must be_===(OrderStatuses.accepted)
+      }
+    }
+
+    "negotiate compressed responses" in new Ctx {
+      override def compressionSettings: CompressionSettings = CompressionSettings.defaults
+
+      closing {
+        await(client.retrieveOrdersAsRestaurant(accessToken, restaurantId, null, 1000)).asScala.map { _.id }.toSet must
+          be_===(simulator.getOrderIds(restaurantId).asScala.toSet)
+      }
+    }
+
+    "translate errors" in new Ctx {
+      closing {
+        val otherRestaurantId = simulator.getRestaurantIds.get(1)
+
+        await(client.retrieveRestaurantInfo("no-such-restaurant")) must throwA[NotFoundException]
+        await(client.retrieveOrdersAsRestaurant(accessToken, otherRestaurantId, null, 10)) must throwA[NoPermissionException]
+      }
+    }
+
+    "not start the runtime's actor system" in new Ctx {
+      closing {
+        await(client.retrieveRestaurantInfo(restaurantId))
+
+        runtime.isStarted must beFalse
+      }
+    }
+  }
+}
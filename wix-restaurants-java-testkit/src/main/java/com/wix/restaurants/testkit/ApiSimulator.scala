@@ -0,0 +1,386 @@
+package com.wix.restaurants.testkit
+
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.LongAdder
+import java.util.{Collections, Date, List => JList, Map => JMap}
+
+import akka.actor.ActorSystem
+import akka.http.scaladsl.Http
+import akka.http.scaladsl.coding.{Deflate, Gzip, NoCoding}
+import akka.http.scaladsl.model.HttpMethods.{GET, POST, PUT}
+import akka.http.scaladsl.model._
+import akka.http.scaladsl.model.headers.{`Accept-Encoding`, Authorization, HttpEncodingRange, HttpEncodings, OAuth2BearerToken}
+import akka.pattern.after
+import akka.stream.Materializer
+import com.fasterxml.jackson.core.JsonProcessingException
+import com.fasterxml.jackson.databind.JsonNode
+import com.openrest.v1_1.{Actors, Menu, Order, Organization, Restaurant, RestaurantFullInfo}
+import com.wix.restaurants.authorization.RolesResponse
+import com.wix.restaurants.orders.{Statuses => OrderStatuses}
+import com.wix.restaurants.reservations.{Reservation, Statuses => ReservationStatuses}
+import com.wix.restaurants.testkit.SimulatedData.RestaurantData
+import com.wix.restaurants.{Errors, JsonCodec, WixRestaurantsRuntime, WixRestaurantsRuntimeSettings}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.reflect.ClassTag
+
+/**
+ * In-process HTTP simulator of the Wix Restaurants API, for testing and load-testing integrations without network
+ * access. Point a client at [[url]] instead of https://api.wixrestaurants.com/v2.
+ *
+ * Simulates the endpoints used by DefaultAsyncWixRestaurantsClient's restaurant and order management, and by
+ * DefaultAuthorizationClient: organizations (get, full info, set), menus (get, set), orders and reservations (submit,
+ * get, list and filter, accept with external IDs, cancel) and /me/roles. Anything else is answered with a not-found
+ * error. Errors are RFC 7807 responses, like the real API's. Responses are gzipped for clients that accept it.
+ *
+ * Restaurant-side calls need the access token of one of the simulated restaurants' managers (see [[getAccessToken]]),
+ * or of the simulated admin. Customer-side calls don't check access tokens.
+ *
+ * @param runtime Runtime to share with other clients or simulators, or null to use a private one that is closed with
+ *                this simulator.
+ */
+class ApiSimulator(val settings: SimulatorSettings, runtime: WixRestaurantsRuntime) extends AutoCloseable {
+  import ApiSimulator._
+
+  def this(settings: SimulatorSettings) = this(settings, null)
+  def this() = this(SimulatorSettings())
+
+  private val ownedRuntime: Option[WixRestaurantsRuntime] = Option(runtime) match {
+    case Some(_) => None
+    case None => Some(new WixRestaurantsRuntime(WixRestaurantsRuntimeSettings(
+      name = "akka-wix-restaurants-simulator-system")))
+  }
+  private val theRuntime: WixRestaurantsRuntime = ownedRuntime.getOrElse(runtime)
+
+  private implicit val system: ActorSystem = theRuntime.system
+  private implicit val executionContext: ExecutionContext = theRuntime.executionContext
+  private implicit val materializer: Materializer = theRuntime.materializer
+
+  private val data = new SimulatedData(settings)
+  private val requests = new LongAdder
+  private val injectedErrors = new LongAdder
+
+  private val binding = Await.result(Http().bindAndHandleAsync(handle, "127.0.0.1", 0), bindTimeout)
+
+  /** The simulated API's base URL, to use as a client's apiUrl. */
+  val url: String = s"http://127.0.0.1:${binding.localAddress.getPort}$basePath"
+
+  def getRestaurantIds: JList[String] = data.restaurantIds.asJava
+
+  /** @return the access token of the given restaurant's manager. */
+  def getAccessToken(restaurantId: String): String = data.accessTokenOf(restaurantId)
+
+  /** @return an access token with admin permissions on every restaurant. */
+  def getAdminAccessToken: String = data.adminAccessToken
+
+  /** @return the ids of the restaurant's orders, including ones submitted to the simulator. */
+  def getOrderIds(restaurantId: String): JList[String] = restaurant(restaurantId).ordersList.map { _.id }.sorted.asJava
+
+  /** @return the ids of the restaurant's reservations, including ones submitted to the simulator. */
+  def getReservationIds(restaurantId: String): JList[String] = restaurant(restaurantId).reservationsList.map { _.id }.sorted.asJava
+
+  /** @return the number of requests received so far. */
+  def getRequestCount: Long = requests.sum
+
+  /** @return the number of requests answered with an injected error so far. */
+  def getInjectedErrorCount: Long = injectedErrors.sum
+
+  override def close(): Unit = {
+    Await.result(binding.unbind(), bindTimeout)
+    ownedRuntime.foreach { _.close() }
+  }
+
+  private def handle(request: HttpRequest): Future[HttpResponse] = {
+    requests.increment()
+    decoded(request).entity.toStrict(bodyTimeout).map { entity =>
+      if ((settings.errorRate > 0.0) && (ThreadLocalRandom.current.nextDouble() < settings.errorRate)) {
+        injectedErrors.increment()
+        error(settings.errorType, "Injected by the simulator")
+      } else {
+        respond(request, entity.data.toArray)
+      }
+    }.recover { case e =>
+      error(Errors.InvalidData, s"Failed to read request: ${e.getMessage}")
+    }.map { response =>
+      encoded(request, response)
+    }.flatMap { response =>
+      val delay = settings.latency + randomDelay(settings.latencyJitter)
+      if (delay > Duration.Zero) after(delay, system.scheduler)(Future.successful(response)) else Future.successful(response)
+    }
+  }
+
+  private def respond(request: HttpRequest, body: Array[Byte]): HttpResponse = {
+    try {
+      route(request, body)
+    } catch {
+      case e: SimulatedError => error(e.`type`, e.getMessage)
+      case e: Exception => error(Errors.Internal, e.toString)
+    }
+  }
+
+  private def route(request: HttpRequest, body: Array[Byte]): HttpResponse = {
+    val query = request.uri.query()
+    val accessToken = request.header[Authorization].collect {
+      case Authorization(OAuth2BearerToken(token)) => token
+    }
+    val asRestaurant = query.get("viewMode").contains(Actors.restaurant) || query.get("as").contains(Actors.restaurant)
+
+    (request.method, segmentsOf(request.uri)) match {
+      case (GET, "me" :: "roles" :: Nil) =>
+        val roles = data.rolesOf(accessToken.getOrElse(throw SimulatedError(Errors.Authentication, "Missing access token")))
+          .getOrElse(throw SimulatedError(Errors.Authentication, "Unknown access token"))
+        val response = new RolesResponse
+        response.roles = new java.util.ArrayList(roles.asJava)
+        ok(response)
+
+      case (GET, "organizations" :: restaurantId :: Nil) =>
+        ok(restaurant(restaurantId).organization)
+
+      case (PUT, "organizations" :: restaurantId :: Nil) =>
+        val theRestaurant = managed(restaurantId, accessToken)
+        val organization = parse[Organization](body) match {
+          case theOrganization: Restaurant => theOrganization
+          case _ => throw SimulatedError(Errors.InvalidData, "Only restaurants are simulated")
+        }
+        organization.id = restaurantId
+        organization.modified = new Date
+        theRestaurant.organization = organization
+        ok(organization)
+
+      case (GET, "organizations" :: restaurantId :: "full" :: Nil) =>
+        val theRestaurant = restaurant(restaurantId)
+        val full = new RestaurantFullInfo
+        full.restaurant = theRestaurant.organization
+        full.menu = theRestaurant.menu
+        ok(full)
+
+      case (GET, "organizations" :: restaurantId :: "menu" :: Nil) =>
+        ok(restaurant(restaurantId).menu)
+
+      case (PUT, "organizations" :: restaurantId :: "menu" :: Nil) =>
+        val theRestaurant = managed(restaurantId, accessToken)
+        val menu = parse[Menu](body)
+        menu.modified = new Date
+        theRestaurant.menu = menu
+        ok(menu)
+
+      // Orders
+
+      case (GET, "organizations" :: restaurantId :: "orders" :: Nil) =>
+        val theRestaurant = managed(restaurantId, accessToken)
+        ok(results(listed(theRestaurant.ordersList, query)(_.status, _.created, _.modified, _.contact)))
+
+      case (POST, "organizations" :: restaurantId :: "orders" :: Nil) =>
+        val theRestaurant = restaurant(restaurantId)
+        val order = parse[Order](body)
+        order.id = data.newOrderId(restaurantId)
+        order.restaurantId = restaurantId
+        order.status = OrderStatuses.new_
+        order.created = new Date
+        order.modified = order.created
+        theRestaurant.orders.put(order.id, order)
+        ok(order)
+
+      case (GET, "organizations" :: restaurantId :: "orders" :: orderId :: Nil) =>
+        val theRestaurant = if (asRestaurant) managed(restaurantId, accessToken) else restaurant(restaurantId)
+        ok(found(theRestaurant.orders.get(orderId), s"Order $orderId"))
+
+      case (POST, "organizations" :: restaurantId :: "orders" :: orderId :: action :: Nil) if transitions.contains(action) =>
+        val theRestaurant = managed(restaurantId, accessToken)
+        val order = copyOf(found(theRestaurant.orders.get(orderId), s"Order $orderId"))
+        order.status = transitioned(order.status, action, OrderStatuses.accepted, OrderStatuses.canceled)
+        order.externalIds.putAll(externalIdsOf(body).asJava)
+        order.modified = new Date
+        theRestaurant.orders.put(order.id, order)
+        ok(order)
+
+      // Reservations
+
+      case (GET, "organizations" :: restaurantId :: "reservations" :: Nil) =>
+        val theRestaurant = managed(restaurantId, accessToken)
+        val reservations = if (query.get("unhandled").contains("true")) {
+          theRestaurant.reservationsList.filter { _.status == ReservationStatuses.pending }
+        } else {
+          theRestaurant.reservationsList
+        }
+        ok(results(listed(reservations, query)(_.status, _.created, _.modified, _.contact)))
+
+      case (POST, "organizations" :: restaurantId :: "reservations" :: Nil) =>
+        val theRestaurant = restaurant(restaurantId)
+        val reservation = parse[Reservation](body)
+        reservation.id = data.newReservationId(restaurantId)
+        reservation.restaurantId = restaurantId
+        reservation.status = ReservationStatuses.pending
+        reservation.created = new Date
+        reservation.modified = reservation.created
+        theRestaurant.reservations.put(reservation.id, reservation)
+        ok(reservation)
+
+      case (GET, "organizations" :: restaurantId :: "reservations" :: reservationId :: Nil) =>
+        val theRestaurant = if (asRestaurant) managed(restaurantId, accessToken) else restaurant(restaurantId)
+        ok(found(theRestaurant.reservations.get(reservationId), s"Reservation $reservationId"))
+
+      case (POST, "organizations" :: restaurantId :: "reservations" :: reservationId :: action :: Nil) if transitions.contains(action) =>
+        val theRestaurant = if (asRestaurant) managed(restaurantId, accessToken) else restaurant(restaurantId)
+        val reservation = copyOf(found(theRestaurant.reservations.get(reservationId), s"Reservation $reservationId"))
+        reservation.status = transitioned(reservation.status, action, ReservationStatuses.accepted, ReservationStatuses.canceled)
+        reservation.modified = new Date
+        theRestaurant.reservations.put(reservation.id, reservation)
+        ok(reservation)
+
+      case (method, _) =>
+        throw SimulatedError(Errors.NotFound, s"Not simulated: ${method.value} ${request.uri.path}")
+    }
+  }
+
+  private def restaurant(restaurantId: String): RestaurantData = {
+    data.restaurant(restaurantId).getOrElse(throw SimulatedError(Errors.NotFound, s"Organization $restaurantId"))
+  }
+
+  /** @return the restaurant, if the access token may manage it. */
+  private def managed(restaurantId: String, accessToken: Option[String]): RestaurantData = {
+    val theRestaurant = restaurant(restaurantId)
+    accessToken match {
+      case None => throw SimulatedError(Errors.Authentication, "Missing access token")
+      case Some(token) if !data.mayManage(token, restaurantId) => throw SimulatedError(Errors.Forbidden, s"No permission on $restaurantId")
+      case Some(_) => theRestaurant
+    }
+  }
+}
+
+object ApiSimulator {
+  private val basePath = "/v2"
+  private val bindTimeout = 10.seconds
+  private val bodyTimeout = 10.seconds
+  private val transitions = Set("accept", "cancel")
+
+  private case class SimulatedError(`type`: String, detail: String) extends RuntimeException(detail)
+
+  private def segmentsOf(uri: Uri): List[String] = {
+    uri.path.toString.stripPrefix(basePath).split('/').filter { _.nonEmpty }.toList
+  }
+
+  private def found[T](value: T, what: String): T = {
+    Option(value).getOrElse(throw SimulatedError(Errors.NotFound, s"$what not found"))
+  }
+
+  private def parse[T: ClassTag](body: Array[Byte]): T = {
+    try {
+      JsonCodec.parse[T](body)
+    } catch {
+      case e: JsonProcessingException => throw SimulatedError(Errors.InvalidData, s"Malformed request body: ${e.getOriginalMessage}")
+    }
+  }
+
+  /** The externalIds of an accept request's body (see Acceptance), if any. */
+  private def externalIdsOf(body: Array[Byte]): Map[String, String] = {
+    Option(parse[JsonNode](body)).flatMap { tree => Option(tree.get("externalIds")) }.filter { _.isObject }
+      .map { _.fields.asScala.map { field => field.getKey -> field.getValue.asText }.toMap }
+      .getOrElse(Map.empty)
+  }
+
+  private def copyOf[T](value: T): T = JsonCodec.mapper.convertValue(value, value.getClass).asInstanceOf[T]
+
+  /** Accepting or canceling is idempotent; accepting a canceled order or reservation is a conflict. */
+  private def transitioned(status: String, action: String, accepted: String, canceled: String): String = {
+    (action, status) match {
+      case ("accept", `canceled`) => throw SimulatedError(Errors.Conflict, s"Cannot accept, status is $status")
+      case ("accept", _) => accepted
+      case (_, _) => canceled
+    }
+  }
+
+  /**
+   * Filters, sorts and limits a list like the API does for the status, user, created, modified, order and limit
+   * query parameters, e.g. `?status=new&modified=gte:1500000000000&order=modified:asc&limit=50`. By default, the
+   * newest (by creation) come first.
+   */
+  private def listed[T](items: Seq[T], query: Uri.Query)
+                       (statusOf: T => String, createdOf: T => Date, modifiedOf: T => Date,
+                        contactOf: T => com.openrest.v1_1.Contact): Seq[T] = {
+    val byStatus = query.get("status").fold(items) { status => items.filter { statusOf(_) == status } }
+    val byUser = query.get("user").fold(byStatus) { user =>
+      val id = user.substring(user.indexOf(':') + 1)
+      byStatus.filter { item => Option(contactOf(item)).exists { contact => contact.phone == id || contact.email == id } }
+    }
+    val byTime = Seq("created" -> createdOf, "modified" -> modifiedOf).foldLeft(byUser) { case (remaining, (field, timeOf)) =>
+      query.getAll(field).foldLeft(remaining) { (filtered, condition) =>
+        val Array(op, value) = condition.split(":", 2)
+        val bound = value.toLong
+        filtered.filter { item =>
+          val time = timeOf(item).getTime
+          op match {
+            case "gte" => time >= bound
+            case "gt" => time > bound
+            case "lte" => time <= bound
+            case "lt" => time < bound
+            case _ => throw SimulatedError(Errors.InvalidData, s"Unsupported condition $field=$condition")
+          }
+        }
+      }
+    }
+
+    val (sortField, direction) = query.get("order").map { _.split(":", 2) } match {
+      case Some(Array(field, dir)) => (field, dir)
+      case Some(Array(field)) => (field, "asc")
+      case _ => ("created", "desc")
+    }
+    val timeOf = if (sortField == "modified") modifiedOf else createdOf
+    val sorted = byTime.sortBy { timeOf(_).getTime }
+    val ordered = if (direction == "desc") sorted.reverse else sorted
+
+    ordered.take(query.get("limit").map { _.toInt }.getOrElse(Int.MaxValue))
+  }
+
+  /** The body of list responses. */
+  private def results[T](values: Seq[T]): JMap[String, JList[T]] = Collections.singletonMap("results", values.asJava)
+
+  private def ok(value: Any): HttpResponse = {
+    HttpResponse(entity = HttpEntity(ContentTypes.`application/json`, JsonCodec.mapper.writeValueAsBytes(value)))
+  }
+
+  private def error(`type`: String, detail: String): HttpResponse = {
+    val body = JsonCodec.mapper.createObjectNode()
+      .put("type", `type`)
+      .put("title", `type`.substring(`type`.lastIndexOf('/') + 1))
+      .put("detail", detail)
+    HttpResponse(
+      status = statusOf(`type`),
+      entity = HttpEntity(MediaType.applicationWithFixedCharset("problem+json", HttpCharsets.`UTF-8`),
+        JsonCodec.mapper.writeValueAsBytes(body)))
+  }
+
+  private def statusOf(`type`: String): Int = {
+    `type` match {
+      case Errors.InvalidData => 400
+      case Errors.Authentication => 401
+      case Errors.Forbidden => 403
+      case Errors.NotFound => 404
+      case Errors.Conflict => 409
+      case Errors.TemporarilyUnavailable => 503
+      case _ => 500
+    }
+  }
+
+  private def decoded(request: HttpRequest): HttpRequest = {
+    request.encoding match {
+      case HttpEncodings.gzip => Gzip.decodeMessage(request)
+      case HttpEncodings.deflate => Deflate.decodeMessage(request)
+      case _ => NoCoding.decodeMessage(request)
+    }
+  }
+
+  private def encoded(request: HttpRequest, response: HttpResponse): HttpResponse = {
+    val acceptsGzip = request.header[`Accept-Encoding`].exists { _.encodings.exists {
+      case HttpEncodingRange.One(encoding, qValue) => encoding == HttpEncodings.gzip && qValue > 0
+      case _ => false
+    } }
+    if (acceptsGzip) Gzip.encodeMessage(response) else response
+  }
+
+  private def randomDelay(max: FiniteDuration): FiniteDuration = {
+    if (max > Duration.Zero) ThreadLocalRandom.current.nextLong(max.toNanos).nanos else Duration.Zero
+  }
+}
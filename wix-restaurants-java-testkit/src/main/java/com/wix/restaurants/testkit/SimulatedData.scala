@@ -0,0 +1,187 @@
+package com.wix.restaurants.testkit
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import java.util.{Currency, Date, Random}
+
+import com.openrest.v1_1._
+import com.wix.restaurants.authorization.{Role, Roles}
+import com.wix.restaurants.builders.ContactBuilder
+import com.wix.restaurants.i18n.{Locale, LocalizedString}
+import com.wix.restaurants.orders.builders.{OrderBuilder, OrderItemBuilder}
+import com.wix.restaurants.orders.{Statuses => OrderStatuses}
+import com.wix.restaurants.reservations.builders.ReservationBuilder
+import com.wix.restaurants.reservations.{Reservation, Statuses => ReservationStatuses}
+
+import scala.collection.JavaConverters._
+
+/**
+ * The simulator's state: restaurants, their menus, orders and reservations, and the access tokens that may manage
+ * them. Generated from the settings' seed, then modified by the requests the simulator receives.
+ *
+ * Stored objects are never modified in place (updates replace them), so they can be serialized without locking.
+ */
+private[testkit] class SimulatedData(settings: SimulatorSettings) {
+  import SimulatedData._
+
+  private val random = new Random(settings.seed)
+  private val startMillis = System.currentTimeMillis()
+  private val nextId = new AtomicLong(1000000L)
+
+  val restaurantIds: IndexedSeq[String] = (1 to settings.restaurants).map { r => s"restaurant$r" }
+
+  private val restaurants: Map[String, RestaurantData] = restaurantIds.map { restaurantId =>
+    restaurantId -> generate(restaurantId)
+  }.toMap
+
+  val adminAccessToken: String = "simulated-admin"
+
+  def accessTokenOf(restaurantId: String): String = s"simulated-manager-of-$restaurantId"
+
+  /** @return the access token's roles, or None if it's not a simulated access token. */
+  def rolesOf(accessToken: String): Option[Seq[Role]] = {
+    if (accessToken == adminAccessToken) {
+      Some(Seq(new Role(null, null, Roles.admin)))
+    } else {
+      restaurantIds.find { accessTokenOf(_) == accessToken }.map { restaurantId =>
+        Seq(new Role(restaurantId, Restaurant.TYPE, Roles.manager))
+      }
+    }
+  }
+
+  /** @return whether the access token may act as the given restaurant. */
+  def mayManage(accessToken: String, restaurantId: String): Boolean = {
+    accessToken == adminAccessToken || accessToken == accessTokenOf(restaurantId)
+  }
+
+  def restaurant(restaurantId: String): Option[RestaurantData] = restaurants.get(restaurantId)
+
+  def newOrderId(restaurantId: String): String = s"$restaurantId-order${nextId.incrementAndGet()}"
+
+  def newReservationId(restaurantId: String): String = s"$restaurantId-reservation${nextId.incrementAndGet()}"
+
+  private def generate(restaurantId: String): RestaurantData = {
+    val restaurant = new Restaurant
+    restaurant.id = restaurantId
+    restaurant.chainId = s"chain-of-$restaurantId"
+    restaurant.distributorId = s"distributor-of-$restaurantId"
+    restaurant.locale = locale
+    restaurant.currency = currency.getCurrencyCode
+    restaurant.created = new Date(startMillis - 365L * dayMillis)
+    restaurant.modified = restaurant.created
+
+    val data = new RestaurantData(restaurant, menu(restaurantId))
+    (1 to settings.ordersPerRestaurant).foreach { _ =>
+      val theOrder = order(restaurantId, data.menu)
+      data.orders.put(theOrder.id, theOrder)
+    }
+    (1 to settings.reservationsPerRestaurant).foreach { _ =>
+      val theReservation = reservation(restaurantId)
+      data.reservations.put(theReservation.id, theReservation)
+    }
+    data
+  }
+
+  private def menu(restaurantId: String): Menu = {
+    val menu = new Menu
+    menu.items = new java.util.ArrayList[Item](settings.menuItems)
+    menu.sections = new java.util.ArrayList[MenuSection]()
+    (0 until settings.menuItems).foreach { i =>
+      val item = new Item
+      item.id = s"$restaurantId-item$i"
+      item.restaurantId = restaurantId
+      item.title = localized(s"Item $i")
+      item.description = localized(s"Description of item $i")
+      item.price = 500 + 50 * random.nextInt(60)
+      menu.items.add(item)
+
+      if (i % itemsPerSection == 0) {
+        val section = new MenuSection
+        section.id = s"$restaurantId-section${i / itemsPerSection}"
+        section.title = localized(s"Section ${i / itemsPerSection}")
+        menu.sections.add(section)
+      }
+      menu.sections.get(i / itemsPerSection).itemIds.add(item.id)
+    }
+    menu.modified = new Date(startMillis - dayMillis)
+    menu
+  }
+
+  private def order(restaurantId: String, menu: Menu): Order = {
+    val builder = new OrderBuilder()
+      .setDeveloper(developer)
+      .setRestaurant(restaurantId)
+      .setLocale(locale)
+      .setCurrency(currency)
+      .setContact(contact())
+    (1 to 1 + random.nextInt(5)).foreach { _ =>
+      val item = menu.items.get(random.nextInt(menu.items.size))
+      builder.addItem(new OrderItemBuilder(item).setCount(1 + random.nextInt(3)).build())
+    }
+
+    val order = builder.build()
+    order.id = newOrderId(restaurantId)
+    order.status = randomStatus(OrderStatuses.new_ -> 20, OrderStatuses.accepted -> 60, OrderStatuses.canceled -> 20)
+    order.created = randomPastDate()
+    order.modified = new Date(order.created.getTime + random.nextInt(hourMillis))
+    order
+  }
+
+  private def reservation(restaurantId: String): Reservation = {
+    val created = randomPastDate()
+    val reservation = new ReservationBuilder()
+      .setDeveloper(developer)
+      .setRestaurant(restaurantId)
+      .setLocale(locale)
+      .setContact(contact())
+      .setPartySize(1 + random.nextInt(8))
+      .setTime(new Date(created.getTime + random.nextInt(7) * dayMillis))
+      .setStatus(randomStatus(ReservationStatuses.pending -> 30, ReservationStatuses.accepted -> 50, ReservationStatuses.canceled -> 20))
+      .build()
+    reservation.id = newReservationId(restaurantId)
+    reservation.created = created
+    reservation.modified = new Date(created.getTime + random.nextInt(hourMillis))
+    reservation
+  }
+
+  private def contact(): Contact = {
+    val n = random.nextInt(100000)
+    new ContactBuilder()
+      .setFirstName(s"First$n")
+      .setLastName(s"Last$n")
+      .setEmail(s"customer$n@example.com")
+      .setPhone(f"+1555$n%07d")
+      .build()
+  }
+
+  private def randomStatus(weights: (String, Int)*): String = {
+    var r = random.nextInt(weights.map { _._2 }.sum)
+    weights.find { case (_, weight) => r -= weight; r < 0 }.get._1
+  }
+
+  private def randomPastDate(): Date = new Date(startMillis - (random.nextDouble() * 30 * dayMillis).toLong)
+
+  private def localized(text: String): LocalizedString = {
+    val localizedString = new LocalizedString
+    localizedString.put(locale, text)
+    localizedString
+  }
+}
+
+private[testkit] object SimulatedData {
+  private val itemsPerSection = 25
+  private val dayMillis = 24L * 60 * 60 * 1000
+  private val hourMillis = 60 * 60 * 1000
+  private val developer = "simulator"
+  private val locale = Locale.fromJavaLocale(java.util.Locale.US)
+  private val currency = Currency.getInstance("USD")
+
+  /** One restaurant's state. Updates replace the stored objects, e.g. `orders.put(id, acceptedCopy)`. */
+  class RestaurantData(@volatile var organization: Restaurant, @volatile var menu: Menu) {
+    val orders = new ConcurrentHashMap[String, Order]()
+    val reservations = new ConcurrentHashMap[String, Reservation]()
+
+    def ordersList: Seq[Order] = orders.values.asScala.toSeq
+    def reservationsList: Seq[Reservation] = reservations.values.asScala.toSeq
+  }
+}
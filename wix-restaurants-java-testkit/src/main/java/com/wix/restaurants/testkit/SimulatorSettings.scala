@@ -0,0 +1,46 @@
+package com.wix.restaurants.testkit
+
+import com.wix.restaurants.Errors
+
+import scala.concurrent.duration._
+
+/**
+ * Data volume, latency and faults of an [[ApiSimulator]].
+ *
+ * Data: the simulator starts with the given number of restaurants, each with a menu of menuItems items, and
+ * ordersPerRestaurant orders and reservationsPerRestaurant reservations in assorted statuses. Generated data only
+ * depends on the seed (timestamps are relative to the simulator's start), so two simulators with the same settings
+ * serve the same data.
+ *
+ * Latency: every response is delayed by latency, plus a random delay between 0 and latencyJitter.
+ *
+ * Faults: a random errorRate fraction of the requests is answered with an RFC 7807 error of type errorType (by
+ * default 503 temporarily unavailable), regardless of the endpoint.
+ */
+case class SimulatorSettings(restaurants: Int = 10,
+                             menuItems: Int = 100,
+                             ordersPerRestaurant: Int = 100,
+                             reservationsPerRestaurant: Int = 20,
+                             latency: FiniteDuration = Duration.Zero,
+                             latencyJitter: FiniteDuration = Duration.Zero,
+                             errorRate: Double = 0.0,
+                             errorType: String = Errors.TemporarilyUnavailable,
+                             seed: Long = 0L) {
+  require(restaurants > 0, s"restaurants must be positive, got $restaurants")
+  require(menuItems > 0, s"menuItems must be positive, got $menuItems")
+  require(ordersPerRestaurant >= 0, s"ordersPerRestaurant must not be negative, got $ordersPerRestaurant")
+  require(reservationsPerRestaurant >= 0, s"reservationsPerRestaurant must not be negative, got $reservationsPerRestaurant")
+  require(errorRate >= 0.0 && errorRate <= 1.0, s"errorRate must be between 0 and 1, got $errorRate")
+
+  def withData(restaurants: Int, menuItems: Int, ordersPerRestaurant: Int, reservationsPerRestaurant: Int): SimulatorSettings =
+    copy(restaurants = restaurants, menuItems = menuItems,
+      ordersPerRestaurant = ordersPerRestaurant, reservationsPerRestaurant = reservationsPerRestaurant)
+  def withLatency(latency: FiniteDuration, jitter: FiniteDuration): SimulatorSettings = copy(latency = latency, latencyJitter = jitter)
+  def withErrors(errorRate: Double, errorType: String): SimulatorSettings = copy(errorRate = errorRate, errorType = errorType)
+  def withSeed(seed: Long): SimulatorSettings = copy(seed = seed)
+}
+
+object SimulatorSettings {
+  /** Java-friendly access to the default settings. */
+  def defaults: SimulatorSettings = SimulatorSettings()
+}
@@ -0,0 +1,135 @@
+package com.wix.restaurants.testkit
+
+import java.util.concurrent.{CompletionStage, TimeUnit}
+
+import com.wix.restaurants.exceptions.{NoPermissionException, NotFoundException, TemporarilyUnavailableException}
+import com.wix.restaurants.orders.{OrderSummary, Statuses => OrderStatuses}
+import com.wix.restaurants.reservations.{Statuses => ReservationStatuses}
+import com.wix.restaurants.{DefaultAsyncWixRestaurantsClient, WixRestaurantsRuntime}
+import org.specs2.mutable.SpecWithJUnit
+import org.specs2.specification.{AfterAll, Scope}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+
+class ApiSimulatorTest extends SpecWithJUnit with AfterAll {
+  sequential
+
+  private val runtime = new WixRestaurantsRuntime()
+
+  override def afterAll(): Unit = runtime.close()
+
+  private def await[T](stage: CompletionStage[T]): T = {
+    try {
+      stage.toCompletableFuture.get(10, TimeUnit.SECONDS)
+    } catch {
+      case e: java.util.concurrent.ExecutionException => throw e.getCause
+    }
+  }
+
+  trait Ctx extends Scope {
+    def settings: SimulatorSettings = SimulatorSettings(restaurants = 3, menuItems = 40,
+      ordersPerRestaurant = 50, reservationsPerRestaurant = 10)
+
+    lazy val simulator = new ApiSimulator(settings, runtime)
+    lazy val client = new DefaultAsyncWixRestaurantsClient(apiUrl = simulator.url, runtime = runtime)
+    lazy val restaurantId: String = simulator.getRestaurantIds.get(0)
+    lazy val accessToken: String = simulator.getAccessToken(restaurantId)
+
+    def closing[T](result: => T): T = try result finally simulator.close()
+  }
+
+  "simulator" should {
+    "serve the generated restaurants and menus" in new Ctx {
+      closing {
+        val full = await(client.retrieveRestaurantInfo(restaurantId))
+
+        full.restaurant.id must be_===(restaurantId)
+        full.menu.items.size must be_===(40)
+        await(client.getMenuWithLocationIdAsGzip(accessToken, restaurantId, null)).items.size must be_===(40)
+      }
+    }
+
+    "list and filter orders and reservations" in new Ctx {
+      closing {
+        val orders = await(client.retrieveOrdersAsRestaurant(accessToken, restaurantId, null, 1000)).asScala
+        val newOrders = await(client.retrieveNewOrders(accessToken, restaurantId)).asScala
+        val unhandled = await(client.retrieveUnhandledReservations(accessToken, restaurantId)).asScala
+
+        orders.map { _.id }.toSet must be_===(simulator.getOrderIds(restaurantId).asScala.toSet)
+        newOrders.map { _.status }.toSet must be_===(Set(OrderStatuses.new_))
+        newOrders.size must be_<(orders.size)
+        unhandled.map { _.status }.toSet must be_===(Set(ReservationStatuses.pending))
+        await(client.retrieveOrdersAsRestaurant(accessToken, restaurantId, null, 5)).size must be_===(5)
+      }
+    }
+
+    "summarize the same orders" in new Ctx {
+      def fieldsOf(summary: OrderSummary): Seq[Any] = Seq(summary.id, summary.status, summary.created,
+        summary.modified, summary.price, summary.dispatchType, summary.contactFirstName, summary.contactLastName)
+
+      closing {
+        val orders = await(client.retrieveOrdersAsRestaurant(accessToken, restaurantId, null, 1000)).asScala
+        val summaries = await(client.retrieveOrderSummariesAsRestaurant(accessToken, restaurantId, null, 1000)).asScala
+
+        summaries.map(fieldsOf) must be_===(orders.map { order => fieldsOf(OrderSummary.of(order)) })
+        await(client.retrieveNewOrderSummaries(accessToken, restaurantId)).asScala.map { _.status }.toSet must
+          be_===(Set(OrderStatuses.new_))
+      }
+    }
+
+    "accept orders with the external IDs given for each" in new Ctx {
+      closing {
+        val newOrderIds = await(client.retrieveNewOrders(accessToken, restaurantId)).asScala.map { _.id }.take(3)
+        val externalIdsByOrderId = newOrderIds.map { id => id -> Map("org.example.pos" -> s"POS-$id").asJava }.toMap
+
+        val results = await(client.acceptOrders(accessToken, restaurantId, externalIdsByOrderId.asJava)).asScala
+
+        results.values.map { _.value.status }.toSet must be_===(Set(OrderStatuses.accepted))
+        newOrderIds.map { id => await(client.retrieveOrderAsRestaurant(accessToken, restaurantId, id)).externalIds.asScala } must
+          be_===(newOrderIds.map { id => Map("org.example.pos" -> s"POS-$id") })
+      }
+    }
+
+    "serve the same data for the same seed" in new Ctx {
+      closing {
+        val other = new ApiSimulator(settings, runtime)
+        try {
+          other.getOrderIds(restaurantId) must be_===(simulator.getOrderIds(restaurantId))
+        } finally {
+          other.close()
+        }
+      }
+    }
+
+    "answer with RFC 7807 errors" in new Ctx {
+      closing {
+        val otherRestaurantId = simulator.getRestaurantIds.get(1)
+
+        await(client.retrieveRestaurantInfo("no-such-restaurant")) must throwA[NotFoundException]
+        await(client.retrieveOrdersAsRestaurant(accessToken, otherRestaurantId, null, 10)) must throwA[NoPermissionException]
+        await(client.retrieveOrdersAsRestaurant(simulator.getAdminAccessToken, otherRestaurantId, null, 10)).size must be_===(10)
+      }
+    }
+
+    "inject errors" in new Ctx {
+      override def settings: SimulatorSettings = super.settings.withErrors(1.0, com.wix.restaurants.Errors.TemporarilyUnavailable)
+
+      closing {
+        await(client.retrieveRestaurantInfo(restaurantId)) must throwA[TemporarilyUnavailableException]
+        simulator.getInjectedErrorCount must be_===(1L)
+      }
+    }
+
+    "delay responses" in new Ctx {
+      override def settings: SimulatorSettings = super.settings.withLatency(100.millis, 20.millis)
+
+      closing {
+        val startNanos = System.nanoTime()
+        await(client.retrieveRestaurantInfo(restaurantId))
+
+        (System.nanoTime() - startNanos).nanos must be_>=(100.millis)
+      }
+    }
+  }
+}